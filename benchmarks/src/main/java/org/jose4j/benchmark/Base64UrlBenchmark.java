@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmark;
+
+import org.jose4j.base64url.Base64Url;
+import org.jose4j.base64url.Base64UrlCodec;
+import org.jose4j.base64url.internal.apache.commons.codec.binary.Base64;
+import org.jose4j.lang.ByteUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64url encoding and decoding via {@link Base64Url} and the {@link Base64UrlCodec} it uses, with the
+ * bundled Apache commons codec (which {@link Base64Url} used to wrap) for comparison. The sizes roughly
+ * correspond to a MAC or content encryption key, a signature and a typical payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base64UrlBenchmark
+{
+    @Param({"32", "256", "1024", "16384"})
+    public int size;
+
+    private byte[] bytes;
+
+    private String encoded;
+
+    private byte[] destination;
+
+    @Setup
+    public void setup()
+    {
+        bytes = ByteUtil.randomBytes(size);
+        encoded = Base64Url.encode(bytes);
+        destination = new byte[size];
+    }
+
+    @Benchmark
+    public String encode()
+    {
+        return Base64Url.encode(bytes);
+    }
+
+    @Benchmark
+    public byte[] decode()
+    {
+        return Base64Url.decode(encoded);
+    }
+
+    @Benchmark
+    public int decodeIntoArray()
+    {
+        return Base64UrlCodec.decode(encoded, 0, encoded.length(), destination, 0);
+    }
+
+    @Benchmark
+    public String encodeApacheCodec()
+    {
+        return new Base64(-1, null, true).encodeToString(bytes);
+    }
+
+    @Benchmark
+    public byte[] decodeApacheCodec()
+    {
+        return new Base64(-1, null, true).decode(encoded);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmark;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+
+import java.security.Security;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared setup for the benchmarks.
+ */
+final class BenchmarkSupport
+{
+    static final String ISSUER = "https://idp.example.com";
+    static final String AUDIENCE = "https://api.example.com";
+
+    static
+    {
+        // has to happen before jose4j looks at what algorithms are available
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null)
+        {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private BenchmarkSupport()
+    {
+    }
+
+    static void init()
+    {
+        // the static initializer does the work
+    }
+
+    /**
+     * Claims roughly the size and shape of a typical access token or ID token from an OpenID Connect provider,
+     * which puts the serialized JWT somewhere around a kilobyte.
+     */
+    static JwtClaims realisticClaims()
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(ISSUER);
+        claims.setAudience(AUDIENCE);
+        claims.setSubject("248289761001");
+        claims.setExpirationTimeMinutesInTheFuture(60 * 24 * 365);
+        claims.setIssuedAtToNow();
+        claims.setNotBeforeMinutesInThePast(1);
+        claims.setGeneratedJwtId();
+        claims.setClaim("azp", "s6BhdRkqt3");
+        claims.setClaim("auth_time", NumericDate.now().getValue());
+        claims.setClaim("nonce", "n-0S6_WzA2Mj");
+        claims.setClaim("name", "Jane Doe");
+        claims.setClaim("given_name", "Jane");
+        claims.setClaim("family_name", "Doe");
+        claims.setClaim("email", "janedoe@example.com");
+        claims.setClaim("email_verified", true);
+        claims.setStringListClaim("scope", "openid", "profile", "email", "address", "phone", "offline_access");
+        claims.setStringListClaim("groups", "admins", "developers", "release-managers", "on-call", "everyone");
+        claims.setStringListClaim("amr", "pwd", "otp");
+        Map<String, Object> address = new LinkedHashMap<>();
+        address.put("street_address", "1234 Hollywood Blvd.");
+        address.put("locality", "Los Angeles");
+        address.put("region", "CA");
+        address.put("postal_code", "90210");
+        address.put("country", "US");
+        claims.setClaim("address", address);
+        Map<String, Object> resourceAccess = new LinkedHashMap<>();
+        resourceAccess.put("account", Arrays.asList("manage-account", "manage-account-links", "view-profile"));
+        resourceAccess.put("billing", Arrays.asList("read", "write", "approve-invoices"));
+        claims.setClaim("resource_access", resourceAccess);
+        return claims;
+    }
+}
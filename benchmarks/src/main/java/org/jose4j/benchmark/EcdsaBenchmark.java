@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jose4j.benchmark;
+
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwa.AlgorithmFactoryFactory;
+import org.jose4j.jwk.EcJwkGenerator;
+import org.jose4j.jwk.EllipticCurveJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.EcdsaUsingShaAlgorithm;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jws.JsonWebSignatureAlgorithm;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.lang.StringUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.spec.ECParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ES256, ES384 and ES512 signing and verification through the JWS algorithm along with the
+ * conversions between JOSE's concatenated R||S and the DER encoding that JCA providers without
+ * the P1363 format variants of ECDSA need.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EcdsaBenchmark
+{
+    @Param({AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256,
+            AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384,
+            AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512})
+    public String alg;
+
+    private JsonWebSignatureAlgorithm algorithm;
+    private EllipticCurveJsonWebKey jwk;
+    private ProviderContext providerContext;
+    private byte[] signingInput;
+    private byte[] signature;
+    private byte[] derSignature;
+    private int signatureLength;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        BenchmarkSupport.init();
+
+        ECParameterSpec spec;
+        switch (alg)
+        {
+            case AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384:
+                spec = EllipticCurves.P384;
+                break;
+            case AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512:
+                spec = EllipticCurves.P521;
+                break;
+            default:
+                spec = EllipticCurves.P256;
+        }
+        jwk = EcJwkGenerator.generateJwk(spec);
+        algorithm = AlgorithmFactoryFactory.getInstance().getJwsAlgorithmFactory().getAlgorithm(alg);
+        providerContext = new ProviderContext();
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(BenchmarkSupport.realisticClaims().toJson());
+        jws.setAlgorithmHeaderValue(alg);
+        jws.setKey(jwk.getPrivateKey());
+        String[] parts = jws.getCompactSerialization().split("\\.");
+        signingInput = StringUtil.getBytesAscii(parts[0] + "." + parts[1]);
+        signature = algorithm.sign(jwk.getPrivateKey(), signingInput, providerContext);
+        signatureLength = signature.length;
+        derSignature = EcdsaUsingShaAlgorithm.convertConcatenatedToDer(signature);
+
+        if (!algorithm.verifySignature(signature, jwk.getPublicKey(), signingInput, providerContext))
+        {
+            throw new IllegalStateException("signature didn't verify");
+        }
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception
+    {
+        return algorithm.verifySignature(signature, jwk.getPublicKey(), signingInput, providerContext);
+    }
+
+    @Benchmark
+    public byte[] sign() throws Exception
+    {
+        return algorithm.sign(jwk.getPrivateKey(), signingInput, providerContext);
+    }
+
+    @Benchmark
+    public byte[] concatenatedToDer() throws Exception
+    {
+        return EcdsaUsingShaAlgorithm.convertConcatenatedToDer(signature);
+    }
+
+    @Benchmark
+    public byte[] derToConcatenated() throws Exception
+    {
+        return EcdsaUsingShaAlgorithm.convertDerToConcatenated(derSignature, signatureLength);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmark;
+
+import org.jose4j.json.JsonUtil;
+import org.jose4j.json.internal.json_simple.parser.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonUtil#parseJson(String)} of a JOSE header and of a realistic JWT claims set,
+ * with the old json-simple parser for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark
+{
+    private static final String HEADER = "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"2011-04-29\"}";
+
+    private String claims;
+
+    @Setup
+    public void setup()
+    {
+        BenchmarkSupport.init();
+        claims = BenchmarkSupport.realisticClaims().toJson();
+    }
+
+    @Benchmark
+    public Map<String, Object> parseHeader() throws Exception
+    {
+        return JsonUtil.parseJson(HEADER);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseClaims() throws Exception
+    {
+        return JsonUtil.parseJson(claims);
+    }
+
+    @Benchmark
+    public Object parseClaimsJsonSimple() throws Exception
+    {
+        return new JSONParser().parse(claims, JsonUtil.CONTAINER_FACTORY);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Map<String, Object> parseClaimsFourThreads() throws Exception
+    {
+        return JsonUtil.parseJson(claims);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmark;
+
+import org.jose4j.jwk.EcJwkGenerator;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jwk.Use;
+import org.jose4j.keys.EllipticCurves;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a JWK Set JSON document with a mix of RSA and EC public keys, like one fetched from a jwks_uri.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonWebKeySetBenchmark
+{
+    @Param({"2", "10", "50"})
+    public int numberOfKeys;
+
+    private String json;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        BenchmarkSupport.init();
+        JsonWebKeySet jwks = new JsonWebKeySet();
+        for (int i = 0; i < numberOfKeys; i++)
+        {
+            PublicJsonWebKey jwk = (i % 2 == 0) ? RsaJwkGenerator.generateJwk(2048) : EcJwkGenerator.generateJwk(EllipticCurves.P256);
+            jwk.setKeyId("key-" + i);
+            jwk.setUse(Use.SIGNATURE);
+            jwks.addJsonWebKey(jwk);
+        }
+        json = jwks.toJson(JsonWebKey.OutputControlLevel.PUBLIC_ONLY);
+    }
+
+    @Benchmark
+    public JsonWebKeySet parse() throws Exception
+    {
+        return new JsonWebKeySet(json);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmark;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jwk.EcJwkGenerator;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.lang.ByteUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and decrypting a JWE compact serialization with a realistic JWT payload for
+ * the common key management and content encryption algorithm combinations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JweDecryptBenchmark
+{
+    @Param({KeyManagementAlgorithmIdentifiers.RSA_OAEP,
+            KeyManagementAlgorithmIdentifiers.ECDH_ES,
+            KeyManagementAlgorithmIdentifiers.DIRECT})
+    public String alg;
+
+    @Param({ContentEncryptionAlgorithmIdentifiers.AES_128_GCM,
+            ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256})
+    public String enc;
+
+    private String compactSerialization;
+
+    private Key decryptionKey;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        BenchmarkSupport.init();
+
+        Key encryptionKey;
+        switch (alg)
+        {
+            case KeyManagementAlgorithmIdentifiers.RSA_OAEP:
+                PublicJsonWebKey rsaJwk = RsaJwkGenerator.generateJwk(2048);
+                encryptionKey = rsaJwk.getPublicKey();
+                decryptionKey = rsaJwk.getPrivateKey();
+                break;
+            case KeyManagementAlgorithmIdentifiers.ECDH_ES:
+                PublicJsonWebKey ecJwk = EcJwkGenerator.generateJwk(EllipticCurves.P256);
+                encryptionKey = ecJwk.getPublicKey();
+                decryptionKey = ecJwk.getPrivateKey();
+                break;
+            default:
+                int keyBytes = enc.equals(ContentEncryptionAlgorithmIdentifiers.AES_128_GCM) ? 16 : 32;
+                encryptionKey = decryptionKey = new AesKey(ByteUtil.randomBytes(keyBytes));
+        }
+
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setPayload(BenchmarkSupport.realisticClaims().toJson());
+        jwe.setAlgorithmHeaderValue(alg);
+        jwe.setEncryptionMethodHeaderParameter(enc);
+        jwe.setKey(encryptionKey);
+        compactSerialization = jwe.getCompactSerialization();
+
+        decrypt();
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception
+    {
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setCompactSerialization(compactSerialization);
+        jwe.setKey(decryptionKey);
+        return jwe.getPayload();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String decryptFourThreads() throws Exception
+    {
+        return decrypt();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jose4j.benchmark;
+
+import org.jose4j.jwk.EcJwkGenerator;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.jwt.consumer.JwtContext;
+import org.jose4j.jwt.consumer.JwtProcessingResult;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A batch of signed JWTs, like the records of a message batch, processed with
+ * {@link JwtConsumer#processAll(java.util.Collection)} compared to calling {@link JwtConsumer#process(String)}
+ * in a loop. The JWTs are signed with a few different keys from a JWKS. Scores are batches per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBatchBenchmark
+{
+    private static final int KEYS = 4;
+
+    @Param({AlgorithmIdentifiers.RSA_USING_SHA256,
+            AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256,
+            AlgorithmIdentifiers.HMAC_SHA256})
+    public String alg;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private List<String> jwts;
+
+    private JwtConsumer jwtConsumer;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        BenchmarkSupport.init();
+
+        List<JsonWebKey> jwks = new ArrayList<>();
+        for (int i = 0; i < KEYS; i++)
+        {
+            JsonWebKey jwk;
+            switch (alg)
+            {
+                case AlgorithmIdentifiers.RSA_USING_SHA256:
+                    jwk = RsaJwkGenerator.generateJwk(2048);
+                    break;
+                case AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256:
+                    jwk = EcJwkGenerator.generateJwk(EllipticCurves.P256);
+                    break;
+                default:
+                    jwk = OctJwkGenerator.generateJwk(256);
+            }
+            jwk.setKeyId("k" + i);
+            jwks.add(jwk);
+        }
+
+        jwts = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++)
+        {
+            JsonWebKey jwk = jwks.get(i % KEYS);
+            JwtClaims claims = BenchmarkSupport.realisticClaims();
+            claims.setGeneratedJwtId();
+            JsonWebSignature jws = new JsonWebSignature();
+            jws.setPayload(claims.toJson());
+            jws.setAlgorithmHeaderValue(alg);
+            jws.setKeyIdHeaderValue(jwk.getKeyId());
+            jws.setKey(jwk instanceof PublicJsonWebKey ? ((PublicJsonWebKey) jwk).getPrivateKey() : jwk.getKey());
+            jwts.add(jws.getCompactSerialization());
+        }
+
+        List<JsonWebKey> verificationJwks = new JsonWebKeySet(new JsonWebKeySet(jwks).toJson()).getJsonWebKeys();
+        pool = new ForkJoinPool();
+        jwtConsumer = new JwtConsumerBuilder()
+                .setRequireExpirationTime()
+                .setRequireSubject()
+                .setExpectedIssuer(BenchmarkSupport.ISSUER)
+                .setExpectedAudience(BenchmarkSupport.AUDIENCE)
+                .setVerificationKeyResolver(new JwksVerificationKeyResolver(verificationJwks))
+                .setBatchForkJoinPool(pool)
+                .build();
+
+        for (JwtProcessingResult result : jwtConsumer.processAll(jwts))
+        {
+            if (!result.isValid())
+            {
+                throw result.getException();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void sequentialLoop(Blackhole blackhole) throws InvalidJwtException
+    {
+        for (String jwt : jwts)
+        {
+            JwtContext jwtContext = jwtConsumer.process(jwt);
+            blackhole.consume(jwtContext);
+        }
+    }
+
+    @Benchmark
+    public List<JwtProcessingResult> processAll()
+    {
+        return jwtConsumer.processAll(jwts);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmark;
+
+import org.jose4j.jwk.EcJwkGenerator;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.jwt.consumer.JwtContext;
+import org.jose4j.keys.EllipticCurves;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtConsumer#process(String)} of a signed JWT with realistic claims, which covers parsing,
+ * signature verification and claims validation. The consumer is shared so the multi-threaded
+ * variant shows contention on anything global along the way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtConsumerBenchmark
+{
+    @Param({AlgorithmIdentifiers.RSA_USING_SHA256,
+            AlgorithmIdentifiers.RSA_PSS_USING_SHA256,
+            AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256,
+            AlgorithmIdentifiers.HMAC_SHA256})
+    public String alg;
+
+    private String jwt;
+
+    private JwtConsumer jwtConsumer;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        BenchmarkSupport.init();
+
+        JsonWebKey jwk;
+        Key verificationKey;
+        switch (alg)
+        {
+            case AlgorithmIdentifiers.RSA_USING_SHA256:
+            case AlgorithmIdentifiers.RSA_PSS_USING_SHA256:
+                jwk = RsaJwkGenerator.generateJwk(2048);
+                verificationKey = jwk.getKey();
+                break;
+            case AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256:
+                jwk = EcJwkGenerator.generateJwk(EllipticCurves.P256);
+                verificationKey = jwk.getKey();
+                break;
+            default:
+                jwk = OctJwkGenerator.generateJwk(256);
+                verificationKey = jwk.getKey();
+        }
+        jwk.setKeyId("k1");
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(BenchmarkSupport.realisticClaims().toJson());
+        jws.setAlgorithmHeaderValue(alg);
+        jws.setKeyIdHeaderValue(jwk.getKeyId());
+        jws.setKey(jwk instanceof PublicJsonWebKey ? ((PublicJsonWebKey) jwk).getPrivateKey() : jwk.getKey());
+        jwt = jws.getCompactSerialization();
+
+        jwtConsumer = new JwtConsumerBuilder()
+                .setRequireExpirationTime()
+                .setRequireSubject()
+                .setExpectedIssuer(BenchmarkSupport.ISSUER)
+                .setExpectedAudience(BenchmarkSupport.AUDIENCE)
+                .setVerificationKey(verificationKey)
+                .build();
+
+        jwtConsumer.process(jwt);
+    }
+
+    @Benchmark
+    public JwtContext process() throws Exception
+    {
+        return jwtConsumer.process(jwt);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JwtContext processFourThreads() throws Exception
+    {
+        return jwtConsumer.process(jwt);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.benchmark;
+
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.SecureRandomPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating 16 random bytes (the size of a CBC IV or a generated JWT ID) from 32 threads at once:
+ * a new {@code SecureRandom} each time (what a null {@code SecureRandom} used to mean), a single shared
+ * {@code SecureRandom} and the {@link SecureRandomPool} that's now the default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class RandomBytesBenchmark
+{
+    @Param({"16"})
+    public int length;
+
+    private final SecureRandom shared = new SecureRandom();
+
+    @Benchmark
+    public byte[] newSecureRandomEachTime()
+    {
+        byte[] bytes = new byte[length];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] sharedSecureRandom()
+    {
+        byte[] bytes = new byte[length];
+        shared.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] pooled()
+    {
+        return ByteUtil.randomBytes(length);
+    }
+}
@@ -16,18 +16,16 @@
 
 package org.jose4j.base64url;
 
-import org.jose4j.base64url.internal.apache.commons.codec.binary.Base64;
 import org.jose4j.lang.StringUtil;
 
 /**
+ * Base64url encoding and decoding helpers, which delegate to the stateless {@link Base64UrlCodec}.
+ * Instances hold no state and are thread safe.
  */
 public class Base64Url
 {
-    private Base64 base64urlCodec;
-
     public Base64Url()
     {
-        this.base64urlCodec = new Base64(-1, null, true);
     }
 
     public String base64UrlDecodeToUtf8String(String encodedValue)
@@ -43,7 +41,7 @@ public class Base64Url
 
     public byte[] base64UrlDecode(String encodedValue)
     {
-        return base64urlCodec.decode(encodedValue);
+        return Base64UrlCodec.decode(encodedValue);
     }
 
     public String base64UrlEncodeUtf8ByteRepresentation(String value)
@@ -59,41 +57,36 @@ public class Base64Url
 
     public String base64UrlEncode(byte[] bytes)
     {
-        return base64urlCodec.encodeToString(bytes);
-    }
-
-    private static Base64Url getOne()
-    {
-        return new Base64Url();
+        return Base64UrlCodec.encode(bytes);
     }
 
     public static String decodeToUtf8String(String encodedValue)
     {
-        return getOne().base64UrlDecodeToString(encodedValue, StringUtil.UTF_8);
+        return decodeToString(encodedValue, StringUtil.UTF_8);
     }
 
     public static String decodeToString(String encodedValue, String charsetName)
     {
-        return getOne().base64UrlDecodeToString(encodedValue, charsetName);
+        return StringUtil.newString(decode(encodedValue), charsetName);
     }
 
     public static byte[] decode(String encodedValue)
     {
-        return getOne().base64UrlDecode(encodedValue);
+        return Base64UrlCodec.decode(encodedValue);
     }
 
     public static String encodeUtf8ByteRepresentation(String value)
     {
-        return getOne().base64UrlEncodeUtf8ByteRepresentation(value);
+        return encode(value, StringUtil.UTF_8);
     }
 
     public static String encode(String value, String charsetName)
     {
-        return getOne().base64UrlEncode(value, charsetName);
+        return encode(StringUtil.getBytesUnchecked(value, charsetName));
     }
 
     public static String encode(byte[] bytes)
     {
-        return getOne().base64UrlEncode(bytes);
+        return Base64UrlCodec.encode(bytes);
     }
 }
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A stateless, table driven base64url encoder/decoder (per
+ * <a href="http://tools.ietf.org/html/rfc4648#section-5">section 5 of RFC 4648</a>) that works on ranges of
+ * {@code CharSequence}s, {@code byte[]}s and {@code ByteBuffer}s so that callers can avoid intermediate copies.
+ * </p>
+ * <p>
+ * Encoding always uses the URL and filename safe alphabet without padding. Decoding is lenient in the same way
+ * the codec previously used by {@link Base64Url} was: characters from both the standard and URL safe
+ * alphabets are accepted, characters outside of the alphabets are ignored, and decoding stops at
+ * the first padding ('=') character.
+ * </p>
+ * All methods are static and thread safe.
+ */
+public final class Base64UrlCodec
+{
+    private static final char[] ENCODE_TABLE = {
+            'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
+            'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm',
+            'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '_'
+    };
+
+    private static final byte[] DECODE_TABLE = new byte[128];
+    static
+    {
+        for (int i = 0; i < DECODE_TABLE.length; i++)
+        {
+            DECODE_TABLE[i] = -1;
+        }
+        for (int i = 0; i < ENCODE_TABLE.length; i++)
+        {
+            DECODE_TABLE[ENCODE_TABLE[i]] = (byte) i;
+        }
+        DECODE_TABLE['+'] = 62;
+        DECODE_TABLE['/'] = 63;
+    }
+
+    private static final char PAD = '=';
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private Base64UrlCodec()
+    {
+    }
+
+    /**
+     * Calculates the number of characters needed to base64url encode the given number of bytes.
+     * @param byteLength the number of bytes
+     * @return the number of characters
+     */
+    public static int encodedLength(int byteLength)
+    {
+        int fullBlocks = byteLength / 3;
+        int remainder = byteLength % 3;
+        return fullBlocks * 4 + (remainder == 0 ? 0 : remainder + 1);
+    }
+
+    /**
+     * Calculates the number of bytes the given range of characters will decode to.
+     * @param encoded the base64url encoded characters
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the number of bytes
+     */
+    public static int decodedLength(CharSequence encoded, int beginIndex, int endIndex)
+    {
+        checkRange(encoded.length(), beginIndex, endIndex);
+        int sextets = 0;
+        for (int i = beginIndex; i < endIndex; i++)
+        {
+            char c = encoded.charAt(i);
+            if (c == PAD)
+            {
+                break;
+            }
+
+            if (c < DECODE_TABLE.length && DECODE_TABLE[c] >= 0)
+            {
+                sextets++;
+            }
+        }
+        int remainder = sextets % 4;
+        return (sextets / 4) * 3 + (remainder == 0 ? 0 : remainder - 1);
+    }
+
+    public static String encode(byte[] bytes)
+    {
+        return (bytes == null) ? null : encode(bytes, 0, bytes.length);
+    }
+
+    public static String encode(byte[] bytes, int offset, int length)
+    {
+        StringBuilder sb = new StringBuilder(encodedLength(length));
+        encode(bytes, offset, length, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Base64url encodes a range of bytes and appends the result to the given {@code StringBuilder}.
+     * @param bytes the bytes to encode
+     * @param offset the offset of the first byte to encode
+     * @param length the number of bytes to encode
+     * @param destination where to append the encoded characters
+     */
+    public static void encode(byte[] bytes, int offset, int length, StringBuilder destination)
+    {
+        checkRange(bytes.length, offset, offset + length);
+        destination.ensureCapacity(destination.length() + encodedLength(length));
+        int end = offset + length;
+        int i = offset;
+        for (; i + 2 < end; i += 3)
+        {
+            int bits = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+            destination.append(ENCODE_TABLE[(bits >>> 18) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits >>> 12) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits >>> 6) & 0x3f]);
+            destination.append(ENCODE_TABLE[bits & 0x3f]);
+        }
+
+        int remainder = end - i;
+        if (remainder == 1)
+        {
+            int bits = (bytes[i] & 0xff);
+            destination.append(ENCODE_TABLE[(bits >>> 2) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits << 4) & 0x3f]);
+        }
+        else if (remainder == 2)
+        {
+            int bits = (bytes[i] & 0xff) << 8 | (bytes[i + 1] & 0xff);
+            destination.append(ENCODE_TABLE[(bits >>> 10) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits >>> 4) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits << 2) & 0x3f]);
+        }
+    }
+
+    /**
+     * Base64url encodes the remaining bytes of the buffer and appends the result to the given {@code StringBuilder}.
+     * The position of the buffer is not changed.
+     * @param buffer the bytes to encode (from its position to its limit)
+     * @param destination where to append the encoded characters
+     */
+    public static void encode(ByteBuffer buffer, StringBuilder destination)
+    {
+        if (buffer.hasArray())
+        {
+            encode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), destination);
+            return;
+        }
+
+        int end = buffer.limit();
+        destination.ensureCapacity(destination.length() + encodedLength(buffer.remaining()));
+        int i = buffer.position();
+        for (; i + 2 < end; i += 3)
+        {
+            int bits = (buffer.get(i) & 0xff) << 16 | (buffer.get(i + 1) & 0xff) << 8 | (buffer.get(i + 2) & 0xff);
+            destination.append(ENCODE_TABLE[(bits >>> 18) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits >>> 12) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits >>> 6) & 0x3f]);
+            destination.append(ENCODE_TABLE[bits & 0x3f]);
+        }
+
+        int remainder = end - i;
+        if (remainder == 1)
+        {
+            int bits = (buffer.get(i) & 0xff);
+            destination.append(ENCODE_TABLE[(bits >>> 2) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits << 4) & 0x3f]);
+        }
+        else if (remainder == 2)
+        {
+            int bits = (buffer.get(i) & 0xff) << 8 | (buffer.get(i + 1) & 0xff);
+            destination.append(ENCODE_TABLE[(bits >>> 10) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits >>> 4) & 0x3f]);
+            destination.append(ENCODE_TABLE[(bits << 2) & 0x3f]);
+        }
+    }
+
+    public static byte[] decode(CharSequence encoded)
+    {
+        return (encoded == null) ? null : decode(encoded, 0, encoded.length());
+    }
+
+    /**
+     * Decodes a range of base64url encoded characters.
+     * @param encoded the encoded characters
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the decoded bytes
+     */
+    public static byte[] decode(CharSequence encoded, int beginIndex, int endIndex)
+    {
+        int length = decodedLength(encoded, beginIndex, endIndex);
+        if (length == 0)
+        {
+            return EMPTY_BYTES;
+        }
+        byte[] bytes = new byte[length];
+        decodeInto(encoded, beginIndex, endIndex, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Decodes a range of base64url encoded characters into the given byte array.
+     * @param encoded the encoded characters
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @param destination the array to write to, which must have room for {@link #decodedLength(CharSequence, int, int)} bytes
+     * @param destinationOffset where in the array to start writing
+     * @return the number of bytes written
+     */
+    public static int decode(CharSequence encoded, int beginIndex, int endIndex, byte[] destination, int destinationOffset)
+    {
+        int length = decodedLength(encoded, beginIndex, endIndex);
+        if (destination.length - destinationOffset < length || destinationOffset < 0)
+        {
+            throw new IllegalArgumentException("Not enough room (" + (destination.length - destinationOffset) +
+                    ") in the destination for the " + length + " decoded bytes.");
+        }
+        return decodeInto(encoded, beginIndex, endIndex, destination, destinationOffset);
+    }
+
+    /**
+     * Decodes a range of base64url encoded characters into the given buffer starting at its current position
+     * and advances the position by the number of bytes written.
+     * @param encoded the encoded characters
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @param destination the buffer to write to, which must have room for {@link #decodedLength(CharSequence, int, int)} bytes
+     * @return the number of bytes written
+     */
+    public static int decode(CharSequence encoded, int beginIndex, int endIndex, ByteBuffer destination)
+    {
+        int length = decodedLength(encoded, beginIndex, endIndex);
+        if (destination.remaining() < length)
+        {
+            throw new IllegalArgumentException("Not enough room (" + destination.remaining() +
+                    ") in the destination buffer for the " + length + " decoded bytes.");
+        }
+
+        if (destination.hasArray())
+        {
+            int written = decodeInto(encoded, beginIndex, endIndex, destination.array(), destination.arrayOffset() + destination.position());
+            destination.position(destination.position() + written);
+            return written;
+        }
+
+        int bits = 0;
+        int sextets = 0;
+        for (int i = beginIndex; i < endIndex; i++)
+        {
+            char c = encoded.charAt(i);
+            if (c == PAD)
+            {
+                break;
+            }
+
+            int value = (c < DECODE_TABLE.length) ? DECODE_TABLE[c] : -1;
+            if (value >= 0)
+            {
+                bits = (bits << 6) | value;
+                if (++sextets == 4)
+                {
+                    destination.put((byte) (bits >> 16));
+                    destination.put((byte) (bits >> 8));
+                    destination.put((byte) bits);
+                    bits = 0;
+                    sextets = 0;
+                }
+            }
+        }
+
+        if (sextets == 2)
+        {
+            destination.put((byte) (bits >> 4));
+        }
+        else if (sextets == 3)
+        {
+            destination.put((byte) (bits >> 10));
+            destination.put((byte) (bits >> 2));
+        }
+        return length;
+    }
+
+    private static int decodeInto(CharSequence encoded, int beginIndex, int endIndex, byte[] destination, int destinationOffset)
+    {
+        int pos = destinationOffset;
+        int bits = 0;
+        int sextets = 0;
+        for (int i = beginIndex; i < endIndex; i++)
+        {
+            char c = encoded.charAt(i);
+            if (c == PAD)
+            {
+                break;
+            }
+
+            int value = (c < DECODE_TABLE.length) ? DECODE_TABLE[c] : -1;
+            if (value >= 0)
+            {
+                bits = (bits << 6) | value;
+                if (++sextets == 4)
+                {
+                    destination[pos++] = (byte) (bits >> 16);
+                    destination[pos++] = (byte) (bits >> 8);
+                    destination[pos++] = (byte) bits;
+                    bits = 0;
+                    sextets = 0;
+                }
+            }
+        }
+
+        // one leftover sextet isn't enough for a byte so it's dropped
+        if (sextets == 2)
+        {
+            destination[pos++] = (byte) (bits >> 4);
+        }
+        else if (sextets == 3)
+        {
+            destination[pos++] = (byte) (bits >> 10);
+            destination[pos++] = (byte) (bits >> 2);
+        }
+        return pos - destinationOffset;
+    }
+
+    /**
+     * Decodes base64url encoded ASCII bytes that arrive in arbitrarily sized pieces, such as when reading
+     * from a stream, with the same lenient handling of padding and unexpected characters as the static methods.
+     * An instance keeps the partial quantum between calls so isn't thread safe.
+     */
+    public static final class IncrementalDecoder
+    {
+        private int bits;
+        private int sextets;
+        private boolean padded;
+
+        /**
+         * The most bytes that a call to {@link #update(byte[], int, int, byte[], int)} can write for the given input length.
+         * @param encodedLength the number of encoded bytes that will be passed in
+         * @return the amount of room needed in the destination
+         */
+        public static int maxDecodedLength(int encodedLength)
+        {
+            return ((encodedLength + 3) / 4) * 3;
+        }
+
+        /**
+         * Decodes the given encoded bytes, writing out all complete 3 byte groups and keeping any remainder for the next call.
+         * @param encoded the encoded ASCII bytes
+         * @param offset where in the array to start reading
+         * @param length how many bytes to read
+         * @param destination the array to write to, which must have room for {@link #maxDecodedLength(int)} bytes
+         * @param destinationOffset where in the array to start writing
+         * @return the number of bytes written
+         */
+        public int update(byte[] encoded, int offset, int length, byte[] destination, int destinationOffset)
+        {
+            int pos = destinationOffset;
+            int end = offset + length;
+            for (int i = offset; i < end && !padded; i++)
+            {
+                int c = encoded[i] & 0xff;
+                if (c == PAD)
+                {
+                    padded = true;
+                    break;
+                }
+
+                int value = (c < DECODE_TABLE.length) ? DECODE_TABLE[c] : -1;
+                if (value >= 0)
+                {
+                    bits = (bits << 6) | value;
+                    if (++sextets == 4)
+                    {
+                        destination[pos++] = (byte) (bits >> 16);
+                        destination[pos++] = (byte) (bits >> 8);
+                        destination[pos++] = (byte) bits;
+                        bits = 0;
+                        sextets = 0;
+                    }
+                }
+            }
+            return pos - destinationOffset;
+        }
+
+        /**
+         * Writes out whatever is left of a final partial quantum and resets the decoder so it can be reused.
+         * @param destination the array to write to, which must have room for 2 bytes
+         * @param destinationOffset where in the array to start writing
+         * @return the number of bytes written
+         */
+        public int finish(byte[] destination, int destinationOffset)
+        {
+            int pos = destinationOffset;
+            if (sextets == 2)
+            {
+                destination[pos++] = (byte) (bits >> 4);
+            }
+            else if (sextets == 3)
+            {
+                destination[pos++] = (byte) (bits >> 10);
+                destination[pos++] = (byte) (bits >> 2);
+            }
+            bits = 0;
+            sextets = 0;
+            padded = false;
+            return pos - destinationOffset;
+        }
+    }
+
+    private static void checkRange(int length, int beginIndex, int endIndex)
+    {
+        if (beginIndex < 0 || endIndex > length || beginIndex > endIndex)
+        {
+            throw new IndexOutOfBoundsException("Invalid range [" + beginIndex + ", " + endIndex + ") for length " + length);
+        }
+    }
+}
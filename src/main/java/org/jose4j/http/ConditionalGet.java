@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.http;
+
+import java.io.IOException;
+
+/**
+ * A {@link SimpleGet} that can make a conditional request, which lets the server answer with a
+ * {@code 304 Not Modified} status and no body when the content hasn't changed since it was last fetched.
+ */
+public interface ConditionalGet extends SimpleGet
+{
+    /**
+     * Makes a GET request that is conditional on the content having changed.
+     * @param location the URL
+     * @param entityTag the {@code ETag} from the last response, sent as {@code If-None-Match}, or {@code null}
+     * @param lastModified the {@code Last-Modified} from the last response, sent as {@code If-Modified-Since}, or {@code null}
+     * @return the response, which has a {@code 304} status code and an empty body when the content hasn't changed
+     * @throws IOException if a problem is encountered making the HTTP request
+     */
+    SimpleResponse get(String location, String entityTag, String lastModified) throws IOException;
+}
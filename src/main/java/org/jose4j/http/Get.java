@@ -42,10 +42,19 @@ import java.util.Map;
 /**
  *
  */
-public class Get implements SimpleGet
+public class Get implements ConditionalGet
 {
     private static final long MAX_RETRY_WAIT = 8000;
 
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int DISCARD_LIMIT = 1024 * 64;
+
+    // the most that's allocated up front based on what the server says the Content-Length is
+    private static final int MAX_PRESIZE = 1024 * 64;
+
+    private static final String EMPTY_BODY = "";
+
     private static final Logger log = LoggerFactory.getLogger(Get.class);
 
     private int connectTimeout = 20000;
@@ -60,10 +69,29 @@ public class Get implements SimpleGet
 
     @Override
     public SimpleResponse get(String location) throws IOException
+    {
+        return get(location, null, null);
+    }
+
+    /**
+     * Makes a GET request that is conditional on the content having changed, when either of the
+     * {@code entityTag} or {@code lastModified} validators are given, and otherwise makes a normal GET request.
+     * Only a {@code 200} or, for a conditional request, a {@code 304} status code is considered successful.
+     * The response body is read fully, which lets the underlying connection be kept alive and reused for subsequent
+     * requests to the same server.
+     * @param location the URL
+     * @param entityTag the {@code ETag} from the last response, sent as {@code If-None-Match}, or {@code null}
+     * @param lastModified the {@code Last-Modified} from the last response, sent as {@code If-Modified-Since}, or {@code null}
+     * @return the response, which has a {@code 304} status code and an empty body when the content hasn't changed
+     * @throws IOException if a problem is encountered making the HTTP request
+     */
+    @Override
+    public SimpleResponse get(String location, String entityTag, String lastModified) throws IOException
     {
         int attempts = 0;
         log.debug("HTTP GET of {}", location);
         URL url = new URL(location);
+        boolean conditional = entityTag != null || lastModified != null;
         while (true)
         {
             try
@@ -74,18 +102,35 @@ public class Get implements SimpleGet
 
                 setUpTls(urlConnection);
 
+                if (entityTag != null)
+                {
+                    urlConnection.setRequestProperty("If-None-Match", entityTag);
+                }
+                if (lastModified != null)
+                {
+                    urlConnection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+
                 HttpURLConnection httpUrlConnection = (HttpURLConnection) urlConnection;
                 int code = httpUrlConnection.getResponseCode();
                 String msg = httpUrlConnection.getResponseMessage();
 
-                if (code != HttpURLConnection.HTTP_OK)
+                String body;
+                if (code == HttpURLConnection.HTTP_NOT_MODIFIED && conditional)
                 {
+                    discard(httpUrlConnection.getInputStream());
+                    body = EMPTY_BODY;
+                }
+                else if (code != HttpURLConnection.HTTP_OK)
+                {
+                    discard(httpUrlConnection.getErrorStream());
                     throw new IOException("Non 200 status code ("+ code + " " + msg +") returned from " + url);
                 }
-
-                String charset = getCharset(urlConnection);
-
-                String body = getBody(urlConnection, charset);
+                else
+                {
+                    String charset = getCharset(urlConnection);
+                    body = getBody(urlConnection, charset);
+                }
 
                 Map<String,List<String>> headers = httpUrlConnection.getHeaderFields();
                 SimpleResponse simpleResponse = new Response(code, msg, headers, body);
@@ -99,29 +144,45 @@ public class Get implements SimpleGet
             catch (IOException e)
             {
                 attempts++;
-                if (attempts > retries)
+                if (attempts > retries || Thread.currentThread().isInterrupted())
                 {
                     throw e;
                 }
                 long retryWaitTime = getRetryWaitTime(attempts);
                 log.debug("Waiting {}ms before retrying ({} of {}) HTTP GET of {} after failed attempt: {}", retryWaitTime, attempts, retries, url, e);
-                try { Thread.sleep(retryWaitTime); } catch (InterruptedException ie) { /* ignore */ }
+                try
+                {
+                    Thread.sleep(retryWaitTime);
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                    InterruptedIOException interruptedIOException = new InterruptedIOException("Interrupted waiting to retry HTTP GET of " + url);
+                    interruptedIOException.initCause(e);
+                    throw interruptedIOException;
+                }
             }
         }
     }
 
     private String getBody(URLConnection urlConnection, String charset) throws IOException
     {
-        StringWriter writer = new StringWriter();
+        int contentLength = urlConnection.getContentLength();
+        int capacity = (contentLength > 0) ? Math.min(contentLength, MAX_PRESIZE) : BUFFER_SIZE;
+        if (responseBodySizeLimit > 0)
+        {
+            capacity = Math.min(capacity, responseBodySizeLimit + 1);
+        }
+        StringBuilder sb = new StringBuilder(capacity);
         try (InputStream is = urlConnection.getInputStream();
              InputStreamReader isr = new InputStreamReader(is, charset))
         {
             int charactersRead = 0;
-            char[] buffer = new char[1024];
+            char[] buffer = new char[BUFFER_SIZE];
             int n;
             while (-1 != (n = isr.read(buffer)))
             {
-                writer.write(buffer, 0, n);
+                sb.append(buffer, 0, n);
                 charactersRead += n;
                 if (responseBodySizeLimit > 0 && charactersRead > responseBodySizeLimit)
                 {
@@ -130,7 +191,31 @@ public class Get implements SimpleGet
             }
             log.debug("read {} characters", charactersRead);
         }
-        return writer.toString();
+        return sb.toString();
+    }
+
+    // reading what's left of a response lets the connection go back to the keep-alive cache
+    private void discard(InputStream inputStream)
+    {
+        if (inputStream == null)
+        {
+            return;
+        }
+
+        try (InputStream is = inputStream)
+        {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int total = 0;
+            int n;
+            while (total < DISCARD_LIMIT && -1 != (n = is.read(buffer)))
+            {
+                total += n;
+            }
+        }
+        catch (IOException e)
+        {
+            log.debug("Problem reading the rest of a response that isn't used: {}", e);
+        }
     }
 
     private void setUpTls(URLConnection urlConnection)
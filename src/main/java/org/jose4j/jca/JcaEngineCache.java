@@ -0,0 +1,170 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jca;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A per-thread cache of Java Cryptography Architecture engine objects (like {@code Signature}, {@code Mac} and
+ * {@code Cipher}) keyed by the engine type, algorithm name and requested provider name. Looking up an
+ * engine via {@code getInstance} walks the list of installed providers, which is relatively expensive on a
+ * hot path, so engines are instead taken from the cache with {@link #acquire(Class, String, String)} and
+ * given back with {@link #release(Class, String, String, Object)} once the operation is complete.
+ * An engine that has been acquired is removed from the cache until it is released so nested use of the
+ * same kind of engine on one thread will just get a new instance. Callers must always (re)initialize
+ * an engine obtained from the cache before using it.
+ * </p>
+ * <p>
+ * The cache is enabled by default and can be turned off by setting the
+ * {@code org.jose4j.jca.disable-engine-cache} system property to {@code true}
+ * or by calling {@link #setEnabled(boolean)}.
+ * </p>
+ */
+public class JcaEngineCache
+{
+    private static volatile boolean enabled = !Boolean.getBoolean("org.jose4j.jca.disable-engine-cache");
+
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    private static final ThreadLocal<Engines> engines = new ThreadLocal<Engines>()
+    {
+        @Override
+        protected Engines initialValue()
+        {
+            return new Engines();
+        }
+    };
+
+    private JcaEngineCache()
+    {
+    }
+
+    /**
+     * @return true if engines are being cached
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Turns the caching of engines on or off. Turning it off also invalidates anything already cached.
+     * @param enabled true to cache engines, false otherwise
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        JcaEngineCache.enabled = enabled;
+        if (!enabled)
+        {
+            clear();
+        }
+    }
+
+    /**
+     * Invalidates all cached engines on all threads, which should be done when the set of installed
+     * security providers changes. Called from {@link org.jose4j.jwa.AlgorithmFactoryFactory} when it reinitializes.
+     */
+    public static void clear()
+    {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Gets a number that changes every time the cache is cleared, which lets other holders of
+     * state that depends on the installed providers know when to drop it.
+     * @return the current generation of the cache
+     */
+    public static int getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Takes an engine out of the current thread's cache.
+     * @param type the engine type, like {@code Signature.class}
+     * @param algorithm the algorithm name used to get the engine
+     * @param provider the provider name used to get the engine or {@code null} for the system configured providers
+     * @param <T> the engine type
+     * @return a previously released engine or {@code null}, if there isn't one available
+     */
+    public static <T> T acquire(Class<T> type, String algorithm, String provider)
+    {
+        if (!enabled)
+        {
+            return null;
+        }
+
+        Engines threadEngines = engines.get();
+        if (threadEngines.generation != generation.get())
+        {
+            threadEngines.reset(generation.get());
+            return null;
+        }
+
+        Object engine = threadEngines.cache.remove(key(type, algorithm, provider));
+        return type.cast(engine);
+    }
+
+    /**
+     * Gives an engine back to the current thread's cache so it can be used again.
+     * @param type the engine type, like {@code Signature.class}
+     * @param algorithm the algorithm name used to get the engine
+     * @param provider the provider name used to get the engine or {@code null} for the system configured providers
+     * @param engine the engine, which is ignored if {@code null}
+     * @param <T> the engine type
+     */
+    public static <T> void release(Class<T> type, String algorithm, String provider, T engine)
+    {
+        if (!enabled || engine == null)
+        {
+            return;
+        }
+
+        Engines threadEngines = engines.get();
+        int currentGeneration = generation.get();
+        if (threadEngines.generation != currentGeneration)
+        {
+            threadEngines.reset(currentGeneration);
+        }
+        threadEngines.cache.put(key(type, algorithm, provider), engine);
+    }
+
+    private static String key(Class<?> type, String algorithm, String provider)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(type.getName()).append('/').append(algorithm).append('/');
+        if (provider != null)
+        {
+            sb.append(provider);
+        }
+        return sb.toString();
+    }
+
+    private static class Engines
+    {
+        private int generation = JcaEngineCache.generation.get();
+        private final Map<String, Object> cache = new HashMap<>();
+
+        private void reset(int generation)
+        {
+            this.generation = generation;
+            cache.clear();
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.jose4j.jca;
 
+import org.jose4j.lang.ByteGenerator;
+
 import java.security.SecureRandom;
 
 /**
@@ -49,6 +51,7 @@ import java.security.SecureRandom;
 public class ProviderContext
 {
     private SecureRandom secureRandom;
+    private ByteGenerator byteGenerator;
     private Context suppliedKeyProviderContext = new Context();
     private Context generalProviderContext = new Context();
 
@@ -93,6 +96,29 @@ public class ProviderContext
         this.secureRandom = secureRandom;
     }
 
+    /**
+     * Gets the source of random bytes for things like IVs, CEKs and salts.
+     *
+     * @return The specific byte generator if set, otherwise {@code null} for the library default,
+     *         which is only used when no secure random generator has been set.
+     */
+    public ByteGenerator getByteGenerator()
+    {
+        return byteGenerator;
+    }
+
+    /**
+     * Sets the source of random bytes for things like IVs, CEKs and salts, which is
+     * used when no secure random generator has been set with {@link #setSecureRandom(SecureRandom)}.
+     *
+     * @param byteGenerator the ByteGenerator to use or {@code null} for the library default.
+     * @see org.jose4j.lang.ByteUtil#setDefaultByteGenerator(ByteGenerator)
+     */
+    public void setByteGenerator(ByteGenerator byteGenerator)
+    {
+        this.byteGenerator = byteGenerator;
+    }
+
     /**
      * Allows for a provider to be named for various operations.
      * Not all operations are relevant in any particular JOSE context.
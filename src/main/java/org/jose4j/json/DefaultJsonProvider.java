@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.json;
+
+import org.jose4j.json.internal.json_simple.JSONValue;
+import org.jose4j.json.internal.json_simple.parser.ParseException;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * The built in {@link JsonProvider}, which parses with {@link JsonParser} and serializes with the
+ * json-simple code.
+ */
+public class DefaultJsonProvider implements JsonProvider
+{
+    private static final JsonParser PARSER = new JsonParser(JsonUtil.CONTAINER_FACTORY);
+
+    public Map<String,Object> parseJson(String json) throws JoseException
+    {
+        try
+        {
+            return asObject(PARSER.parse(json));
+        }
+        catch (ParseException | IllegalArgumentException e)
+        {
+            throw new JoseException("Parsing error: " + e, e);
+        }
+    }
+
+    public Map<String,Object> parseJson(InputStream utf8) throws JoseException, IOException
+    {
+        try
+        {
+            return asObject(PARSER.parse(utf8));
+        }
+        catch (ParseException | IllegalArgumentException e)
+        {
+            throw new JoseException("Parsing error: " + e, e);
+        }
+    }
+
+    public String toJson(Map<String,?> map)
+    {
+        return JSONValue.toJSONString(map);
+    }
+
+    public byte[] toJsonBytes(Map<String,?> map)
+    {
+        return StringUtil.getBytesUtf8(toJson(map));
+    }
+
+    public void writeJson(Map<String,?> map, Writer w) throws IOException
+    {
+        JSONValue.writeJSONString(map, w);
+    }
+
+    private static Map<String,Object> asObject(Object parsed) throws JoseException
+    {
+        if (!(parsed instanceof JsonUtil.DupeKeyDisallowingLinkedHashMap))
+        {
+            String type = (parsed == null) ? "null" : parsed.getClass().getSimpleName();
+            throw new JoseException("Parsing error: expected a JSON object but got " + type);
+        }
+        return (JsonUtil.DupeKeyDisallowingLinkedHashMap) parsed;
+    }
+}
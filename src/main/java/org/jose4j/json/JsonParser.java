@@ -0,0 +1,539 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.json.internal.json_simple.JSONArray;
+import org.jose4j.json.internal.json_simple.JSONObject;
+import org.jose4j.json.internal.json_simple.parser.ContainerFactory;
+import org.jose4j.json.internal.json_simple.parser.ParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single pass, recursive descent JSON parser that works directly on a String, a range of a char array
+ * or a range of UTF-8 encoded bytes. It produces the same kinds of values as the json-simple parser:
+ * objects and arrays go in the containers from the {@link ContainerFactory} (or {@link JSONObject}
+ * and {@link JSONArray} when it returns null), integers are {@link Long} or {@link BigInteger} when too big
+ * for a long, other numbers are {@link Double}, and then there's {@link String}, {@link Boolean} and null.
+ * It also accepts exactly what json-simple accepted, leniencies included (commas and colons that are missing
+ * or repeated, unescaped control characters in strings and leading zeros on numbers), because keys and tokens
+ * out in the wild have come to depend on that. Trailing content after the value is rejected, as it was before.
+ * <p>
+ * Instances hold no parsing state and are thread safe.
+ */
+public final class JsonParser
+{
+    public static final int DEFAULT_MAX_DEPTH = 1000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ContainerFactory containerFactory;
+    private final int maxDepth;
+
+    public JsonParser(ContainerFactory containerFactory)
+    {
+        this(containerFactory, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param containerFactory makes the objects and arrays, may be null
+     * @param maxDepth how deeply objects and arrays can be nested, which keeps malicious input from exhausting the stack
+     */
+    public JsonParser(ContainerFactory containerFactory, int maxDepth)
+    {
+        this.containerFactory = containerFactory;
+        this.maxDepth = maxDepth;
+    }
+
+    public Object parse(String json) throws ParseException
+    {
+        char[] chars = json.toCharArray();
+        return new CharCursor(this, chars, 0, chars.length).parseDocument();
+    }
+
+    public Object parse(char[] json, int offset, int length) throws ParseException
+    {
+        checkRange(json.length, offset, length);
+        return new CharCursor(this, json, offset, offset + length).parseDocument();
+    }
+
+    public Object parse(byte[] utf8, int offset, int length) throws ParseException
+    {
+        checkRange(utf8.length, offset, length);
+        return new Utf8Cursor(this, utf8, offset, offset + length).parseDocument();
+    }
+
+    /**
+     * Reads UTF-8 encoded JSON until the end of the stream and parses it. The stream isn't closed.
+     * @param utf8 the stream
+     * @return the parsed value
+     * @throws IOException if there's a problem reading
+     * @throws ParseException if it's not valid JSON
+     */
+    public Object parse(InputStream utf8) throws IOException, ParseException
+    {
+        byte[] buffer = new byte[4096];
+        int length = 0;
+        int read;
+        while ((read = utf8.read(buffer, length, buffer.length - length)) != -1)
+        {
+            length += read;
+            if (length == buffer.length)
+            {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        return parse(buffer, 0, length);
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset + length > arrayLength || offset + length < 0)
+        {
+            throw new IndexOutOfBoundsException("Invalid range offset=" + offset + " length=" + length + " for array length " + arrayLength);
+        }
+    }
+
+    private abstract static class Cursor
+    {
+        private final JsonParser parser;
+        final int end;
+        int pos;
+
+        Cursor(JsonParser parser, int begin, int end)
+        {
+            this.parser = parser;
+            this.pos = begin;
+            this.end = end;
+        }
+
+        abstract int at(int index);
+
+        abstract String string(int begin, int end);
+
+        abstract void append(StringBuilder sb, int begin, int end);
+
+        Object parseDocument() throws ParseException
+        {
+            skipWhitespace();
+            Object value = parseValue(0);
+            skipWhitespace();
+            if (pos != end)
+            {
+                throw unexpected();
+            }
+            return value;
+        }
+
+        private Object parseValue(int depth) throws ParseException
+        {
+            switch (peek())
+            {
+                case '{':
+                    return parseObject(depth + 1);
+                case '[':
+                    return parseArray(depth + 1);
+                case '"':
+                    return parseString();
+                case 't':
+                    literal("true");
+                    return Boolean.TRUE;
+                case 'f':
+                    literal("false");
+                    return Boolean.FALSE;
+                case 'n':
+                    literal("null");
+                    return null;
+                case '-': case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
+                    return parseNumber();
+                default:
+                    throw unexpected();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> parseObject(int depth) throws ParseException
+        {
+            checkDepth(depth);
+            pos++;
+            Map<String, Object> map = (parser.containerFactory == null) ? null : parser.containerFactory.createObjectContainer();
+            if (map == null)
+            {
+                map = new JSONObject();
+            }
+
+            while (true)
+            {
+                skipWhitespaceAnd(',');
+                int c = peek();
+                if (c == '}')
+                {
+                    pos++;
+                    return map;
+                }
+                else if (c != '"')
+                {
+                    throw unexpected();
+                }
+
+                String key = parseString();
+                skipWhitespaceAnd(':');
+                map.put(key, parseValue(depth));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<Object> parseArray(int depth) throws ParseException
+        {
+            checkDepth(depth);
+            pos++;
+            List<Object> list = (parser.containerFactory == null) ? null : parser.containerFactory.createArrayContainer();
+            if (list == null)
+            {
+                list = new JSONArray();
+            }
+
+            while (true)
+            {
+                skipWhitespaceAnd(',');
+                if (peek() == ']')
+                {
+                    pos++;
+                    return list;
+                }
+                list.add(parseValue(depth));
+            }
+        }
+
+        private String parseString() throws ParseException
+        {
+            int begin = ++pos;
+            while (pos < end)
+            {
+                int c = at(pos);
+                if (c == '"')
+                {
+                    String s = string(begin, pos);
+                    pos++;
+                    return s;
+                }
+                else if (c == '\\')
+                {
+                    return parseEscapedString(begin);
+                }
+                pos++;
+            }
+            throw unexpected();
+        }
+
+        private String parseEscapedString(int begin) throws ParseException
+        {
+            StringBuilder sb = new StringBuilder(pos - begin + 16);
+            int runBegin = begin;
+            while (pos < end)
+            {
+                int c = at(pos);
+                if (c == '"')
+                {
+                    append(sb, runBegin, pos);
+                    pos++;
+                    return sb.toString();
+                }
+                else if (c == '\\')
+                {
+                    append(sb, runBegin, pos);
+                    pos++;
+                    switch (peek())
+                    {
+                        case '"':
+                        case '\\':
+                        case '/':
+                            sb.append((char) at(pos));
+                            break;
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'u':
+                            int unicode = unicodeEscape();
+                            if (unicode == -1)
+                            {
+                                // not a proper escape after all so it's kept as it is, same as the default
+                                sb.append('\\');
+                                runBegin = pos;
+                                continue;
+                            }
+                            sb.append((char) unicode);
+                            pos += 4;
+                            break;
+                        default:
+                            // like json-simple, anything that isn't a proper escape is kept as it is
+                            sb.append('\\');
+                            runBegin = pos;
+                            continue;
+                    }
+                    pos++;
+                    runBegin = pos;
+                }
+                else
+                {
+                    pos++;
+                }
+            }
+            throw unexpected();
+        }
+
+        private int unicodeEscape()
+        {
+            if (end - pos <= 4)
+            {
+                return -1;
+            }
+
+            int value = 0;
+            for (int i = pos + 1; i <= pos + 4; i++)
+            {
+                int c = at(i);
+                int digit;
+                if (c >= '0' && c <= '9')
+                {
+                    digit = c - '0';
+                }
+                else if (c >= 'a' && c <= 'f')
+                {
+                    digit = c - 'a' + 10;
+                }
+                else if (c >= 'A' && c <= 'F')
+                {
+                    digit = c - 'A' + 10;
+                }
+                else
+                {
+                    return -1;
+                }
+                value = (value << 4) | digit;
+            }
+            return value;
+        }
+
+        private Object parseNumber() throws ParseException
+        {
+            int begin = pos;
+            boolean integral = true;
+            if (peek() == '-')
+            {
+                pos++;
+            }
+
+            digits();
+
+            if (peek() == '.')
+            {
+                integral = false;
+                pos++;
+                digits();
+            }
+
+            int c = peek();
+            if (c == 'e' || c == 'E')
+            {
+                integral = false;
+                pos++;
+                c = peek();
+                if (c == '+' || c == '-')
+                {
+                    pos++;
+                }
+                digits();
+            }
+
+            if (!integral)
+            {
+                return Double.valueOf(string(begin, pos));
+            }
+
+            if (pos - begin <= 18)
+            {
+                // can't overflow (leading zeros included) so skip making a string
+                boolean negative = at(begin) == '-';
+                long value = 0;
+                for (int i = negative ? begin + 1 : begin; i < pos; i++)
+                {
+                    value = value * 10 + (at(i) - '0');
+                }
+                return negative ? -value : value;
+            }
+
+            String text = string(begin, pos);
+            try
+            {
+                return Long.valueOf(text);
+            }
+            catch (NumberFormatException e)
+            {
+                return new BigInteger(text);
+            }
+        }
+
+        private void digits() throws ParseException
+        {
+            if (!isDigit(peek()))
+            {
+                throw unexpected();
+            }
+            do
+            {
+                pos++;
+            }
+            while (isDigit(peek()));
+        }
+
+        private boolean isDigit(int c)
+        {
+            return c >= '0' && c <= '9';
+        }
+
+        private void literal(String literal) throws ParseException
+        {
+            for (int i = 0; i < literal.length(); i++)
+            {
+                if (peek() != literal.charAt(i))
+                {
+                    throw unexpected();
+                }
+                pos++;
+            }
+        }
+
+        private void skipWhitespace()
+        {
+            skipWhitespaceAnd(' ');
+        }
+
+        private void skipWhitespaceAnd(int separator)
+        {
+            while (pos < end)
+            {
+                int c = at(pos);
+                if (c != separator && c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private int peek()
+        {
+            return (pos < end) ? at(pos) : -1;
+        }
+
+        private void checkDepth(int depth) throws ParseException
+        {
+            if (depth > parser.maxDepth)
+            {
+                throw new ParseException(pos, ParseException.ERROR_UNEXPECTED_EXCEPTION, "nesting deeper than " + parser.maxDepth);
+            }
+        }
+
+        private ParseException unexpected()
+        {
+            Object unexpected = (pos < end) ? Character.valueOf((char) at(pos)) : "end of input";
+            return new ParseException(pos, ParseException.ERROR_UNEXPECTED_CHAR, unexpected);
+        }
+    }
+
+    private static final class CharCursor extends Cursor
+    {
+        private final char[] chars;
+
+        private CharCursor(JsonParser parser, char[] chars, int begin, int end)
+        {
+            super(parser, begin, end);
+            this.chars = chars;
+        }
+
+        int at(int index)
+        {
+            return chars[index];
+        }
+
+        String string(int begin, int end)
+        {
+            return new String(chars, begin, end - begin);
+        }
+
+        void append(StringBuilder sb, int begin, int end)
+        {
+            sb.append(chars, begin, end - begin);
+        }
+    }
+
+    private static final class Utf8Cursor extends Cursor
+    {
+        private final byte[] bytes;
+
+        private Utf8Cursor(JsonParser parser, byte[] bytes, int begin, int end)
+        {
+            super(parser, begin, end);
+            this.bytes = bytes;
+
+            // a leading byte order mark may be ignored per RFC 8259
+            if (end - begin >= 3 && (bytes[begin] & 0xff) == 0xEF && (bytes[begin + 1] & 0xff) == 0xBB && (bytes[begin + 2] & 0xff) == 0xBF)
+            {
+                pos += 3;
+            }
+        }
+
+        int at(int index)
+        {
+            return bytes[index] & 0xff;
+        }
+
+        // multi-byte sequences never contain quotes, backslashes or control characters so the
+        // ranges these get are always whole sequences
+        String string(int begin, int end)
+        {
+            return new String(bytes, begin, end - begin, UTF_8);
+        }
+
+        void append(StringBuilder sb, int begin, int end)
+        {
+            if (begin < end)
+            {
+                sb.append(string(begin, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.json;
+
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * A pluggable JSON implementation for all the JSON processing in the library, which goes through
+ * {@link JsonUtil}. One can be set with {@link JsonUtil#setJsonProvider(JsonProvider)} or discovered with
+ * {@link java.util.ServiceLoader} from a {@code META-INF/services/org.jose4j.json.JsonProvider} file,
+ * otherwise {@link DefaultJsonProvider} is used.
+ * <p>
+ * Implementations must be thread safe. Parsed JSON objects need to be mutable {@link Map}s with String keys,
+ * arrays need to be {@link java.util.List}s, numbers {@link Number}s that are exact for integers in the
+ * range of a long, and strings, booleans and null the obvious Java types. It's also essential, for security,
+ * that parsing fails for an object with the same member name more than once. Serialization needs to handle
+ * those same types. The {@code JsonProviderConformanceTest} in the jose4j tests is something that
+ * an implementation can be checked against.
+ */
+public interface JsonProvider
+{
+    /**
+     * @param json the JSON text
+     * @return the JSON object as a map
+     * @throws JoseException if it isn't valid JSON, isn't an object, or has duplicate member names
+     */
+    Map<String,Object> parseJson(String json) throws JoseException;
+
+    /**
+     * @param utf8 a stream of UTF-8 encoded JSON, which is read to the end but not closed
+     * @return the JSON object as a map
+     * @throws JoseException if it isn't valid JSON, isn't an object, or has duplicate member names
+     * @throws IOException if there's a problem reading
+     */
+    Map<String,Object> parseJson(InputStream utf8) throws JoseException, IOException;
+
+    String toJson(Map<String,?> map);
+
+    /**
+     * @param map the JSON object
+     * @return its serialization as UTF-8 bytes
+     */
+    byte[] toJsonBytes(Map<String,?> map);
+
+    void writeJson(Map<String,?> map, Writer w) throws IOException;
+}
@@ -17,14 +17,12 @@
 package org.jose4j.json;
 
 import org.jose4j.json.internal.json_simple.parser.ContainerFactory;
-import org.jose4j.json.internal.json_simple.parser.JSONParser;
-import org.jose4j.json.internal.json_simple.JSONValue;
-
-import org.jose4j.json.internal.json_simple.parser.ParseException;
 import org.jose4j.lang.JoseException;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
 import java.util.*;
 
@@ -38,6 +36,9 @@ import java.util.*;
  * like not escaping forward slashes. There’s some risk in this but moving to a new/different processor
  * in the future isn’t really made particularly more difficult by this (as long as this class is the touch point
  * for JSON processing).
+ *
+ * Parsing has since moved to the hand written {@link JsonParser}, json-simple is still used for serialization,
+ * and a different implementation altogether can be plugged in as a {@link JsonProvider}.
  */
 public class JsonUtil
 {
@@ -54,27 +55,85 @@ public class JsonUtil
         }
     };
 
-    public static Map<String,Object> parseJson(String jsonString) throws JoseException
+    private static final Logger log = LoggerFactory.getLogger(JsonUtil.class);
+
+    private static volatile JsonProvider jsonProvider;
+
+    /**
+     * The provider that all JSON processing goes through, which is the one that was set, or else the first one
+     * found by {@link ServiceLoader}, or else a {@link DefaultJsonProvider}.
+     * @return the JSON provider
+     */
+    public static JsonProvider getJsonProvider()
+    {
+        JsonProvider provider = jsonProvider;
+        if (provider == null)
+        {
+            provider = discoverJsonProvider();
+            jsonProvider = provider;
+        }
+        return provider;
+    }
+
+    /**
+     * Sets the provider for all JSON processing.
+     * @param provider the JSON provider or null to go back to discovery or the default
+     */
+    public static void setJsonProvider(JsonProvider provider)
+    {
+        jsonProvider = provider;
+    }
+
+    private static JsonProvider discoverJsonProvider()
     {
         try
         {
-            JSONParser parser = new JSONParser();
-            return (DupeKeyDisallowingLinkedHashMap)parser.parse(jsonString, CONTAINER_FACTORY);
+            Iterator<JsonProvider> providers = ServiceLoader.load(JsonProvider.class).iterator();
+            if (providers.hasNext())
+            {
+                JsonProvider provider = providers.next();
+                log.debug("Using JSON provider {} from the ServiceLoader.", provider.getClass().getName());
+                return provider;
+            }
         }
-        catch (ParseException | IllegalArgumentException e)
+        catch (ServiceConfigurationError e)
         {
-            throw new JoseException("Parsing error: " + e, e);
+            log.warn("Unable to load a JSON provider with the ServiceLoader so using the default ({}).", e.toString());
         }
+        return new DefaultJsonProvider();
+    }
+
+    public static Map<String,Object> parseJson(String jsonString) throws JoseException
+    {
+        return getJsonProvider().parseJson(jsonString);
+    }
+
+    /**
+     * Parses a JSON object from UTF-8 encoded bytes read until the end of the given stream,
+     * without first making a String out of them. The stream isn't closed.
+     * @param utf8 the stream
+     * @return the JSON object as a map
+     * @throws JoseException if it's not a valid JSON object
+     * @throws IOException if there's a problem reading
+     */
+    public static Map<String,Object> parseJson(InputStream utf8) throws JoseException, IOException
+    {
+        return getJsonProvider().parseJson(utf8);
     }
 
     public static String toJson(Map<String,?> map)
     {
-        return JSONValue.toJSONString(map);
+        return getJsonProvider().toJson(map);
+    }
+
+    public static byte[] toJsonBytes(Map<String,?> map)
+    {
+        return getJsonProvider().toJsonBytes(map);
     }
 
     public static void writeJson(Map<String,?> map, Writer w) throws IOException
     {
-        JSONValue.writeJSONString(map, w);
+        getJsonProvider().writeJson(map, w);
     }
 
     static class DupeKeyDisallowingLinkedHashMap extends LinkedHashMap<String,Object>
@@ -82,12 +141,15 @@ public class JsonUtil
         @Override
         public Object put(String key, Object value)
         {
-            if (this.containsKey(key))
+            // one lookup rather than containsKey and then put, the map is thrown away when there's a dupe anyway
+            int size = size();
+            Object previous = super.put(key, value);
+            if (size() == size)
             {
                 throw new IllegalArgumentException("An entry for '" + key + "' already exists. Names must be unique.");
             }
 
-            return super.put(key, value);
+            return previous;
         }
     }
 }
@@ -16,6 +16,7 @@
 
 package org.jose4j.jwa;
 
+import org.jose4j.jca.JcaEngineCache;
 import org.jose4j.jwe.*;
 import org.jose4j.jws.*;
 import org.jose4j.jwx.HeaderParameterNames;
@@ -48,6 +49,7 @@ public class AlgorithmFactoryFactory
     void reinitialize()
     {
         log.debug("Reinitializing jose4j...");
+        JcaEngineCache.clear();
         initialize();
     }
 
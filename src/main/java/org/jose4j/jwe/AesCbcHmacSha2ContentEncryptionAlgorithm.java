@@ -32,7 +32,11 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -80,7 +84,7 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
     public ContentEncryptionParts encrypt(byte[] plaintext, byte[] aad, byte[] contentEncryptionKey, Headers headers, byte[] ivOverride, ProviderContext providerContext) throws JoseException
     {
         // The Initialization Vector (IV) used is a 128 bit value generated randomly or pseudorandomly for use in the cipher.
-        byte[] iv = InitializationVectorHelp.iv(IV_BYTE_LENGTH, ivOverride, providerContext.getSecureRandom());
+        byte[] iv = InitializationVectorHelp.iv(IV_BYTE_LENGTH, ivOverride, providerContext);
         return encrypt(plaintext, aad, contentEncryptionKey, iv, headers, providerContext);
     }
 
@@ -89,39 +93,33 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         Key hmacKey = new HmacKey(ByteUtil.leftHalf(key));
         Key encryptionKey = new AesKey(ByteUtil.rightHalf(key));
         final String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), cipherProvider);
-
+        Cipher cipher = null;
+        byte[] cipherText;
         try
         {
-            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            cipher = CipherUtil.acquireInitializedCipher(getJavaAlgorithm(), cipherProvider, Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            cipherText = new byte[cipher.getOutputSize(plaintext.length)];
+            int length = cipher.doFinal(plaintext, 0, plaintext.length, cipherText, 0);
+            if (length != cipherText.length)
+            {
+                cipherText = ByteUtil.subArray(cipherText, 0, length);
+            }
         }
         catch (InvalidKeyException e)
         {
             throw new JoseException("Invalid key for " + getJavaAlgorithm(), e);
         }
-        catch (InvalidAlgorithmParameterException e)
+        catch (InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e)
         {
             throw new JoseException(e.toString(), e);
         }
-
-        byte[] cipherText;
-        try
-        {
-            cipherText = cipher.doFinal(plaintext);
-        }
-        catch (IllegalBlockSizeException | BadPaddingException e)
+        finally
         {
-            throw new JoseException(e.toString(), e);
+            CipherUtil.releaseCipher(cipher, getJavaAlgorithm(), cipherProvider);
         }
 
         final String macProvider = ContentEncryptionHelp.getMacProvider(headers, providerContext);
-        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
-
-        byte[] al = getAdditionalAuthenticatedDataLengthBytes(aad);
-
-        byte[] authenticationTagInput = ByteUtil.concat(aad, iv, cipherText, al);
-        byte[] authenticationTag = mac.doFinal(authenticationTagInput);
-        authenticationTag = ByteUtil.subArray(authenticationTag, 0, getTagTruncationLength()); // truncate it
+        byte[] authenticationTag = calculateAuthenticationTag(hmacKey, aad, iv, ByteBuffer.wrap(cipherText), macProvider);
 
         return new ContentEncryptionParts(iv, cipherText, authenticationTag);
     }
@@ -132,45 +130,76 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         String macProvider = ContentEncryptionHelp.getMacProvider(headers, providerContext);
 
         byte[] iv = contentEncryptionParts.getIv();
-        byte[] ciphertext = contentEncryptionParts.getCiphertext();
+        ByteBuffer ciphertext = contentEncryptionParts.getCiphertextBuffer();
         byte[] authenticationTag = contentEncryptionParts.getAuthenticationTag();
-        byte[] al = getAdditionalAuthenticatedDataLengthBytes(aad);
-        byte[] authenticationTagInput = ByteUtil.concat(aad, iv, ciphertext, al);
         Key hmacKey = new HmacKey(ByteUtil.leftHalf(contentEncryptionKey));
-        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
-        byte[] calculatedAuthenticationTag = mac.doFinal(authenticationTagInput);
-        calculatedAuthenticationTag = ByteUtil.subArray(calculatedAuthenticationTag, 0, getTagTruncationLength()); // truncate it
-        boolean tagMatch = ByteUtil.secureEquals(authenticationTag, calculatedAuthenticationTag);
-        if (!tagMatch)
-        {
-            Base64Url base64Url = new Base64Url();
-            String encTag = base64Url.base64UrlEncode(authenticationTag);
-            String calcEncTag = base64Url.base64UrlEncode(calculatedAuthenticationTag);
-            throw new IntegrityException("Authentication tag check failed. Message=" + encTag + " calculated=" + calcEncTag);
-        }
+        byte[] calculatedAuthenticationTag = calculateAuthenticationTag(hmacKey, aad, iv, ciphertext.duplicate(), macProvider);
+        checkAuthenticationTag(authenticationTag, calculatedAuthenticationTag);
 
         Key encryptionKey = new AesKey(ByteUtil.rightHalf(contentEncryptionKey));
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), cipherProvider);
+        Cipher cipher = null;
         try
         {
-            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            cipher = CipherUtil.acquireInitializedCipher(getJavaAlgorithm(), cipherProvider, Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            if (ciphertext.hasArray())
+            {
+                return cipher.doFinal(ciphertext.array(), ciphertext.arrayOffset() + ciphertext.position(), ciphertext.remaining());
+            }
+            return cipher.doFinal(contentEncryptionParts.getCiphertext());
         }
         catch (InvalidKeyException e)
         {
             throw new JoseException("Invalid key for " + getJavaAlgorithm(), e);
         }
-        catch (InvalidAlgorithmParameterException e)
+        catch (InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e)
         {
             throw new JoseException(e.toString(), e);
         }
+        finally
+        {
+            CipherUtil.releaseCipher(cipher, getJavaAlgorithm(), cipherProvider);
+        }
+    }
 
+    StreamingContentDecrypter streamingDecrypter(byte[] aad, byte[] contentEncryptionKey, byte[] iv, Headers headers, ProviderContext providerContext) throws JoseException
+    {
+        String macProvider = ContentEncryptionHelp.getMacProvider(headers, providerContext);
+        Key hmacKey = new HmacKey(ByteUtil.leftHalf(contentEncryptionKey));
+        // not from the engine cache as it's held for as long as it takes the ciphertext to be read
+        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
+        mac.update(aad);
+        mac.update(iv);
+        String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
+        Key encryptionKey = new AesKey(ByteUtil.rightHalf(contentEncryptionKey));
+        return new CbcHmacStreamingDecrypter(mac, getAdditionalAuthenticatedDataLengthBytes(aad), encryptionKey, iv, cipherProvider);
+    }
+
+    private byte[] calculateAuthenticationTag(Key hmacKey, byte[] aad, byte[] iv, ByteBuffer ciphertext, String macProvider) throws JoseException
+    {
+        // the MAC input is AAD || IV || ciphertext || AL, which is fed to the MAC piece by piece rather than concatenated
+        Mac mac = MacUtil.acquireInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
         try
         {
-            return cipher.doFinal(ciphertext);
+            mac.update(aad);
+            mac.update(iv);
+            mac.update(ciphertext);
+            mac.update(getAdditionalAuthenticatedDataLengthBytes(aad));
+            return ByteUtil.subArray(mac.doFinal(), 0, getTagTruncationLength()); // truncate it
         }
-        catch (IllegalBlockSizeException | BadPaddingException e)
+        finally
         {
-            throw new JoseException(e.toString(), e);
+            MacUtil.releaseMac(mac, macProvider);
+        }
+    }
+
+    private void checkAuthenticationTag(byte[] authenticationTag, byte[] calculatedAuthenticationTag) throws IntegrityException
+    {
+        if (!ByteUtil.secureEquals(authenticationTag, calculatedAuthenticationTag))
+        {
+            Base64Url base64Url = new Base64Url();
+            String encTag = base64Url.base64UrlEncode(authenticationTag);
+            String calcEncTag = base64Url.base64UrlEncode(calculatedAuthenticationTag);
+            throw new IntegrityException("Authentication tag check failed. Message=" + encTag + " calculated=" + calcEncTag);
         }
     }
 
@@ -182,6 +211,69 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         return ByteUtil.getBytes(aadLength);
     }
 
+    /**
+     * The MAC is over the ciphertext, which has to be kept until the tag can be checked at the end,
+     * but it's only decrypted after that so none of the plaintext is ever held in memory all at once.
+     */
+    private class CbcHmacStreamingDecrypter implements StreamingContentDecrypter
+    {
+        private final Mac mac;
+        private final byte[] al;
+        private final Key encryptionKey;
+        private final byte[] iv;
+        private final String cipherProvider;
+        private final ByteChunks ciphertext = new ByteChunks();
+
+        private CbcHmacStreamingDecrypter(Mac mac, byte[] al, Key encryptionKey, byte[] iv, String cipherProvider)
+        {
+            this.mac = mac;
+            this.al = al;
+            this.encryptionKey = encryptionKey;
+            this.iv = iv;
+            this.cipherProvider = cipherProvider;
+        }
+
+        public void update(byte[] bytes, int offset, int length)
+        {
+            mac.update(bytes, offset, length);
+            ciphertext.append(bytes, offset, length);
+        }
+
+        public void finish(byte[] authenticationTag, OutputStream plaintext) throws JoseException, IOException
+        {
+            mac.update(al);
+            byte[] calculatedAuthenticationTag = ByteUtil.subArray(mac.doFinal(), 0, getTagTruncationLength());
+            checkAuthenticationTag(authenticationTag, calculatedAuthenticationTag);
+
+            Cipher cipher = null;
+            try
+            {
+                cipher = CipherUtil.acquireInitializedCipher(getJavaAlgorithm(), cipherProvider, Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+                // room for a whole block of ciphertext plus the one the cipher holds back between updates
+                byte[] out = new byte[cipher.getOutputSize(ByteChunks.BLOCK_SIZE + IV_BYTE_LENGTH)];
+                for (int i = 0; i < ciphertext.blockCount(); i++)
+                {
+                    int length = cipher.update(ciphertext.block(i), 0, ciphertext.blockLength(i), out);
+                    plaintext.write(out, 0, length);
+                }
+                int length = cipher.doFinal(out, 0);
+                plaintext.write(out, 0, length);
+            }
+            catch (InvalidKeyException e)
+            {
+                throw new JoseException("Invalid key for " + getJavaAlgorithm(), e);
+            }
+            catch (InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e)
+            {
+                throw new JoseException(e.toString(), e);
+            }
+            finally
+            {
+                CipherUtil.releaseCipher(cipher, getJavaAlgorithm(), cipherProvider);
+            }
+        }
+    }
+
     @Override
     public boolean isAvailable()
     {
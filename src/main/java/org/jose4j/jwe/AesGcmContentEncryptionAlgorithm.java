@@ -24,6 +24,8 @@ import org.jose4j.keys.KeyPersuasion;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.JoseException;
 
+import java.nio.ByteBuffer;
+
 /**
  *
  */
@@ -53,7 +55,7 @@ public class AesGcmContentEncryptionAlgorithm extends AlgorithmInfo implements C
     public ContentEncryptionParts encrypt(byte[] plaintext, byte[] aad, byte[] contentEncryptionKey, Headers headers, byte[] ivOverride, ProviderContext providerContext)
             throws JoseException
     {
-        byte[] iv = InitializationVectorHelp.iv(IV_BYTE_LENGTH, ivOverride, providerContext.getSecureRandom());
+        byte[] iv = InitializationVectorHelp.iv(IV_BYTE_LENGTH, ivOverride, providerContext);
         String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
         return encrypt(plaintext, aad, contentEncryptionKey, iv, cipherProvider);
     }
@@ -65,7 +67,7 @@ public class AesGcmContentEncryptionAlgorithm extends AlgorithmInfo implements C
     {
         AesKey cek = new AesKey(contentEncryptionKey);
         SimpleAeadCipher.CipherOutput encrypted = simpleAeadCipher.encrypt(cek, iv, plaintext, aad, provider);
-        return new ContentEncryptionParts(iv, encrypted.getCiphertext(), encrypted.getTag());
+        return new ContentEncryptionParts(iv, encrypted.getCiphertextBuffer(), encrypted.getTagBuffer());
     }
 
     public byte[] decrypt(ContentEncryptionParts contentEncParts, byte[] aad, byte[] contentEncryptionKey, Headers headers, ProviderContext providerContext)
@@ -73,10 +75,25 @@ public class AesGcmContentEncryptionAlgorithm extends AlgorithmInfo implements C
     {
         byte[] iv = contentEncParts.getIv();
         AesKey cek = new AesKey(contentEncryptionKey);
-        byte[] ciphertext = contentEncParts.getCiphertext();
-        byte[] tag = contentEncParts.getAuthenticationTag();
         String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
-        return simpleAeadCipher.decrypt(cek, iv, ciphertext, tag, aad, cipherProvider);
+        ByteBuffer ciphertextAndTag = contentEncParts.getCiphertextAndTagBuffer();
+        if (ciphertextAndTag == null || ciphertextAndTag.remaining() < TAG_BYTE_LENGTH)
+        {
+            byte[] ciphertext = contentEncParts.getCiphertext();
+            byte[] tag = contentEncParts.getAuthenticationTag();
+            return simpleAeadCipher.decrypt(cek, iv, ciphertext, tag, aad, cipherProvider);
+        }
+
+        byte[] plaintext = new byte[ciphertextAndTag.remaining() - TAG_BYTE_LENGTH];
+        simpleAeadCipher.decrypt(cek, iv, ciphertextAndTag, aad, ByteBuffer.wrap(plaintext), cipherProvider);
+        return plaintext;
+    }
+
+    StreamingContentDecrypter streamingDecrypter(byte[] aad, byte[] contentEncryptionKey, byte[] iv, Headers headers, ProviderContext providerContext)
+            throws JoseException
+    {
+        String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
+        return simpleAeadCipher.streamingDecrypter(new AesKey(contentEncryptionKey), iv, aad, cipherProvider);
     }
 
     @Override
@@ -23,6 +23,7 @@ import org.jose4j.jwx.HeaderParameterNames;
 import org.jose4j.jwx.Headers;
 import org.jose4j.jwx.KeyValidationSupport;
 import org.jose4j.keys.KeyPersuasion;
+import org.jose4j.lang.ByteGenerator;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.InvalidKeyException;
 import org.jose4j.lang.JoseException;
@@ -56,7 +57,8 @@ public class AesGcmKeyEncryptionAlgorithm extends AlgorithmInfo implements KeyMa
     public ContentEncryptionKeys manageForEncrypt(Key managementKey, ContentEncryptionKeyDescriptor cekDesc, Headers headers, byte[] cekOverride, ProviderContext providerContext) throws JoseException
     {
         SecureRandom secureRandom = providerContext.getSecureRandom();
-        byte[] cek = (cekOverride == null) ? ByteUtil.randomBytes(cekDesc.getContentEncryptionKeyByteLength(), secureRandom) : cekOverride;
+        ByteGenerator byteGenerator = providerContext.getByteGenerator();
+        byte[] cek = (cekOverride == null) ? ByteUtil.randomBytes(cekDesc.getContentEncryptionKeyByteLength(), secureRandom, byteGenerator) : cekOverride;
 
         Base64Url base64Url = new Base64Url();
 
@@ -64,7 +66,7 @@ public class AesGcmKeyEncryptionAlgorithm extends AlgorithmInfo implements KeyMa
         byte[] iv;
         if (encodedIv == null)
         {
-            iv = ByteUtil.randomBytes(IV_BYTE_LENGTH, secureRandom);
+            iv = ByteUtil.randomBytes(IV_BYTE_LENGTH, secureRandom, byteGenerator);
             encodedIv = base64Url.base64UrlEncode(iv);
             headers.setStringHeaderValue(HeaderParameterNames.INITIALIZATION_VECTOR, encodedIv);
         }
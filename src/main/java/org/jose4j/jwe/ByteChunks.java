@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append only sequence of bytes kept in fixed size blocks so that growing it never copies what's already there.
+ */
+class ByteChunks
+{
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private final List<byte[]> blocks = new ArrayList<>();
+    private int lastBlockLength = BLOCK_SIZE;
+    private long size;
+
+    void append(byte[] bytes, int offset, int length)
+    {
+        while (length > 0)
+        {
+            if (lastBlockLength == BLOCK_SIZE)
+            {
+                blocks.add(new byte[BLOCK_SIZE]);
+                lastBlockLength = 0;
+            }
+            int n = Math.min(length, BLOCK_SIZE - lastBlockLength);
+            System.arraycopy(bytes, offset, blocks.get(blocks.size() - 1), lastBlockLength, n);
+            lastBlockLength += n;
+            offset += n;
+            length -= n;
+            size += n;
+        }
+    }
+
+    long size()
+    {
+        return size;
+    }
+
+    int blockCount()
+    {
+        return blocks.size();
+    }
+
+    byte[] block(int index)
+    {
+        return blocks.get(index);
+    }
+
+    int blockLength(int index)
+    {
+        return (index == blocks.size() - 1) ? lastBlockLength : BLOCK_SIZE;
+    }
+
+    void writeTo(OutputStream out) throws IOException
+    {
+        for (int i = 0; i < blocks.size(); i++)
+        {
+            out.write(blocks.get(i), 0, blockLength(i));
+        }
+    }
+}
@@ -16,12 +16,17 @@
 
 package org.jose4j.jwe;
 
+import org.jose4j.jca.JcaEngineCache;
 import org.jose4j.lang.JoseException;
 
 import javax.crypto.Cipher;
 import javax.crypto.NoSuchPaddingException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.spec.AlgorithmParameterSpec;
 
 /**
  */
@@ -47,4 +52,49 @@ public class CipherUtil
             throw new JoseException("Unable to get a Cipher implementation of " + algorithm + " using provider " + provider, e);
         }
     }
+
+    /**
+     * Gets a Cipher initialized with the key, reusing one from the current thread's {@link JcaEngineCache} when possible.
+     * A Cipher obtained without naming a provider is bound to the provider of the first key it was initialized with,
+     * so a cached one that rejects the key is dropped and a new one is tried. Nothing is returned, and so nothing
+     * should be given back to the cache, when initialization fails.
+     */
+    static Cipher acquireInitializedCipher(String algorithm, String provider, int mode, Key key, AlgorithmParameterSpec parameterSpec)
+            throws JoseException, InvalidKeyException, InvalidAlgorithmParameterException
+    {
+        Cipher cipher = JcaEngineCache.acquire(Cipher.class, algorithm, provider);
+        if (cipher != null)
+        {
+            try
+            {
+                init(cipher, mode, key, parameterSpec);
+                return cipher;
+            }
+            catch (InvalidKeyException e)
+            {
+                // try again with a new one below
+            }
+        }
+
+        cipher = getCipher(algorithm, provider);
+        init(cipher, mode, key, parameterSpec);
+        return cipher;
+    }
+
+    private static void init(Cipher cipher, int mode, Key key, AlgorithmParameterSpec parameterSpec) throws InvalidKeyException, InvalidAlgorithmParameterException
+    {
+        if (parameterSpec == null)
+        {
+            cipher.init(mode, key);
+        }
+        else
+        {
+            cipher.init(mode, key, parameterSpec);
+        }
+    }
+
+    static void releaseCipher(Cipher cipher, String algorithm, String provider)
+    {
+        JcaEngineCache.release(Cipher.class, algorithm, provider, cipher);
+    }
 }
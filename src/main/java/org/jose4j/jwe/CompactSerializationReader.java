@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.base64url.Base64UrlCodec;
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the period separated parts of a JWE compact serialization from a stream,
+ * decoding the ciphertext part in pieces rather than reading it all in first.
+ * The other parts are read into memory and so are limited to a maximum length.
+ */
+class CompactSerializationReader
+{
+    private static final byte PERIOD_SEPARATOR = '.';
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final InputStream in;
+    private final int maxPartLength;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfStream;
+
+    CompactSerializationReader(InputStream in, int maxPartLength)
+    {
+        this.in = in;
+        this.maxPartLength = maxPartLength;
+    }
+
+    String readPart() throws IOException, JoseException
+    {
+        StringBuilder sb = new StringBuilder();
+        while (true)
+        {
+            if (!fill())
+            {
+                throw wrongNumberOfParts();
+            }
+
+            int separator = indexOfSeparator();
+            int end = (separator == -1) ? limit : separator;
+            appendAscii(sb, end);
+            if (separator != -1)
+            {
+                position = separator + 1;
+                return sb.toString();
+            }
+            position = limit;
+        }
+    }
+
+    long decodePart(StreamingContentDecrypter decrypter) throws IOException, JoseException
+    {
+        Base64UrlCodec.IncrementalDecoder decoder = new Base64UrlCodec.IncrementalDecoder();
+        byte[] decoded = new byte[Base64UrlCodec.IncrementalDecoder.maxDecodedLength(BUFFER_SIZE)];
+        long encodedLength = 0;
+        while (true)
+        {
+            if (!fill())
+            {
+                throw wrongNumberOfParts();
+            }
+
+            int separator = indexOfSeparator();
+            int end = (separator == -1) ? limit : separator;
+            encodedLength += end - position;
+            int length = decoder.update(buffer, position, end - position, decoded, 0);
+            if (length > 0)
+            {
+                decrypter.update(decoded, 0, length);
+            }
+
+            if (separator != -1)
+            {
+                position = separator + 1;
+                length = decoder.finish(decoded, 0);
+                if (length > 0)
+                {
+                    decrypter.update(decoded, 0, length);
+                }
+                return encodedLength;
+            }
+            position = limit;
+        }
+    }
+
+    String readLastPart() throws IOException, JoseException
+    {
+        StringBuilder sb = new StringBuilder();
+        while (fill())
+        {
+            if (indexOfSeparator() != -1)
+            {
+                throw wrongNumberOfParts();
+            }
+            appendAscii(sb, limit);
+            position = limit;
+        }
+        return sb.toString();
+    }
+
+    private boolean fill() throws IOException
+    {
+        while (position == limit && !endOfStream)
+        {
+            int read = in.read(buffer);
+            if (read == -1)
+            {
+                endOfStream = true;
+            }
+            else
+            {
+                position = 0;
+                limit = read;
+            }
+        }
+        return position < limit;
+    }
+
+    private int indexOfSeparator()
+    {
+        for (int i = position; i < limit; i++)
+        {
+            if (buffer[i] == PERIOD_SEPARATOR)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendAscii(StringBuilder sb, int end) throws JoseException
+    {
+        if ((long) sb.length() + end - position > maxPartLength)
+        {
+            throw new JoseException("A part of the JWE Compact Serialization exceeds the maximum allowed length of " + maxPartLength + " characters.");
+        }
+
+        for (int i = position; i < end; i++)
+        {
+            sb.append((char) (buffer[i] & 0xff));
+        }
+    }
+
+    private JoseException wrongNumberOfParts()
+    {
+        return new JoseException("A JWE Compact Serialization must have exactly " + JsonWebEncryption.COMPACT_SERIALIZATION_PARTS + " parts separated by period ('.') characters");
+    }
+}
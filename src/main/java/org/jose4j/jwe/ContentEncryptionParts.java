@@ -16,6 +16,8 @@
 
 package org.jose4j.jwe;
 
+import java.nio.ByteBuffer;
+
 /**
 */
 public class ContentEncryptionParts
@@ -23,6 +25,8 @@ public class ContentEncryptionParts
     private byte[] iv;
     private byte[] ciphertext;
     private byte[] authenticationTag;
+    private ByteBuffer ciphertextBuffer;
+    private ByteBuffer authenticationTagBuffer;
 
     public ContentEncryptionParts(byte[] iv, byte[] ciphertext, byte[] authenticationTag)
     {
@@ -31,6 +35,20 @@ public class ContentEncryptionParts
         this.authenticationTag = authenticationTag;
     }
 
+    /**
+     * Creates the parts from views of the ciphertext and tag, which can be slices of one bigger buffer
+     * (as when a cipher's output has the tag right after the ciphertext) so they needn't be copied apart.
+     * @param iv the initialization vector
+     * @param ciphertext the ciphertext from the buffer's position to its limit
+     * @param authenticationTag the authentication tag from the buffer's position to its limit
+     */
+    public ContentEncryptionParts(byte[] iv, ByteBuffer ciphertext, ByteBuffer authenticationTag)
+    {
+        this.iv = iv;
+        this.ciphertextBuffer = ciphertext;
+        this.authenticationTagBuffer = authenticationTag;
+    }
+
     public byte[] getIv()
     {
         return iv;
@@ -38,11 +56,61 @@ public class ContentEncryptionParts
 
     public byte[] getCiphertext()
     {
+        if (ciphertext == null)
+        {
+            ciphertext = toArray(ciphertextBuffer);
+        }
         return ciphertext;
     }
 
     public byte[] getAuthenticationTag()
     {
+        if (authenticationTag == null)
+        {
+            authenticationTag = toArray(authenticationTagBuffer);
+        }
         return authenticationTag;
     }
+
+    /**
+     * @return a view of the ciphertext, which is not a copy and so shouldn't be modified
+     */
+    public ByteBuffer getCiphertextBuffer()
+    {
+        return (ciphertextBuffer == null) ? ByteBuffer.wrap(ciphertext) : ciphertextBuffer.duplicate();
+    }
+
+    /**
+     * @return a view of the authentication tag, which is not a copy and so shouldn't be modified
+     */
+    public ByteBuffer getAuthenticationTagBuffer()
+    {
+        return (authenticationTagBuffer == null) ? ByteBuffer.wrap(authenticationTag) : authenticationTagBuffer.duplicate();
+    }
+
+    /**
+     * @return a view of the ciphertext immediately followed by the authentication tag, if that's how they're laid out
+     * in memory, or {@code null} if they'd have to be copied together
+     */
+    ByteBuffer getCiphertextAndTagBuffer()
+    {
+        ByteBuffer ciphertext = getCiphertextBuffer();
+        ByteBuffer tag = getAuthenticationTagBuffer();
+        if (ciphertext.hasArray() && tag.hasArray() && ciphertext.array() == tag.array()
+                && ciphertext.arrayOffset() + ciphertext.limit() == tag.arrayOffset() + tag.position())
+        {
+            ByteBuffer combined = ByteBuffer.wrap(ciphertext.array(), ciphertext.arrayOffset() + ciphertext.position(),
+                    ciphertext.remaining() + tag.remaining());
+            return combined.slice();
+        }
+        return null;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer)
+    {
+        ByteBuffer view = buffer.duplicate();
+        byte[] bytes = new byte[view.remaining()];
+        view.get(bytes);
+        return bytes;
+    }
 }
@@ -15,14 +15,13 @@
  */
 package org.jose4j.jwe;
 
+import org.jose4j.jca.ProviderContext;
 import org.jose4j.lang.ByteUtil;
 
-import java.security.SecureRandom;
-
 public class InitializationVectorHelp
 {
-    static byte[] iv(int byteLength, byte[] ivOverride, SecureRandom secureRandom)
+    static byte[] iv(int byteLength, byte[] ivOverride, ProviderContext providerContext)
     {
-        return (ivOverride == null) ? ByteUtil.randomBytes(byteLength, secureRandom) : ivOverride;
+        return (ivOverride == null) ? ByteUtil.randomBytes(byteLength, providerContext.getSecureRandom(), providerContext.getByteGenerator()) : ivOverride;
     }
 }
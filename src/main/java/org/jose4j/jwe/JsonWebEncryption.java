@@ -17,6 +17,7 @@
 package org.jose4j.jwe;
 
 import org.jose4j.base64url.Base64Url;
+import org.jose4j.base64url.Base64UrlCodec;
 import org.jose4j.jwa.Algorithm;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwa.AlgorithmFactory;
@@ -25,12 +26,21 @@ import org.jose4j.jwx.CompactSerializer;
 import org.jose4j.jwx.HeaderParameterNames;
 import org.jose4j.jwx.Headers;
 import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.InvalidAlgorithmException;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.StringUtil;
 import org.jose4j.zip.CompressionAlgorithm;
 import org.jose4j.zip.CompressionAlgorithmIdentifiers;
-
+import org.jose4j.zip.DeflateRFC1951CompressionAlgorithm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.security.Key;
 import java.util.Map;
 import org.jose4j.json.JsonUtil;
@@ -50,11 +60,20 @@ public class JsonWebEncryption extends JsonWebStructure
     byte[] encryptedKey;
     byte[] iv;
     byte[] ciphertext;
+    // when set, the ciphertext and tag are views of one array with the tag right after the ciphertext
+    private ByteBuffer ciphertextBuffer;
+    private ByteBuffer tagBuffer;
 
     byte[] contentEncryptionKey;
 
     private AlgorithmConstraints contentEncryptionAlgorithmConstraints = AlgorithmConstraints.NO_CONSTRAINTS;
 
+    private boolean skipCompressionWhenNotWorthwhile;
+
+    private int maxStreamedPartLength = 64 * 1024;
+
+    private int maxDecompressedLength;
+
     public void setPlainTextCharEncoding(String plaintextCharEncoding)
     {
         this.plaintextCharEncoding = plaintextCharEncoding;
@@ -121,6 +140,40 @@ public class JsonWebEncryption extends JsonWebStructure
         setCompressionAlgorithmHeaderParameter(CompressionAlgorithmIdentifiers.DEFLATE);
     }
 
+    /**
+     * Sets whether to leave out compression, and the "zip" header parameter, when the plaintext is too short for
+     * compression to be worthwhile (see {@link DeflateRFC1951CompressionAlgorithm#getMinCompressLength()}).
+     * This changes the header from what was set, which a recipient might not expect, so it's off by default
+     * and compression is done whenever the "zip" header parameter is set.
+     * @param skipCompressionWhenNotWorthwhile true to skip compression of short plaintext
+     */
+    public void setSkipCompressionWhenNotWorthwhile(boolean skipCompressionWhenNotWorthwhile)
+    {
+        this.skipCompressionWhenNotWorthwhile = skipCompressionWhenNotWorthwhile;
+    }
+
+    /**
+     * Sets the maximum length, in characters, of the header, encrypted key, IV and authentication tag parts when
+     * reading a compact serialization with {@link #decrypt(InputStream, OutputStream)}. Those parts are read into
+     * memory, unlike the ciphertext, so this keeps an endless part from being buffered. The default is 64K.
+     * @param maxStreamedPartLength the maximum length of each part other than the ciphertext
+     */
+    public void setMaxStreamedPartLength(int maxStreamedPartLength)
+    {
+        this.maxStreamedPartLength = maxStreamedPartLength;
+    }
+
+    /**
+     * Sets the most bytes that decompressing the plaintext of this JWE is allowed to produce, which is checked as
+     * it's decompressed rather than after. This can only lower the limit of the
+     * {@link DeflateRFC1951CompressionAlgorithm} itself (see {@link DeflateRFC1951CompressionAlgorithm#getMaxDecompressedLength()}).
+     * @param maxDecompressedLength the maximum decompressed length in bytes or zero or less to use the compression algorithm's limit (the default)
+     */
+    public void setMaxDecompressedLength(int maxDecompressedLength)
+    {
+        this.maxDecompressedLength = maxDecompressedLength;
+    }
+
     public void setContentEncryptionAlgorithmConstraints(AlgorithmConstraints contentEncryptionAlgorithmConstraints)
     {
         this.contentEncryptionAlgorithmConstraints = contentEncryptionAlgorithmConstraints;
@@ -187,11 +240,42 @@ public class JsonWebEncryption extends JsonWebStructure
         String encodedCiphertext = parts[3];
         checkNotEmptyPart(encodedCiphertext, "Encoded JWE Ciphertext");
         ciphertext = base64url.base64UrlDecode(encodedCiphertext);
+        ciphertextBuffer = null;
+        tagBuffer = null;
         String encodedAuthenticationTag = parts[4];
         checkNotEmptyPart(encodedAuthenticationTag, "Encoded JWE Authentication Tag");
         byte[] tag = base64url.base64UrlDecode(encodedAuthenticationTag);
         setIntegrity(tag);
     }
+
+    @Override
+    protected void setCompactSerializationParts(String compactSerialization, int[] separatorIndexes) throws JoseException
+    {
+        if (separatorIndexes.length + 1 != COMPACT_SERIALIZATION_PARTS)
+        {
+            throw new JoseException("A JWE Compact Serialization must have exactly " + COMPACT_SERIALIZATION_PARTS + " parts separated by period ('.') characters");
+        }
+
+        // decode the larger parts straight out of the compact serialization rather than splitting it first
+        setEncodedHeader(compactSerialization.substring(0, separatorIndexes[0]));
+        encryptedKey = Base64UrlCodec.decode(compactSerialization, separatorIndexes[0] + 1, separatorIndexes[1]);
+        setIv(Base64UrlCodec.decode(compactSerialization, separatorIndexes[1] + 1, separatorIndexes[2]));
+        int ciphertextBegin = separatorIndexes[2] + 1;
+        checkNotEmptyPart(ciphertextBegin, separatorIndexes[3], "Encoded JWE Ciphertext");
+        int tagBegin = separatorIndexes[3] + 1;
+        checkNotEmptyPart(tagBegin, compactSerialization.length(), "Encoded JWE Authentication Tag");
+
+        // the ciphertext and tag go into one array, which is how AES GCM wants them, rather than two that need concatenating
+        int ciphertextLength = Base64UrlCodec.decodedLength(compactSerialization, ciphertextBegin, separatorIndexes[3]);
+        int tagLength = Base64UrlCodec.decodedLength(compactSerialization, tagBegin, compactSerialization.length());
+        byte[] ciphertextAndTag = new byte[ciphertextLength + tagLength];
+        Base64UrlCodec.decode(compactSerialization, ciphertextBegin, separatorIndexes[3], ciphertextAndTag, 0);
+        Base64UrlCodec.decode(compactSerialization, tagBegin, compactSerialization.length(), ciphertextAndTag, ciphertextLength);
+        ciphertext = null;
+        ciphertextBuffer = ByteBuffer.wrap(ciphertextAndTag, 0, ciphertextLength);
+        tagBuffer = ByteBuffer.wrap(ciphertextAndTag, ciphertextLength, tagLength).slice();
+        setIntegrity(ByteUtil.subArray(ciphertextAndTag, ciphertextLength, tagLength));
+    }
         
     public void setFlattenedJsonSerialization(String json) throws JoseException
     {
@@ -222,6 +306,8 @@ public class JsonWebEncryption extends JsonWebStructure
         String encodedCiphertext = (String) parsedJson.get("ciphertext");
         checkNotEmptyPart(encodedCiphertext, "Encoded JWE Ciphertext");
         ciphertext = base64url.base64UrlDecode(encodedCiphertext);
+        ciphertextBuffer = null;
+        tagBuffer = null;
         
         if(parsedJson.containsKey("tag")) {
             String encodedAuthenticationTag = (String) parsedJson.get("tag");
@@ -248,7 +334,9 @@ public class JsonWebEncryption extends JsonWebStructure
 
         Key cek = keyManagementModeAlg.manageForDecrypt(getKey(), getEncryptedKey(), contentEncryptionKeyDesc, getHeaders(), getProviderCtx());
 
-        ContentEncryptionParts contentEncryptionParts = new ContentEncryptionParts(iv, ciphertext, getIntegrity());
+        ContentEncryptionParts contentEncryptionParts = (ciphertextBuffer == null)
+                ? new ContentEncryptionParts(iv, ciphertext, getIntegrity())
+                : new ContentEncryptionParts(iv, ciphertextBuffer.duplicate(), tagBuffer.duplicate());
         byte[] aad = getEncodedHeaderAsciiBytesForAdditionalAuthenticatedData();
         byte[] decrypted = contentEncryptionAlg.decrypt(contentEncryptionParts, aad, cek.getEncoded(), getHeaders(), getProviderCtx());
 
@@ -257,6 +345,123 @@ public class JsonWebEncryption extends JsonWebStructure
         setPlaintext(decrypted);
     }
 
+    /**
+     * Reads a JWE in compact serialization from the given stream, decrypts it and writes the plaintext
+     * to the other stream without having the whole serialization, ciphertext or plaintext in memory at once,
+     * which makes a difference with large payloads. With AES_CBC_HMAC_SHA2 the decoded ciphertext has to be kept
+     * until the authentication tag can be checked (and with AES GCM the JCA provider might do the same) but either
+     * way no plaintext is written before the tag has been verified. The headers, encrypted key, IV and tag of
+     * this object are set from what's read but the plaintext is not. Neither stream is closed. Parts other than the
+     * ciphertext that are longer than {@link #setMaxStreamedPartLength(int)} are rejected.
+     * @param compactSerialization the JWE compact serialization
+     * @param plaintext where the (decompressed, if the zip header says so) plaintext gets written
+     * @throws JoseException if the JWE can't be decrypted
+     * @throws IOException if there's a problem reading or writing
+     */
+    public void decrypt(InputStream compactSerialization, OutputStream plaintext) throws JoseException, IOException
+    {
+        this.plaintext = null;
+        ciphertext = null;
+        ciphertextBuffer = null;
+        tagBuffer = null;
+        CompactSerializationReader reader = new CompactSerializationReader(compactSerialization, maxStreamedPartLength);
+        setEncodedHeader(reader.readPart());
+        encryptedKey = Base64UrlCodec.decode(reader.readPart());
+        setIv(Base64UrlCodec.decode(reader.readPart()));
+
+        KeyManagementAlgorithm keyManagementModeAlg = getKeyManagementModeAlgorithm();
+        ContentEncryptionAlgorithm contentEncryptionAlg = getContentEncryptionAlgorithm();
+
+        ContentEncryptionKeyDescriptor contentEncryptionKeyDesc = contentEncryptionAlg.getContentEncryptionKeyDescriptor();
+
+        if (isDoKeyValidation())
+        {
+            keyManagementModeAlg.validateDecryptionKey(getKey(), contentEncryptionAlg);
+        }
+
+        checkCrit();
+
+        Key cek = keyManagementModeAlg.manageForDecrypt(getKey(), getEncryptedKey(), contentEncryptionKeyDesc, getHeaders(), getProviderCtx());
+        byte[] aad = getEncodedHeaderAsciiBytesForAdditionalAuthenticatedData();
+        StreamingContentDecrypter decrypter = streamingDecrypter(contentEncryptionAlg, aad, cek.getEncoded());
+
+        if (reader.decodePart(decrypter) == 0)
+        {
+            throw new JoseException("The Encoded JWE Ciphertext cannot be empty.");
+        }
+        String encodedAuthenticationTag = reader.readLastPart();
+        checkNotEmptyPart(encodedAuthenticationTag, "Encoded JWE Authentication Tag");
+        setIntegrity(Base64UrlCodec.decode(encodedAuthenticationTag));
+
+        String zipHeaderValue = getCompressionAlgorithmHeaderParameter();
+        if (zipHeaderValue == null)
+        {
+            decrypter.finish(getIntegrity(), plaintext);
+            return;
+        }
+
+        AlgorithmFactoryFactory factoryFactory = AlgorithmFactoryFactory.getInstance();
+        AlgorithmFactory<CompressionAlgorithm> zipAlgFactory = factoryFactory.getCompressionAlgorithmFactory();
+        CompressionAlgorithm compressionAlgorithm = zipAlgFactory.getAlgorithm(zipHeaderValue);
+        if (compressionAlgorithm instanceof DeflateRFC1951CompressionAlgorithm)
+        {
+            DeflateRFC1951CompressionAlgorithm deflate = (DeflateRFC1951CompressionAlgorithm) compressionAlgorithm;
+            try (OutputStream decompressing = deflate.decompressingOutputStream(plaintext, getMaxDecompressedLength(deflate)))
+            {
+                decrypter.finish(getIntegrity(), decompressing);
+            }
+        }
+        else
+        {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            decrypter.finish(getIntegrity(), compressed);
+            plaintext.write(compressionAlgorithm.decompress(compressed.toByteArray()));
+        }
+    }
+
+    /**
+     * Same as {@link #decrypt(InputStream, OutputStream)} but reading from a channel.
+     * @param compactSerialization the JWE compact serialization
+     * @param plaintext where the plaintext gets written
+     * @throws JoseException if the JWE can't be decrypted
+     * @throws IOException if there's a problem reading or writing
+     */
+    public void decrypt(ReadableByteChannel compactSerialization, OutputStream plaintext) throws JoseException, IOException
+    {
+        decrypt(Channels.newInputStream(compactSerialization), plaintext);
+    }
+
+    private StreamingContentDecrypter streamingDecrypter(final ContentEncryptionAlgorithm contentEncryptionAlg, final byte[] aad, final byte[] cek)
+            throws JoseException
+    {
+        if (contentEncryptionAlg instanceof AesCbcHmacSha2ContentEncryptionAlgorithm)
+        {
+            AesCbcHmacSha2ContentEncryptionAlgorithm cbcHmac = (AesCbcHmacSha2ContentEncryptionAlgorithm) contentEncryptionAlg;
+            return cbcHmac.streamingDecrypter(aad, cek, iv, getHeaders(), getProviderCtx());
+        }
+        else if (contentEncryptionAlg instanceof AesGcmContentEncryptionAlgorithm)
+        {
+            AesGcmContentEncryptionAlgorithm gcm = (AesGcmContentEncryptionAlgorithm) contentEncryptionAlg;
+            return gcm.streamingDecrypter(aad, cek, iv, getHeaders(), getProviderCtx());
+        }
+
+        // other content encryption algorithms only know how to take it all at once
+        final ByteArrayOutputStream bufferedCiphertext = new ByteArrayOutputStream();
+        return new StreamingContentDecrypter()
+        {
+            public void update(byte[] bytes, int offset, int length)
+            {
+                bufferedCiphertext.write(bytes, offset, length);
+            }
+
+            public void finish(byte[] authenticationTag, OutputStream out) throws JoseException, IOException
+            {
+                ContentEncryptionParts parts = new ContentEncryptionParts(iv, bufferedCiphertext.toByteArray(), authenticationTag);
+                out.write(contentEncryptionAlg.decrypt(parts, aad, cek, getHeaders(), getProviderCtx()));
+            }
+        };
+    }
+
     public byte[] getEncryptedKey()
     {
         return encryptedKey;
@@ -276,11 +481,25 @@ public class JsonWebEncryption extends JsonWebStructure
             AlgorithmFactoryFactory factoryFactory = AlgorithmFactoryFactory.getInstance();
             AlgorithmFactory<CompressionAlgorithm> zipAlgFactory = factoryFactory.getCompressionAlgorithmFactory();
             CompressionAlgorithm compressionAlgorithm = zipAlgFactory.getAlgorithm(zipHeaderValue);
-            data = compressionAlgorithm.decompress(data);
+            if (compressionAlgorithm instanceof DeflateRFC1951CompressionAlgorithm)
+            {
+                DeflateRFC1951CompressionAlgorithm deflate = (DeflateRFC1951CompressionAlgorithm) compressionAlgorithm;
+                data = deflate.decompress(data, getMaxDecompressedLength(deflate));
+            }
+            else
+            {
+                data = compressionAlgorithm.decompress(data);
+            }
         }
         return data;
     }
 
+    private int getMaxDecompressedLength(DeflateRFC1951CompressionAlgorithm deflate)
+    {
+        int algorithmMax = deflate.getMaxDecompressedLength();
+        return (maxDecompressedLength > 0) ? Math.min(maxDecompressedLength, algorithmMax) : algorithmMax;
+    }
+
     byte[] compress(Headers headers, byte[] data) throws InvalidAlgorithmException
     {
         String zipHeaderValue = headers.getStringHeaderValue(HeaderParameterNames.ZIP);
@@ -294,6 +513,29 @@ public class JsonWebEncryption extends JsonWebStructure
         return data;
     }
 
+    private static String encode(ByteBuffer buffer)
+    {
+        StringBuilder sb = new StringBuilder(Base64UrlCodec.encodedLength(buffer.remaining()));
+        Base64UrlCodec.encode(buffer, sb);
+        return sb.toString();
+    }
+
+    private void skipCompressionIfNotWorthwhile() throws InvalidAlgorithmException
+    {
+        String zipHeaderValue = getCompressionAlgorithmHeaderParameter();
+        if (skipCompressionWhenNotWorthwhile && zipHeaderValue != null && plaintext != null)
+        {
+            AlgorithmFactoryFactory factoryFactory = AlgorithmFactoryFactory.getInstance();
+            AlgorithmFactory<CompressionAlgorithm> zipAlgFactory = factoryFactory.getCompressionAlgorithmFactory();
+            CompressionAlgorithm compressionAlgorithm = zipAlgFactory.getAlgorithm(zipHeaderValue);
+            if (compressionAlgorithm instanceof DeflateRFC1951CompressionAlgorithm
+                    && !((DeflateRFC1951CompressionAlgorithm) compressionAlgorithm).isWorthCompressing(plaintext.length))
+            {
+                getHeaders().removeHeaderValue(HeaderParameterNames.ZIP);
+            }
+        }
+    }
+
     public String getCompactSerialization() throws JoseException
     {
         KeyManagementAlgorithm keyManagementModeAlg = getKeyManagementModeAlgorithm();
@@ -310,6 +552,7 @@ public class JsonWebEncryption extends JsonWebStructure
         setContentEncryptionKey(contentEncryptionKeys.getContentEncryptionKey());
         encryptedKey = contentEncryptionKeys.getEncryptedKey();
 
+        skipCompressionIfNotWorthwhile();
         byte[] aad = getEncodedHeaderAsciiBytesForAdditionalAuthenticatedData();
         byte[] contentEncryptionKey = contentEncryptionKeys.getContentEncryptionKey();
 
@@ -323,11 +566,13 @@ public class JsonWebEncryption extends JsonWebStructure
 
         ContentEncryptionParts contentEncryptionParts = contentEncryptionAlg.encrypt(plaintextBytes, aad, contentEncryptionKey, getHeaders(), getIv(), getProviderCtx());
         setIv(contentEncryptionParts.getIv());
-        ciphertext = contentEncryptionParts.getCiphertext();
+        ciphertext = null;
+        ciphertextBuffer = contentEncryptionParts.getCiphertextBuffer();
+        tagBuffer = contentEncryptionParts.getAuthenticationTagBuffer();
 
         String encodedIv = base64url.base64UrlEncode(contentEncryptionParts.getIv());
-        String encodedCiphertext = base64url.base64UrlEncode(contentEncryptionParts.getCiphertext());
-        String encodedTag = base64url.base64UrlEncode(contentEncryptionParts.getAuthenticationTag());
+        String encodedCiphertext = encode(ciphertextBuffer);
+        String encodedTag = encode(tagBuffer);
 
 
         byte[] encryptedKey = contentEncryptionKeys.getEncryptedKey();
@@ -353,6 +598,7 @@ public class JsonWebEncryption extends JsonWebStructure
         setContentEncryptionKey(contentEncryptionKeys.getContentEncryptionKey());
         encryptedKey = contentEncryptionKeys.getEncryptedKey();
 
+        skipCompressionIfNotWorthwhile();
         byte[] aad = getEncodedHeaderAsciiBytesForAdditionalAuthenticatedData();
         byte[] contentEncryptionKey = contentEncryptionKeys.getContentEncryptionKey();
 
@@ -366,11 +612,13 @@ public class JsonWebEncryption extends JsonWebStructure
 
         ContentEncryptionParts contentEncryptionParts = contentEncryptionAlg.encrypt(plaintextBytes, aad, contentEncryptionKey, getHeaders(), getIv(), getProviderCtx());
         setIv(contentEncryptionParts.getIv());
-        ciphertext = contentEncryptionParts.getCiphertext();
+        ciphertext = null;
+        ciphertextBuffer = contentEncryptionParts.getCiphertextBuffer();
+        tagBuffer = contentEncryptionParts.getAuthenticationTagBuffer();
 
         String encodedIv = base64url.base64UrlEncode(contentEncryptionParts.getIv());
-        String encodedCiphertext = base64url.base64UrlEncode(contentEncryptionParts.getCiphertext());
-        String encodedTag = base64url.base64UrlEncode(contentEncryptionParts.getAuthenticationTag());
+        String encodedCiphertext = encode(ciphertextBuffer);
+        String encodedTag = encode(tagBuffer);
 
 
         byte[] encryptedKey = contentEncryptionKeys.getEncryptedKey();
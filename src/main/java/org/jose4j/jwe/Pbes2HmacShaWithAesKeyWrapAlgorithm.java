@@ -83,7 +83,7 @@ public class Pbes2HmacShaWithAesKeyWrapAlgorithm  extends AlgorithmInfo implemen
         Base64Url base64Url = new Base64Url();
         if (saltInputString == null)
         {
-            saltInput = ByteUtil.randomBytes(defaultSaltByteLength, providerContext.getSecureRandom());
+            saltInput = ByteUtil.randomBytes(defaultSaltByteLength, providerContext.getSecureRandom(), providerContext.getByteGenerator());
             saltInputString = base64Url.base64UrlEncode(saltInput);
             headers.setStringHeaderValue(HeaderParameterNames.PBES2_SALT_INPUT, saltInputString);
         }
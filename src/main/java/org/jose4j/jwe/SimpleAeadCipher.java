@@ -15,12 +15,16 @@
  */
 package org.jose4j.jwe;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.Key;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
 
 import org.jose4j.keys.AesKey;
@@ -49,11 +53,33 @@ public class SimpleAeadCipher
     private Cipher getInitialisedCipher(Key key, byte[] iv, int mode, String provider) throws JoseException
     {
         Cipher cipher = CipherUtil.getCipher(algorithm, provider);
+        initCipher(cipher, key, iv, mode);
+        return cipher;
+    }
+
+    private Cipher acquireInitialisedCipher(Key key, byte[] iv, int mode, String provider) throws JoseException
+    {
+        try
+        {
+            GCMParameterSpec parameterSpec = new GCMParameterSpec(ByteUtil.bitLength(tagByteLength), iv);
+            return CipherUtil.acquireInitializedCipher(algorithm, provider, mode, key, parameterSpec);
+        }
+        catch (java.security.InvalidKeyException e)
+        {
+            throw new JoseException("Invalid key for " + algorithm, e);
+        }
+        catch (InvalidAlgorithmParameterException e)
+        {
+            throw new JoseException(e.toString(), e);
+        }
+    }
+
+    private void initCipher(Cipher cipher, Key key, byte[] iv, int mode) throws JoseException
+    {
         try
         {
             GCMParameterSpec parameterSpec = new GCMParameterSpec(ByteUtil.bitLength(tagByteLength), iv);
             cipher.init(mode, key, parameterSpec);
-            return cipher;
         }
         catch (java.security.InvalidKeyException e)
         {
@@ -67,24 +93,37 @@ public class SimpleAeadCipher
 
     public CipherOutput encrypt(Key key, byte[] iv, byte[] plaintext, byte[] aad, String provider) throws JoseException
     {
+        byte[] cipherOutput = new byte[plaintext.length + tagByteLength];
+        int length = encrypt(key, iv, ByteBuffer.wrap(plaintext), aad, ByteBuffer.wrap(cipherOutput), provider);
+        return new CipherOutput(cipherOutput, length - tagByteLength, tagByteLength);
+    }
+
+    /**
+     * Encrypts into the given buffer, which ends up with the ciphertext immediately followed by the tag.
+     * @param key the key
+     * @param iv the initialization vector
+     * @param plaintext the plaintext from the buffer's position to its limit, which is consumed
+     * @param aad the additional authenticated data or {@code null}
+     * @param output where to write starting at its position, which needs room for the plaintext length plus the tag length
+     * @param provider the JCA provider name or {@code null}
+     * @return the number of bytes written
+     * @throws JoseException if the encryption fails
+     */
+    public int encrypt(Key key, byte[] iv, ByteBuffer plaintext, byte[] aad, ByteBuffer output, String provider) throws JoseException
+    {
+        // not taken from the JcaEngineCache b/c some providers refuse to re-init a GCM cipher for encryption
+        // with the same key and IV as the last time, which would break callers that supply their own IV
         Cipher cipher = getInitialisedCipher(key, iv, Cipher.ENCRYPT_MODE, provider);
         updateAad(cipher, aad);
 
-        byte[] cipherOutput;
         try
         {
-            cipherOutput = cipher.doFinal(plaintext);
+            return cipher.doFinal(plaintext, output);
         }
-        catch (IllegalBlockSizeException | BadPaddingException e)
+        catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e)
         {
             throw new JoseException(e.toString(), e);
         }
-
-        CipherOutput result = new CipherOutput();
-        int tagIndex = cipherOutput.length - tagByteLength;
-        result.ciphertext = ByteUtil.subArray(cipherOutput, 0, tagIndex);
-        result.tag = ByteUtil.subArray(cipherOutput, tagIndex, tagByteLength);
-        return result;
     }
 
     private void updateAad(Cipher cipher, byte[] aad)
@@ -97,18 +136,63 @@ public class SimpleAeadCipher
 
     public byte[] decrypt(Key key, byte[] iv, byte[] ciphertext, byte[] tag, byte[] aad, String provider) throws JoseException
     {
-        Cipher cipher = getInitialisedCipher(key, iv, Cipher.DECRYPT_MODE, provider);
-        updateAad(cipher, aad);
-
+        Cipher cipher = acquireInitialisedCipher(key, iv, Cipher.DECRYPT_MODE, provider);
         try
         {
+            updateAad(cipher, aad);
             return cipher.doFinal(ByteUtil.concat(ciphertext,tag));
         }
         catch (IllegalBlockSizeException | BadPaddingException e)
         {
             throw new JoseException(e.toString(), e);
         }
+        finally
+        {
+            CipherUtil.releaseCipher(cipher, algorithm, provider);
+        }
+    }
+
+    /**
+     * Decrypts ciphertext that's immediately followed by the tag in the same buffer, as it comes out of
+     * {@link #encrypt(Key, byte[], ByteBuffer, byte[], ByteBuffer, String)}, so they don't have to be copied together.
+     * @param key the key
+     * @param iv the initialization vector
+     * @param ciphertextAndTag the ciphertext and tag from the buffer's position to its limit, which is consumed
+     * @param aad the additional authenticated data or {@code null}
+     * @param output where to write starting at its position, which needs room for the ciphertext length
+     * @param provider the JCA provider name or {@code null}
+     * @return the number of bytes written
+     * @throws JoseException if the decryption or tag check fails
+     */
+    public int decrypt(Key key, byte[] iv, ByteBuffer ciphertextAndTag, byte[] aad, ByteBuffer output, String provider) throws JoseException
+    {
+        Cipher cipher = acquireInitialisedCipher(key, iv, Cipher.DECRYPT_MODE, provider);
+        try
+        {
+            updateAad(cipher, aad);
+            return cipher.doFinal(ciphertextAndTag, output);
+        }
+        catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e)
+        {
+            throw new JoseException(e.toString(), e);
+        }
+        finally
+        {
+            CipherUtil.releaseCipher(cipher, algorithm, provider);
+        }
+    }
 
+    public int getTagByteLength()
+    {
+        return tagByteLength;
+    }
+
+    StreamingContentDecrypter streamingDecrypter(Key key, byte[] iv, byte[] aad, String provider) throws JoseException
+    {
+        // not from the engine cache as it's held for as long as it takes the ciphertext to be read
+        Cipher cipher = getInitialisedCipher(key, iv, Cipher.DECRYPT_MODE, provider);
+        updateAad(cipher, aad);
+        return new AeadStreamingDecrypter(cipher);
     }
 
     public boolean isAvailable(Logger log, int keyByteLength, int ivByteLength, String joseAlg)
@@ -139,19 +223,92 @@ public class SimpleAeadCipher
         return isAvailable;
     }
 
+    /**
+     * Some providers buffer everything until the tag is checked in doFinal while others hand back
+     * plaintext from update, which is held here so that nothing is written out before the tag checks out.
+     */
+    private static class AeadStreamingDecrypter implements StreamingContentDecrypter
+    {
+        private final Cipher cipher;
+        private final ByteChunks unverifiedPlaintext = new ByteChunks();
+
+        private AeadStreamingDecrypter(Cipher cipher)
+        {
+            this.cipher = cipher;
+        }
+
+        public void update(byte[] ciphertext, int offset, int length)
+        {
+            byte[] out = cipher.update(ciphertext, offset, length);
+            if (out != null)
+            {
+                unverifiedPlaintext.append(out, 0, out.length);
+            }
+        }
+
+        public void finish(byte[] authenticationTag, OutputStream plaintext) throws JoseException, IOException
+        {
+            byte[] out;
+            try
+            {
+                out = cipher.doFinal(authenticationTag);
+            }
+            catch (IllegalBlockSizeException | BadPaddingException e)
+            {
+                throw new JoseException(e.toString(), e);
+            }
+            unverifiedPlaintext.writeTo(plaintext);
+            plaintext.write(out);
+        }
+    }
+
     public static class CipherOutput
     {
+        private final byte[] cipherOutput;
+        private final int tagIndex;
+        private final int tagLength;
         private byte[] ciphertext;
         private byte[] tag;
 
+        private CipherOutput(byte[] cipherOutput, int tagIndex, int tagLength)
+        {
+            this.cipherOutput = cipherOutput;
+            this.tagIndex = tagIndex;
+            this.tagLength = tagLength;
+        }
+
         public byte[] getCiphertext()
         {
+            if (ciphertext == null)
+            {
+                ciphertext = ByteUtil.subArray(cipherOutput, 0, tagIndex);
+            }
             return ciphertext;
         }
 
         public byte[] getTag()
         {
+            if (tag == null)
+            {
+                tag = ByteUtil.subArray(cipherOutput, tagIndex, tagLength);
+            }
             return tag;
         }
+
+        /**
+         * @return a view of the ciphertext, which is directly followed by the tag in the same backing array
+         */
+        public ByteBuffer getCiphertextBuffer()
+        {
+            return ByteBuffer.wrap(cipherOutput, 0, tagIndex);
+        }
+
+        /**
+         * @return a view of the tag
+         */
+        public ByteBuffer getTagBuffer()
+        {
+            return ByteBuffer.wrap(cipherOutput, tagIndex, tagLength).slice();
+        }
     }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Content decryption that takes the ciphertext a piece at a time. Implementations must not write
+ * any plaintext to the output until the authentication tag has been checked.
+ */
+interface StreamingContentDecrypter
+{
+    void update(byte[] ciphertext, int offset, int length) throws JoseException;
+
+    void finish(byte[] authenticationTag, OutputStream plaintext) throws JoseException, IOException;
+}
@@ -56,7 +56,9 @@ public abstract class WrappingKeyManagementAlgorithm extends AlgorithmInfo imple
 
     public ContentEncryptionKeys manageForEncrypt(Key managementKey, ContentEncryptionKeyDescriptor cekDesc, Headers headers, byte[] cekOverride, ProviderContext providerContext) throws JoseException
     {
-        byte[] contentEncryptionKey = cekOverride == null ? ByteUtil.randomBytes(cekDesc.getContentEncryptionKeyByteLength()) : cekOverride;
+        byte[] contentEncryptionKey = (cekOverride == null)
+                ? ByteUtil.randomBytes(cekDesc.getContentEncryptionKeyByteLength(), providerContext.getSecureRandom(), providerContext.getByteGenerator())
+                : cekOverride;
         return manageForEnc(managementKey, cekDesc, contentEncryptionKey, providerContext);
     }
 
@@ -65,54 +67,57 @@ public abstract class WrappingKeyManagementAlgorithm extends AlgorithmInfo imple
         ProviderContext.Context ctx = useSuppliedKeyProviderContext ? providerContext.getSuppliedKeyProviderContext() : providerContext.getGeneralProviderContext();
         String provider = ctx.getCipherProvider();
 
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), provider);
-
+        Cipher cipher = null;
         try
         {
-            initCipher(cipher, Cipher.WRAP_MODE, managementKey);
+            cipher = CipherUtil.acquireInitializedCipher(getJavaAlgorithm(), provider, Cipher.WRAP_MODE, managementKey, algorithmParameterSpec);
             String contentEncryptionKeyAlgorithm = cekDesc.getContentEncryptionKeyAlgorithm();
             byte[] encryptedKey = cipher.wrap(new SecretKeySpec(contentEncryptionKey, contentEncryptionKeyAlgorithm));
             return new ContentEncryptionKeys(contentEncryptionKey, encryptedKey);
         }
         catch  (InvalidKeyException e)
         {
-            throw new org.jose4j.lang.InvalidKeyException("Unable to encrypt ("+cipher.getAlgorithm()+") the Content Encryption Key: " + e, e);
+            throw new org.jose4j.lang.InvalidKeyException("Unable to encrypt ("+getJavaAlgorithm()+") the Content Encryption Key: " + e, e);
         }
         catch (IllegalBlockSizeException | InvalidAlgorithmParameterException e)
         {
-            throw new JoseException("Unable to encrypt ("+cipher.getAlgorithm()+") the Content Encryption Key: " + e, e);
-        }
-    }
-
-    void initCipher(Cipher cipher, int mode, Key key) throws InvalidAlgorithmParameterException, InvalidKeyException
-    {
-        if (algorithmParameterSpec == null)
-        {
-            cipher.init(mode, key);
+            throw new JoseException("Unable to encrypt ("+getJavaAlgorithm()+") the Content Encryption Key: " + e, e);
         }
-        else
+        finally
         {
-            cipher.init(mode, key, algorithmParameterSpec);
+            CipherUtil.releaseCipher(cipher, getJavaAlgorithm(), provider);
         }
     }
 
     public Key manageForDecrypt(Key managementKey, byte[] encryptedKey, ContentEncryptionKeyDescriptor cekDesc, Headers headers, ProviderContext providerContext) throws JoseException
     {
         String provider = providerContext.getSuppliedKeyProviderContext().getCipherProvider();
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), provider);
-
+        Cipher cipher;
         try
         {
-            initCipher(cipher, Cipher.UNWRAP_MODE, managementKey);
+            cipher = CipherUtil.acquireInitializedCipher(getJavaAlgorithm(), provider, Cipher.UNWRAP_MODE, managementKey, algorithmParameterSpec);
         }
         catch  (InvalidKeyException e)
         {
-            throw new org.jose4j.lang.InvalidKeyException("Unable to initialize cipher ("+cipher.getAlgorithm()+") for key decryption", e);
+            throw new org.jose4j.lang.InvalidKeyException("Unable to initialize cipher ("+getJavaAlgorithm()+") for key decryption", e);
         }
         catch (InvalidAlgorithmParameterException e)
         {
-            throw new JoseException("Unable to initialize cipher ("+cipher.getAlgorithm()+") for key decryption", e);
+            throw new JoseException("Unable to initialize cipher ("+getJavaAlgorithm()+") for key decryption", e);
+        }
+
+        try
+        {
+            return unwrap(cipher, encryptedKey, cekDesc);
+        }
+        finally
+        {
+            CipherUtil.releaseCipher(cipher, getJavaAlgorithm(), provider);
         }
+    }
+
+    private Key unwrap(Cipher cipher, byte[] encryptedKey, ContentEncryptionKeyDescriptor cekDesc)
+    {
 
         String cekAlg = cekDesc.getContentEncryptionKeyAlgorithm();
 
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.jose4j.base64url.SimplePEMEncoder;
+import org.jose4j.keys.EcKeyUtil;
+import org.jose4j.keys.RsaKeyUtil;
+import org.jose4j.keys.X509Util;
+import org.jose4j.lang.ExceptionHelp;
+import org.jose4j.lang.HashUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a set of JSON Web Keys kept in a local file, like a mounted Kubernetes secret or config map,
+ * as a counterpart to {@link HttpsJwks}. The file can hold a JSON Web Key Set or PEM encoded public keys
+ * ({@code -----BEGIN PUBLIC KEY-----}) and/or X.509 certificates ({@code -----BEGIN CERTIFICATE-----}).
+ * Keys from PEM are given their base64url encoded JWK SHA-256 thumbprint (RFC 7638) as a key ID
+ * and keys from certificates also carry the certificate as {@code x5c}.
+ * <p>
+ * The file is read and parsed once on construction. After {@link #startWatching()}, a daemon thread uses a
+ * {@link WatchService} on the file's directory to reload the keys whenever something there changes. The keys
+ * are only reparsed when the content of the file actually changes and then are swapped in all at once,
+ * so {@link #getJsonWebKeys()} never does any I/O and always returns a complete, immutable set of keys.
+ * If new content can't be read or parsed, it is logged and the previously loaded keys continue to be used.
+ * </p>
+ * <p>
+ * Use with {@link org.jose4j.keys.resolvers.JwksVerificationKeyResolver#JwksVerificationKeyResolver(FileJwks)}
+ * or {@link org.jose4j.keys.resolvers.JwksDecryptionKeyResolver#JwksDecryptionKeyResolver(FileJwks)}.
+ * </p>
+ */
+public class FileJwks implements Closeable
+{
+    private static final Logger log = LoggerFactory.getLogger(FileJwks.class);
+
+    private static final String PEM_BEGIN = "-----BEGIN ";
+    private static final String PEM_END = "-----END ";
+    private static final String PEM_DASHES = "-----";
+    private static final String PUBLIC_KEY = "PUBLIC KEY";
+    private static final String CERTIFICATE = "CERTIFICATE";
+
+    private final Path file;
+
+    private volatile List<JsonWebKey> jsonWebKeys;
+    private byte[] content;
+
+    private WatchService watchService;
+
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong reloadFailureCount = new AtomicLong();
+
+    /**
+     * Create a new FileJwks with the keys from the given file.
+     * @param file the file containing the JSON Web Key Set or PEM encoded keys
+     * @throws IOException if there's a problem reading the file
+     * @throws JoseException if the content of the file can't be parsed into keys
+     */
+    public FileJwks(Path file) throws IOException, JoseException
+    {
+        this.file = file;
+        byte[] bytes = Files.readAllBytes(file);
+        jsonWebKeys = parse(bytes);
+        content = bytes;
+        log.debug("Loaded JWKS content from {} -> {}", file, jsonWebKeys);
+    }
+
+    /**
+     * Gets the file the keys come from.
+     * @return the file
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Gets the most recently loaded JSON Web Keys without doing any I/O.
+     * @return an unmodifiable and indexed list of JsonWebKeys (see {@link IndexedJsonWebKeys})
+     */
+    public List<JsonWebKey> getJsonWebKeys()
+    {
+        return jsonWebKeys;
+    }
+
+    /**
+     * @return the number of times new content from the file has been loaded since construction
+     */
+    public long getReloadCount()
+    {
+        return reloadCount.get();
+    }
+
+    /**
+     * @return the number of times loading changed content from the file has failed while watching it
+     */
+    public long getReloadFailureCount()
+    {
+        return reloadFailureCount.get();
+    }
+
+    /**
+     * Reads the file again and, if its content has changed, replaces the keys.
+     * @return true if the keys were replaced, false if the content of the file hadn't changed
+     * @throws IOException if there's a problem reading the file
+     * @throws JoseException if the content of the file can't be parsed into keys, in which case the previous keys are kept
+     */
+    public synchronized boolean reload() throws IOException, JoseException
+    {
+        byte[] bytes = Files.readAllBytes(file);
+        if (Arrays.equals(bytes, content))
+        {
+            return false;
+        }
+
+        List<JsonWebKey> keys = parse(bytes);
+        jsonWebKeys = keys;
+        content = bytes;
+        reloadCount.incrementAndGet();
+        log.debug("Reloaded changed JWKS content from {} -> {}", file, keys);
+        return true;
+    }
+
+    /**
+     * Starts watching the file's directory for changes on a daemon thread, reloading the keys when anything changes.
+     * Any change in the directory is considered, rather than only changes to the file itself, so that
+     * updates made by swapping a symbolic link (as is done for Kubernetes volumes) are noticed.
+     * Does nothing if already watching.
+     * @throws IOException if the directory can't be watched
+     */
+    public synchronized void startWatching() throws IOException
+    {
+        if (watchService != null)
+        {
+            return;
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        final WatchService ws = directory.getFileSystem().newWatchService();
+        try
+        {
+            directory.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            ws.close();
+            throw e;
+        }
+
+        Thread watcher = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                watch(ws);
+            }
+        }, "jose4j-FileJwks-" + file.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+        watchService = ws;
+        log.debug("Watching {} for changes to the JWKS content of {}", directory, file);
+    }
+
+    /**
+     * Stops watching the file for changes. The most recently loaded keys continue to be available.
+     * @throws IOException if there's a problem closing the underlying watch service
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (watchService != null)
+        {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void watch(WatchService ws)
+    {
+        while (true)
+        {
+            WatchKey watchKey;
+            try
+            {
+                watchKey = ws.take();
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                return;
+            }
+
+            // what changed doesn't matter (and with an overflow isn't known) as the content is compared anyway
+            watchKey.pollEvents();
+            boolean valid = watchKey.reset();
+            reloadQuietly();
+            if (!valid)
+            {
+                log.info("No longer able to watch for changes to the JWKS content of {} so will continue to use keys {}", file, jsonWebKeys);
+                return;
+            }
+        }
+    }
+
+    private void reloadQuietly()
+    {
+        try
+        {
+            reload();
+        }
+        catch (IOException | JoseException | RuntimeException e)
+        {
+            reloadFailureCount.incrementAndGet();
+            log.info("Because of {} unable to reload JWKS content from {} so will continue to use previously loaded keys -> {}", ExceptionHelp.toStringWithCauses(e), file, jsonWebKeys);
+        }
+    }
+
+    static List<JsonWebKey> parse(byte[] bytes) throws JoseException
+    {
+        String text = StringUtil.newStringUtf8(bytes);
+        List<JsonWebKey> keys;
+        if (text.contains(PEM_BEGIN))
+        {
+            keys = parsePem(text);
+        }
+        else
+        {
+            keys = new JsonWebKeySet(text).getJsonWebKeys();
+        }
+        return new IndexedJsonWebKeys(keys);
+    }
+
+    private static List<JsonWebKey> parsePem(String text) throws JoseException
+    {
+        List<JsonWebKey> keys = new ArrayList<>();
+        int index = text.indexOf(PEM_BEGIN);
+        while (index != -1)
+        {
+            int typeStart = index + PEM_BEGIN.length();
+            int typeEnd = text.indexOf(PEM_DASHES, typeStart);
+            if (typeEnd == -1)
+            {
+                throw new JoseException("Malformed PEM encapsulation boundary at " + index);
+            }
+            String type = text.substring(typeStart, typeEnd);
+            String endBoundary = PEM_END + type + PEM_DASHES;
+            int end = text.indexOf(endBoundary, typeEnd);
+            if (end == -1)
+            {
+                throw new JoseException("No " + endBoundary + " for PEM block at " + index);
+            }
+            String base64 = text.substring(typeEnd + PEM_DASHES.length(), end).trim();
+
+            PublicJsonWebKey jwk;
+            switch (type)
+            {
+                case PUBLIC_KEY:
+                    jwk = PublicJsonWebKey.Factory.newPublicJwk(publicKey(SimplePEMEncoder.decode(base64)));
+                    break;
+                case CERTIFICATE:
+                    X509Certificate certificate = new X509Util().fromBase64Der(base64);
+                    jwk = PublicJsonWebKey.Factory.newPublicJwk(certificate.getPublicKey());
+                    jwk.setCertificateChain(Collections.singletonList(certificate));
+                    break;
+                default:
+                    throw new JoseException("Unsupported PEM type " + type + " (only " + PUBLIC_KEY + " and " + CERTIFICATE + " are supported).");
+            }
+            jwk.setKeyId(jwk.calculateBase64urlEncodedThumbprint(HashUtil.SHA_256));
+            keys.add(jwk);
+
+            index = text.indexOf(PEM_BEGIN, end + endBoundary.length());
+        }
+        return keys;
+    }
+
+    private static PublicKey publicKey(byte[] spki) throws JoseException
+    {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(spki);
+        StringBuilder problems = new StringBuilder();
+        for (String algorithm : new String[] {RsaKeyUtil.RSA, EcKeyUtil.EC})
+        {
+            try
+            {
+                return KeyFactory.getInstance(algorithm).generatePublic(spec);
+            }
+            catch (NoSuchAlgorithmException | InvalidKeySpecException e)
+            {
+                problems.append(' ').append(algorithm).append(": ").append(e);
+            }
+        }
+        throw new JoseException("Unable to parse PEM encoded public key as RSA or EC -" + problems);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FileJwks{" + file + '}';
+    }
+}
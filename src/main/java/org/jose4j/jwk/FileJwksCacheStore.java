@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.jose4j.json.JsonUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.JsonHelp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link JwksCacheStore} that keeps the snapshot in a JSON file on local disk.
+ * The file is written to a temporary file in the same directory first and then moved into place,
+ * atomically where the file system supports it, so a reader never sees a partially written snapshot.
+ */
+public class FileJwksCacheStore implements JwksCacheStore
+{
+    private static final String LOCATION = "location";
+    private static final String ENTITY_TAG = "etag";
+    private static final String LAST_MODIFIED = "last_modified";
+    private static final String EXPIRES = "expires";
+    private static final String JWKS = "jwks";
+
+    private final Path file;
+
+    /**
+     * @param file the file in which to keep the snapshot, the directory of which must exist and be writable
+     */
+    public FileJwksCacheStore(Path file)
+    {
+        this.file = file;
+    }
+
+    public Path getFile()
+    {
+        return file;
+    }
+
+    @Override
+    public JwksSnapshot load() throws IOException
+    {
+        Map<String, Object> json;
+        try (InputStream is = Files.newInputStream(file))
+        {
+            json = JsonUtil.parseJson(is);
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+        catch (JoseException e)
+        {
+            throw new IOException("Unable to parse the JWKS snapshot in " + file + ": " + e, e);
+        }
+
+        try
+        {
+            String location = JsonHelp.getStringChecked(json, LOCATION);
+            String body = JsonHelp.getStringChecked(json, JWKS);
+            String entityTag = JsonHelp.getStringChecked(json, ENTITY_TAG);
+            String lastModified = JsonHelp.getStringChecked(json, LAST_MODIFIED);
+            Long expires = JsonHelp.getLong(json, EXPIRES);
+            if (body == null || expires == null)
+            {
+                throw new IOException("The JWKS snapshot in " + file + " is incomplete.");
+            }
+            return new JwksSnapshot(location, body, entityTag, lastModified, expires);
+        }
+        catch (JoseException | ClassCastException e)
+        {
+            throw new IOException("Unexpected content in the JWKS snapshot in " + file + ": " + e, e);
+        }
+    }
+
+    @Override
+    public void store(JwksSnapshot snapshot) throws IOException
+    {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put(LOCATION, snapshot.getLocation());
+        json.put(ENTITY_TAG, snapshot.getEntityTag());
+        json.put(LAST_MODIFIED, snapshot.getLastModified());
+        json.put(EXPIRES, snapshot.getExpires());
+        json.put(JWKS, snapshot.getBody());
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try
+        {
+            Files.write(temp, JsonUtil.toJsonBytes(json));
+            try
+            {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FileJwksCacheStore{" + file + '}';
+    }
+}
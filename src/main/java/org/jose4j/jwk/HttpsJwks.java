@@ -15,6 +15,7 @@
  */
 package org.jose4j.jwk;
 
+import org.jose4j.http.ConditionalGet;
 import org.jose4j.http.Get;
 import org.jose4j.http.SimpleGet;
 import org.jose4j.http.SimpleResponse;
@@ -23,10 +24,19 @@ import org.jose4j.lang.JoseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Represents a set of JSON Web Keys (typically public keys) published at an HTTPS URI.
@@ -37,10 +47,31 @@ import java.util.List;
  * This class, when used with {@code HttpsJwksVerificationKeyResolver}, can help facilitate the consuming side of
  * a key publication and rotation model like that which is described
  * in <a href="http://openid.net/specs/openid-connect-core-1_0.html#SigEnc">OpenID Connect, section 10</a>.
+ * <p>
+ * Only one request to the JWKS endpoint is made at a time, regardless of how many threads find the cache
+ * to be expired at once. By default, that request happens on (and blocks) the calling thread. If an executor is
+ * provided with {@link #setBackgroundRefreshExecutor(java.util.concurrent.ScheduledExecutorService)}, the keys are instead
+ * refreshed in the background ahead of their expiry and, once the keys have been loaded the first time, callers are
+ * not blocked waiting on the endpoint but get the previously cached keys while new ones are loading. Expired keys
+ * are only used that way for up to {@link #setMaxStaleDuration(long)} past their expiry, after which callers go back
+ * to waiting on (or failing with) a request to the endpoint. Background refreshes keep being scheduled until
+ * {@link #close()} is called (or the executor is set to {@code null}), which an application that's done with an
+ * instance should do so it's no longer held onto by the executor and the endpoint is no longer polled.
+ * </p>
+ * <p>
+ * When the {@link org.jose4j.http.SimpleGet} in use is a {@link org.jose4j.http.ConditionalGet}, which the default
+ * {@link org.jose4j.http.Get} is, refreshes send the {@code ETag} and {@code Last-Modified} validators of the
+ * previous response and a {@code 304 Not Modified} response just extends the life of the cached keys
+ * without downloading or parsing them again.
+ * </p>
+ * <p>
+ * A {@link JwksCacheStore} can be set with {@link #setCacheStore(JwksCacheStore)} to persist the last good content
+ * so that keys are available immediately after a restart, even when the JWKS endpoint is slow or unavailable.
+ * </p>
  *
  * @see org.jose4j.keys.resolvers.HttpsJwksVerificationKeyResolver
  */
-public class HttpsJwks
+public class HttpsJwks implements Closeable
 {
     private static final Logger log = LoggerFactory.getLogger(HttpsJwks.class);
 
@@ -49,7 +80,28 @@ public class HttpsJwks
     private SimpleGet simpleHttpGet = new Get();
     private long retainCacheOnErrorDurationMills = 0;
 
-    private Cache cache = new Cache(Collections.<JsonWebKey>emptyList(), 0);
+    private volatile Cache cache = new Cache(Collections.<JsonWebKey>emptyList(), 0);
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile JwksCacheStore cacheStore;
+    private volatile boolean snapshotPending;
+    private long maxSnapshotAgeMillis = 86400000L;
+
+    private volatile ScheduledExecutorService backgroundRefreshExecutor;
+    private long refreshAheadMillis = 60000;
+    private long backgroundRetryDelayMillis = 30000;
+    private long maxStaleMillis = 300000;
+    private volatile long nextBackgroundAttempt;
+    private final Object scheduleLock = new Object();
+    private ScheduledFuture<?> scheduledRefresh;
+    private final AtomicBoolean backgroundRefreshPending = new AtomicBoolean();
+
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong lastRefreshDurationMillis = new AtomicLong();
+    private final AtomicLong totalRefreshDurationMillis = new AtomicLong();
 
     /**
      * Create a new HttpsJwks that cab be used to retrieve JWKs from the given location.
@@ -101,6 +153,144 @@ public class HttpsJwks
         this.simpleHttpGet = simpleHttpGet;
     }
 
+    /**
+     * Sets the store in which to persist the content of the JWKS endpoint each time it is successfully fetched.
+     * Any snapshot previously stored there for this location is loaded (synchronously) on first access to the keys
+     * and its keys are used as though they'd just been fetched, with the expiry they had when stored.
+     * So an expired snapshot is used, rather than blocking, under the same conditions as any other expired keys:
+     * when a background refresh executor is set and it expired less than {@link #setMaxStaleDuration(long)} ago
+     * or when it's retained after an error fetching fresh keys (see {@link #setRetainCacheOnErrorDuration(long)}).
+     * Otherwise the first access waits on fetching fresh keys, like it would without a snapshot.
+     * When a background refresh executor is set, the loaded keys are also revalidated on it right away.
+     * A snapshot that expired more than {@link #setMaxSnapshotAge(long)} ago is ignored.
+     * A snapshot that can't be loaded is logged and ignored, as are problems storing a snapshot.
+     * @param cacheStore the store or {@code null} to not persist anything (the default)
+     */
+    public void setCacheStore(JwksCacheStore cacheStore)
+    {
+        this.cacheStore = cacheStore;
+        snapshotPending = (cacheStore != null);
+    }
+
+    /**
+     * Sets how long past its expiry that a snapshot from the store set with {@link #setCacheStore(JwksCacheStore)}
+     * can be for its keys to still be loaded. The default is 86400 seconds (1 day).
+     * @param maxSnapshotAge the length in seconds past its expiry after which a snapshot is ignored
+     */
+    public void setMaxSnapshotAge(long maxSnapshotAge)
+    {
+        this.maxSnapshotAgeMillis = maxSnapshotAge * 1000L;
+    }
+
+    /**
+     * Sets the executor to use for refreshing the keys in the background. When set, the keys are refreshed on
+     * the executor ahead of their expiry (see {@link #setRefreshAheadDuration(long)}) and an expired cache results
+     * in the previously cached keys being returned while a refresh happens on the executor, rather than the caller
+     * waiting on the HTTP request. Only the very first load of keys, when there's nothing cached yet, or keys that
+     * expired more than {@link #setMaxStaleDuration(long)} ago block the caller.
+     * A failed background refresh is logged, counted, and retried after {@link #setBackgroundRefreshRetryDelay(long)}
+     * with the previously cached keys continuing to be used in the meantime, for as long as they're not too stale.
+     * The executor is not shut down by this class. Any refresh already scheduled on a previously set executor is
+     * cancelled, so setting {@code null} stops background refreshing the same as {@link #close()}.
+     * @param backgroundRefreshExecutor the executor on which to refresh the keys or {@code null} to refresh on the calling thread (the default)
+     */
+    public void setBackgroundRefreshExecutor(ScheduledExecutorService backgroundRefreshExecutor)
+    {
+        synchronized (scheduleLock)
+        {
+            this.backgroundRefreshExecutor = backgroundRefreshExecutor;
+            cancelScheduledRefresh();
+        }
+    }
+
+    /**
+     * Stops refreshing the keys in the background by cancelling any scheduled refresh and dropping the
+     * background refresh executor. The instance can still be used afterwards, with the keys being loaded
+     * on the calling thread as though no executor had been set.
+     */
+    @Override
+    public void close()
+    {
+        setBackgroundRefreshExecutor(null);
+    }
+
+    /**
+     * Sets how long before the cached keys expire that a background refresh will be done.
+     * When the cache life is shorter than this, the refresh is done halfway through the cache life.
+     * Only applies when a background refresh executor has been set. The default is 60 seconds.
+     * @param refreshAheadDuration the length in seconds before expiry to refresh the keys
+     */
+    public void setRefreshAheadDuration(long refreshAheadDuration)
+    {
+        this.refreshAheadMillis = refreshAheadDuration * 1000L;
+    }
+
+    /**
+     * Sets how long to wait before trying again after a background refresh fails. No other background refresh is
+     * started in the meantime, regardless of how many callers find the keys to be expired.
+     * Only applies when a background refresh executor has been set. The default is 30 seconds.
+     * @param backgroundRefreshRetryDelay the length in seconds to wait before retrying a failed background refresh
+     */
+    public void setBackgroundRefreshRetryDelay(long backgroundRefreshRetryDelay)
+    {
+        this.backgroundRetryDelayMillis = backgroundRefreshRetryDelay * 1000L;
+    }
+
+    /**
+     * Sets how long past their expiry that cached keys can still be returned, while a background refresh is
+     * attempted, when a background refresh executor has been set. This bounds how long keys that may have been revoked
+     * keep being used when the JWKS endpoint can't be reached. Once exceeded, callers make the request to the
+     * endpoint themselves, like when there's no background refresh executor, and so get an exception if it fails
+     * (unless {@link #setRetainCacheOnErrorDuration(long)} says otherwise).
+     * The default is 300 seconds (5 minutes).
+     * @param maxStaleDuration the length in seconds that expired keys can be used while refreshing in the background
+     */
+    public void setMaxStaleDuration(long maxStaleDuration)
+    {
+        this.maxStaleMillis = maxStaleDuration * 1000L;
+    }
+
+    /**
+     * @return the number of times the keys have been successfully fetched from the JWKS endpoint
+     */
+    public long getRefreshCount()
+    {
+        return refreshCount.get();
+    }
+
+    /**
+     * @return the number of times fetching the keys from the JWKS endpoint has failed
+     */
+    public long getRefreshFailureCount()
+    {
+        return refreshFailureCount.get();
+    }
+
+    /**
+     * @return the number of successful refreshes where the JWKS endpoint indicated that the keys hadn't changed,
+     * which are also included in {@link #getRefreshCount()}
+     */
+    public long getNotModifiedCount()
+    {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * @return how long, in milliseconds, the most recent attempt to fetch the keys took (successful or not)
+     */
+    public long getLastRefreshDurationMillis()
+    {
+        return lastRefreshDurationMillis.get();
+    }
+
+    /**
+     * @return the total time, in milliseconds, spent on all attempts to fetch the keys
+     */
+    public long getTotalRefreshDurationMillis()
+    {
+        return totalRefreshDurationMillis.get();
+    }
+
     /**
      * Gets the location of the JWKS endpoint/URL.
      * @return the location
@@ -112,56 +302,358 @@ public class HttpsJwks
 
     /**
      * Gets the JSON Web Keys from the JWKS endpoint location or from local cache, if appropriate.
-     * @return a list of JsonWebKeys
+     * @return an unmodifiable and indexed list of JsonWebKeys (see {@link IndexedJsonWebKeys})
      * @throws JoseException if an problem is encountered parsing the JSON content into JSON Web Keys.
      * @throws IOException if a problem is encountered making the HTTP request.
      */
     public List<JsonWebKey> getJsonWebKeys() throws JoseException, IOException
     {
+        if (snapshotPending)
+        {
+            loadSnapshot();
+        }
+
         final long now = System.currentTimeMillis();
-        if (cache.getExp() < now)
+        Cache current = cache;
+        if (current.getExp() < now)
         {
-            try
+            if (canUseStale(current, now))
             {
-                refresh();
+                refreshInBackground();
+                return current.getKeys();
             }
-            catch (Exception e)
+
+            refreshLock.lock();
+            try
             {
-                if (retainCacheOnErrorDurationMills > 0 && !cache.keys.isEmpty())
-                {
-                    cache.exp = now + (retainCacheOnErrorDurationMills);
-                    log.info("Because of {} unable to refersh JWKS content from {} so will continue to use cached keys for more {} seconds until about {} -> {}", ExceptionHelp.toStringWithCauses(e), location, retainCacheOnErrorDurationMills/1000L, new Date(cache.exp), cache.keys);
-                }
-                else
+                // some other thread might have done the refresh while this one was waiting on the lock
+                if (cache == current)
                 {
-                    throw e;
+                    try
+                    {
+                        doRefresh();
+                    }
+                    catch (Exception e)
+                    {
+                        if (retainCacheOnErrorDurationMills > 0 && !current.keys.isEmpty())
+                        {
+                            cache = new Cache(current, now + retainCacheOnErrorDurationMills);
+                            log.info("Because of {} unable to refersh JWKS content from {} so will continue to use cached keys for more {} seconds until about {} -> {}", ExceptionHelp.toStringWithCauses(e), location, retainCacheOnErrorDurationMills/1000L, new Date(cache.exp), cache.keys);
+                        }
+                        else
+                        {
+                            throw e;
+                        }
+                    }
                 }
             }
+            finally
+            {
+                refreshLock.unlock();
+            }
         }
         return cache.getKeys();
     }
 
+    /**
+     * Gets the JSON Web Keys from local cache when that can be done without making an HTTP request
+     * on the calling thread, which is the case when the cached keys haven't expired or when a background refresh
+     * executor is set and the keys expired less than {@link #setMaxStaleDuration(long)} ago (in which case, like
+     * {@link #getJsonWebKeys()}, a background refresh is started for them).
+     * @return an unmodifiable and indexed list of JsonWebKeys or {@code null} if the keys would have to be (re)loaded first
+     */
+    public List<JsonWebKey> getCachedJsonWebKeys()
+    {
+        if (snapshotPending)
+        {
+            loadSnapshot();
+        }
+
+        Cache current = cache;
+        long now = System.currentTimeMillis();
+        if (current.getExp() >= now)
+        {
+            return current.getKeys();
+        }
+
+        if (canUseStale(current, now))
+        {
+            refreshInBackground();
+            return current.getKeys();
+        }
+        return null;
+    }
 
     /**
-     * Forces a refresh of the cached JWKs from the JWKS endpoint.
+     * Forces a refresh of the cached JWKs from the JWKS endpoint. If another thread is already
+     * refreshing, this waits for that refresh to finish and uses its result rather than making another request.
      * @throws JoseException if an problem is encountered parsing the JSON content into JSON Web Keys.
      * @throws IOException if a problem is encountered making the HTTP request.
      */
     public void refresh() throws JoseException, IOException
+    {
+        Cache current = cache;
+        refreshLock.lock();
+        try
+        {
+            if (cache == current)
+            {
+                doRefresh();
+            }
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
+    private void loadSnapshot()
+    {
+        boolean loaded = false;
+        refreshLock.lock();
+        try
+        {
+            JwksCacheStore store = cacheStore;
+            if (!snapshotPending || store == null)
+            {
+                return;
+            }
+            snapshotPending = false;
+
+            JwksSnapshot snapshot;
+            List<JsonWebKey> keys;
+            try
+            {
+                snapshot = store.load();
+                if (snapshot == null || !location.equals(snapshot.getLocation()))
+                {
+                    log.debug("No JWKS snapshot for {} in {}", location, store);
+                    return;
+                }
+                if (System.currentTimeMillis() - snapshot.getExpires() > maxSnapshotAgeMillis)
+                {
+                    log.debug("Ignoring {} from {} because it expired more than {} seconds ago", snapshot, store, maxSnapshotAgeMillis/1000L);
+                    return;
+                }
+                keys = new IndexedJsonWebKeys(new JsonWebKeySet(snapshot.getBody()).getJsonWebKeys());
+            }
+            catch (JoseException | IOException | RuntimeException e)
+            {
+                log.info("Unable to load JWKS snapshot for {} from {} because of {}", location, store, ExceptionHelp.toStringWithCauses(e));
+                return;
+            }
+
+            if (cache.keys.isEmpty())
+            {
+                cache = new Cache(keys, snapshot.getExpires(), snapshot.getEntityTag(), snapshot.getLastModified(), snapshot.getBody());
+                log.debug("Loaded {} with keys {}", snapshot, keys);
+                loaded = true;
+            }
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+
+        if (loaded)
+        {
+            refreshInBackground();
+        }
+    }
+
+    private boolean canUseStale(Cache current, long now)
+    {
+        return backgroundRefreshExecutor != null && !current.keys.isEmpty() && now - current.getExp() <= maxStaleMillis;
+    }
+
+    private void doRefresh() throws JoseException, IOException
     {
         log.debug("Refreshing/loading JWKS from {}", location);
-        SimpleResponse simpleResponse = simpleHttpGet.get(location);
-        JsonWebKeySet jwks = new JsonWebKeySet(simpleResponse.getBody());
-        List<JsonWebKey> keys = jwks.getJsonWebKeys();
-        long cacheLife = getCacheLife(simpleResponse);
+        long start = System.currentTimeMillis();
+        Cache current = cache;
+        boolean conditional = simpleHttpGet instanceof ConditionalGet && !current.keys.isEmpty()
+                && (current.entityTag != null || current.lastModified != null);
+        boolean notModified;
+        List<JsonWebKey> keys;
+        long cacheLife;
+        String entityTag;
+        String lastModified;
+        String body;
+        try
+        {
+            SimpleResponse simpleResponse = conditional
+                    ? ((ConditionalGet) simpleHttpGet).get(location, current.entityTag, current.lastModified)
+                    : simpleHttpGet.get(location);
+            notModified = conditional && simpleResponse.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+            if (notModified)
+            {
+                keys = current.keys;
+                entityTag = getFirstHeaderValue(simpleResponse, "etag", current.entityTag);
+                lastModified = getFirstHeaderValue(simpleResponse, "last-modified", current.lastModified);
+                body = current.body;
+            }
+            else
+            {
+                body = simpleResponse.getBody();
+                JsonWebKeySet jwks = new JsonWebKeySet(body);
+                keys = new IndexedJsonWebKeys(jwks.getJsonWebKeys());
+                entityTag = getFirstHeaderValue(simpleResponse, "etag", null);
+                lastModified = getFirstHeaderValue(simpleResponse, "last-modified", null);
+            }
+            cacheLife = getCacheLife(simpleResponse);
+        }
+        catch (JoseException | IOException | RuntimeException e)
+        {
+            refreshFailureCount.incrementAndGet();
+            recordRefreshDuration(start);
+            throw e;
+        }
+
+        refreshCount.incrementAndGet();
+        nextBackgroundAttempt = 0;
+        if (notModified)
+        {
+            notModifiedCount.incrementAndGet();
+        }
+        recordRefreshDuration(start);
         if (cacheLife <= 0)
         {
             log.debug("Will use default cache duration of {} seconds for content from {}", defaultCacheDuration, location);
             cacheLife = defaultCacheDuration;
         }
         long exp = System.currentTimeMillis() + (cacheLife * 1000L);
-        log.debug("Updated JWKS content from {} will be cached for {} seconds until about {} -> {}", location, cacheLife, new Date(exp), keys);
-        cache = new Cache(keys, exp);
+        log.debug("{} JWKS content from {} will be cached for {} seconds until about {} -> {}", notModified ? "Unmodified" : "Updated", location, cacheLife, new Date(exp), keys);
+        JwksCacheStore store = cacheStore;
+        cache = new Cache(keys, exp, entityTag, lastModified, (store != null) ? body : null);
+        if (store != null && body != null)
+        {
+            storeSnapshot(store, new JwksSnapshot(location, body, entityTag, lastModified, exp));
+        }
+
+        long cacheLifeMillis = cacheLife * 1000L;
+        long delay = cacheLifeMillis - refreshAheadMillis;
+        scheduleBackgroundRefresh(delay > 0 ? delay : cacheLifeMillis / 2);
+    }
+
+    private void storeSnapshot(JwksCacheStore store, JwksSnapshot snapshot)
+    {
+        try
+        {
+            store.store(snapshot);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            log.info("Unable to store JWKS snapshot for {} in {} because of {}", location, store, ExceptionHelp.toStringWithCauses(e));
+        }
+    }
+
+    private void recordRefreshDuration(long start)
+    {
+        long duration = System.currentTimeMillis() - start;
+        lastRefreshDurationMillis.set(duration);
+        totalRefreshDurationMillis.addAndGet(duration);
+    }
+
+    private void scheduleBackgroundRefresh(long delayMillis)
+    {
+        synchronized (scheduleLock)
+        {
+            ScheduledExecutorService executor = backgroundRefreshExecutor;
+            if (executor == null)
+            {
+                return;
+            }
+
+            cancelScheduledRefresh();
+            try
+            {
+                scheduledRefresh = executor.schedule(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        backgroundRefresh();
+                    }
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            }
+            catch (RejectedExecutionException e)
+            {
+                log.debug("Unable to schedule background refresh of JWKS content from {}: {}", location, e);
+            }
+        }
+    }
+
+    // called while holding the schedule lock
+    private void cancelScheduledRefresh()
+    {
+        if (scheduledRefresh != null)
+        {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    private void refreshInBackground()
+    {
+        ScheduledExecutorService executor = backgroundRefreshExecutor;
+        // after a failure, the retry is already scheduled
+        if (executor == null || System.currentTimeMillis() < nextBackgroundAttempt || !backgroundRefreshPending.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        final Cache current = cache;
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        if (cache == current)
+                        {
+                            backgroundRefresh();
+                        }
+                    }
+                    finally
+                    {
+                        backgroundRefreshPending.set(false);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            backgroundRefreshPending.set(false);
+            log.debug("Unable to start background refresh of JWKS content from {}: {}", location, e);
+        }
+    }
+
+    private void backgroundRefresh()
+    {
+        if (backgroundRefreshExecutor == null)
+        {
+            // closed after this was scheduled or submitted
+            return;
+        }
+
+        refreshLock.lock();
+        try
+        {
+            doRefresh();
+        }
+        catch (Exception e)
+        {
+            log.info("Background refresh of JWKS content from {} failed because of {} so will continue to use cached keys and try again in {} seconds -> {}", location, ExceptionHelp.toStringWithCauses(e), backgroundRetryDelayMillis/1000L, cache.keys);
+            nextBackgroundAttempt = System.currentTimeMillis() + backgroundRetryDelayMillis;
+            scheduleBackgroundRefresh(backgroundRetryDelayMillis);
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
     }
 
     static long getDateHeaderValue(SimpleResponse response, String headerName, long defaultValue)
@@ -192,6 +684,12 @@ public class HttpsJwks
         return  (values == null) ? Collections.<String>emptyList() : values;
     }
 
+    private static String getFirstHeaderValue(SimpleResponse response, String headerName, String defaultValue)
+    {
+        List<String> values = getHeaderValues(response, headerName);
+        return values.isEmpty() ? defaultValue : values.get(0);
+    }
+
     static long getExpires(SimpleResponse response)
     {
         return getDateHeaderValue(response, "expires", 0);
@@ -237,13 +735,29 @@ public class HttpsJwks
 
     private static class Cache
     {
-        private List<JsonWebKey> keys;
-        private long exp;
+        private final List<JsonWebKey> keys;
+        private final long exp;
+        private final String entityTag;
+        private final String lastModified;
+        private final String body;  // only kept when there's a cache store
 
         private Cache(List<JsonWebKey> keys, long exp)
+        {
+            this(keys, exp, null, null, null);
+        }
+
+        private Cache(Cache cache, long exp)
+        {
+            this(cache.keys, exp, cache.entityTag, cache.lastModified, cache.body);
+        }
+
+        private Cache(List<JsonWebKey> keys, long exp, String entityTag, String lastModified, String body)
         {
             this.keys = keys;
             this.exp = exp;
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+            this.body = body;
         }
 
         private List<JsonWebKey> getKeys()
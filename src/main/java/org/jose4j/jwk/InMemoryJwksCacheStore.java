@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+/**
+ * A {@link JwksCacheStore} that just holds the snapshot in memory, which is mostly useful for testing
+ * or for sharing the content between {@link HttpsJwks} instances in the same process.
+ */
+public class InMemoryJwksCacheStore implements JwksCacheStore
+{
+    private volatile JwksSnapshot snapshot;
+
+    @Override
+    public JwksSnapshot load()
+    {
+        return snapshot;
+    }
+
+    @Override
+    public void store(JwksSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+    }
+}
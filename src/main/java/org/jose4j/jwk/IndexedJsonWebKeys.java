@@ -0,0 +1,242 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * An immutable list of JSON Web Keys that is indexed, when it is created, by the key parameters used in selecting
+ * keys (kid, kty, use, alg, crv, x5t and x5t#S256). A {@link SimpleJwkFilter}, and so also the
+ * {@link VerificationJwkSelector} and {@link DecryptionJwkSelector}, will use the indexes rather than scanning and
+ * checking every key, when given an instance of this class. The result is the same as it would be for a regular list
+ * of the same keys in the same order, just faster when there are more than a few keys.
+ * </p>
+ * <p>
+ * {@link HttpsJwks} provides the keys it loads as an instance of this class.
+ * </p>
+ */
+public final class IndexedJsonWebKeys extends AbstractList<JsonWebKey> implements RandomAccess
+{
+    private static final int[] NONE = new int[0];
+
+    private final JsonWebKey[] keys;
+
+    final Index kid;
+    final Index kty;
+    final Index use;
+    final Index alg;
+    final Index crv;
+    final Index x5t;
+    final Index x5tS256;
+    final Index derivedX5t;
+    final Index derivedX5tS256;
+
+    public IndexedJsonWebKeys(Collection<? extends JsonWebKey> jsonWebKeys)
+    {
+        keys = jsonWebKeys.toArray(new JsonWebKey[jsonWebKeys.size()]);
+
+        String[] kids = new String[keys.length];
+        String[] ktys = new String[keys.length];
+        String[] uses = new String[keys.length];
+        String[] algs = new String[keys.length];
+        String[] crvs = new String[keys.length];
+        String[] x5ts = new String[keys.length];
+        String[] x5tS256s = new String[keys.length];
+        String[] derivedX5ts = new String[keys.length];
+        String[] derivedX5tS256s = new String[keys.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            JsonWebKey jwk = keys[i];
+            kids[i] = jwk.getKeyId();
+            ktys[i] = jwk.getKeyType();
+            uses[i] = jwk.getUse();
+            algs[i] = jwk.getAlgorithm();
+            if (jwk instanceof EllipticCurveJsonWebKey)
+            {
+                crvs[i] = ((EllipticCurveJsonWebKey) jwk).getCurveName();
+            }
+            if (jwk instanceof PublicJsonWebKey)
+            {
+                PublicJsonWebKey publicJwk = (PublicJsonWebKey) jwk;
+                x5ts[i] = publicJwk.getX509CertificateSha1Thumbprint(false);
+                x5tS256s[i] = publicJwk.getX509CertificateSha256Thumbprint(false);
+                derivedX5ts[i] = publicJwk.getX509CertificateSha1Thumbprint(true);
+                derivedX5tS256s[i] = publicJwk.getX509CertificateSha256Thumbprint(true);
+            }
+        }
+
+        kid = new Index(kids);
+        kty = new Index(ktys);
+        use = new Index(uses);
+        alg = new Index(algs);
+        crv = new Index(crvs);
+        x5t = new Index(x5ts);
+        x5tS256 = new Index(x5tS256s);
+        derivedX5t = new Index(derivedX5ts);
+        derivedX5tS256 = new Index(derivedX5tS256s);
+    }
+
+    @Override
+    public JsonWebKey get(int index)
+    {
+        return keys[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return keys.length;
+    }
+
+    List<JsonWebKey> keysAt(int[] positions)
+    {
+        List<JsonWebKey> list = new ArrayList<>(positions.length);
+        for (int position : positions)
+        {
+            list.add(keys[position]);
+        }
+        return list;
+    }
+
+    static int[] intersect(int[] a, int[] b)
+    {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length)
+        {
+            if (a[i] < b[j])
+            {
+                i++;
+            }
+            else if (a[i] > b[j])
+            {
+                j++;
+            }
+            else
+            {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return (count == result.length) ? result : Arrays.copyOf(result, count);
+    }
+
+    private static int[] union(int[] a, int[] b)
+    {
+        // the two are disjoint, having come from different values of the same parameter
+        if (a.length == 0)
+        {
+            return b;
+        }
+        if (b.length == 0)
+        {
+            return a;
+        }
+
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length)
+        {
+            result[k++] = (a[i] < b[j]) ? a[i++] : b[j++];
+        }
+        while (i < a.length)
+        {
+            result[k++] = a[i++];
+        }
+        while (j < b.length)
+        {
+            result[k++] = b[j++];
+        }
+        return result;
+    }
+
+    /**
+     * The positions, in ascending order, of the keys by the value of one parameter.
+     */
+    static class Index
+    {
+        private final Map<String, int[]> byValue = new HashMap<>();
+        private final int[] absent;
+
+        private Index(String[] values)
+        {
+            Map<String, List<Integer>> collecting = new HashMap<>();
+            List<Integer> absentPositions = new ArrayList<>();
+            for (int i = 0; i < values.length; i++)
+            {
+                String value = values[i];
+                if (value == null)
+                {
+                    absentPositions.add(i);
+                }
+                else
+                {
+                    List<Integer> positions = collecting.get(value);
+                    if (positions == null)
+                    {
+                        positions = new ArrayList<>(1);
+                        collecting.put(value, positions);
+                    }
+                    positions.add(i);
+                }
+            }
+
+            for (Map.Entry<String, List<Integer>> e : collecting.entrySet())
+            {
+                byValue.put(e.getKey(), toArray(e.getValue()));
+            }
+            absent = toArray(absentPositions);
+        }
+
+        /**
+         * @param value the value to look for
+         * @param noValueOk whether or not keys without the parameter match too
+         * @return the positions of the matching keys in ascending order
+         */
+        int[] matching(String value, boolean noValueOk)
+        {
+            int[] positions = (value == null) ? null : byValue.get(value);
+            if (positions == null)
+            {
+                positions = NONE;
+            }
+            return noValueOk ? union(positions, absent) : positions;
+        }
+
+        private static int[] toArray(List<Integer> list)
+        {
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++)
+            {
+                array[i] = list.get(i);
+            }
+            return array;
+        }
+    }
+}
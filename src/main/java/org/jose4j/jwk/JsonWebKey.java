@@ -32,6 +32,8 @@ import java.security.interfaces.RSAPublicKey;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  */
@@ -55,6 +57,9 @@ public abstract class JsonWebKey implements Serializable
 
     protected Key key;
 
+    // RFC 7638 thumbprints by hash algorithm, which only depend on the key so they can be computed once
+    private final ConcurrentMap<String, byte[]> thumbprints = new ConcurrentHashMap<>(2);
+
     protected JsonWebKey(Key key)
     {
         this.key = key;
@@ -193,10 +198,16 @@ public abstract class JsonWebKey implements Serializable
 
     public byte[] calculateThumbprint(String hashAlgorithm)
     {
-        MessageDigest digest = HashUtil.getMessageDigest(hashAlgorithm);
-        String hashInputString = produceThumbprintHashInput();
-        byte[] hashInputBytes = StringUtil.getBytesUtf8(hashInputString);
-        return digest.digest(hashInputBytes);
+        byte[] thumbprint = thumbprints.get(hashAlgorithm);
+        if (thumbprint == null)
+        {
+            MessageDigest digest = HashUtil.getMessageDigest(hashAlgorithm);
+            String hashInputString = produceThumbprintHashInput();
+            byte[] hashInputBytes = StringUtil.getBytesUtf8(hashInputString);
+            thumbprint = digest.digest(hashInputBytes);
+            thumbprints.putIfAbsent(hashAlgorithm, thumbprint);
+        }
+        return thumbprint.clone();
     }
 
     protected abstract String produceThumbprintHashInput();
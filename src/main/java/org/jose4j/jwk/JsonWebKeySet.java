@@ -49,6 +49,10 @@ public class JsonWebKeySet
             try
             {
                 JsonWebKey jwk = JsonWebKey.Factory.newJwk(jwkParamsMap);
+                if (jwk instanceof PublicJsonWebKey)
+                {
+                    ((PublicJsonWebKey) jwk).precomputeThumbprints();
+                }
                 keys.add(jwk);
             }
             catch (Exception e)
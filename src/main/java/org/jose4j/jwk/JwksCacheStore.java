@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import java.io.IOException;
+
+/**
+ * Persists the last good content fetched by an {@link HttpsJwks} so that, after a restart, keys are available
+ * right away rather than after the JWKS endpoint has been reached.
+ *
+ * @see HttpsJwks#setCacheStore(JwksCacheStore)
+ * @see FileJwksCacheStore
+ * @see InMemoryJwksCacheStore
+ */
+public interface JwksCacheStore
+{
+    /**
+     * Loads the snapshot that was last stored.
+     * @return the snapshot or {@code null} if there isn't one
+     * @throws IOException if there's a problem reading the snapshot
+     */
+    JwksSnapshot load() throws IOException;
+
+    /**
+     * Stores the snapshot, replacing any previously stored one.
+     * @param snapshot the snapshot
+     * @throws IOException if there's a problem writing the snapshot
+     */
+    void store(JwksSnapshot snapshot) throws IOException;
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import java.util.Date;
+
+/**
+ * The last good content of a JWKS endpoint along with the HTTP cache validators and expiry
+ * that came with it, as kept by a {@link JwksCacheStore}.
+ */
+public class JwksSnapshot
+{
+    private final String location;
+    private final String body;
+    private final String entityTag;
+    private final String lastModified;
+    private final long expires;
+
+    /**
+     * @param location the location (URL) the content came from
+     * @param body the raw JSON Web Key Set content
+     * @param entityTag the value of the {@code ETag} response header or {@code null}
+     * @param lastModified the value of the {@code Last-Modified} response header or {@code null}
+     * @param expires when the content expires, in milliseconds since the epoch
+     */
+    public JwksSnapshot(String location, String body, String entityTag, String lastModified, long expires)
+    {
+        this.location = location;
+        this.body = body;
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+        this.expires = expires;
+    }
+
+    public String getLocation()
+    {
+        return location;
+    }
+
+    public String getBody()
+    {
+        return body;
+    }
+
+    public String getEntityTag()
+    {
+        return entityTag;
+    }
+
+    public String getLastModified()
+    {
+        return lastModified;
+    }
+
+    public long getExpires()
+    {
+        return expires;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "JwksSnapshot{" +
+                "location='" + location + '\'' +
+                ", entityTag='" + entityTag + '\'' +
+                ", lastModified='" + lastModified + '\'' +
+                ", expires=" + new Date(expires) +
+                '}';
+    }
+}
@@ -52,6 +52,10 @@ public abstract class PublicJsonWebKey extends JsonWebKey
     private String x5tS256;
     private String x5u;
 
+    // thumbprints derived from the leaf certificate, computed once and reset when the certificate chain changes
+    private volatile String derivedX5t;
+    private volatile String derivedX5tS256;
+
     protected PublicJsonWebKey(PublicKey publicKey)
     {
         super(publicKey);
@@ -166,10 +170,15 @@ public abstract class PublicJsonWebKey extends JsonWebKey
         String result = x5t;
         if (result == null && allowFallbackDeriveFromX5c)
         {
-            X509Certificate leafCertificate = getLeafCertificate();
-            if (leafCertificate != null)
+            result = derivedX5t;
+            if (result == null)
             {
-                result = X509Util.x5t(leafCertificate);
+                X509Certificate leafCertificate = getLeafCertificate();
+                if (leafCertificate != null)
+                {
+                    result = X509Util.x5t(leafCertificate);
+                    derivedX5t = result;
+                }
             }
         }
 
@@ -186,10 +195,15 @@ public abstract class PublicJsonWebKey extends JsonWebKey
         String result = x5tS256;
         if (result == null && allowFallbackDeriveFromX5c)
         {
-            X509Certificate leafCertificate = getLeafCertificate();
-            if (leafCertificate != null)
+            result = derivedX5tS256;
+            if (result == null)
             {
-                result = X509Util.x5tS256(leafCertificate);
+                X509Certificate leafCertificate = getLeafCertificate();
+                if (leafCertificate != null)
+                {
+                    result = X509Util.x5tS256(leafCertificate);
+                    derivedX5tS256 = result;
+                }
             }
         }
 
@@ -206,6 +220,18 @@ public abstract class PublicJsonWebKey extends JsonWebKey
         checkForBareKeyCertMismatch();
 
         this.certificateChain = certificateChain;
+        derivedX5t = null;
+        derivedX5tS256 = null;
+    }
+
+    /**
+     * Derives and remembers the x5t and x5t#S256 thumbprints from the x5c leaf certificate, when those parameters
+     * aren't already present, so that later key selection doesn't need to hash the certificate.
+     */
+    void precomputeThumbprints()
+    {
+        getX509CertificateSha1Thumbprint(true);
+        getX509CertificateSha256Thumbprint(true);
     }
 
     public void setX509CertificateSha1Thumbprint(String x5t)
@@ -15,8 +15,8 @@
 */
 package org.jose4j.jwk;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -80,7 +80,12 @@ public class SimpleJwkFilter
 
     public List<JsonWebKey> filter(Collection<JsonWebKey> jsonWebKeys)
     {
-        List<JsonWebKey> filtered = new LinkedList<>();
+        if (jsonWebKeys instanceof IndexedJsonWebKeys)
+        {
+            return filter((IndexedJsonWebKeys) jsonWebKeys);
+        }
+
+        List<JsonWebKey> filtered = new ArrayList<>();
         for (JsonWebKey jwk : jsonWebKeys)
         {
             boolean match = isMatch(kid, jwk.getKeyId());
@@ -100,6 +105,30 @@ public class SimpleJwkFilter
         return filtered;
     }
 
+    List<JsonWebKey> filter(IndexedJsonWebKeys indexed)
+    {
+        int[] positions = null;
+        positions = narrow(positions, indexed.kid, kid);
+        positions = narrow(positions, indexed.kty, kty);
+        positions = narrow(positions, indexed.use, use);
+        positions = narrow(positions, indexed.alg, alg);
+        positions = narrow(positions, allowThumbsFallbackDeriveFromX5c ? indexed.derivedX5t : indexed.x5t, x5t);
+        positions = narrow(positions, allowThumbsFallbackDeriveFromX5c ? indexed.derivedX5tS256 : indexed.x5tS256, x5tS256);
+        positions = narrow(positions, indexed.crv, crv);
+        return (positions == null) ? new ArrayList<>(indexed) : indexed.keysAt(positions);
+    }
+
+    private int[] narrow(int[] positions, IndexedJsonWebKeys.Index index, Criteria criteria)
+    {
+        if (criteria == null || (positions != null && positions.length == 0))
+        {
+            return positions;
+        }
+
+        int[] matching = index.matching(criteria.value, criteria.noValueOk);
+        return (positions == null) ? matching : IndexedJsonWebKeys.intersect(positions, matching);
+    }
+
     boolean isMatch(Criteria criteria, String value)
     {
         return (criteria == null) || criteria.meetsCriteria(value);
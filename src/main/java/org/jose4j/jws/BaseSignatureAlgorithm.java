@@ -16,6 +16,7 @@
 
 package org.jose4j.jws;
 
+import org.jose4j.jca.JcaEngineCache;
 import org.jose4j.jca.ProviderContext;
 import org.jose4j.jwa.AlgorithmInfo;
 import org.jose4j.keys.KeyPersuasion;
@@ -32,6 +33,8 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
 {
     private AlgorithmParameterSpec algorithmParameterSpec;
 
+    private final PreparedKeys preparedKeys = new PreparedKeys();
+
     public BaseSignatureAlgorithm(String id, String javaAlgo, String keyAlgo)
     {
         setAlgorithmIdentifier(id);
@@ -48,8 +51,12 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
     @Override
     public boolean verifySignature(byte[] signatureBytes, Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
-        Signature signature = getSignature(providerContext);
-        initForVerify(signature, key);
+        return verifySignature(getJavaAlgorithm(), signatureBytes, key, securedInputBytes, providerContext);
+    }
+
+    boolean verifySignature(String javaAlg, byte[] signatureBytes, Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
+    {
+        Signature signature = acquireInitializedSignature(javaAlg, key, false, providerContext);
         try
         {
             signature.update(securedInputBytes);
@@ -59,13 +66,21 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
         {
             throw new JoseException("Problem verifying signature.", e);
         }
+        finally
+        {
+            releaseSignature(javaAlg, signature, providerContext);
+        }
     }
 
     @Override
     public byte[] sign(Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
-        Signature signature = getSignature(providerContext);
-        initForSign(signature, key, providerContext);
+        return sign(getJavaAlgorithm(), key, securedInputBytes, providerContext);
+    }
+
+    byte[] sign(String javaAlg, Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
+    {
+        Signature signature = acquireInitializedSignature(javaAlg, key, true, providerContext);
         try
         {
             signature.update(securedInputBytes);
@@ -75,6 +90,52 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
         {
             throw new JoseException("Problem creating signature.", e);
         }
+        finally
+        {
+            releaseSignature(javaAlg, signature, providerContext);
+        }
+    }
+
+    /**
+     * Gets a Signature initialized with the key, reusing one from the current thread's {@link JcaEngineCache}
+     * when possible. A Signature obtained without naming a provider is bound to the provider of the first
+     * key it was initialized with, so a cached one might not accept a key that only some other provider can use
+     * (like one from a hardware token). When a cached Signature rejects the key, it's dropped and a new one is tried.
+     * A Signature that couldn't be initialized is never given back to the cache.
+     */
+    private Signature acquireInitializedSignature(String javaAlg, Key key, boolean forSigning, ProviderContext providerContext) throws JoseException
+    {
+        String sigProvider = providerContext.getSuppliedKeyProviderContext().getSignatureProvider();
+        Signature cached = JcaEngineCache.acquire(Signature.class, javaAlg, sigProvider);
+        if (cached != null)
+        {
+            try
+            {
+                setParameter(cached, javaAlg);
+                init(cached, key, forSigning, providerContext);
+                return cached;
+            }
+            catch (InvalidKeyException e)
+            {
+                log.debug("Cached {} Signature from {} rejected the key ({}) so trying a new instance.", javaAlg, cached.getProvider(), e);
+            }
+        }
+
+        Signature signature = getSignature(javaAlg, providerContext);
+        init(signature, key, forSigning, providerContext);
+        return signature;
+    }
+
+    private void init(Signature signature, Key key, boolean forSigning, ProviderContext providerContext) throws InvalidKeyException
+    {
+        if (forSigning)
+        {
+            initForSign(signature, key, providerContext);
+        }
+        else
+        {
+            initForVerify(signature, key);
+        }
     }
 
     private void initForSign(Signature signature, Key key, ProviderContext providerContext) throws InvalidKeyException
@@ -118,33 +179,50 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
     }
 
     private Signature getSignature(ProviderContext providerContext) throws JoseException
+    {
+        return getSignature(getJavaAlgorithm(), providerContext);
+    }
+
+    private Signature getSignature(String javaAlg, ProviderContext providerContext) throws JoseException
     {
         String sigProvider = providerContext.getSuppliedKeyProviderContext().getSignatureProvider();
-        String javaAlg = getJavaAlgorithm();
         try
         {
-
             Signature signature = sigProvider == null ? Signature.getInstance(javaAlg) : Signature.getInstance(javaAlg, sigProvider);
-            if (algorithmParameterSpec != null)
-            {
-                signature.setParameter(algorithmParameterSpec);
-            }
+            setParameter(signature, javaAlg);
             return signature;
         }
         catch (NoSuchAlgorithmException e)
         {
             throw new JoseException("Unable to get an implementation of algorithm name: " + javaAlg, e);
         }
-        catch (InvalidAlgorithmParameterException e)
-        {
-            throw new JoseException("Invalid algorithm parameter ("+algorithmParameterSpec+") for: " + javaAlg, e);
-        }
         catch (NoSuchProviderException e)
         {
             throw new JoseException("Unable to get an implementation of " + javaAlg + " for provider " + sigProvider, e);
         }
     }
 
+    private void setParameter(Signature signature, String javaAlg) throws JoseException
+    {
+        if (algorithmParameterSpec != null)
+        {
+            try
+            {
+                signature.setParameter(algorithmParameterSpec);
+            }
+            catch (InvalidAlgorithmParameterException e)
+            {
+                throw new JoseException("Invalid algorithm parameter ("+algorithmParameterSpec+") for: " + javaAlg, e);
+            }
+        }
+    }
+
+    private void releaseSignature(String javaAlg, Signature signature, ProviderContext providerContext)
+    {
+        String sigProvider = providerContext.getSuppliedKeyProviderContext().getSignatureProvider();
+        JcaEngineCache.release(Signature.class, javaAlg, sigProvider, signature);
+    }
+
     public abstract void validatePrivateKey(PrivateKey privateKey) throws InvalidKeyException;
 
     public void validateSigningKey(Key key) throws InvalidKeyException
@@ -167,10 +245,15 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
     public void validateVerificationKey(Key key) throws InvalidKeyException
     {
         checkForNullKey(key);
+        if (preparedKeys.isValidated(key))
+        {
+            return;
+        }
 
         try
         {
             validatePublicKey((PublicKey)key);
+            preparedKeys.setValidated(key);
         }
         catch (ClassCastException e)
         {
@@ -17,6 +17,7 @@
 package org.jose4j.jws;
 
 
+import org.jose4j.jca.JcaEngineCache;
 import org.jose4j.jca.ProviderContext;
 import org.jose4j.jwk.EllipticCurveJsonWebKey;
 import org.jose4j.keys.EllipticCurves;
@@ -24,32 +25,59 @@ import org.jose4j.lang.InvalidKeyException;
 import org.jose4j.lang.JoseException;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.Signature;
 import java.security.interfaces.ECKey;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECParameterSpec;
 import java.security.spec.EllipticCurve;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
  */
 public class EcdsaUsingShaAlgorithm extends BaseSignatureAlgorithm implements JsonWebSignatureAlgorithm
 {
+    static final String P1363_FORMAT_SUFFIX = "inP1363Format";
+
+    private static final String NO_PROVIDER = "";
+
     private String curveName;
     private int signatureByteLength;
+    private final String p1363JavaAlgorithm;
+
+    private final ConcurrentMap<String, Boolean> p1363Availability = new ConcurrentHashMap<>();
+    private volatile int p1363AvailabilityGeneration = JcaEngineCache.getGeneration();
 
     public EcdsaUsingShaAlgorithm(String id, String javaAlgo, String curveName, int signatureByteLength)
     {
         super(id, javaAlgo, EllipticCurveJsonWebKey.KEY_TYPE);
         this.curveName = curveName;
         this.signatureByteLength = signatureByteLength;
+        this.p1363JavaAlgorithm = javaAlgo + P1363_FORMAT_SUFFIX;
     }
 
     public boolean verifySignature(byte[] signatureBytes, Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
+        // JOSE's R||S is what the P1363 format variant of the JCA algorithm takes directly but
+        // signatures of an unexpected length (like the unpadded ones from old versions) go the DER route
+        if (signatureBytes.length == signatureByteLength && useP1363Format(key, providerContext))
+        {
+            try
+            {
+                return verifySignature(p1363JavaAlgorithm, signatureBytes, key, securedInputBytes, providerContext);
+            }
+            catch (InvalidKeyException e)
+            {
+                log.debug("Unable to use {} with the given key, falling back to DER encoded signatures. {}", p1363JavaAlgorithm, e.toString());
+            }
+        }
+
         byte[] derEncodedSignatureBytes;
         try
         {
@@ -65,6 +93,23 @@ public class EcdsaUsingShaAlgorithm extends BaseSignatureAlgorithm implements Js
 
     public byte[] sign(Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
+        if (useP1363Format(key, providerContext))
+        {
+            try
+            {
+                byte[] signatureBytes = sign(p1363JavaAlgorithm, key, securedInputBytes, providerContext);
+                if (signatureBytes.length == signatureByteLength)
+                {
+                    return signatureBytes;
+                }
+                log.debug("Unexpected {} signature length {}, falling back to DER encoded signatures.", p1363JavaAlgorithm, signatureBytes.length);
+            }
+            catch (InvalidKeyException e)
+            {
+                log.debug("Unable to use {} with the given key, falling back to DER encoded signatures. {}", p1363JavaAlgorithm, e.toString());
+            }
+        }
+
         byte[] derEncodedSignatureBytes = super.sign(key, securedInputBytes, providerContext);
         try
         {
@@ -76,87 +121,114 @@ public class EcdsaUsingShaAlgorithm extends BaseSignatureAlgorithm implements Js
         }
     }
 
+    private boolean useP1363Format(Key key, ProviderContext providerContext)
+    {
+        // keys that aren't ECKey instances are likely tied to a particular provider that may not support the P1363 variant
+        return key instanceof ECKey && isP1363FormatAvailable(providerContext.getSuppliedKeyProviderContext().getSignatureProvider());
+    }
+
+    boolean isP1363FormatAvailable(String provider)
+    {
+        int generation = JcaEngineCache.getGeneration();
+        if (p1363AvailabilityGeneration != generation)
+        {
+            p1363Availability.clear();
+            p1363AvailabilityGeneration = generation;
+        }
+
+        String mapKey = provider == null ? NO_PROVIDER : provider;
+        Boolean available = p1363Availability.get(mapKey);
+        if (available == null)
+        {
+            try
+            {
+                Signature signature = provider == null ? Signature.getInstance(p1363JavaAlgorithm) : Signature.getInstance(p1363JavaAlgorithm, provider);
+                JcaEngineCache.release(Signature.class, p1363JavaAlgorithm, provider, signature);
+                available = Boolean.TRUE;
+            }
+            catch (GeneralSecurityException e)
+            {
+                available = Boolean.FALSE;
+            }
+            log.debug("{} is{} available{}.", p1363JavaAlgorithm, available ? "" : " NOT", provider == null ? "" : " from " + provider);
+            p1363Availability.put(mapKey, available);
+        }
+        return available;
+    }
+
     /*
         The result of an ECDSA signature is the EC point (R, S), where R and S are unsigned (very large) integers.
         The JCA ECDSA signature implementation (sun.security.ec.ECDSASignature) produces and expects a DER encoding
-        of R and S while JOSE/JWS wants R and S as a concatenated byte array. XML signatures (best I can tell) treats
-        ECDSA similarly to JOSE and the code for the two methods that convert to and from DER and concatenated
-        R and S was originally taken from org.apache.xml.security.algorithms.implementations.SignatureECDSA in the
-        (Apache 2 licensed) Apache Santuario XML Security library. Some minor changes have been made to ensure the
-        concatenated output left zero pads R & S to consistent length - i.e. the "octet sequence representations
-        MUST NOT be shortened to omit any leading zero octets" per http://tools.ietf.org/html/draft-ietf-jose-json-web-algorithms-25#section-3.4
-
-        Which seemed like a better idea than trying to write it myself or using sun.security.util.Der[Input/Output]Stream
-        as sun.security.ec.ECDSASignature does or some other half-arsed approach.
+        of R and S while JOSE/JWS wants R and S as a concatenated byte array. Providers that offer the
+        "inP1363Format" variants of the algorithms take and produce the concatenated form directly, which is
+        used when available. Otherwise these two methods convert to and from DER. They were originally based on
+        org.apache.xml.security.algorithms.implementations.SignatureECDSA in the (Apache 2 licensed) Apache
+        Santuario XML Security library and now work out the exact size of the result up front so that it's the
+        only array allocated. The concatenated output is left zero padded so R & S have consistent length - i.e. the
+        "octet sequence representations MUST NOT be shortened to omit any leading zero octets"
+        per http://tools.ietf.org/html/draft-ietf-jose-json-web-algorithms-25#section-3.4
      */
 
     // Convert the concatenation of R and S into DER encoding
     public static byte[] convertConcatenatedToDer(byte[] concatenatedSignatureBytes) throws IOException
     {
-        int rawLen = concatenatedSignatureBytes.length/2;
-
-        int i;
-
-        for (i = rawLen; (i > 0) && (concatenatedSignatureBytes[rawLen - i] == 0); i--);
-
-        int j = i;
-
-        if (concatenatedSignatureBytes[rawLen - i] < 0)
-        {
-            j += 1;
-        }
-
-        int k;
-
-        for (k = rawLen; (k > 0) && (concatenatedSignatureBytes[2*rawLen - k] == 0); k--);
+        int rawLen = concatenatedSignatureBytes.length / 2;
+        int rStart = skipLeadingZeros(concatenatedSignatureBytes, 0, rawLen);
+        int sStart = skipLeadingZeros(concatenatedSignatureBytes, rawLen, 2 * rawLen);
+        int rLength = integerContentLength(concatenatedSignatureBytes, rStart, rawLen);
+        int sLength = integerContentLength(concatenatedSignatureBytes, sStart, 2 * rawLen);
 
-        int l = k;
-
-        if (concatenatedSignatureBytes[2*rawLen - k] < 0)
-        {
-            l += 1;
-        }
-
-        int len = 2 + j + 2 + l;
+        int len = 2 + rLength + 2 + sLength;
         if (len > 255)
         {
             throw new IOException("Invalid format of ECDSA signature");
         }
-        int offset;
-        byte derEncodedSignatureBytes[];
-        if (len < 128)
-        {
-            derEncodedSignatureBytes = new byte[2 + 2 + j + 2 + l];
-            offset = 1;
-        }
-        else
+
+        int offset = len < 128 ? 2 : 3;
+        byte[] derEncodedSignatureBytes = new byte[offset + len];
+        derEncodedSignatureBytes[0] = 48;
+        if (offset == 3)
         {
-            derEncodedSignatureBytes = new byte[3 + 2 + j + 2 + l];
             derEncodedSignatureBytes[1] = (byte) 0x81;
-            offset = 2;
         }
+        derEncodedSignatureBytes[offset - 1] = (byte) len;
 
-        derEncodedSignatureBytes[0] = 48;
-        derEncodedSignatureBytes[offset++] = (byte) len;
-        derEncodedSignatureBytes[offset++] = 2;
-        derEncodedSignatureBytes[offset++] = (byte) j;
-
-        System.arraycopy(concatenatedSignatureBytes, rawLen - i, derEncodedSignatureBytes, (offset + j) - i, i);
-
-        offset += j;
+        offset = writeInteger(concatenatedSignatureBytes, rStart, rawLen, rLength, derEncodedSignatureBytes, offset);
+        writeInteger(concatenatedSignatureBytes, sStart, 2 * rawLen, sLength, derEncodedSignatureBytes, offset);
+        return derEncodedSignatureBytes;
+    }
 
-        derEncodedSignatureBytes[offset++] = 2;
-        derEncodedSignatureBytes[offset++] = (byte) l;
+    private static int skipLeadingZeros(byte[] bytes, int start, int end)
+    {
+        while (start < end && bytes[start] == 0)
+        {
+            start++;
+        }
+        return start;
+    }
 
-        System.arraycopy(concatenatedSignatureBytes, 2*rawLen - k, derEncodedSignatureBytes, (offset + l) - k, k);
+    // the length of the DER INTEGER content for the unsigned value in bytes[start, end)
+    private static int integerContentLength(byte[] bytes, int start, int end)
+    {
+        if (start == end)
+        {
+            return 1;  // zero
+        }
+        return (bytes[start] < 0) ? end - start + 1 : end - start;
+    }
 
-        return derEncodedSignatureBytes;
+    private static int writeInteger(byte[] source, int start, int end, int contentLength, byte[] der, int offset)
+    {
+        der[offset++] = 2;
+        der[offset++] = (byte) contentLength;
+        int valueLength = end - start;
+        System.arraycopy(source, start, der, offset + contentLength - valueLength, valueLength);
+        return offset + contentLength;
     }
 
     // Convert the DER encoding of R and S into a concatenation of R and S
     public static byte[] convertDerToConcatenated(byte derEncodedBytes[], int outputLength) throws IOException
     {
-
         if (derEncodedBytes.length < 8 || derEncodedBytes[0] != 48)
         {
             throw new IOException("Invalid format of ECDSA signature");
@@ -176,31 +248,37 @@ public class EcdsaUsingShaAlgorithm extends BaseSignatureAlgorithm implements Js
             throw new IOException("Invalid format of ECDSA signature");
         }
 
-        byte rLength = derEncodedBytes[offset + 1];
+        int sequenceLength = derEncodedBytes[offset - 1] & 0xff;
+        if (sequenceLength != derEncodedBytes.length - offset || derEncodedBytes[offset] != 2)
+        {
+            throw new IOException("Invalid format of ECDSA signature");
+        }
 
-        int i;
-        for (i = rLength; (i > 0) && (derEncodedBytes[(offset + 2 + rLength) - i] == 0); i--);
+        int rLength = derEncodedBytes[offset + 1] & 0xff;
+        int rEnd = offset + 2 + rLength;
+        if (rEnd + 2 > derEncodedBytes.length || derEncodedBytes[rEnd] != 2)
+        {
+            throw new IOException("Invalid format of ECDSA signature");
+        }
 
-        byte sLength = derEncodedBytes[offset + 2 + rLength + 1];
+        int sLength = derEncodedBytes[rEnd + 1] & 0xff;
+        int sEnd = rEnd + 2 + sLength;
+        if (sequenceLength != 2 + rLength + 2 + sLength)
+        {
+            throw new IOException("Invalid format of ECDSA signature");
+        }
 
-        int j;
-        for (j = sLength; (j > 0) && (derEncodedBytes[(offset + 2 + rLength + 2 + sLength) - j] == 0); j--);
+        int rStart = skipLeadingZeros(derEncodedBytes, offset + 2, rEnd);
+        int sStart = skipLeadingZeros(derEncodedBytes, rEnd + 2, sEnd);
+        int i = rEnd - rStart;
+        int j = sEnd - sStart;
 
         int rawLen = Math.max(i, j);
         rawLen = Math.max(rawLen, outputLength/2);
 
-        if ((derEncodedBytes[offset - 1] & 0xff) != derEncodedBytes.length - offset
-            || (derEncodedBytes[offset - 1] & 0xff) != 2 + rLength + 2 + sLength
-            || derEncodedBytes[offset] != 2
-            || derEncodedBytes[offset + 2 + rLength] != 2)
-        {
-            throw new IOException("Invalid format of ECDSA signature");
-        }
-        
         byte concatenatedSignatureBytes[] = new byte[2*rawLen];
-
-        System.arraycopy(derEncodedBytes, (offset + 2 + rLength) - i, concatenatedSignatureBytes, rawLen - i, i);
-        System.arraycopy(derEncodedBytes, (offset + 2 + rLength + 2 + sLength) - j, concatenatedSignatureBytes, 2*rawLen - j, j);
+        System.arraycopy(derEncodedBytes, rStart, concatenatedSignatureBytes, rawLen - i, i);
+        System.arraycopy(derEncodedBytes, sStart, concatenatedSignatureBytes, 2*rawLen - j, j);
 
         return concatenatedSignatureBytes;
     }
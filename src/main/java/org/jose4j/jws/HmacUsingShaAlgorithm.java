@@ -36,6 +36,8 @@ public class HmacUsingShaAlgorithm extends AlgorithmInfo implements JsonWebSigna
 {
     private int minimumKeyLength;
 
+    private final PreparedKeys preparedKeys = new PreparedKeys();
+
     public HmacUsingShaAlgorithm(String id, String javaAlgo, int minimumKeyLength)
     {
         setAlgorithmIdentifier(id);
@@ -52,22 +54,23 @@ public class HmacUsingShaAlgorithm extends AlgorithmInfo implements JsonWebSigna
             throw new InvalidKeyException(key.getClass() + " cannot be used for HMAC verification.");
         }
 
-        Mac mac = getMacInstance(key, providerContext);
-        byte[] calculatedSigature = mac.doFinal(securedInputBytes);
+        byte[] calculatedSigature = sign(key, securedInputBytes, providerContext);
 
         return ByteUtil.secureEquals(signatureBytes, calculatedSigature);
     }
 
     public byte[] sign(Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
-    {
-        Mac mac = getMacInstance(key, providerContext);
-        return mac.doFinal(securedInputBytes);
-    }
-
-    private Mac getMacInstance(Key key, ProviderContext providerContext) throws JoseException
     {
         String macProvider = providerContext.getSuppliedKeyProviderContext().getMacProvider();
-        return MacUtil.getInitializedMac(getJavaAlgorithm(), key, macProvider);
+        Mac mac = MacUtil.acquireInitializedMac(getJavaAlgorithm(), key, macProvider);
+        try
+        {
+            return mac.doFinal(securedInputBytes);
+        }
+        finally
+        {
+            MacUtil.releaseMac(mac, macProvider);
+        }
     }
 
     void validateKey(Key key) throws InvalidKeyException
@@ -96,7 +99,12 @@ public class HmacUsingShaAlgorithm extends AlgorithmInfo implements JsonWebSigna
 
     public void validateVerificationKey(Key key) throws InvalidKeyException
     {
+        if (key != null && preparedKeys.isValidated(key))
+        {
+            return;
+        }
         validateKey(key);
+        preparedKeys.setValidated(key);
     }
 
     @Override
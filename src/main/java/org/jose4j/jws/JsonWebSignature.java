@@ -16,6 +16,7 @@
 
 package org.jose4j.jws;
 
+import org.jose4j.base64url.Base64UrlCodec;
 import org.jose4j.jwa.Algorithm;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwa.AlgorithmFactory;
@@ -45,6 +46,9 @@ public class JsonWebSignature extends JsonWebStructure
 
     private Boolean validSignature;
 
+    private String parsedEncodedHeader;
+    private String parsedEncodedPayload;
+
     public JsonWebSignature()
     {
         if (!Boolean.getBoolean("org.jose4j.jws.default-allow-none"))
@@ -68,6 +72,25 @@ public class JsonWebSignature extends JsonWebStructure
         setEncodedHeader(parts[0]);
         setEncodedPayload(parts[1]);
         setSignature(base64url.base64UrlDecode(parts[2]));
+        parsedEncodedHeader = parts[0];
+        parsedEncodedPayload = parts[1];
+    }
+
+    @Override
+    protected void setCompactSerializationParts(String compactSerialization, int[] separatorIndexes) throws JoseException
+    {
+        if (separatorIndexes.length + 1 != COMPACT_SERIALIZATION_PARTS)
+        {
+            throw new JoseException("A JWS Compact Serialization must have exactly "+COMPACT_SERIALIZATION_PARTS+" parts separated by period ('.') characters");
+        }
+
+        String encodedHeader = compactSerialization.substring(0, separatorIndexes[0]);
+        String encodedPayload = compactSerialization.substring(separatorIndexes[0] + 1, separatorIndexes[1]);
+        setEncodedHeader(encodedHeader);
+        setEncodedPayload(encodedPayload);
+        setSignature(Base64UrlCodec.decode(compactSerialization, separatorIndexes[1] + 1, compactSerialization.length()));
+        parsedEncodedHeader = encodedHeader;
+        parsedEncodedPayload = encodedPayload;
     }
 
 
@@ -188,10 +211,26 @@ public class JsonWebSignature extends JsonWebStructure
 
     private byte[] getSigningInputBytes() throws JoseException
     {
+        if (isSigningInputInRawCompactSerialization())
+        {
+            // the signing input is the front part of the compact serialization up to the last period,
+            // so take the bytes straight from there rather than reassembling it from the parts
+            int end = rawCompactSerialization.lastIndexOf('.');
+            return StringUtil.getBytesAscii(rawCompactSerialization, 0, end);
+        }
+
         String signingInput = getSigningInput();
         return StringUtil.getBytesAscii(signingInput);
     }
 
+    private boolean isSigningInputInRawCompactSerialization()
+    {
+        // identity rather than equality checks are intended here - if the header and payload are the very same
+        // strings that were parsed out of the compact serialization then nothing has been changed since
+        return rawCompactSerialization != null && parsedEncodedHeader != null
+                && getEncodedHeader() == parsedEncodedHeader && encodedPayload == parsedEncodedPayload;
+    }
+
     private String getSigningInput() throws JoseException
     {
         return CompactSerializer.serialize(getEncodedHeader(), getEncodedPayload());
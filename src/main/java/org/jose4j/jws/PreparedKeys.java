@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jose4j.jws;
+
+import java.security.Key;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Remembers which keys a signature algorithm has already validated, so that a long lived key that's used over
+ * and over doesn't have to be validated again every time. Each algorithm instance has its own so what's
+ * remembered is bound to the key and the algorithm. Only that a key was found valid is kept, nothing derived
+ * from the key material, and keys are held weakly so an entry doesn't outlive the key being used elsewhere.
+ * The number of keys remembered is bounded with an arbitrary one being forgotten to make room for another.
+ */
+class PreparedKeys
+{
+    static final int MAX_KEYS = 64;
+
+    private final Map<Key, Boolean> validatedKeys = new WeakHashMap<>();
+
+    synchronized boolean isValidated(Key key)
+    {
+        return validatedKeys.containsKey(key);
+    }
+
+    synchronized void setValidated(Key key)
+    {
+        if (!validatedKeys.containsKey(key) && validatedKeys.size() >= MAX_KEYS)
+        {
+            Iterator<Key> iterator = validatedKeys.keySet().iterator();
+            if (iterator.hasNext())
+            {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        validatedKeys.put(key, Boolean.TRUE);
+    }
+
+    synchronized int size()
+    {
+        return validatedKeys.size();
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.AsyncDecryptionKeyResolver;
+import org.jose4j.keys.resolvers.AsyncVerificationKeyResolver;
+import org.jose4j.keys.resolvers.DecryptionKeyResolver;
+import org.jose4j.keys.resolvers.KeyResolutionCallback;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The processing of one JWT for {@link JwtConsumer#processAsync(String, JwtProcessingCallback)}, which is also
+ * the {@code Future} handed back to the caller. Processing runs on the consumer's executor. When an
+ * asynchronous key resolver can't provide a key right away, the attempt is abandoned and the processing is
+ * resubmitted to the executor once the key has been resolved. That way no thread is ever left waiting on key
+ * resolution. But the resumed attempt starts over from the compact serialization, using the keys resolved so far
+ * without resolving them again, so everything done before the key was needed is done again. For a JWS that's only
+ * parsing but for a nested JWT, where the inner JWS key is resolved after the outer JWE has been decrypted, it
+ * means unwrapping the content encryption key (a private key operation with RSA or ECDH-ES) and decrypting
+ * the content again, once for each key that wasn't available right away.
+ */
+class AsyncJwtProcessing implements Future<JwtContext>, Runnable
+{
+    private static final Logger log = LoggerFactory.getLogger(AsyncJwtProcessing.class);
+
+    private final JwtConsumer jwtConsumer;
+    private final String jwt;
+    private final JwtProcessingCallback callback;
+    private final Executor executor;
+
+    private final ConcurrentHashMap<String, ResolvedKey> resolvedKeys = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean done = new AtomicBoolean();
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile JwtContext result;
+    private volatile Exception failure;
+
+    AsyncJwtProcessing(JwtConsumer jwtConsumer, String jwt, JwtProcessingCallback callback, Executor executor)
+    {
+        this.jwtConsumer = jwtConsumer;
+        this.jwt = jwt;
+        this.callback = callback;
+        this.executor = executor;
+    }
+
+    void submit()
+    {
+        try
+        {
+            executor.execute(this);
+        }
+        catch (RejectedExecutionException e)
+        {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        if (isDone())
+        {
+            return;
+        }
+
+        try
+        {
+            VerificationKeyResolver verificationKeyResolver = jwtConsumer.getVerificationKeyResolver();
+            if (verificationKeyResolver instanceof AsyncVerificationKeyResolver)
+            {
+                verificationKeyResolver = new VerificationResolution((AsyncVerificationKeyResolver) verificationKeyResolver);
+            }
+            DecryptionKeyResolver decryptionKeyResolver = jwtConsumer.getDecryptionKeyResolver();
+            if (decryptionKeyResolver instanceof AsyncDecryptionKeyResolver)
+            {
+                decryptionKeyResolver = new DecryptionResolution((AsyncDecryptionKeyResolver) decryptionKeyResolver);
+            }
+
+            complete(jwtConsumer.process(jwt, verificationKeyResolver, decryptionKeyResolver));
+        }
+        catch (InvalidJwtException e)
+        {
+            if (!isPending(e))
+            {
+                fail(e);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            fail(new InvalidJwtException("Unexpected exception encountered while processing JWT (" + e + "): " + jwt, e));
+        }
+    }
+
+    private boolean isPending(Throwable t)
+    {
+        while (t != null)
+        {
+            if (t == KeyResolutionPending.INSTANCE)
+            {
+                return true;
+            }
+            t = t.getCause();
+        }
+        return false;
+    }
+
+    private void complete(JwtContext jwtContext)
+    {
+        if (done.compareAndSet(false, true))
+        {
+            result = jwtContext;
+            latch.countDown();
+            if (callback != null)
+            {
+                try
+                {
+                    callback.completed(jwtContext);
+                }
+                catch (RuntimeException e)
+                {
+                    log.warn("Exception from JwtProcessingCallback.completed: {}", e.toString(), e);
+                }
+            }
+        }
+    }
+
+    private void fail(Exception e)
+    {
+        if (done.compareAndSet(false, true))
+        {
+            failure = e;
+            latch.countDown();
+            if (callback != null)
+            {
+                try
+                {
+                    callback.failed(e);
+                }
+                catch (RuntimeException re)
+                {
+                    log.warn("Exception from JwtProcessingCallback.failed: {}", re.toString(), re);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        if (done.compareAndSet(false, true))
+        {
+            failure = new CancellationException();
+            latch.countDown();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+        return failure instanceof CancellationException;
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return done.get();
+    }
+
+    @Override
+    public JwtContext get() throws InterruptedException, ExecutionException
+    {
+        latch.await();
+        return getResult();
+    }
+
+    @Override
+    public JwtContext get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (!latch.await(timeout, unit))
+        {
+            throw new TimeoutException();
+        }
+        return getResult();
+    }
+
+    private JwtContext getResult() throws ExecutionException
+    {
+        Exception e = failure;
+        if (e instanceof CancellationException)
+        {
+            throw (CancellationException) e;
+        }
+        else if (e != null)
+        {
+            throw new ExecutionException(e);
+        }
+        return result;
+    }
+
+    private Key resolve(String resolutionKey, Resolution resolution) throws UnresolvableKeyException
+    {
+        ResolvedKey resolved = resolvedKeys.get(resolutionKey);
+        if (resolved == null)
+        {
+            PendingKey pending = new PendingKey(resolutionKey);
+            resolution.start(pending);
+            if (pending.detach())
+            {
+                throw KeyResolutionPending.INSTANCE;
+            }
+            resolved = pending.resolved;
+            resolvedKeys.put(resolutionKey, resolved);
+        }
+
+        if (resolved.failure != null)
+        {
+            throw resolved.failure;
+        }
+        return resolved.key;
+    }
+
+    static String resolutionKey(String type, JsonWebStructure joseObject, List<JsonWebStructure> nestingContext)
+    {
+        return type + nestingContext.size() + ':' + joseObject.getHeaders().getFullHeaderAsJsonString();
+    }
+
+    private interface Resolution
+    {
+        void start(KeyResolutionCallback callback);
+    }
+
+    private class VerificationResolution implements VerificationKeyResolver
+    {
+        private final AsyncVerificationKeyResolver resolver;
+
+        private VerificationResolution(AsyncVerificationKeyResolver resolver)
+        {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public Key resolveKey(final JsonWebSignature jws, final List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            return resolve(resolutionKey("jws", jws, nestingContext), new Resolution()
+            {
+                @Override
+                public void start(KeyResolutionCallback callback)
+                {
+                    resolver.resolveKeyAsync(jws, nestingContext, callback);
+                }
+            });
+        }
+    }
+
+    private class DecryptionResolution implements DecryptionKeyResolver
+    {
+        private final AsyncDecryptionKeyResolver resolver;
+
+        private DecryptionResolution(AsyncDecryptionKeyResolver resolver)
+        {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public Key resolveKey(final JsonWebEncryption jwe, final List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            return resolve(resolutionKey("jwe", jwe, nestingContext), new Resolution()
+            {
+                @Override
+                public void start(KeyResolutionCallback callback)
+                {
+                    resolver.resolveKeyAsync(jwe, nestingContext, callback);
+                }
+            });
+        }
+    }
+
+    private class PendingKey implements KeyResolutionCallback
+    {
+        private static final int STARTED = 0;
+        private static final int COMPLETED_INLINE = 1;
+        private static final int DETACHED = 2;
+
+        private final String resolutionKey;
+        private final AtomicInteger state = new AtomicInteger(STARTED);
+        private final AtomicBoolean called = new AtomicBoolean();
+        private volatile ResolvedKey resolved;
+
+        private PendingKey(String resolutionKey)
+        {
+            this.resolutionKey = resolutionKey;
+        }
+
+        @Override
+        public void resolved(Key key)
+        {
+            finish(new ResolvedKey(key, null));
+        }
+
+        @Override
+        public void failed(UnresolvableKeyException e)
+        {
+            finish(new ResolvedKey(null, e));
+        }
+
+        private void finish(ResolvedKey resolvedKey)
+        {
+            if (!called.compareAndSet(false, true))
+            {
+                return;
+            }
+
+            resolved = resolvedKey;
+            if (!state.compareAndSet(STARTED, COMPLETED_INLINE))
+            {
+                // the processing attempt that started the resolution has been abandoned so pick it back up
+                resolvedKeys.put(resolutionKey, resolvedKey);
+                submit();
+            }
+        }
+
+        /**
+         * @return true if the resolution didn't complete inline, in which case it'll resume the processing when it does
+         */
+        private boolean detach()
+        {
+            return state.compareAndSet(STARTED, DETACHED);
+        }
+    }
+
+    private static class ResolvedKey
+    {
+        private final Key key;
+        private final UnresolvableKeyException failure;
+
+        private ResolvedKey(Key key, UnresolvableKeyException failure)
+        {
+            this.key = key;
+            this.failure = failure;
+        }
+    }
+
+    private static class KeyResolutionPending extends UnresolvableKeyException
+    {
+        private static final long serialVersionUID = 1L;
+
+        // shared across threads so it has no stack trace and suppressed exceptions can't be added to it
+        private static final KeyResolutionPending INSTANCE = new KeyResolutionPending();
+
+        private KeyResolutionPending()
+        {
+            super("Key resolution is still in progress", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.DecryptionKeyResolver;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The processing of a batch of JWTs for {@link JwtConsumer#processAll(java.util.Collection)}. The JWTs are split
+ * up among the threads of a {@code ForkJoinPool} and, when the key resolvers only look at the JOSE headers, each
+ * distinct header is only resolved to a key once for the whole batch, with concurrent lookups of the same header
+ * waiting on the one in progress.
+ */
+class JwtBatchProcessing
+{
+    private static final int THRESHOLD = 4;
+
+    private final JwtConsumer jwtConsumer;
+    private final String[] jwts;
+    private final JwtProcessingResult[] results;
+    private final VerificationKeyResolver verificationKeyResolver;
+    private final DecryptionKeyResolver decryptionKeyResolver;
+
+    private final ConcurrentHashMap<String, FutureTask<Key>> resolvedKeys = new ConcurrentHashMap<>();
+
+    JwtBatchProcessing(JwtConsumer jwtConsumer, String[] jwts, boolean resolveKeysByHeader)
+    {
+        this.jwtConsumer = jwtConsumer;
+        this.jwts = jwts;
+        this.results = new JwtProcessingResult[jwts.length];
+
+        VerificationKeyResolver vkr = jwtConsumer.getVerificationKeyResolver();
+        DecryptionKeyResolver dkr = jwtConsumer.getDecryptionKeyResolver();
+        this.verificationKeyResolver = resolveKeysByHeader ? new VerificationByHeader(vkr) : vkr;
+        this.decryptionKeyResolver = resolveKeysByHeader ? new DecryptionByHeader(dkr) : dkr;
+    }
+
+    List<JwtProcessingResult> process(ForkJoinPool pool)
+    {
+        if (jwts.length <= 1)
+        {
+            processRange(0, jwts.length);
+        }
+        else
+        {
+            pool.invoke(new Part(0, jwts.length));
+        }
+        return Arrays.asList(results);
+    }
+
+    private void processRange(int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            String jwt = jwts[i];
+            try
+            {
+                results[i] = new JwtProcessingResult(jwt, jwtConsumer.process(jwt, verificationKeyResolver, decryptionKeyResolver), null);
+            }
+            catch (InvalidJwtException e)
+            {
+                results[i] = new JwtProcessingResult(jwt, null, e);
+            }
+            catch (RuntimeException e)
+            {
+                InvalidJwtException ije = new InvalidJwtException("Unexpected exception encountered while processing JWT (" + e + "): " + jwt, e);
+                results[i] = new JwtProcessingResult(jwt, null, ije);
+            }
+        }
+    }
+
+    private Key resolve(String resolutionKey, Callable<Key> resolution) throws UnresolvableKeyException
+    {
+        FutureTask<Key> task = resolvedKeys.get(resolutionKey);
+        if (task == null)
+        {
+            FutureTask<Key> newTask = new FutureTask<>(resolution);
+            task = resolvedKeys.putIfAbsent(resolutionKey, newTask);
+            if (task == null)
+            {
+                task = newTask;
+                task.run();
+            }
+        }
+
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new UnresolvableKeyException("Interrupted while waiting on key resolution.", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnresolvableKeyException)
+            {
+                throw (UnresolvableKeyException) cause;
+            }
+            else if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new UnresolvableKeyException("Unexpected exception resolving key: " + cause, cause);
+        }
+    }
+
+    private class Part extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private Part(int from, int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= THRESHOLD)
+            {
+                processRange(from, to);
+            }
+            else
+            {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Part(from, middle), new Part(middle, to));
+            }
+        }
+    }
+
+    private class VerificationByHeader implements VerificationKeyResolver
+    {
+        private final VerificationKeyResolver resolver;
+
+        private VerificationByHeader(VerificationKeyResolver resolver)
+        {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public Key resolveKey(final JsonWebSignature jws, final List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            return resolve(AsyncJwtProcessing.resolutionKey("jws", jws, nestingContext), new Callable<Key>()
+            {
+                @Override
+                public Key call() throws UnresolvableKeyException
+                {
+                    return resolver.resolveKey(jws, nestingContext);
+                }
+            });
+        }
+    }
+
+    private class DecryptionByHeader implements DecryptionKeyResolver
+    {
+        private final DecryptionKeyResolver resolver;
+
+        private DecryptionByHeader(DecryptionKeyResolver resolver)
+        {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public Key resolveKey(final JsonWebEncryption jwe, final List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            return resolve(AsyncJwtProcessing.resolutionKey("jwe", jwe, nestingContext), new Callable<Key>()
+            {
+                @Override
+                public Key call() throws UnresolvableKeyException
+                {
+                    return resolver.resolveKey(jwe, nestingContext);
+                }
+            });
+        }
+    }
+}
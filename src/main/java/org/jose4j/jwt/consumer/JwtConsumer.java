@@ -25,25 +25,42 @@ import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 import org.jose4j.jwx.JsonWebStructure;
 import org.jose4j.keys.resolvers.DecryptionKeyResolver;
+import org.jose4j.keys.resolvers.HttpsJwksVerificationKeyResolver;
+import org.jose4j.keys.resolvers.JwksDecryptionKeyResolver;
+import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
 import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.keys.resolvers.X509VerificationKeyResolver;
 import org.jose4j.lang.ExceptionHelp;
 import org.jose4j.lang.JoseException;
 
 import java.security.Key;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *
  */
 public class JwtConsumer
 {
+    static final int DEFAULT_ASYNC_THREADS = Runtime.getRuntime().availableProcessors();
+    static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1024;
+
     private VerificationKeyResolver verificationKeyResolver;
     private DecryptionKeyResolver decryptionKeyResolver;
 
     private List<Validator> validators;
+    private List<Validator> screeningValidators = Collections.emptyList();
 
     private AlgorithmConstraints jwsAlgorithmConstraints;
     private AlgorithmConstraints jweAlgorithmConstraints;
@@ -66,6 +83,15 @@ public class JwtConsumer
     private JwsCustomizer jwsCustomizer;
     private JweCustomizer jweCustomizer;
 
+    private JwtContextCache jwtContextCache;
+
+    private JwtInputLimits inputLimits = new JwtInputLimits();
+
+    private volatile Executor asyncExecutor;
+
+    private ForkJoinPool batchPool;
+    private Boolean batchKeyResolutionByHeader;
+
     JwtConsumer()
     {
     }
@@ -100,6 +126,11 @@ public class JwtConsumer
         this.validators = validators;
     }
 
+    void setScreeningValidators(List<Validator> screeningValidators)
+    {
+        this.screeningValidators = screeningValidators;
+    }
+
     void setRequireSignature(boolean requireSignature)
     {
         this.requireSignature = requireSignature;
@@ -150,18 +181,93 @@ public class JwtConsumer
         this.jweCustomizer = jweCustomizer;
     }
 
+    void setJwtContextCache(JwtContextCache jwtContextCache)
+    {
+        this.jwtContextCache = jwtContextCache;
+    }
+
+    void setInputLimits(JwtInputLimits inputLimits)
+    {
+        this.inputLimits = inputLimits;
+    }
+
+    void setAsyncExecutor(Executor asyncExecutor)
+    {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    static Executor newBoundedExecutor(int threads, int queueCapacity)
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "jose4j-jwt-consumer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    void setBatchPool(ForkJoinPool batchPool)
+    {
+        this.batchPool = batchPool;
+    }
+
+    void setBatchKeyResolutionByHeader(Boolean batchKeyResolutionByHeader)
+    {
+        this.batchKeyResolutionByHeader = batchKeyResolutionByHeader;
+    }
+
+    VerificationKeyResolver getVerificationKeyResolver()
+    {
+        return verificationKeyResolver;
+    }
+
+    DecryptionKeyResolver getDecryptionKeyResolver()
+    {
+        return decryptionKeyResolver;
+    }
+
+    /**
+     * Gets the cache of previously processed JWTs used by this JwtConsumer, which
+     * can be used to observe its hit rate, size and evictions.
+     * @return the JwtContextCache or {@code null} if caching wasn't enabled
+     */
+    public JwtContextCache getJwtContextCache()
+    {
+        return jwtContextCache;
+    }
+
     public JwtClaims processToClaims(String jwt) throws InvalidJwtException
     {
         return process(jwt).getJwtClaims();
     }
 
     public void processContext(JwtContext jwtContext) throws InvalidJwtException
+    {
+        processContext(jwtContext, verificationKeyResolver, decryptionKeyResolver);
+    }
+
+    private void processContext(JwtContext jwtContext, VerificationKeyResolver verificationKeyResolver,
+                                DecryptionKeyResolver decryptionKeyResolver) throws InvalidJwtException
     {
         boolean hasSignature = false;
         boolean hasEncryption = false;
 
         ArrayList<JsonWebStructure> originalJoseObjects = new ArrayList<>(jwtContext.getJoseObjects());
 
+        if (!screeningValidators.isEmpty() && !skipSignatureVerification && containsSignature(originalJoseObjects))
+        {
+            validate(jwtContext, screeningValidators);
+        }
+
         for (int idx = originalJoseObjects.size() - 1 ; idx >= 0 ; idx--)
         {
             List<JsonWebStructure> joseObjects = originalJoseObjects.subList(idx+1, originalJoseObjects.size());
@@ -278,8 +384,124 @@ public class JwtConsumer
         validate(jwtContext);
     }
 
+    /**
+     * Processes the JWT without blocking the calling thread. See {@link #processAsync(String, JwtProcessingCallback)}.
+     * @param jwt the JWT
+     * @return a Future for the result of processing, the {@code get} methods of which throw an
+     *         {@code ExecutionException} with an {@link InvalidJwtException} as the cause when the JWT is
+     *         invalid or a {@link java.util.concurrent.RejectedExecutionException} when the executor is at capacity
+     */
+    public Future<JwtContext> processAsync(String jwt)
+    {
+        return processAsync(jwt, null);
+    }
+
+    /**
+     * <p>
+     * Processes the JWT like {@link #process(String)} but does the work on the executor set with
+     * {@link JwtConsumerBuilder#setAsyncExecutor(java.util.concurrent.Executor)} (or the bounded default, see
+     * {@link JwtConsumerBuilder#setAsyncProcessingLimits(int, int)}) rather than on the calling thread,
+     * which makes it suitable for use from event loop style I/O threads that must never block.
+     * </p>
+     * <p>
+     * If the verification or decryption key resolver is an {@link org.jose4j.keys.resolvers.AsyncVerificationKeyResolver}
+     * or an {@link org.jose4j.keys.resolvers.AsyncDecryptionKeyResolver}, keys are resolved with it in a way that
+     * doesn't hold an executor thread while waiting. Other resolvers are simply called on the executor thread.
+     * </p>
+     * <p>
+     * When the executor rejects the work, because its queue is full say, the processing fails right away
+     * with a {@link java.util.concurrent.RejectedExecutionException} so overload shows up as fast failures
+     * rather than unbounded queuing.
+     * </p>
+     * @param jwt the JWT
+     * @param callback told of the outcome when processing is done, or {@code null}
+     * @return a Future for the result of processing
+     */
+    public Future<JwtContext> processAsync(String jwt, JwtProcessingCallback callback)
+    {
+        Executor executor = asyncExecutor;
+        if (executor == null)
+        {
+            synchronized (this)
+            {
+                if (asyncExecutor == null)
+                {
+                    asyncExecutor = newBoundedExecutor(DEFAULT_ASYNC_THREADS, DEFAULT_ASYNC_QUEUE_CAPACITY);
+                }
+                executor = asyncExecutor;
+            }
+        }
+
+        AsyncJwtProcessing processing = new AsyncJwtProcessing(this, jwt, callback, executor);
+        processing.submit();
+        return processing;
+    }
+
+    /**
+     * <p>
+     * Processes a batch of JWTs in parallel on the {@code ForkJoinPool} set with
+     * {@link JwtConsumerBuilder#setBatchForkJoinPool(ForkJoinPool)} (or a default one shared by all
+     * JwtConsumers with a thread per processor). Each JWT is processed just like {@link #process(String)} would
+     * and one that's invalid doesn't affect the processing of the others.
+     * </p>
+     * <p>
+     * When the key resolution only depends on the JOSE header (which is the case for the resolvers
+     * that come with this library, see {@link JwtConsumerBuilder#setBatchKeyResolutionByHeader(boolean)}),
+     * the key for each distinct header is only resolved once for the whole batch.
+     * </p>
+     * @param jwts the JWTs
+     * @return the results in the same order as the given JWTs
+     */
+    public List<JwtProcessingResult> processAll(Collection<String> jwts)
+    {
+        String[] jwtArray = jwts.toArray(new String[jwts.size()]);
+        boolean byHeader = batchKeyResolutionByHeader != null ? batchKeyResolutionByHeader
+                : isHeaderOnlyResolver(verificationKeyResolver) && isHeaderOnlyResolver(decryptionKeyResolver);
+        ForkJoinPool pool = batchPool != null ? batchPool : DefaultBatchPool.POOL;
+        return new JwtBatchProcessing(this, jwtArray, byHeader).process(pool);
+    }
+
+    private static boolean isHeaderOnlyResolver(Object resolver)
+    {
+        // exact classes because a subclass could look at more than the header
+        Class<?> c = resolver.getClass();
+        return c == SimpleKeyResolver.class || c == JwksVerificationKeyResolver.class || c == JwksDecryptionKeyResolver.class
+                || c == HttpsJwksVerificationKeyResolver.class || c == X509VerificationKeyResolver.class;
+    }
+
+    private static class DefaultBatchPool
+    {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
     public JwtContext process(String jwt) throws InvalidJwtException
     {
+        return process(jwt, verificationKeyResolver, decryptionKeyResolver);
+    }
+
+    JwtContext process(String jwt, VerificationKeyResolver verificationKeyResolver,
+                       DecryptionKeyResolver decryptionKeyResolver) throws InvalidJwtException
+    {
+        inputLimits.checkCompactSerialization(jwt, 0);
+
+        if (jwtContextCache != null)
+        {
+            JwtContext cachedJwtContext = jwtContextCache.get(jwt);
+            if (cachedJwtContext != null)
+            {
+                try
+                {
+                    validate(cachedJwtContext);
+                }
+                catch (InvalidJwtException e)
+                {
+                    jwtContextCache.remove(jwt);
+                    throw e;
+                }
+                return cachedJwtContext;
+            }
+        }
+
         String workingJwt = jwt;
         JwtClaims jwtClaims = null;
         LinkedList<JsonWebStructure> joseObjects = new LinkedList<>();
@@ -289,6 +511,10 @@ public class JwtConsumer
             JsonWebStructure joseObject;
             try
             {
+                if (!joseObjects.isEmpty())
+                {
+                    inputLimits.checkCompactSerialization(workingJwt, joseObjects.size());
+                }
                 joseObject = JsonWebStructure.fromCompactSerialization(workingJwt);
                 String payload;
                 if (joseObject instanceof JsonWebSignature)
@@ -328,7 +554,9 @@ public class JwtConsumer
                         jweCustomizer.customize(jwe, nestingContext);
                     }
 
+                    inputLimits.limitDecompression(jwe);
                     payload = jwe.getPayload();
+                    inputLimits.checkPayload(payload);
                 }
 
                 if (isNestedJwt(joseObject))
@@ -339,6 +567,7 @@ public class JwtConsumer
                 {
                     try
                     {
+                        inputLimits.checkJson(payload);
                         jwtClaims = JwtClaims.parse(payload);
                     }
                     catch (InvalidJwtException ije)
@@ -393,11 +622,22 @@ public class JwtConsumer
         }
 
         JwtContext jwtContext = new JwtContext(jwt, jwtClaims, Collections.unmodifiableList(joseObjects));
-        processContext(jwtContext);
+        processContext(jwtContext, verificationKeyResolver, decryptionKeyResolver);
+
+        if (jwtContextCache != null)
+        {
+            jwtContextCache.put(jwt, jwtContext);
+        }
+
         return jwtContext;
     }
 
     void validate(JwtContext jwtCtx) throws InvalidJwtException
+    {
+        validate(jwtCtx, validators);
+    }
+
+    private void validate(JwtContext jwtCtx, List<Validator> validators) throws InvalidJwtException
     {
         List<String> issues = new ArrayList<>();
         for (Validator validator : validators)
@@ -430,6 +670,18 @@ public class JwtConsumer
         }
     }
 
+    private boolean containsSignature(List<JsonWebStructure> joseObjects)
+    {
+        for (JsonWebStructure joseObject : joseObjects)
+        {
+            if (joseObject instanceof JsonWebSignature)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean isNestedJwt(JsonWebStructure joseObject)
     {
         String cty = joseObject.getContentTypeHeaderValue();
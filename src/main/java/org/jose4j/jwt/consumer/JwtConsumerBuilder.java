@@ -24,6 +24,8 @@ import org.jose4j.keys.resolvers.VerificationKeyResolver;
 
 import java.security.Key;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <p>
@@ -70,6 +72,11 @@ public class JwtConsumerBuilder
     private VerificationKeyResolver verificationKeyResolver = new SimpleKeyResolver(null);
     private DecryptionKeyResolver decryptionKeyResolver = new SimpleKeyResolver(null);
 
+    private Executor asyncExecutor;
+
+    private ForkJoinPool batchPool;
+    private Boolean batchKeyResolutionByHeader;
+
     private AlgorithmConstraints jwsAlgorithmConstraints;
     private AlgorithmConstraints jweAlgorithmConstraints;
     private AlgorithmConstraints jweContentEncryptionAlgorithmConstraints;
@@ -98,12 +105,18 @@ public class JwtConsumerBuilder
 
     private boolean liberalContentTypeHandling;
 
+    private boolean screenClaimsBeforeVerification;
+
     private ProviderContext jwsProviderContext;
     private ProviderContext jweProviderContext;
 
     private JwsCustomizer jwsCustomizer;
     private JweCustomizer jweCustomizer;
 
+    private JwtContextCache jwtContextCache;
+
+    private JwtInputLimits inputLimits = new JwtInputLimits();
+
     /**
      * Creates a new JwtConsumerBuilder, which is set up by default to build a JwtConsumer
      * that requires a signature and will validate the core JWT claims when they
@@ -594,6 +607,181 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * <p>
+     * Sets a cache of the results of successfully processing JWTs so that repeated calls to
+     * {@link JwtConsumer#process(String)} with the same JWT can skip the decoding, parsing and
+     * cryptographic operations. The claims validators are still applied to cached results
+     * on every call. Caching is not done by default.
+     * </p>
+     * <p>
+     * Only use a given cache with one JwtConsumer (or with JwtConsumers that have the same
+     * key resolution and validation configuration).
+     * </p>
+     * @param jwtContextCache the cache to use
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setJwtContextCache(JwtContextCache jwtContextCache)
+    {
+        this.jwtContextCache = jwtContextCache;
+        return this;
+    }
+
+    /**
+     * Limits the length of the JWT (and of any JWT nested within it), which is checked before anything else
+     * is done with it. There is no limit by default.
+     * @param maxLength the maximum number of characters in the compact serialization
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setMaxJwtLength(int maxLength)
+    {
+        inputLimits.setMaxCompactSerializationLength(maxLength);
+        return this;
+    }
+
+    /**
+     * Limits the size of the JOSE header of the JWT (and of any JWT nested within it), which is checked,
+     * based on the length of its encoded form, before the header is decoded. There is no limit by default.
+     * @param maxBytes the maximum number of bytes in a decoded header
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setMaxHeaderBytes(int maxBytes)
+    {
+        inputLimits.setMaxHeaderBytes(maxBytes);
+        return this;
+    }
+
+    /**
+     * Limits the size of the payload of the JWT (and of any JWT nested within it). For a JWS this is checked,
+     * based on the length of its encoded form, before the payload is decoded. For a JWE the ciphertext is
+     * checked the same way before decryption and the payload is checked again after decryption, which accounts
+     * for decompression. There is no limit by default.
+     * @param maxBytes the maximum number of bytes in a payload
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setMaxPayloadBytes(int maxBytes)
+    {
+        inputLimits.setMaxPayloadBytes(maxBytes);
+        return this;
+    }
+
+    /**
+     * Limits how many JOSE objects can be nested, with a "cty" header of "JWT", one inside the other.
+     * A signed and then encrypted JWT, for example, needs a depth of at least two. There is no limit by default.
+     * @param maxDepth the maximum number of JWS and/or JWE objects, including the outermost one
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setMaxNestingDepth(int maxDepth)
+    {
+        inputLimits.setMaxNestingDepth(maxDepth);
+        return this;
+    }
+
+    /**
+     * Limits how deeply objects and arrays can be nested in the JWT Claims Set JSON, which is checked before
+     * it's parsed. There is no limit by default (beyond what the JSON parser itself imposes).
+     * @param maxDepth the maximum depth with the top level claims object being at depth one
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setMaxJsonDepth(int maxDepth)
+    {
+        inputLimits.setMaxJsonDepth(maxDepth);
+        return this;
+    }
+
+    /**
+     * Limits the number of members of any one object, or elements of any one array, in the JWT Claims
+     * Set JSON, which is checked before it's parsed. There is no limit by default.
+     * @param maxMembers the maximum number of members or elements
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setMaxJsonMembers(int maxMembers)
+    {
+        inputLimits.setMaxJsonMembers(maxMembers);
+        return this;
+    }
+
+    /**
+     * <p>
+     * Checks the audience, issuer and time based claims of the still unverified JWT payload before
+     * resolving the verification key and checking the signature, so that expired tokens or tokens meant
+     * for someone else are rejected without doing the (comparatively expensive) key resolution and
+     * signature verification. Off by default.
+     * </p>
+     * <p>
+     * This only allows for failing faster. The same checks, with the same error details, would
+     * have rejected the JWT after verification anyway and a JWT is never accepted without its signature
+     * having been verified and all the validators applied to the verified claims. Note that when enabled
+     * the rejection of a JWT with unacceptable claims will happen regardless of whether or not its
+     * signature is valid, which may be observable by the party submitting it.
+     * </p>
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setEnableClaimScreeningBeforeVerification()
+    {
+        screenClaimsBeforeVerification = true;
+        return this;
+    }
+
+    /**
+     * Sets the executor on which {@link JwtConsumer#processAsync(String, JwtProcessingCallback)} does its work.
+     * Using a bounded executor that rejects work it can't take on, like a {@code ThreadPoolExecutor} with a bounded
+     * queue and the default abort policy, is what keeps processing under overload predictable.
+     * Without one, a bounded executor with a thread per processor and a queue of
+     * 1024 is created the first time {@code processAsync} is called.
+     * @param executor the executor
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setAsyncExecutor(Executor executor)
+    {
+        this.asyncExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Has {@link JwtConsumer#processAsync(String, JwtProcessingCallback)} do its work on a dedicated executor
+     * with the given number of (daemon) threads and room for the given number of JWTs waiting to be processed.
+     * Beyond that, {@code processAsync} fails immediately with a {@link java.util.concurrent.RejectedExecutionException}.
+     * @param threads the maximum number of threads processing JWTs concurrently
+     * @param queueCapacity the maximum number of JWTs waiting to be processed
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setAsyncProcessingLimits(int threads, int queueCapacity)
+    {
+        if (threads < 1 || queueCapacity < 1)
+        {
+            throw new IllegalArgumentException("The number of threads and the queue capacity must be positive.");
+        }
+        return setAsyncExecutor(JwtConsumer.newBoundedExecutor(threads, queueCapacity));
+    }
+
+    /**
+     * Sets the pool on which {@link JwtConsumer#processAll(java.util.Collection)} processes batches of JWTs.
+     * Without one, a pool shared by all JwtConsumers with a thread per processor is used.
+     * @param pool the ForkJoinPool
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setBatchForkJoinPool(ForkJoinPool pool)
+    {
+        this.batchPool = pool;
+        return this;
+    }
+
+    /**
+     * Indicates whether or not the verification and decryption key resolvers pick a key based only on the JOSE header
+     * (things like "kid", "x5t" and "alg") so that {@link JwtConsumer#processAll(java.util.Collection)} can resolve
+     * the key for each distinct header only once per batch. By default this is only done for the resolvers that come
+     * with this library. Don't turn it on for resolvers that look at anything else, like the issuer of an unverified
+     * payload, as the key resolved for one JWT would then be used for another with the same header.
+     * @param byHeader true if the key resolvers only look at the header, false otherwise
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setBatchKeyResolutionByHeader(boolean byHeader)
+    {
+        this.batchKeyResolutionByHeader = byHeader;
+        return this;
+    }
+
     /**
      * Create the JwtConsumer with the options provided to the builder.
      * @return the JwtConsumer
@@ -601,6 +789,7 @@ public class JwtConsumerBuilder
     public JwtConsumer build()
     {
         List<Validator> validators = new ArrayList<>();
+        List<Validator> screeningValidators = new ArrayList<>();
         if (!skipAllValidators)
         {
             if (!skipAllDefaultValidators)
@@ -622,6 +811,11 @@ public class JwtConsumerBuilder
 
                 validators.add(dateClaimsValidator);
 
+                if (screenClaimsBeforeVerification)
+                {
+                    screeningValidators.addAll(validators);
+                }
+
                 SubValidator subValidator = expectedSubject == null ? new SubValidator(requireSubject) : new SubValidator(expectedSubject);
                 validators.add(subValidator);
                 validators.add(new JtiValidator(requireJti));
@@ -632,6 +826,7 @@ public class JwtConsumerBuilder
 
         JwtConsumer jwtConsumer = new JwtConsumer();
         jwtConsumer.setValidators(validators);
+        jwtConsumer.setScreeningValidators(screeningValidators);
         jwtConsumer.setVerificationKeyResolver(verificationKeyResolver);
         jwtConsumer.setDecryptionKeyResolver(decryptionKeyResolver);
 
@@ -655,6 +850,12 @@ public class JwtConsumerBuilder
         jwtConsumer.setJwsProviderContext(jwsProviderContext);
         jwtConsumer.setJweProviderContext(jweProviderContext);
 
+        jwtConsumer.setJwtContextCache(jwtContextCache);
+        jwtConsumer.setInputLimits(inputLimits);
+        jwtConsumer.setAsyncExecutor(asyncExecutor);
+        jwtConsumer.setBatchPool(batchPool);
+        jwtConsumer.setBatchKeyResolutionByHeader(batchKeyResolutionByHeader);
+
         return jwtConsumer;
     }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded, least recently used cache of the {@link JwtContext} resulting from successfully processing
+ * a JWT, keyed by the JWT's compact serialization. It can be set on a {@link JwtConsumer} via
+ * {@link JwtConsumerBuilder#setJwtContextCache(JwtContextCache)} to avoid redoing the decoding, parsing, and
+ * signature verification/decryption of a JWT that has already been successfully processed.
+ * </p>
+ * <p>
+ * An entry is kept no longer than the configured time to live or the expiration time ("exp") of the JWT,
+ * whichever comes first. The claims validators of the {@code JwtConsumer} are still run on every cache hit
+ * so that the date claims and any other validation is evaluated with respect to the time of that call.
+ * </p>
+ * <p>
+ * Every cache hit gets its own {@code JwtContext} with a {@link JwtClaims} freshly parsed from the JSON claims set
+ * of the JWT, so changes one caller makes to the claims aren't seen by any other. The list of JOSE objects
+ * is unmodifiable and the JOSE objects in it are shared between callers so they should be treated as read only.
+ * </p>
+ * <p>
+ * Instances of this class are thread safe.
+ * </p>
+ */
+public class JwtContextCache
+{
+    private final int maxSize;
+    private final long timeToLiveMillis;
+
+    private final Map<String, Entry> entries;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of JWTs to retain, after which the least recently used will be evicted
+     * @param timeToLiveSeconds the maximum length of time, in seconds, to retain a JWT (less time will be used when
+     * the JWT expires sooner), which must not be negative
+     */
+    public JwtContextCache(int maxSize, long timeToLiveSeconds)
+    {
+        if (maxSize <= 0)
+        {
+            throw new IllegalArgumentException("The maximum size of the cache must be greater than zero but was " + maxSize);
+        }
+
+        if (timeToLiveSeconds < 0)
+        {
+            throw new IllegalArgumentException("The time to live of the cache must not be negative but was " + timeToLiveSeconds);
+        }
+
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveSeconds * 1000L;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+            {
+                boolean remove = size() > JwtContextCache.this.maxSize;
+                if (remove)
+                {
+                    evictionCount++;
+                }
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached {@code JwtContext} for the given JWT.
+     * @param jwt the compact serialization of the JWT
+     * @return a new {@code JwtContext} with the same content as the one previously cached or {@code null}
+     * if there isn't one that's still fresh
+     */
+    public JwtContext get(String jwt)
+    {
+        Entry entry;
+        synchronized (this)
+        {
+            entry = entries.get(jwt);
+            if (entry != null)
+            {
+                if (entry.exp > System.currentTimeMillis())
+                {
+                    hitCount++;
+                }
+                else
+                {
+                    entries.remove(jwt);
+                    evictionCount++;
+                    entry = null;
+                }
+            }
+
+            if (entry == null)
+            {
+                missCount++;
+                return null;
+            }
+        }
+
+        try
+        {
+            return new JwtContext(jwt, JwtClaims.parse(entry.claimsJson), entry.joseObjects);
+        }
+        catch (InvalidJwtException e)
+        {
+            // it parsed fine the first time so this isn't expected but just treat it like it wasn't there
+            remove(jwt);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the {@code JwtContext} from successfully processing the given JWT.
+     * @param jwt the compact serialization of the JWT
+     * @param jwtContext the result of processing the JWT
+     */
+    public void put(String jwt, JwtContext jwtContext)
+    {
+        long now = System.currentTimeMillis();
+        long exp = now + timeToLiveMillis;
+        JwtClaims jwtClaims = jwtContext.getJwtClaims();
+        try
+        {
+            NumericDate expirationTime = jwtClaims.getExpirationTime();
+            if (expirationTime != null)
+            {
+                exp = Math.min(exp, expirationTime.getValueInMillis());
+            }
+        }
+        catch (MalformedClaimException e)
+        {
+            return;
+        }
+
+        if (exp > now)
+        {
+            String claimsJson = (jwtClaims.getRawJson() != null) ? jwtClaims.getRawJson() : jwtClaims.toJson();
+            List<JsonWebStructure> joseObjects = Collections.unmodifiableList(new ArrayList<>(jwtContext.getJoseObjects()));
+            synchronized (this)
+            {
+                entries.put(jwt, new Entry(claimsJson, joseObjects, exp));
+            }
+        }
+    }
+
+    /**
+     * Removes the given JWT from the cache, if present.
+     * @param jwt the compact serialization of the JWT
+     */
+    public synchronized void remove(String jwt)
+    {
+        if (entries.remove(jwt) != null)
+        {
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes everything from the cache.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of JWTs currently in the cache
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * @return the maximum number of JWTs the cache will hold
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of lookups that found a fresh entry
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups that didn't find a fresh entry
+     */
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * @return the number of entries that have been removed from the cache due to size constraints, expiration, or
+     * failing validation on a later lookup
+     */
+    public synchronized long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    /**
+     * @return the ratio of hits to total lookups or 0 if there have been no lookups
+     */
+    public synchronized double getHitRate()
+    {
+        long total = hitCount + missCount;
+        return (total == 0) ? 0d : (double) hitCount / total;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "JwtContextCache{size=" + entries.size() + ", maxSize=" + maxSize + ", hits=" + hitCount +
+                ", misses=" + missCount + ", evictions=" + evictionCount + "}";
+    }
+
+    private static class Entry
+    {
+        private final String claimsJson;
+        private final List<JsonWebStructure> joseObjects;
+        private final long exp;
+
+        private Entry(String claimsJson, List<JsonWebStructure> joseObjects, long exp)
+        {
+            this.claimsJson = claimsJson;
+            this.joseObjects = joseObjects;
+            this.exp = exp;
+        }
+    }
+}
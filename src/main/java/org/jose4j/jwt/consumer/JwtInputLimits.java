@@ -0,0 +1,314 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwe.JsonWebEncryption;
+
+import java.util.Arrays;
+
+/**
+ * Size and nesting limits on the input to a {@link JwtConsumer}, which are checked before the
+ * corresponding part of the JWT is decoded or parsed so that oversized input can be rejected
+ * cheaply. A limit that's zero or less isn't enforced, which is the default for all of them.
+ */
+class JwtInputLimits
+{
+    private static final char PERIOD_SEPARATOR = '.';
+
+    private int maxCompactSerializationLength;
+    private int maxHeaderBytes;
+    private int maxPayloadBytes;
+    private int maxNestingDepth;
+    private int maxJsonDepth;
+    private int maxJsonMembers;
+
+    void setMaxCompactSerializationLength(int maxCompactSerializationLength)
+    {
+        this.maxCompactSerializationLength = maxCompactSerializationLength;
+    }
+
+    void setMaxHeaderBytes(int maxHeaderBytes)
+    {
+        this.maxHeaderBytes = maxHeaderBytes;
+    }
+
+    void setMaxPayloadBytes(int maxPayloadBytes)
+    {
+        this.maxPayloadBytes = maxPayloadBytes;
+    }
+
+    void setMaxNestingDepth(int maxNestingDepth)
+    {
+        this.maxNestingDepth = maxNestingDepth;
+    }
+
+    void setMaxJsonDepth(int maxJsonDepth)
+    {
+        this.maxJsonDepth = maxJsonDepth;
+    }
+
+    void setMaxJsonMembers(int maxJsonMembers)
+    {
+        this.maxJsonMembers = maxJsonMembers;
+    }
+
+    /**
+     * Checks the length of a compact serialization, how deeply it's nested, and the size of its header and
+     * payload (or ciphertext for a JWE) as computed from the length of their base64url encoding. This looks only
+     * at the separators and doesn't decode anything.
+     * @param cs the compact serialization
+     * @param depth how many JOSE objects enclose this one
+     * @throws InvalidJwtException if a limit is exceeded
+     */
+    void checkCompactSerialization(String cs, int depth) throws InvalidJwtException
+    {
+        if (isSet(maxNestingDepth) && depth >= maxNestingDepth)
+        {
+            throw new InvalidJwtException("The JWT has more than the maximum of " + maxNestingDepth + " nested JOSE objects.");
+        }
+
+        int length = cs.length();
+        if (isSet(maxCompactSerializationLength) && length > maxCompactSerializationLength)
+        {
+            throw new InvalidJwtException("The JWT is " + length + " characters long, which exceeds the maximum of "
+                    + maxCompactSerializationLength + ".");
+        }
+
+        if (!isSet(maxHeaderBytes) && !isSet(maxPayloadBytes))
+        {
+            return;
+        }
+
+        int separators = 0;
+        int[] ends = new int[4];
+        for (int i = 0; i < length; i++)
+        {
+            if (cs.charAt(i) == PERIOD_SEPARATOR)
+            {
+                if (separators < ends.length)
+                {
+                    ends[separators] = i;
+                }
+                separators++;
+            }
+        }
+
+        if (separators == 0)
+        {
+            return;
+        }
+
+        int headerBytes = maxDecodedLength(ends[0]);
+        if (isSet(maxHeaderBytes) && headerBytes > maxHeaderBytes)
+        {
+            throw new InvalidJwtException("The JOSE header is " + headerBytes + " bytes, which exceeds the maximum of "
+                    + maxHeaderBytes + ".");
+        }
+
+        int payloadBytes;
+        if (separators == 2)
+        {
+            payloadBytes = maxDecodedLength(ends[1] - ends[0] - 1);
+        }
+        else if (separators == 4)
+        {
+            payloadBytes = maxDecodedLength(ends[3] - ends[2] - 1);
+        }
+        else
+        {
+            return;
+        }
+        checkPayloadBytes(payloadBytes);
+    }
+
+    /**
+     * Has the payload limit applied while a JWE is being decompressed, so a small compressed JWE that inflates into
+     * something over the limit fails at that point rather than after it's all been decompressed.
+     * @param jwe the JWE that's about to be decrypted
+     */
+    void limitDecompression(JsonWebEncryption jwe)
+    {
+        if (isSet(maxPayloadBytes))
+        {
+            jwe.setMaxDecompressedLength(maxPayloadBytes);
+        }
+    }
+
+    /**
+     * Checks the size of a payload after decryption, which can be larger than the ciphertext when it was compressed.
+     * @param payload the payload
+     * @throws InvalidJwtException if the payload is too big
+     */
+    void checkPayload(String payload) throws InvalidJwtException
+    {
+        if (isSet(maxPayloadBytes))
+        {
+            checkPayloadBytes(utf8Length(payload));
+        }
+    }
+
+    /**
+     * Checks how deeply the objects and arrays in the JSON are nested and how many members/elements any one
+     * of them has with a single pass over the text that doesn't allocate anything proportional to the input.
+     * It's done ahead of parsing so the limits apply regardless of the JSON provider being used.
+     * @param json the JSON text
+     * @throws InvalidJwtException if a limit is exceeded
+     */
+    void checkJson(String json) throws InvalidJwtException
+    {
+        if (!isSet(maxJsonDepth) && !isSet(maxJsonMembers))
+        {
+            return;
+        }
+
+        // the number of values directly in each open container with keys also being counted for objects
+        int[] counts = new int[isSet(maxJsonDepth) ? Math.min(maxJsonDepth, 64) + 1 : 16];
+        boolean[] isObject = new boolean[counts.length];
+        int depth = 0;
+        boolean inString = false;
+        boolean inPrimitive = false;
+        int length = json.length();
+        for (int i = 0; i < length; i++)
+        {
+            char c = json.charAt(i);
+            if (inString)
+            {
+                if (c == '\\')
+                {
+                    i++;
+                }
+                else if (c == '"')
+                {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c)
+            {
+                case '{':
+                case '[':
+                    inPrimitive = false;
+                    countValue(counts, isObject, depth);
+                    depth++;
+                    if (isSet(maxJsonDepth) && depth > maxJsonDepth)
+                    {
+                        throw new InvalidJwtException("The JSON is nested more than the maximum depth of " + maxJsonDepth + ".");
+                    }
+                    if (depth == counts.length)
+                    {
+                        counts = Arrays.copyOf(counts, depth * 2);
+                        isObject = Arrays.copyOf(isObject, depth * 2);
+                    }
+                    counts[depth] = 0;
+                    isObject[depth] = c == '{';
+                    break;
+                case '}':
+                case ']':
+                    inPrimitive = false;
+                    if (depth > 0)
+                    {
+                        depth--;
+                    }
+                    break;
+                case '"':
+                    inPrimitive = false;
+                    inString = true;
+                    countValue(counts, isObject, depth);
+                    break;
+                case ',':
+                case ':':
+                case ' ':
+                case '\n':
+                case '\r':
+                case '\t':
+                    inPrimitive = false;
+                    break;
+                default:
+                    if (!inPrimitive)
+                    {
+                        inPrimitive = true;
+                        countValue(counts, isObject, depth);
+                    }
+            }
+        }
+    }
+
+    private void countValue(int[] counts, boolean[] isObject, int depth) throws InvalidJwtException
+    {
+        if (depth == 0 || !isSet(maxJsonMembers))
+        {
+            return;
+        }
+
+        int count = ++counts[depth];
+        int members = isObject[depth] ? (count + 1) / 2 : count;
+        if (members > maxJsonMembers)
+        {
+            throw new InvalidJwtException("A JSON " + (isObject[depth] ? "object" : "array") + " has more than the maximum of "
+                    + maxJsonMembers + (isObject[depth] ? " members." : " elements."));
+        }
+    }
+
+    private void checkPayloadBytes(int payloadBytes) throws InvalidJwtException
+    {
+        if (isSet(maxPayloadBytes) && payloadBytes > maxPayloadBytes)
+        {
+            throw new InvalidJwtException("The JOSE payload is " + payloadBytes + " bytes, which exceeds the maximum of "
+                    + maxPayloadBytes + ".");
+        }
+    }
+
+    private static int maxDecodedLength(int encodedLength)
+    {
+        int remainder = encodedLength % 4;
+        return (encodedLength / 4) * 3 + (remainder == 0 ? 0 : remainder - 1);
+    }
+
+    private static int utf8Length(String s)
+    {
+        int bytes = 0;
+        int length = s.length();
+        for (int i = 0; i < length; i++)
+        {
+            char c = s.charAt(i);
+            if (c < 0x80)
+            {
+                bytes++;
+            }
+            else if (c < 0x800)
+            {
+                bytes += 2;
+            }
+            else if (Character.isHighSurrogate(c))
+            {
+                bytes += 4;
+                i++;
+            }
+            else
+            {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isSet(int limit)
+    {
+        return limit > 0;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+/**
+ * Receives the outcome of {@link JwtConsumer#processAsync(String, JwtProcessingCallback)}.
+ * Exactly one of the methods is called, exactly once, on whichever thread finished the processing (which can be
+ * the calling thread when the JWT was rejected before any processing started), so implementations
+ * should hand off anything slow.
+ */
+public interface JwtProcessingCallback
+{
+    /**
+     * Called when the JWT was successfully processed.
+     * @param jwtContext the result
+     */
+    void completed(JwtContext jwtContext);
+
+    /**
+     * Called when the JWT couldn't be processed.
+     * @param e an {@link InvalidJwtException} when the JWT is invalid or could otherwise not be processed or a
+     *          {@link java.util.concurrent.RejectedExecutionException} when processing couldn't be started because
+     *          the executor is at capacity
+     */
+    void failed(Exception e);
+}
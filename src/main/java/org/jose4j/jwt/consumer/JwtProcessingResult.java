@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+/**
+ * The outcome of processing one of the JWTs given to {@link JwtConsumer#processAll(java.util.Collection)}.
+ */
+public class JwtProcessingResult
+{
+    private final String jwt;
+    private final JwtContext jwtContext;
+    private final InvalidJwtException exception;
+
+    JwtProcessingResult(String jwt, JwtContext jwtContext, InvalidJwtException exception)
+    {
+        this.jwt = jwt;
+        this.jwtContext = jwtContext;
+        this.exception = exception;
+    }
+
+    /**
+     * @return the JWT that was processed
+     */
+    public String getJwt()
+    {
+        return jwt;
+    }
+
+    /**
+     * @return true if the JWT was successfully processed
+     */
+    public boolean isValid()
+    {
+        return exception == null;
+    }
+
+    /**
+     * @return the result of successfully processing the JWT or {@code null} if it was invalid
+     */
+    public JwtContext getJwtContext()
+    {
+        return jwtContext;
+    }
+
+    /**
+     * @return why the JWT was invalid or {@code null} if it was successfully processed
+     */
+    public InvalidJwtException getException()
+    {
+        return exception;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "JwtProcessingResult{" + (isValid() ? "valid" : "invalid: " + exception.getMessage()) + "}";
+    }
+}
@@ -20,29 +20,76 @@ package org.jose4j.jwx;
  */
 public class CompactSerializer
 {
-    private static final String PERIOD_SEPARATOR = ".";
-    private static final String PERIOD_SEPARATOR_REGEX = "\\.";
+    private static final char PERIOD_SEPARATOR = '.';
 
     private static final String EMPTY_STRING = "";
 
     public static String[] deserialize(String compactSerialization)
     {
-        String[] parts = compactSerialization.split(PERIOD_SEPARATOR_REGEX);
+        return deserialize(compactSerialization, separatorIndexes(compactSerialization));
+    }
 
-        if (compactSerialization.endsWith(PERIOD_SEPARATOR))
+    /**
+     * Splits the compact serialization into its parts using separator indexes previously
+     * obtained from {@link #separatorIndexes(String)}.
+     * @param compactSerialization the compact serialization
+     * @param separatorIndexes the indexes of the period characters in the compact serialization
+     * @return the parts, which will be one more than the number of separators
+     */
+    public static String[] deserialize(String compactSerialization, int[] separatorIndexes)
+    {
+        String[] parts = new String[separatorIndexes.length + 1];
+        int begin = 0;
+        for (int i = 0; i < separatorIndexes.length; i++)
         {
-            String[] tempParts = new String[parts.length + 1];
-            System.arraycopy(parts, 0, tempParts, 0, parts.length);
-            tempParts[parts.length] = EMPTY_STRING;
-            parts = tempParts;
+            int end = separatorIndexes[i];
+            parts[i] = (begin == end) ? EMPTY_STRING : compactSerialization.substring(begin, end);
+            begin = end + 1;
         }
-
+        int end = compactSerialization.length();
+        parts[separatorIndexes.length] = (begin == end) ? EMPTY_STRING : compactSerialization.substring(begin, end);
         return parts;
     }
 
+    /**
+     * Finds the indexes of the period ('.') characters that separate the parts of the
+     * compact serialization without using a regular expression or copying any of its content.
+     * @param compactSerialization the compact serialization
+     * @return the indexes of the separators in the order they occur
+     */
+    public static int[] separatorIndexes(String compactSerialization)
+    {
+        int count = 0;
+        int length = compactSerialization.length();
+        for (int i = 0; i < length; i++)
+        {
+            if (compactSerialization.charAt(i) == PERIOD_SEPARATOR)
+            {
+                count++;
+            }
+        }
+
+        int[] indexes = new int[count];
+        int idx = 0;
+        for (int i = 0; idx < count; i++)
+        {
+            if (compactSerialization.charAt(i) == PERIOD_SEPARATOR)
+            {
+                indexes[idx++] = i;
+            }
+        }
+        return indexes;
+    }
+
     public static String serialize(String... parts)
     {
-        StringBuilder sb = new StringBuilder();
+        int length = parts.length;
+        for (String part : parts)
+        {
+            length += (part == null) ? 0 : part.length();
+        }
+
+        StringBuilder sb = new StringBuilder(length);
         for (int i = 0; i < parts.length; i++)
         {
             String part = (parts[i] == null) ? EMPTY_STRING : parts[i];
@@ -67,6 +67,15 @@ public class Headers
         this.encodedHeader = null;
     }
 
+    public void removeHeaderValue(String name)
+    {
+        if (headerMap.remove(name) != null)
+        {
+            this.header = null;
+            this.encodedHeader = null;
+        }
+    }
+
     public void setJwkHeaderValue(String name, JsonWebKey jwk)
     {
         Map<String, Object> jwkParams = jwk.toParams(JsonWebKey.OutputControlLevel.PUBLIC_ONLY);
@@ -112,7 +121,8 @@ public class Headers
 
     void setEncodedHeader(String encodedHeader) throws JoseException
     {
+        setFullHeaderAsJsonString(base64url.base64UrlDecodeToUtf8String(encodedHeader));
+        // keep the header exactly as it was encoded, which is what was signed or used as the AAD
         this.encodedHeader = encodedHeader;
-        setFullHeaderAsJsonString(base64url.base64UrlDecodeToUtf8String(this.encodedHeader));
     }
 }
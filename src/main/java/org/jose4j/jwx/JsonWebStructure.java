@@ -75,12 +75,13 @@ public abstract class JsonWebStructure
     public static JsonWebStructure fromCompactSerialization(String cs) throws JoseException
     {
         JsonWebStructure jsonWebObject;
-        String[] parts = CompactSerializer.deserialize(cs);
-        if (parts.length == JsonWebEncryption.COMPACT_SERIALIZATION_PARTS)
+        int[] separatorIndexes = CompactSerializer.separatorIndexes(cs);
+        int numberOfParts = separatorIndexes.length + 1;
+        if (numberOfParts == JsonWebEncryption.COMPACT_SERIALIZATION_PARTS)
         {
             jsonWebObject = new JsonWebEncryption();
         }
-        else if (parts.length == JsonWebSignature.COMPACT_SERIALIZATION_PARTS)
+        else if (numberOfParts == JsonWebSignature.COMPACT_SERIALIZATION_PARTS)
         {
             jsonWebObject = new JsonWebSignature();
         }
@@ -89,21 +90,33 @@ public abstract class JsonWebStructure
             throw new JoseException("Invalid JOSE Compact Serialization. Expecting either "
                     + JsonWebSignature.COMPACT_SERIALIZATION_PARTS + " or "
                     + JsonWebEncryption.COMPACT_SERIALIZATION_PARTS
-                    + " parts for JWS or JWE respectively but was " + parts.length + ".");
+                    + " parts for JWS or JWE respectively but was " + numberOfParts + ".");
         }
 
-        jsonWebObject.setCompactSerializationParts(parts);
+        jsonWebObject.setCompactSerializationParts(cs, separatorIndexes);
         jsonWebObject.rawCompactSerialization = cs;
         return jsonWebObject;
     }
 
     public void setCompactSerialization(String compactSerialization) throws JoseException
     {
-    	String[] parts = CompactSerializer.deserialize(compactSerialization);
-        setCompactSerializationParts(parts);
+        setCompactSerializationParts(compactSerialization, CompactSerializer.separatorIndexes(compactSerialization));
         rawCompactSerialization = compactSerialization;
     }
 
+    /**
+     * Sets the parts of this object from the ranges of the compact serialization delimited by the given separators.
+     * Subclasses can override this to decode parts directly out of the compact serialization rather than
+     * first splitting it into strings. By default it just splits and calls {@link #setCompactSerializationParts(String[])}.
+     * @param compactSerialization the compact serialization
+     * @param separatorIndexes the indexes of the period characters in the compact serialization
+     * @throws JoseException if the parts aren't valid
+     */
+    protected void setCompactSerializationParts(String compactSerialization, int[] separatorIndexes) throws JoseException
+    {
+        setCompactSerializationParts(CompactSerializer.deserialize(compactSerialization, separatorIndexes));
+    }
+
     /**
      * @deprecated replaced by {@link #getHeaders()} and {@link org.jose4j.jwx.Headers#getFullHeaderAsJsonString()}
      */
@@ -141,6 +154,14 @@ public abstract class JsonWebStructure
         }
     }
 
+    protected void checkNotEmptyPart(int beginIndex, int endIndex, String partName) throws JoseException
+    {
+        if (beginIndex >= endIndex)
+        {
+            throw new JoseException("The "+ partName +" cannot be empty.");
+        }
+    }
+
     public String getHeader(String name)
     {
         return headers.getStringHeaderValue(name);
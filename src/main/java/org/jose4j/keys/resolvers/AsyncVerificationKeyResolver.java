@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+
+import java.util.List;
+
+/**
+ * A {@link VerificationKeyResolver} that can also resolve the key without blocking the calling thread,
+ * which {@link org.jose4j.jwt.consumer.JwtConsumer#processAsync(String)} takes advantage of. Resolvers that
+ * might have to wait on something like an HTTP request should do that elsewhere and call back when done.
+ */
+public interface AsyncVerificationKeyResolver extends VerificationKeyResolver
+{
+    /**
+     * Choose the key to be used for signature verification on the given JWS and hand it to the callback.
+     * This method must not block. When the key is readily available, the callback should be called before returning.
+     * @param jws the JsonWebSignature that's about to be verified
+     * @param nestingContext a list of JOSE objects, if any, in which the JWS was nested.
+     *                       The last item in the list is the outer most JOSE object (not including the current JWS).
+     * @param callback told of the signature or MAC verification key or why one couldn't be found
+     */
+    void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback);
+}
@@ -27,22 +27,161 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.security.Key;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- *
+ * A {@code VerificationKeyResolver} that selects the key from the JWKs published at an HTTPS URI, using
+ * {@link HttpsJwks}. When no suitable key is found, the JWKs are refreshed in case the signer has rolled
+ * over to a new key. To keep a flood of tokens with unknown key IDs from turning into a flood of requests
+ * to the JWKS endpoint, those refreshes are made no more often than the {@link #setMinimumRefreshInterval(long)},
+ * concurrent misses share a single refresh, and key IDs that still weren't found after a refresh are remembered
+ * as unknown for the {@link #setUnknownKeyIdCacheDuration(long)} (or until the JWKs change).
+ * <p>
+ * For {@link org.jose4j.jwt.consumer.JwtConsumer#processAsync(String)}, keys are resolved right away from
+ * the cached JWKs when possible and otherwise on the executor given to {@link #setAsyncResolutionExecutor(Executor)}.
+ * </p>
  */
-public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
+public class HttpsJwksVerificationKeyResolver implements AsyncVerificationKeyResolver
 {
     private static final Logger log = LoggerFactory.getLogger(HttpsJwksVerificationKeyResolver.class);
 
+    private static final int MAX_UNKNOWN_KEY_IDS = 1000;
+
     private HttpsJwks httpsJkws;
 
+    private long minimumRefreshIntervalMillis = 30000;
+    private long unknownKeyIdCacheDurationMillis = 60000;
+
+    private volatile Executor asyncResolutionExecutor;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private long lastRefreshOnMiss;
+
+    private final Map<String, UnknownKeyId> unknownKeyIds = new LinkedHashMap<String, UnknownKeyId>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UnknownKeyId> eldest)
+        {
+            return size() > MAX_UNKNOWN_KEY_IDS;
+        }
+    };
+
     public HttpsJwksVerificationKeyResolver(HttpsJwks httpsJkws)
     {
         this.httpsJkws = httpsJkws;
     }
 
+    /**
+     * Sets the minimum amount of time between refreshes of the JWKs that are triggered by not finding a suitable key.
+     * The default is 30 seconds.
+     * @param minimumRefreshInterval the length in seconds
+     */
+    public void setMinimumRefreshInterval(long minimumRefreshInterval)
+    {
+        this.minimumRefreshIntervalMillis = minimumRefreshInterval * 1000L;
+    }
+
+    /**
+     * Sets how long a key ID that wasn't found, even after refreshing the JWKs, is remembered so that
+     * subsequent JWSs with it fail fast without any attempt to refresh. Entries are also disregarded as soon as the
+     * JWKs change. The default is 60 seconds and zero or less turns it off.
+     * @param unknownKeyIdCacheDuration the length in seconds
+     */
+    public void setUnknownKeyIdCacheDuration(long unknownKeyIdCacheDuration)
+    {
+        this.unknownKeyIdCacheDurationMillis = unknownKeyIdCacheDuration * 1000L;
+    }
+
+    /**
+     * Sets the executor on which asynchronous key resolution does anything that might block, like loading or
+     * refreshing the JWKs. Without one, asynchronous resolution that can't be done from the cached JWKs is done
+     * on the calling thread, which for {@link org.jose4j.jwt.consumer.JwtConsumer#processAsync(String)} is one of
+     * the consumer's executor threads.
+     * @param asyncResolutionExecutor the executor
+     */
+    public void setAsyncResolutionExecutor(Executor asyncResolutionExecutor)
+    {
+        this.asyncResolutionExecutor = asyncResolutionExecutor;
+    }
+
+    @Override
+    public void resolveKeyAsync(final JsonWebSignature jws, final List<JsonWebStructure> nestingContext, final KeyResolutionCallback callback)
+    {
+        Executor executor = asyncResolutionExecutor;
+        List<JsonWebKey> jsonWebKeys = httpsJkws.getCachedJsonWebKeys();
+        if (jsonWebKeys != null)
+        {
+            try
+            {
+                JsonWebKey theChosenOne = new VerificationJwkSelector().select(jws, jsonWebKeys);
+                if (theChosenOne != null)
+                {
+                    callback.resolved(theChosenOne.getKey());
+                    return;
+                }
+            }
+            catch (JoseException e)
+            {
+                // let resolveKey deal with it
+            }
+
+            if (isKnownToBeUnknown(jws.getKeyIdHeaderValue(), jsonWebKeys))
+            {
+                // fails without refreshing
+                executor = null;
+            }
+        }
+
+        if (executor == null)
+        {
+            resolveKey(jws, nestingContext, callback);
+            return;
+        }
+
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    resolveKey(jws, nestingContext, callback);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            callback.failed(new UnresolvableKeyException("Unable to resolve the verification key for JWS w/ header " +
+                    jws.getHeaders().getFullHeaderAsJsonString() + " because the resolution executor rejected it: " + e, e));
+        }
+    }
+
+    private void resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback)
+    {
+        Key key;
+        try
+        {
+            key = resolveKey(jws, nestingContext);
+        }
+        catch (UnresolvableKeyException e)
+        {
+            callback.failed(e);
+            return;
+        }
+        catch (RuntimeException e)
+        {
+            callback.failed(new UnresolvableKeyException("Unexpected exception resolving the verification key for JWS w/ header " +
+                    jws.getHeaders().getFullHeaderAsJsonString() + ": " + e, e));
+            return;
+        }
+        callback.resolved(key);
+    }
+
     @Override
     public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
     {
@@ -55,13 +194,19 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
             VerificationJwkSelector verificationJwkSelector = new VerificationJwkSelector();
 
             theChosenOne = verificationJwkSelector.select(jws, jsonWebKeys);
-            if (theChosenOne == null)
+            String keyId = jws.getKeyIdHeaderValue();
+            if (theChosenOne == null && !isKnownToBeUnknown(keyId, jsonWebKeys))
             {
-                log.debug("Refreshing JWKs from {} as no suitable verification key for JWS w/ header {} was found in {}", httpsJkws.getLocation(), jws.getHeaders().getFullHeaderAsJsonString(), jsonWebKeys);
-
-                httpsJkws.refresh();
-                jsonWebKeys = httpsJkws.getJsonWebKeys();
-                theChosenOne = verificationJwkSelector.select(jws, jsonWebKeys);
+                List<JsonWebKey> refreshed = refreshOnMiss(jws, jsonWebKeys);
+                if (refreshed != null)
+                {
+                    jsonWebKeys = refreshed;
+                    theChosenOne = verificationJwkSelector.select(jws, jsonWebKeys);
+                    if (theChosenOne == null)
+                    {
+                        rememberUnknown(keyId, jsonWebKeys);
+                    }
+                }
             }
         }
         catch (JoseException | IOException e)
@@ -82,4 +227,84 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
 
         return theChosenOne.getKey();
     }
+
+    // returns the refreshed JWKs or null if they weren't refreshed because of the minimum refresh interval
+    private List<JsonWebKey> refreshOnMiss(JsonWebSignature jws, List<JsonWebKey> jsonWebKeys) throws JoseException, IOException
+    {
+        refreshLock.lock();
+        try
+        {
+            // a concurrent miss (or the regular cache expiry) might have already refreshed things while this thread waited
+            List<JsonWebKey> current = httpsJkws.getJsonWebKeys();
+            if (current != jsonWebKeys)
+            {
+                return current;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastRefreshOnMiss < minimumRefreshIntervalMillis)
+            {
+                log.debug("Not refreshing JWKs from {} for JWS w/ header {} because the last refresh for a missing key was only {}ms ago", httpsJkws.getLocation(), jws.getHeaders().getFullHeaderAsJsonString(), now - lastRefreshOnMiss);
+                return null;
+            }
+
+            log.debug("Refreshing JWKs from {} as no suitable verification key for JWS w/ header {} was found in {}", httpsJkws.getLocation(), jws.getHeaders().getFullHeaderAsJsonString(), jsonWebKeys);
+            lastRefreshOnMiss = now;
+            httpsJkws.refresh();
+            return httpsJkws.getJsonWebKeys();
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean isKnownToBeUnknown(String keyId, List<JsonWebKey> jsonWebKeys)
+    {
+        if (keyId == null || unknownKeyIdCacheDurationMillis <= 0)
+        {
+            return false;
+        }
+
+        synchronized (unknownKeyIds)
+        {
+            UnknownKeyId unknown = unknownKeyIds.get(keyId);
+            if (unknown == null)
+            {
+                return false;
+            }
+
+            if (unknown.jsonWebKeys != jsonWebKeys || unknown.exp < System.currentTimeMillis())
+            {
+                unknownKeyIds.remove(keyId);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void rememberUnknown(String keyId, List<JsonWebKey> jsonWebKeys)
+    {
+        if (keyId == null || unknownKeyIdCacheDurationMillis <= 0)
+        {
+            return;
+        }
+
+        synchronized (unknownKeyIds)
+        {
+            unknownKeyIds.put(keyId, new UnknownKeyId(jsonWebKeys, System.currentTimeMillis() + unknownKeyIdCacheDurationMillis));
+        }
+    }
+
+    private static class UnknownKeyId
+    {
+        private final List<JsonWebKey> jsonWebKeys;
+        private final long exp;
+
+        private UnknownKeyId(List<JsonWebKey> jsonWebKeys, long exp)
+        {
+            this.jsonWebKeys = jsonWebKeys;
+            this.exp = exp;
+        }
+    }
 }
@@ -17,6 +17,7 @@ package org.jose4j.keys.resolvers;
 
 import org.jose4j.jwe.JsonWebEncryption;
 import org.jose4j.jwk.DecryptionJwkSelector;
+import org.jose4j.jwk.FileJwks;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.PublicJsonWebKey;
 import org.jose4j.jwx.JsonWebStructure;
@@ -32,6 +33,7 @@ import java.util.List;
 public class JwksDecryptionKeyResolver implements DecryptionKeyResolver
 {
     private List<JsonWebKey> jsonWebKeys;
+    private FileJwks fileJwks;
     private DecryptionJwkSelector selector = new DecryptionJwkSelector();
 
     public JwksDecryptionKeyResolver(List<JsonWebKey> jsonWebKeys)
@@ -39,9 +41,20 @@ public class JwksDecryptionKeyResolver implements DecryptionKeyResolver
         this.jsonWebKeys = jsonWebKeys;
     }
 
+    /**
+     * Creates a resolver that always uses the keys most recently loaded from the file, which can change
+     * when the {@code FileJwks} is watching it.
+     * @param fileJwks the source of the keys
+     */
+    public JwksDecryptionKeyResolver(FileJwks fileJwks)
+    {
+        this.fileJwks = fileJwks;
+    }
+
     @Override
     public Key resolveKey(JsonWebEncryption jwe, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
     {
+        List<JsonWebKey> jsonWebKeys = getJsonWebKeys();
         JsonWebKey selected;
         try
         {
@@ -73,4 +86,9 @@ public class JwksDecryptionKeyResolver implements DecryptionKeyResolver
             return selected.getKey();
         }
     }
+
+    private List<JsonWebKey> getJsonWebKeys()
+    {
+        return (fileJwks != null) ? fileJwks.getJsonWebKeys() : jsonWebKeys;
+    }
 }
@@ -15,6 +15,7 @@
  */
 package org.jose4j.keys.resolvers;
 
+import org.jose4j.jwk.FileJwks;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.VerificationJwkSelector;
 import org.jose4j.jws.JsonWebSignature;
@@ -31,6 +32,7 @@ import java.util.List;
 public class JwksVerificationKeyResolver implements VerificationKeyResolver
 {
     private List<JsonWebKey> jsonWebKeys;
+    private FileJwks fileJwks;
     private VerificationJwkSelector selector = new VerificationJwkSelector();
 
     public JwksVerificationKeyResolver(List<JsonWebKey> jsonWebKeys)
@@ -38,9 +40,20 @@ public class JwksVerificationKeyResolver implements VerificationKeyResolver
         this.jsonWebKeys = jsonWebKeys;
     }
 
+    /**
+     * Creates a resolver that always uses the keys most recently loaded from the file, which can change
+     * when the {@code FileJwks} is watching it.
+     * @param fileJwks the source of the keys
+     */
+    public JwksVerificationKeyResolver(FileJwks fileJwks)
+    {
+        this.fileJwks = fileJwks;
+    }
+
     @Override
     public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
     {
+        List<JsonWebKey> jsonWebKeys = getJsonWebKeys();
         JsonWebKey selected;
         try
         {
@@ -64,4 +77,9 @@ public class JwksVerificationKeyResolver implements VerificationKeyResolver
 
         return selected.getKey();
     }
+
+    private List<JsonWebKey> getJsonWebKeys()
+    {
+        return (fileJwks != null) ? fileJwks.getJsonWebKeys() : jsonWebKeys;
+    }
 }
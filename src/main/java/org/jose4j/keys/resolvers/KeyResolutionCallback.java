@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+
+/**
+ * Receives the outcome of an asynchronous key resolution. Exactly one of the methods is called, exactly once,
+ * either before the {@code resolveKeyAsync} method that was given the callback returns or later from another thread.
+ * @see AsyncVerificationKeyResolver
+ * @see AsyncDecryptionKeyResolver
+ */
+public interface KeyResolutionCallback
+{
+    /**
+     * Called with the resolved key.
+     * @param key the key
+     */
+    void resolved(Key key);
+
+    /**
+     * Called when no appropriate key could be found.
+     * @param e the reason
+     */
+    void failed(UnresolvableKeyException e);
+}
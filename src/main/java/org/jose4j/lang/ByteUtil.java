@@ -29,6 +29,8 @@ public class ByteUtil
 {
     public static final byte[] EMPTY_BYTES = new byte[0];
 
+    private static volatile ByteGenerator defaultByteGenerator = new SecureRandomPool();
+
     public static byte[] convertUnsignedToSignedTwosComp(int[] ints)
     {
         byte[] bytes = new byte[ints.length];
@@ -147,12 +149,43 @@ public class ByteUtil
         return numberOfBits / 8;
     }
 
+    /**
+     * Sets the source of random bytes (for things like IVs, CEKs, salts and JWT IDs) that's used when a particular
+     * {@code SecureRandom} or {@code ByteGenerator} hasn't been given. It's a {@link SecureRandomPool} by default.
+     * @param byteGenerator the library wide source of random bytes or null to go back to the default
+     */
+    public static void setDefaultByteGenerator(ByteGenerator byteGenerator)
+    {
+        defaultByteGenerator = (byteGenerator == null) ? new SecureRandomPool() : byteGenerator;
+    }
+
+    public static ByteGenerator getDefaultByteGenerator()
+    {
+        return defaultByteGenerator;
+    }
+
     public static byte[] randomBytes(int length, SecureRandom secureRandom)
     {
-        secureRandom = (secureRandom == null) ? new SecureRandom() : secureRandom;
-        byte[] bytes = new byte[length];
-        secureRandom.nextBytes(bytes);
-        return bytes;
+        return randomBytes(length, secureRandom, null);
+    }
+
+    /**
+     * Random bytes from the given {@code SecureRandom}, or if that's null from the given {@code ByteGenerator},
+     * or if that's also null from the {@link #getDefaultByteGenerator() default}.
+     * @param length how many bytes
+     * @param secureRandom the SecureRandom to use or null
+     * @param byteGenerator the ByteGenerator to use or null
+     * @return the random bytes
+     */
+    public static byte[] randomBytes(int length, SecureRandom secureRandom, ByteGenerator byteGenerator)
+    {
+        if (secureRandom != null)
+        {
+            byte[] bytes = new byte[length];
+            secureRandom.nextBytes(bytes);
+            return bytes;
+        }
+        return (byteGenerator == null) ? defaultByteGenerator.randomBytes(length) : byteGenerator.randomBytes(length);
     }
 
     public static byte[] randomBytes(int length)
@@ -29,4 +29,9 @@ public class JoseException extends Exception
     {
         super(message, cause);
     }
+
+    protected JoseException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace)
+    {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.lang;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link ByteGenerator} backed by a fixed number of independently seeded {@code SecureRandom} instances,
+ * with each thread always using the same one of them. That avoids both the cost of seeding a new
+ * {@code SecureRandom} for every IV, CEK, salt or JWT ID and having every thread contend on a single
+ * instance (or on the shared native entropy source that the default one on many systems reads from).
+ * <p>
+ * Instances are created the first time they're needed. A DRBG from the platform (Java 9+) is used when
+ * available, which is seeded once and then doesn't touch the native source on every call, otherwise it's
+ * the platform default {@code new SecureRandom()}. A particular algorithm can also be asked for.
+ */
+public class SecureRandomPool implements ByteGenerator
+{
+    private static final String DEFAULT_ALGORITHM = "DRBG";
+
+    private final AtomicReferenceArray<SecureRandom> stripes;
+    private final int mask;
+    private final String algorithm;
+
+    /**
+     * A pool with a couple of stripes per available processor.
+     */
+    public SecureRandomPool()
+    {
+        this(Runtime.getRuntime().availableProcessors() * 2, null);
+    }
+
+    /**
+     * @param stripes how many {@code SecureRandom} instances, which is rounded up to a power of two
+     * @param algorithm the {@code SecureRandom} algorithm or null to prefer DRBG and then fall back to the platform default
+     */
+    public SecureRandomPool(int stripes, String algorithm)
+    {
+        int size = Integer.highestOneBit(Math.max(1, stripes));
+        size = (size < stripes) ? size << 1 : size;
+        this.stripes = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.algorithm = algorithm;
+        if (algorithm != null)
+        {
+            // fail now rather than on first use if the algorithm isn't there
+            this.stripes.set(0, newSecureRandom());
+        }
+    }
+
+    public int getStripeCount()
+    {
+        return stripes.length();
+    }
+
+    public byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        nextBytes(bytes);
+        return bytes;
+    }
+
+    public void nextBytes(byte[] bytes)
+    {
+        secureRandom().nextBytes(bytes);
+    }
+
+    /**
+     * @return the {@code SecureRandom} for the current thread
+     */
+    public SecureRandom secureRandom()
+    {
+        int index = stripeIndex(Thread.currentThread().getId());
+        SecureRandom secureRandom = stripes.get(index);
+        if (secureRandom == null)
+        {
+            // losing a race here just means a freshly seeded instance goes unused
+            stripes.compareAndSet(index, null, newSecureRandom());
+            secureRandom = stripes.get(index);
+        }
+        return secureRandom;
+    }
+
+    private int stripeIndex(long threadId)
+    {
+        // thread ids are mostly sequential but mix them a little anyway
+        int h = (int) (threadId ^ (threadId >>> 32));
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+
+    private SecureRandom newSecureRandom()
+    {
+        try
+        {
+            return SecureRandom.getInstance(algorithm == null ? DEFAULT_ALGORITHM : algorithm);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            if (algorithm != null)
+            {
+                throw new UncheckedJoseException("Unable to get a SecureRandom for " + algorithm, e);
+            }
+            return new SecureRandom();
+        }
+    }
+}
@@ -64,6 +64,25 @@ public class StringUtil
         return getBytesUnchecked(string, US_ASCII);
     }
 
+    /**
+     * Gets the US-ASCII bytes of a range of characters from a string without first creating a substring.
+     * Characters outside of the US-ASCII range are replaced with '?' like the US-ASCII charset encoder does.
+     * @param string the string
+     * @param beginIndex the beginning index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return the bytes
+     */
+    public static byte[] getBytesAscii(String string, int beginIndex, int endIndex)
+    {
+        byte[] bytes = new byte[endIndex - beginIndex];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            char c = string.charAt(beginIndex + i);
+            bytes[i] = (c < 0x80) ? (byte) c : (byte) '?';
+        }
+        return bytes;
+    }
+
     public static byte[] getBytes(String string, Charset charset)
     {
         return (string == null) ? null : string.getBytes(charset);
@@ -31,4 +31,9 @@ public class UnresolvableKeyException extends JoseException
     {
         super(message, cause);
     }
+
+    protected UnresolvableKeyException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace)
+    {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
 }
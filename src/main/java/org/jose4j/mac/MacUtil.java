@@ -16,6 +16,7 @@
 
 package org.jose4j.mac;
 
+import org.jose4j.jca.JcaEngineCache;
 import org.jose4j.lang.JoseException;
 
 import javax.crypto.Mac;
@@ -44,6 +45,51 @@ public class MacUtil
         return /* of the */ mac;
     }
 
+    /**
+     * Gets an initialized Mac, reusing one from the current thread's {@link JcaEngineCache} when possible.
+     * A Mac obtained without naming a provider is bound to the provider of the first key it was initialized with,
+     * so a cached one that rejects the key is dropped and a new one is tried.
+     * It should be given back with {@link #releaseMac(Mac, String)} when no longer in use.
+     * @param algorithm the Java name of the MAC algorithm
+     * @param key the key to initialize the Mac with
+     * @param provider the provider name or {@code null} for the system configured providers
+     * @return an initialized Mac
+     * @throws JoseException if the Mac can't be obtained or the key is not valid for it
+     */
+    public static Mac acquireInitializedMac(String algorithm, Key key, String provider) throws JoseException
+    {
+        Mac mac = JcaEngineCache.acquire(Mac.class, algorithm, provider);
+        if (mac != null)
+        {
+            try
+            {
+                mac.init(key);
+                return mac;
+            }
+            catch (InvalidKeyException e)
+            {
+                // try again with a new one below
+            }
+        }
+
+        mac = getMac(algorithm, provider);
+        initMacWithKey(mac, key);
+        return mac;
+    }
+
+    /**
+     * Gives a Mac obtained from {@link #acquireInitializedMac(String, Key, String)} back for reuse on the current thread.
+     * @param mac the Mac
+     * @param provider the provider name that was used to obtain the Mac
+     */
+    public static void releaseMac(Mac mac, String provider)
+    {
+        if (mac != null)
+        {
+            JcaEngineCache.release(Mac.class, mac.getAlgorithm(), provider, mac);
+        }
+    }
+
     public static Mac getMac(String algorithm) throws JoseException
     {
         return getMac(algorithm, null);
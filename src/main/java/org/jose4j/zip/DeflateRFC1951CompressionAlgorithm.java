@@ -20,54 +20,276 @@ import org.jose4j.keys.KeyPersuasion;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.UncheckedJoseException;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
+import java.util.zip.InflaterOutputStream;
 
 /**
+ * <p>
+ * DEFLATE (RFC 1951) compression for JWE. The native zlib state behind {@code Deflater} and {@code Inflater}
+ * is costly to set up so a bounded number of instances are reset and reused rather than created for every JWE.
+ * </p>
+ * <p>
+ * Decompression stops with an exception once more than {@link #getMaxDecompressedLength()} bytes have been
+ * produced so a small JWE can't expand into something huge. The default is 10MB, which can be changed with the
+ * {@code org.jose4j.zip.max-decompressed-bytes} system property or {@link #setMaxDecompressedLength(int)}.
+ * Note that previously there was no limit at all so JWEs with legitimately larger compressed payloads now
+ * fail to decrypt unless the limit is raised.
+ * </p>
+ * <p>
+ * Data shorter than {@link #getMinCompressLength()} (64 bytes by default) usually gets bigger rather than smaller
+ * when compressed. A {@link org.jose4j.jwe.JsonWebEncryption} can be told to not compress it, and leave the "zip"
+ * header parameter out, with {@link org.jose4j.jwe.JsonWebEncryption#setSkipCompressionWhenNotWorthwhile(boolean)}.
+ * {@link #compress(byte[])} itself always compresses.
+ * </p>
  */
 public class DeflateRFC1951CompressionAlgorithm implements CompressionAlgorithm
 {
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int BUFFER_SIZE = 1024;
+
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private volatile int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private volatile int compressionStrategy = Deflater.DEFAULT_STRATEGY;
+    private volatile int maxDecompressedLength = Integer.getInteger("org.jose4j.zip.max-decompressed-bytes", 10 * 1024 * 1024);
+    private volatile int minCompressLength = 64;
+
     public byte[] compress(byte[] data)
     {
-        Deflater deflater = new Deflater(Deflater.DEFLATED, true);
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-             DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(byteArrayOutputStream, deflater))
+        Deflater deflater = acquireDeflater();
+        try
         {
-            deflaterOutputStream.write(data);
-            deflaterOutputStream.finish();
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] buff = new byte[BUFFER_SIZE];
+            while (!deflater.finished())
+            {
+                int length = deflater.deflate(buff);
+                byteArrayOutputStream.write(buff, 0, length);
+            }
             return byteArrayOutputStream.toByteArray();
         }
-        catch (IOException e)
+        catch (RuntimeException e)
         {
+            deflater.end();
+            deflater = null;
             throw new UncheckedJoseException("Problem compressing data.", e);
         }
+        finally
+        {
+            releaseDeflater(deflater);
+        }
     }
 
     public byte[] decompress(byte[] compressedData) throws JoseException
     {
-        Inflater inflater = new Inflater(true);
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        return decompress(compressedData, maxDecompressedLength);
+    }
 
-        try (InflaterInputStream iis = new InflaterInputStream(new ByteArrayInputStream(compressedData), inflater))
+    /**
+     * Decompresses with a limit that applies to just this call rather than {@link #getMaxDecompressedLength()}.
+     * @param compressedData the compressed data
+     * @param maxDecompressedLength the most bytes that decompressing is allowed to produce
+     * @return the decompressed data
+     * @throws JoseException if the data can't be decompressed or is more than the maximum length once decompressed
+     */
+    public byte[] decompress(byte[] compressedData, int maxDecompressedLength) throws JoseException
+    {
+        Inflater inflater = acquireInflater();
+        try
         {
-            int bytesRead;
-            byte[] buff = new byte[256];
-            while ((bytesRead = iis.read(buff)) != -1)
+            inflater.setInput(compressedData);
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream((int) Math.min(compressedData.length * 4L, maxDecompressedLength));
+            byte[] buff = new byte[BUFFER_SIZE];
+            while (!inflater.finished())
             {
-                byteArrayOutputStream.write(buff, 0, bytesRead);
+                int length = inflater.inflate(buff);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new JoseException("Problem decompressing data: unexpected end of compressed data.");
+                }
+                checkDecompressedLength((long) byteArrayOutputStream.size() + length, maxDecompressedLength);
+                byteArrayOutputStream.write(buff, 0, length);
             }
-
             return byteArrayOutputStream.toByteArray();
         }
-        catch (IOException e)
+        catch (DataFormatException e)
         {
             throw new JoseException("Problem decompressing data.", e);
         }
+        finally
+        {
+            releaseInflater(inflater);
+        }
+    }
+
+    /**
+     * Wraps the given stream so that compressed data written to the wrapper is written to it decompressed,
+     * which avoids holding all of either in memory. Closing the wrapper checks that the end of the compressed
+     * data was reached but doesn't close the given stream. Writing to the wrapper fails once more than
+     * {@link #getMaxDecompressedLength()} bytes would have been written to the given stream.
+     * @param out where the decompressed data goes
+     * @return the stream to write the compressed data to
+     */
+    public OutputStream decompressingOutputStream(OutputStream out)
+    {
+        return decompressingOutputStream(out, maxDecompressedLength);
+    }
+
+    /**
+     * Same as {@link #decompressingOutputStream(OutputStream)} but with a limit that applies to just the returned
+     * stream rather than {@link #getMaxDecompressedLength()}.
+     * @param out where the decompressed data goes
+     * @param maxDecompressedLength the most bytes that can be written to the given stream
+     * @return the stream to write the compressed data to
+     */
+    public OutputStream decompressingOutputStream(OutputStream out, int maxDecompressedLength)
+    {
+        return new PooledInflaterOutputStream(new LimitedOutputStream(out, maxDecompressedLength), acquireInflater());
+    }
+
+    /**
+     * @return the compression level used, which is one of the levels defined by {@link Deflater}
+     */
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the compression level.
+     * @param compressionLevel the compression level from 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        if ((compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+                && compressionLevel != Deflater.DEFAULT_COMPRESSION)
+        {
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @return the compression strategy used, which is one of the strategies defined by {@link Deflater}
+     */
+    public int getCompressionStrategy()
+    {
+        return compressionStrategy;
+    }
+
+    /**
+     * Sets the compression strategy.
+     * @param compressionStrategy {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY}
+     */
+    public void setCompressionStrategy(int compressionStrategy)
+    {
+        if (compressionStrategy != Deflater.DEFAULT_STRATEGY && compressionStrategy != Deflater.FILTERED
+                && compressionStrategy != Deflater.HUFFMAN_ONLY)
+        {
+            throw new IllegalArgumentException("Invalid compression strategy " + compressionStrategy);
+        }
+        this.compressionStrategy = compressionStrategy;
+    }
+
+    /**
+     * @return the most bytes that decompressing is allowed to produce
+     */
+    public int getMaxDecompressedLength()
+    {
+        return maxDecompressedLength;
+    }
+
+    /**
+     * Sets the most bytes that decompressing is allowed to produce before failing.
+     * @param maxDecompressedLength the maximum decompressed length in bytes
+     */
+    public void setMaxDecompressedLength(int maxDecompressedLength)
+    {
+        this.maxDecompressedLength = maxDecompressedLength;
+    }
+
+    /**
+     * @return the length in bytes below which data isn't worth compressing
+     */
+    public int getMinCompressLength()
+    {
+        return minCompressLength;
+    }
+
+    /**
+     * Sets the length below which data isn't worth compressing. Use zero to always compress when asked to.
+     * @param minCompressLength the minimum length in bytes of data to compress
+     */
+    public void setMinCompressLength(int minCompressLength)
+    {
+        this.minCompressLength = minCompressLength;
+    }
+
+    /**
+     * @param length the length of some uncompressed data
+     * @return true if data of that length is long enough to be worth compressing
+     */
+    public boolean isWorthCompressing(int length)
+    {
+        return length >= minCompressLength;
+    }
+
+    private static void checkDecompressedLength(long length, int maxDecompressedLength) throws JoseException
+    {
+        if (length > maxDecompressedLength)
+        {
+            throw new JoseException("Decompressed data exceeds the maximum allowed length of " + maxDecompressedLength + " bytes.");
+        }
+    }
+
+    private Deflater acquireDeflater()
+    {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null)
+        {
+            deflater = new Deflater(compressionLevel, true);
+        }
+        deflater.setLevel(compressionLevel);
+        deflater.setStrategy(compressionStrategy);
+        return deflater;
+    }
+
+    private void releaseDeflater(Deflater deflater)
+    {
+        if (deflater != null)
+        {
+            deflater.reset();
+            if (!deflaters.offer(deflater))
+            {
+                deflater.end();
+            }
+        }
+    }
+
+    private Inflater acquireInflater()
+    {
+        Inflater inflater = inflaters.poll();
+        return (inflater == null) ? new Inflater(true) : inflater;
+    }
+
+    private void releaseInflater(Inflater inflater)
+    {
+        inflater.reset();
+        if (!inflaters.offer(inflater))
+        {
+            inflater.end();
+        }
     }
 
     @Override
@@ -100,4 +322,145 @@ public class DeflateRFC1951CompressionAlgorithm implements CompressionAlgorithm
     {
         return true;
     }
+
+    /**
+     * Gives its Inflater back to the pool when closed and won't be written to after that, when the Inflater
+     * might be in use elsewhere. An Inflater that's been left partway through by a failure is ended rather
+     * than pooled, which happens right away so that a stream abandoned after an exception doesn't hold onto it.
+     */
+    private class PooledInflaterOutputStream extends InflaterOutputStream
+    {
+        private final Inflater inflater;
+        private boolean closed;
+
+        private PooledInflaterOutputStream(OutputStream out, Inflater inflater)
+        {
+            super(out, inflater);
+            this.inflater = inflater;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            ensureOpen();
+            try
+            {
+                super.write(b, off, len);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                abandon();
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            ensureOpen();
+            try
+            {
+                super.flush();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                abandon();
+                throw e;
+            }
+        }
+
+        @Override
+        public void finish() throws IOException
+        {
+            ensureOpen();
+            try
+            {
+                super.finish();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                abandon();
+                throw e;
+            }
+        }
+
+        /**
+         * Checks that the end of the compressed data was reached but doesn't close the underlying stream.
+         */
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            finish();
+            boolean complete = inflater.finished();
+            closed = true;
+            releaseInflater(inflater);
+            if (!complete)
+            {
+                throw new IOException("Unexpected end of compressed data.");
+            }
+        }
+
+        private void ensureOpen() throws IOException
+        {
+            if (closed)
+            {
+                throw new IOException("Stream closed");
+            }
+        }
+
+        private void abandon()
+        {
+            if (!closed)
+            {
+                closed = true;
+                inflater.end();
+            }
+        }
+    }
+
+    private static class LimitedOutputStream extends FilterOutputStream
+    {
+        private final int maxLength;
+        private long written;
+
+        private LimitedOutputStream(OutputStream out, int maxLength)
+        {
+            super(out);
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            count(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            count(len);
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
+
+        private void count(int length) throws IOException
+        {
+            written += length;
+            if (written > maxLength)
+            {
+                throw new IOException("Decompressed data exceeds the maximum allowed length of " + maxLength + " bytes.");
+            }
+        }
+    }
 }
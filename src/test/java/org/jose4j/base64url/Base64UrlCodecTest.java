@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import org.jose4j.base64url.internal.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *
+ */
+public class Base64UrlCodecTest
+{
+    @Test
+    public void sameAsApacheCodec()
+    {
+        Base64 apache = new Base64(-1, null, true);
+        Random random = new Random(8675309);
+        for (int length = 0; length < 300; length++)
+        {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            String expected = apache.encodeToString(bytes);
+            String encoded = Base64UrlCodec.encode(bytes);
+            Assert.assertEquals(expected, encoded);
+            Assert.assertEquals(expected.length(), Base64UrlCodec.encodedLength(length));
+            Assert.assertArrayEquals(bytes, Base64UrlCodec.decode(encoded));
+            Assert.assertArrayEquals(apache.decode(encoded), Base64UrlCodec.decode(encoded));
+        }
+    }
+
+    @Test
+    public void lenientDecodingLikeApacheCodec()
+    {
+        Base64 apache = new Base64(-1, null, true);
+        String[] inputs = {"", "A", "AB", "ABC", "ABCD", "ABCDE", "ab+/cd-_", "YWJj==", "YW=Jj", "Y W\nJ\tj", "YW?Jj!", "YéWj", "====", "Zm9vYmFy="};
+        for (String input : inputs)
+        {
+            Assert.assertArrayEquals(input, apache.decode(input), Base64UrlCodec.decode(input));
+        }
+    }
+
+    @Test
+    public void nulls()
+    {
+        Assert.assertNull(Base64UrlCodec.encode(null));
+        Assert.assertNull(Base64UrlCodec.decode(null));
+        Assert.assertNull(Base64Url.encode((byte[]) null));
+        Assert.assertNull(Base64Url.decode(null));
+    }
+
+    @Test
+    public void ranges()
+    {
+        byte[] bytes = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        String encoded = Base64UrlCodec.encode(bytes, 2, 5);
+        Assert.assertEquals(Base64UrlCodec.encode(Arrays.copyOfRange(bytes, 2, 7)), encoded);
+
+        String framed = "xx." + encoded + ".yy";
+        int begin = 3;
+        int end = begin + encoded.length();
+        Assert.assertEquals(5, Base64UrlCodec.decodedLength(framed, begin, end));
+        Assert.assertArrayEquals(Arrays.copyOfRange(bytes, 2, 7), Base64UrlCodec.decode(framed, begin, end));
+
+        byte[] destination = new byte[8];
+        int written = Base64UrlCodec.decode(framed, begin, end, destination, 3);
+        Assert.assertEquals(5, written);
+        Assert.assertArrayEquals(new byte[] {0, 0, 0, 3, 4, 5, 6, 7}, destination);
+
+        try
+        {
+            Base64UrlCodec.decode(framed, begin, end, destination, 4);
+            Assert.fail("shouldn't be able to decode 5 bytes into 4");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            Base64UrlCodec.decode(framed, begin, framed.length() + 1);
+            Assert.fail("range is past the end");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+
+        StringBuilder sb = new StringBuilder("prefix.");
+        Base64UrlCodec.encode(bytes, 2, 5, sb);
+        Assert.assertEquals("prefix." + encoded, sb.toString());
+    }
+
+    @Test
+    public void byteBuffers()
+    {
+        byte[] bytes = new byte[50];
+        new Random(42).nextBytes(bytes);
+        String expected = Base64UrlCodec.encode(bytes, 5, 40);
+
+        for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.allocate(60), ByteBuffer.allocateDirect(60)})
+        {
+            buffer.put(bytes);
+            buffer.position(5);
+            buffer.limit(45);
+            StringBuilder sb = new StringBuilder();
+            Base64UrlCodec.encode(buffer, sb);
+            Assert.assertEquals(expected, sb.toString());
+            Assert.assertEquals(5, buffer.position());
+
+            buffer.clear();
+            buffer.position(7);
+            int written = Base64UrlCodec.decode(expected, 0, expected.length(), buffer);
+            Assert.assertEquals(40, written);
+            Assert.assertEquals(47, buffer.position());
+            byte[] decoded = new byte[40];
+            buffer.position(7);
+            buffer.get(decoded);
+            Assert.assertArrayEquals(Arrays.copyOfRange(bytes, 5, 45), decoded);
+        }
+    }
+
+    @Test
+    public void incrementalDecoding()
+    {
+        Random random = new Random(11);
+        for (int length = 0; length < 100; length++)
+        {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            byte[] encoded = (Base64UrlCodec.encode(bytes) + (length % 3 == 1 ? "==" : "")).getBytes();
+            for (int piece = 1; piece < 9; piece++)
+            {
+                Base64UrlCodec.IncrementalDecoder decoder = new Base64UrlCodec.IncrementalDecoder();
+                byte[] decoded = new byte[length + 2];
+                int pos = 0;
+                for (int i = 0; i < encoded.length; i += piece)
+                {
+                    int n = Math.min(piece, encoded.length - i);
+                    pos += decoder.update(encoded, i, n, decoded, pos);
+                }
+                pos += decoder.finish(decoded, pos);
+                Assert.assertEquals(length, pos);
+                Assert.assertArrayEquals(bytes, Arrays.copyOf(decoded, pos));
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jca;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.mac.MacUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.MacSpi;
+import javax.crypto.SecretKey;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.security.SignatureSpi;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ *
+ */
+public class JcaEngineCacheTest
+{
+    @After
+    public void reset()
+    {
+        JcaEngineCache.setEnabled(true);
+    }
+
+    @Test
+    public void acquireAndRelease() throws Exception
+    {
+        JcaEngineCache.clear();
+        Assert.assertNull(JcaEngineCache.acquire(Signature.class, "SHA256withRSA", null));
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        JcaEngineCache.release(Signature.class, "SHA256withRSA", null, signature);
+
+        Assert.assertNull(JcaEngineCache.acquire(Signature.class, "SHA256withRSA", "SunRsaSign"));
+        Assert.assertNull(JcaEngineCache.acquire(Signature.class, "SHA384withRSA", null));
+        Assert.assertNull(JcaEngineCache.acquire(Mac.class, "SHA256withRSA", null));
+
+        Assert.assertSame(signature, JcaEngineCache.acquire(Signature.class, "SHA256withRSA", null));
+        Assert.assertNull(JcaEngineCache.acquire(Signature.class, "SHA256withRSA", null));
+
+        JcaEngineCache.release(Signature.class, "SHA256withRSA", null, signature);
+        JcaEngineCache.clear();
+        Assert.assertNull(JcaEngineCache.acquire(Signature.class, "SHA256withRSA", null));
+
+        JcaEngineCache.setEnabled(false);
+        JcaEngineCache.release(Signature.class, "SHA256withRSA", null, signature);
+        Assert.assertNull(JcaEngineCache.acquire(Signature.class, "SHA256withRSA", null));
+    }
+
+    @Test
+    public void macReuse() throws Exception
+    {
+        JcaEngineCache.clear();
+        byte[] data = {1, 2, 3, 4, 5};
+        HmacKey key1 = new HmacKey(new byte[32]);
+        HmacKey key2 = new HmacKey(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+                17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32});
+
+        Mac mac = MacUtil.acquireInitializedMac(MacUtil.HMAC_SHA256, key1, null);
+        byte[] tag1 = mac.doFinal(data);
+        MacUtil.releaseMac(mac, null);
+
+        Mac again = MacUtil.acquireInitializedMac(MacUtil.HMAC_SHA256, key2, null);
+        Assert.assertSame(mac, again);
+        Mac nested = MacUtil.acquireInitializedMac(MacUtil.HMAC_SHA256, key1, null);
+        Assert.assertNotSame(again, nested);
+        byte[] tag2 = again.doFinal(data);
+        MacUtil.releaseMac(again, null);
+        MacUtil.releaseMac(nested, null);
+
+        Assert.assertArrayEquals(tag1, MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, key1).doFinal(data));
+        Assert.assertArrayEquals(tag2, MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, key2).doFinal(data));
+    }
+
+    @Test
+    public void repeatedSignAndVerify() throws Exception
+    {
+        for (boolean enabled : new boolean[] {true, false})
+        {
+            JcaEngineCache.setEnabled(enabled);
+            for (int i = 0; i < 3; i++)
+            {
+                JsonWebSignature jws = new JsonWebSignature();
+                jws.setPayload("payload " + i);
+                jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+                jws.setKey(ExampleRsaKeyFromJws.PRIVATE_KEY);
+                String cs = jws.getCompactSerialization();
+
+                jws = new JsonWebSignature();
+                jws.setCompactSerialization(cs);
+                jws.setKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
+                Assert.assertTrue(jws.verifySignature());
+
+                jws = new JsonWebSignature();
+                jws.setCompactSerialization(cs.substring(0, cs.length() - 4) + "AAAA");
+                jws.setKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
+                Assert.assertFalse(jws.verifySignature());
+            }
+        }
+    }
+
+    @Test
+    public void cachedEngineBoundToAnotherProvider() throws Exception
+    {
+        // like keys from a hardware token, these only work with their own provider
+        Security.addProvider(new TokenProvider());
+        try
+        {
+            JcaEngineCache.clear();
+
+            // the cached engines get bound to the default providers by these software keys
+            JsonWebSignature jws = new JsonWebSignature();
+            jws.setPayload("software");
+            jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+            jws.setKey(ExampleRsaKeyFromJws.PRIVATE_KEY);
+            jws.getCompactSerialization();
+            Mac mac = MacUtil.acquireInitializedMac(MacUtil.HMAC_SHA256, new HmacKey(new byte[32]), null);
+            MacUtil.releaseMac(mac, null);
+
+            jws = new JsonWebSignature();
+            jws.setPayload("token");
+            jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+            jws.setKey(new TokenPrivateKey());
+            String cs = jws.getCompactSerialization();
+            Assert.assertTrue(cs.endsWith("." + TokenSignature.SIGNATURE));
+
+            Mac tokenMac = MacUtil.acquireInitializedMac(MacUtil.HMAC_SHA256, new TokenSecretKey(), null);
+            Assert.assertNotSame(mac, tokenMac);
+            Assert.assertEquals(TokenProvider.NAME, tokenMac.getProvider().getName());
+            MacUtil.releaseMac(tokenMac, null);
+        }
+        finally
+        {
+            Security.removeProvider(TokenProvider.NAME);
+            JcaEngineCache.clear();
+        }
+    }
+
+    public static class TokenProvider extends Provider
+    {
+        static final String NAME = "JcaEngineCacheTestToken";
+
+        public TokenProvider()
+        {
+            super(NAME, 1.0, "Test provider only accepting its own keys");
+            put("Signature.SHA256withRSA", TokenSignature.class.getName());
+            put("Mac.HmacSHA256", TokenMac.class.getName());
+        }
+    }
+
+    public static class TokenSignature extends SignatureSpi
+    {
+        static final String SIGNATURE = "dG9rZW4";
+
+        @Override
+        protected void engineInitVerify(PublicKey publicKey) throws InvalidKeyException
+        {
+            throw new InvalidKeyException("not supported");
+        }
+
+        @Override
+        protected void engineInitSign(PrivateKey privateKey) throws InvalidKeyException
+        {
+            if (!(privateKey instanceof TokenPrivateKey))
+            {
+                throw new InvalidKeyException("not a token key");
+            }
+        }
+
+        @Override
+        protected void engineUpdate(byte b)
+        {
+        }
+
+        @Override
+        protected void engineUpdate(byte[] b, int off, int len)
+        {
+        }
+
+        @Override
+        protected byte[] engineSign()
+        {
+            return new byte[] {116, 111, 107, 101, 110};
+        }
+
+        @Override
+        protected boolean engineVerify(byte[] sigBytes)
+        {
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        protected void engineSetParameter(String param, Object value)
+        {
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        protected Object engineGetParameter(String param)
+        {
+            return null;
+        }
+    }
+
+    public static class TokenMac extends MacSpi
+    {
+        @Override
+        protected int engineGetMacLength()
+        {
+            return 32;
+        }
+
+        @Override
+        protected void engineInit(Key key, AlgorithmParameterSpec params) throws InvalidKeyException
+        {
+            if (!(key instanceof TokenSecretKey))
+            {
+                throw new InvalidKeyException("not a token key");
+            }
+        }
+
+        @Override
+        protected void engineUpdate(byte input)
+        {
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len)
+        {
+        }
+
+        @Override
+        protected byte[] engineDoFinal()
+        {
+            return new byte[32];
+        }
+
+        @Override
+        protected void engineReset()
+        {
+        }
+    }
+
+    static class TokenPrivateKey implements PrivateKey
+    {
+        @Override
+        public String getAlgorithm()
+        {
+            return "RSA";
+        }
+
+        @Override
+        public String getFormat()
+        {
+            return null;
+        }
+
+        @Override
+        public byte[] getEncoded()
+        {
+            return null;
+        }
+    }
+
+    static class TokenSecretKey implements SecretKey
+    {
+        @Override
+        public String getAlgorithm()
+        {
+            return MacUtil.HMAC_SHA256;
+        }
+
+        @Override
+        public String getFormat()
+        {
+            return null;
+        }
+
+        @Override
+        public byte[] getEncoded()
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.json;
+
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.JoseException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class DefaultJsonProviderTest extends JsonProviderConformanceTest
+{
+    @Override
+    protected JsonProvider provider()
+    {
+        return new DefaultJsonProvider();
+    }
+
+    @After
+    public void reset()
+    {
+        JsonUtil.setJsonProvider(null);
+    }
+
+    @Test
+    public void defaultWhenNothingElse()
+    {
+        Assert.assertTrue(JsonUtil.getJsonProvider() instanceof DefaultJsonProvider);
+    }
+
+    @Test
+    public void pluggedInProviderIsUsed() throws Exception
+    {
+        CountingJsonProvider counting = new CountingJsonProvider();
+        JsonUtil.setJsonProvider(counting);
+        Assert.assertSame(counting, JsonUtil.getJsonProvider());
+
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(new HmacKey(new byte[32]));
+        String cs = jws.getCompactSerialization();
+        int serialized = counting.serialized.get();
+        Assert.assertTrue(serialized >= 2);
+
+        int parsed = counting.parsed.get();
+        jws = new JsonWebSignature();
+        jws.setCompactSerialization(cs);
+        Assert.assertTrue(counting.parsed.get() > parsed);
+        parsed = counting.parsed.get();
+        Assert.assertEquals("me", JwtClaims.parse(jws.getUnverifiedPayload()).getSubject());
+        Assert.assertEquals(parsed + 1, counting.parsed.get());
+
+        parsed = counting.parsed.get();
+        JsonWebKey jwk = JsonWebKey.Factory.newJwk("{\"kty\":\"oct\",\"k\":\"AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA\"}");
+        Assert.assertTrue(jwk instanceof OctetSequenceJsonWebKey);
+        Assert.assertEquals(parsed + 1, counting.parsed.get());
+
+        JsonWebKeySet jwks = new JsonWebKeySet("{\"keys\":[" + jwk.toJson() + "]}");
+        Assert.assertEquals(1, jwks.getJsonWebKeys().size());
+        Assert.assertEquals(parsed + 2, counting.parsed.get());
+        serialized = counting.serialized.get();
+        jwks.toJson();
+        Assert.assertEquals(serialized + 1, counting.serialized.get());
+
+        JsonUtil.setJsonProvider(null);
+        Assert.assertTrue(JsonUtil.getJsonProvider() instanceof DefaultJsonProvider);
+    }
+
+    private static class CountingJsonProvider extends DefaultJsonProvider
+    {
+        private final AtomicInteger parsed = new AtomicInteger();
+        private final AtomicInteger serialized = new AtomicInteger();
+
+        @Override
+        public Map<String, Object> parseJson(String json) throws JoseException
+        {
+            parsed.incrementAndGet();
+            return super.parseJson(json);
+        }
+
+        @Override
+        public Map<String, Object> parseJson(InputStream utf8) throws JoseException, IOException
+        {
+            parsed.incrementAndGet();
+            return super.parseJson(utf8);
+        }
+
+        @Override
+        public String toJson(Map<String, ?> map)
+        {
+            serialized.incrementAndGet();
+            return super.toJson(map);
+        }
+
+        @Override
+        public void writeJson(Map<String, ?> map, Writer w) throws IOException
+        {
+            serialized.incrementAndGet();
+            super.writeJson(map, w);
+        }
+    }
+}
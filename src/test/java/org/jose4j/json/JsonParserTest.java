@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.json.internal.json_simple.JSONArray;
+import org.jose4j.json.internal.json_simple.JSONObject;
+import org.jose4j.json.internal.json_simple.parser.JSONParser;
+import org.jose4j.json.internal.json_simple.parser.ParseException;
+import org.jose4j.lang.JoseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public class JsonParserTest
+{
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String[] VALID = {
+            "{}",
+            "[]",
+            " {\"a\" : 1 ,\n\t\"b\":[1, 2.5, -3, -0, 1e3, 1.5E-2, true, false, null, \"x\"]\r\n} ",
+            "{\"nested\":{\"deeper\":{\"deepest\":[[],[{}],{\"k\":[]}]}}}",
+            "{\"esc\":\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\u20AC\\uD83D\\uDE00 done\"}",
+            "{\"unicode\":\"héllo € 😀\",\"é\":\"key too\"}",
+            "{\"big\":99990193716474719874987981237498321343555513331108571735145,\"max\":9223372036854775807,\"min\":-9223372036854775808}",
+            "{\"alg\":\"RS256\",\"kid\":\"k1\",\"typ\":\"JWT\"}",
+            "{\"empty\":\"\",\"space\":\" \",\"slash\":\"a/b\"}",
+            "\"just a string\"",
+            "12345",
+            "null",
+            // json-simple's leniencies, which have to keep working
+            "{\"n\":\"line\nbreaks\tand\u0001controls\"}",
+            "{\"a\":1 \"b\":2}",
+            "{\"a\":1,}",
+            "{,,\"a\"::1,,}",
+            "{\"a\" 1}",
+            "[1 2,,3,]",
+            "[truefalse]",
+            "{\"a\":01}",
+            "{\"a\":\"bad \\x escape\",\"b\":\"short \\u12 escape\",\"c\":\"\\u12G4\",\"d\":\"\\'\\u12\"}",
+    };
+
+    private static final String[] INVALID = {
+            "",
+            " ",
+            "{",
+            "}",
+            "[",
+            "{\"a\"}",
+            "{\"a\":}",
+            "{\"a\",1}",
+            "{:\"a\":1}",
+            "{1:1}",
+            "[:]",
+            "{\"a\":1}x",
+            "{\"a\":1}{}",
+            "{a:1}",
+            "{'a':1}",
+            "{\"a\":1.}",
+            "{\"a\":.5}",
+            "{\"a\":1e}",
+            "{\"a\":-}",
+            "{\"a\":+1}",
+            "{\"a\":tru}",
+            "{\"a\":nul}",
+            "{\"a\":\"unterminated}",
+            "{\"a\":\"x\",\"a\":\"y\"}",
+            "[\"\\\"]",
+            "{\"a\":\"x\",\"b\":[{\"a\":1,\"a\":2}]}",
+    };
+
+    @Test
+    public void sameAsJsonSimpleForValidInput() throws Exception
+    {
+        JsonParser parser = new JsonParser(JsonUtil.CONTAINER_FACTORY);
+        for (String json : VALID)
+        {
+            Object expected = new JSONParser().parse(json, JsonUtil.CONTAINER_FACTORY);
+            Assert.assertEquals(json, expected, parser.parse(json));
+
+            char[] chars = ("xx" + json + "yy").toCharArray();
+            Assert.assertEquals(json, expected, parser.parse(chars, 2, chars.length - 4));
+
+            byte[] json8 = json.getBytes(UTF_8);
+            byte[] bytes = new byte[json8.length + 5];
+            System.arraycopy(json8, 0, bytes, 3, json8.length);
+            Assert.assertEquals(json, expected, parser.parse(bytes, 3, json8.length));
+            Assert.assertEquals(json, expected, parser.parse(new ByteArrayInputStream(json8)));
+        }
+    }
+
+    @Test
+    public void numberTypes() throws Exception
+    {
+        List<?> list = (List<?>) new JsonParser(null).parse("[1, -42, 9223372036854775807, 9223372036854775808, 1.0, 2e2, 123456789012345678]");
+        Assert.assertEquals(1L, list.get(0));
+        Assert.assertEquals(-42L, list.get(1));
+        Assert.assertEquals(Long.MAX_VALUE, list.get(2));
+        Assert.assertEquals(new BigInteger("9223372036854775808"), list.get(3));
+        Assert.assertEquals(1.0d, list.get(4));
+        Assert.assertEquals(200.0d, list.get(5));
+        Assert.assertEquals(123456789012345678L, list.get(6));
+    }
+
+    @Test
+    public void defaultContainers() throws Exception
+    {
+        Map<?, ?> map = (Map<?, ?>) new JsonParser(null).parse("{\"a\":[1]}");
+        Assert.assertTrue(map instanceof JSONObject);
+        Assert.assertTrue(map.get("a") instanceof JSONArray);
+    }
+
+    @Test
+    public void rejectsInvalidInput()
+    {
+        JsonParser parser = new JsonParser(JsonUtil.CONTAINER_FACTORY);
+        for (String json : INVALID)
+        {
+            try
+            {
+                Object parsed = new JSONParser().parse(json, JsonUtil.CONTAINER_FACTORY);
+                Assert.fail("json-simple didn't reject " + json + " either but got " + parsed);
+            }
+            catch (ParseException | IllegalArgumentException e)
+            {
+                // expected
+            }
+
+            try
+            {
+                Object parsed = parser.parse(json);
+                Assert.fail("shouldn't have parsed " + json + " but got " + parsed);
+            }
+            catch (ParseException | IllegalArgumentException e)
+            {
+                // expected
+            }
+
+            try
+            {
+                Object parsed = parser.parse(json.getBytes(UTF_8), 0, json.getBytes(UTF_8).length);
+                Assert.fail("shouldn't have parsed bytes " + json + " but got " + parsed);
+            }
+            catch (ParseException | IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void errorPosition()
+    {
+        try
+        {
+            new JsonParser(null).parse("{\"a\":1,]");
+            Assert.fail();
+        }
+        catch (ParseException e)
+        {
+            Assert.assertEquals(7, e.getPosition());
+        }
+    }
+
+    @Test
+    public void depthLimit() throws Exception
+    {
+        char[] open = new char[100];
+        char[] close = new char[100];
+        Arrays.fill(open, '[');
+        Arrays.fill(close, ']');
+        String json = new String(open) + new String(close);
+
+        new JsonParser(null, 100).parse(json);
+        try
+        {
+            new JsonParser(null, 99).parse(json);
+            Assert.fail("too deep");
+        }
+        catch (ParseException e)
+        {
+            // expected
+        }
+
+        char[] deep = new char[1000000];
+        Arrays.fill(deep, '[');
+        try
+        {
+            new JsonParser(null).parse(new String(deep));
+            Assert.fail("too deep");
+        }
+        catch (ParseException e)
+        {
+            // expected and not a StackOverflowError
+        }
+    }
+
+    @Test
+    public void byteOrderMark() throws Exception
+    {
+        byte[] json = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '{', '}'};
+        Assert.assertTrue(((Map<?, ?>) new JsonParser(null).parse(json, 0, json.length)).isEmpty());
+    }
+
+    @Test
+    public void jsonUtilObjectsOnly() throws Exception
+    {
+        Assert.assertEquals("b", JsonUtil.parseJson(new ByteArrayInputStream("{\"a\":\"b\"}".getBytes(UTF_8))).get("a"));
+        for (String json : new String[] {"[]", "\"str\"", "null", "1"})
+        {
+            try
+            {
+                JsonUtil.parseJson(json);
+                Assert.fail("not an object " + json);
+            }
+            catch (JoseException e)
+            {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.json;
+
+import org.jose4j.lang.JoseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What any {@link JsonProvider} has to do to work with jose4j. A provider implementation
+ * can be checked by extending this and implementing {@link #provider()}.
+ */
+public abstract class JsonProviderConformanceTest
+{
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    protected abstract JsonProvider provider();
+
+    @Test
+    public void parsesValueTypes() throws Exception
+    {
+        String json = "{\"s\":\"str\",\"i\":42,\"neg\":-7,\"big\":1483228800123,\"d\":1.5,\"t\":true,\"f\":false,\"n\":null," +
+                "\"a\":[1,\"two\",{\"three\":3}],\"o\":{\"inner\":[]}}";
+        Map<String, Object> map = provider().parseJson(json);
+        Assert.assertEquals("str", map.get("s"));
+        Assert.assertEquals(42L, ((Number) map.get("i")).longValue());
+        Assert.assertEquals(-7L, ((Number) map.get("neg")).longValue());
+        Assert.assertEquals(1483228800123L, ((Number) map.get("big")).longValue());
+        Assert.assertEquals(1.5d, ((Number) map.get("d")).doubleValue(), 0d);
+        Assert.assertEquals(Boolean.TRUE, map.get("t"));
+        Assert.assertEquals(Boolean.FALSE, map.get("f"));
+        Assert.assertTrue(map.containsKey("n"));
+        Assert.assertNull(map.get("n"));
+
+        List<?> list = (List<?>) map.get("a");
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals(1L, ((Number) list.get(0)).longValue());
+        Assert.assertEquals("two", list.get(1));
+        Assert.assertEquals(3L, ((Number) ((Map<?, ?>) list.get(2)).get("three")).longValue());
+        Assert.assertTrue(((List<?>) ((Map<?, ?>) map.get("o")).get("inner")).isEmpty());
+
+        map.put("mutable", "yes");
+    }
+
+    @Test
+    public void rejectsDuplicateMemberNames()
+    {
+        String[] dupes = {"{\"a\":1,\"a\":2}", "{\"a\":1,\"a\":1}", "{\"a\":null,\"a\":null}",
+                "{\"outer\":{\"x\":\"1\",\"x\":\"2\"}}", "{\"keys\":[{\"kty\":\"EC\",\"kty\":\"RSA\"}]}"};
+        for (String json : dupes)
+        {
+            expectParseFailure(json);
+        }
+    }
+
+    @Test
+    public void rejectsInvalidJson()
+    {
+        String[] invalid = {"", "{", "{\"a\":}", "{\"a\":1}}", "{\"a\":1}x", "{\"a\":\"unterminated}", "nope"};
+        for (String json : invalid)
+        {
+            expectParseFailure(json);
+        }
+    }
+
+    @Test
+    public void rejectsNonObjects()
+    {
+        for (String json : new String[] {"[]", "[{\"a\":1}]", "\"str\"", "1", "true", "null"})
+        {
+            expectParseFailure(json);
+        }
+    }
+
+    @Test
+    public void roundTrips() throws Exception
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("s", "quote\" backslash\\ slash/ newline\n tab\t control\u0001 unicode é € 😀");
+        map.put("i", 1483228800L);
+        map.put("d", 0.25d);
+        map.put("t", true);
+        map.put("n", null);
+        map.put("a", Arrays.asList("x", 2L, false));
+        map.put("o", new LinkedHashMap<>(map));
+
+        String json = provider().toJson(map);
+        Map<String, Object> parsed = provider().parseJson(json);
+        assertSameJson(map, parsed);
+
+        Assert.assertArrayEquals(json.getBytes(UTF_8), provider().toJsonBytes(map));
+        assertSameJson(map, provider().parseJson(new ByteArrayInputStream(provider().toJsonBytes(map))));
+
+        StringWriter writer = new StringWriter();
+        provider().writeJson(map, writer);
+        assertSameJson(map, provider().parseJson(writer.toString()));
+    }
+
+    @Test
+    public void bigIntegersAreExact() throws Exception
+    {
+        Map<String, Object> map = provider().parseJson("{\"max\":9223372036854775807,\"min\":-9223372036854775808}");
+        Assert.assertEquals(Long.MAX_VALUE, ((Number) map.get("max")).longValue());
+        Assert.assertEquals(Long.MIN_VALUE, ((Number) map.get("min")).longValue());
+
+        map = provider().parseJson("{\"huge\":99990193716474719874987981237498321343555513331108571735145}");
+        Assert.assertEquals(new BigInteger("99990193716474719874987981237498321343555513331108571735145"), new BigInteger(map.get("huge").toString()));
+    }
+
+    @Test
+    public void parsesFromStream() throws Exception
+    {
+        String json = "{\"kid\":\"é€😀\",\"n\":[1,2]}";
+        Map<String, Object> fromString = provider().parseJson(json);
+        Map<String, Object> fromStream = provider().parseJson(new ByteArrayInputStream(json.getBytes(UTF_8)));
+        assertSameJson(fromString, fromStream);
+        Assert.assertEquals("é€😀", fromStream.get("kid"));
+    }
+
+    private void expectParseFailure(String json)
+    {
+        try
+        {
+            Map<String, Object> parsed = provider().parseJson(json);
+            Assert.fail("parsing " + json + " should have failed but got " + parsed);
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            Map<String, Object> parsed = provider().parseJson(new ByteArrayInputStream(json.getBytes(UTF_8)));
+            Assert.fail("parsing bytes of " + json + " should have failed but got " + parsed);
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+        catch (Exception e)
+        {
+            Assert.fail("parsing bytes of " + json + " should have been a JoseException but was " + e);
+        }
+    }
+
+    // numbers are compared by value so providers are free to pick their own Number types
+    private static void assertSameJson(Object expected, Object actual)
+    {
+        if (expected instanceof Map)
+        {
+            Map<?, ?> expectedMap = (Map<?, ?>) expected;
+            Map<?, ?> actualMap = (Map<?, ?>) actual;
+            Assert.assertEquals(expectedMap.keySet(), actualMap.keySet());
+            for (Object key : expectedMap.keySet())
+            {
+                assertSameJson(expectedMap.get(key), actualMap.get(key));
+            }
+        }
+        else if (expected instanceof List)
+        {
+            List<?> expectedList = (List<?>) expected;
+            List<?> actualList = (List<?>) actual;
+            Assert.assertEquals(expectedList.size(), actualList.size());
+            for (int i = 0; i < expectedList.size(); i++)
+            {
+                assertSameJson(expectedList.get(i), actualList.get(i));
+            }
+        }
+        else if (expected instanceof Number)
+        {
+            Assert.assertEquals(new java.math.BigDecimal(expected.toString()).compareTo(new java.math.BigDecimal(actual.toString())), 0);
+        }
+        else
+        {
+            Assert.assertEquals(expected, actual);
+        }
+    }
+}
@@ -21,9 +21,12 @@ import org.jose4j.base64url.Base64Url;
 import org.jose4j.jca.ProviderContextTest;
 import org.jose4j.jwx.Headers;
 import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.IntegrityException;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.StringUtil;
 
+import java.util.Arrays;
+
 /**
  */
 public class Aes128CbcHmacSha256ContentEncryptionAlgorithmTest extends TestCase
@@ -101,5 +104,32 @@ public class Aes128CbcHmacSha256ContentEncryptionAlgorithmTest extends TestCase
         assertEquals(text, StringUtil.newStringUtf8(decrypt));
     }
 
-
+    public void testAlternatingKeys() throws JoseException
+    {
+        byte[] aad = StringUtil.getBytesAscii("eyJhbGciOiJkaXIiLCJlbmMiOiJBMTI4Q0JDLUhTMjU2In0");
+        AesCbcHmacSha2ContentEncryptionAlgorithm.Aes128CbcHmacSha256 contentEncryptionAlg = new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes128CbcHmacSha256();
+        byte[] cek1 = ByteUtil.randomBytes(32);
+        byte[] cek2 = ByteUtil.randomBytes(32);
+
+        for (int length = 0; length < 70; length += 7)
+        {
+            byte[] plaintext = ByteUtil.randomBytes(length);
+            ContentEncryptionParts parts1 = contentEncryptionAlg.encrypt(plaintext, aad, cek1, new Headers(), null, ProviderContextTest.EMPTY_CONTEXT);
+            ContentEncryptionParts parts2 = contentEncryptionAlg.encrypt(plaintext, aad, cek2, new Headers(), null, ProviderContextTest.EMPTY_CONTEXT);
+            assertEquals((length / 16 + 1) * 16, parts1.getCiphertext().length);
+
+            assertTrue(Arrays.equals(plaintext, contentEncryptionAlg.decrypt(parts1, aad, cek1, null, ProviderContextTest.EMPTY_CONTEXT)));
+            assertTrue(Arrays.equals(plaintext, contentEncryptionAlg.decrypt(parts2, aad, cek2, null, ProviderContextTest.EMPTY_CONTEXT)));
+
+            try
+            {
+                contentEncryptionAlg.decrypt(parts1, aad, cek2, null, ProviderContextTest.EMPTY_CONTEXT);
+                fail("decrypted with the wrong key");
+            }
+            catch (IntegrityException e)
+            {
+                // expected
+            }
+        }
+    }
 }
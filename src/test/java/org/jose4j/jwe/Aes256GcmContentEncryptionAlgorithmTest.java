@@ -19,10 +19,14 @@ package org.jose4j.jwe;
 import org.jose4j.base64url.Base64Url;
 import org.jose4j.jca.ProviderContextTest;
 import org.jose4j.jwa.JceProviderTestSupport;
+import org.jose4j.keys.AesKey;
 import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
 import org.jose4j.lang.StringUtil;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 
@@ -76,4 +80,57 @@ public class Aes256GcmContentEncryptionAlgorithmTest
         });
 
     }
+
+    @Test
+    public void byteBuffers() throws Exception
+    {
+        AesGcmContentEncryptionAlgorithm.Aes128Gcm gcm = new AesGcmContentEncryptionAlgorithm.Aes128Gcm();
+        if (!gcm.isAvailable())
+        {
+            return;
+        }
+
+        SimpleAeadCipher cipher = new SimpleAeadCipher(SimpleAeadCipher.GCM_TRANSFORMATION_NAME, 16);
+        AesKey key = new AesKey(ByteUtil.randomBytes(16));
+        byte[] iv = ByteUtil.randomBytes(12);
+        byte[] aad = StringUtil.getBytesAscii("eyJhbGciOiJkaXIiLCJlbmMiOiJBMTI4R0NNIn0");
+        byte[] plaintext = ByteUtil.randomBytes(1000);
+        byte[] expected = cipher.encrypt(key, iv, plaintext, aad, null).getCiphertext();
+
+        for (boolean direct : new boolean[] {false, true})
+        {
+            ByteBuffer in = direct ? ByteBuffer.allocateDirect(plaintext.length) : ByteBuffer.allocate(plaintext.length);
+            in.put(plaintext);
+            in.flip();
+            ByteBuffer out = direct ? ByteBuffer.allocateDirect(plaintext.length + 16) : ByteBuffer.allocate(plaintext.length + 16);
+            assertThat(cipher.encrypt(key, iv, in, aad, out, null), equalTo(plaintext.length + 16));
+            out.flip();
+
+            byte[] ciphertext = new byte[plaintext.length];
+            out.duplicate().get(ciphertext);
+            assertArrayEquals(expected, ciphertext);
+
+            ByteBuffer decrypted = ByteBuffer.allocate(plaintext.length);
+            assertThat(cipher.decrypt(key, iv, out, aad, decrypted, null), equalTo(plaintext.length));
+            assertArrayEquals(plaintext, decrypted.array());
+        }
+
+        ContentEncryptionParts parts = gcm.encrypt(plaintext, aad, key.getEncoded(), iv, null);
+        assertNotNull(parts.getCiphertextAndTagBuffer());
+        assertArrayEquals(plaintext, gcm.decrypt(parts, aad, key.getEncoded(), null, ProviderContextTest.EMPTY_CONTEXT));
+
+        byte[] tag = parts.getAuthenticationTag();
+        tag[0]++;
+        ContentEncryptionParts badParts = new ContentEncryptionParts(iv, parts.getCiphertext(), tag);
+        assertNull(badParts.getCiphertextAndTagBuffer());
+        try
+        {
+            gcm.decrypt(badParts, aad, key.getEncoded(), null, ProviderContextTest.EMPTY_CONTEXT);
+            fail("decrypted with a bad tag");
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.ExampleRsaJwksFromJwe;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.IntegrityException;
+import org.jose4j.lang.JoseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.security.Key;
+import java.util.Random;
+
+/**
+ *
+ */
+public class StreamingDecryptTest
+{
+    private static final String[] ENCS = {ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256,
+            ContentEncryptionAlgorithmIdentifiers.AES_256_CBC_HMAC_SHA_512,
+            ContentEncryptionAlgorithmIdentifiers.AES_128_GCM};
+
+    @Test
+    public void sameAsNonStreaming() throws Exception
+    {
+        Random random = new Random(6);
+        for (String enc : ENCS)
+        {
+            for (boolean zip : new boolean[] {false, true})
+            {
+                for (int size : new int[] {1, 15, 16, 17, 1000, 200000})
+                {
+                    byte[] plaintext = new byte[size];
+                    for (int i = 0; i < size; i++)
+                    {
+                        // a little repetitive so compression actually does something
+                        plaintext[i] = (byte) ('a' + random.nextInt(4));
+                    }
+
+                    Key key = new AesKey(ByteUtil.randomBytes(cekLength(enc)));
+                    String cs = encrypt(plaintext, KeyManagementAlgorithmIdentifiers.DIRECT, enc, key, zip);
+
+                    JsonWebEncryption jwe = new JsonWebEncryption();
+                    jwe.setKey(key);
+                    jwe.setCompactSerialization(cs);
+                    Assert.assertArrayEquals(plaintext, jwe.getPlaintextBytes());
+
+                    for (int chunk : new int[] {1, 7, 4096, Integer.MAX_VALUE})
+                    {
+                        jwe = new JsonWebEncryption();
+                        jwe.setKey(key);
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        jwe.decrypt(new TrickleInputStream(cs, chunk), out);
+                        Assert.assertArrayEquals(enc + " " + zip + " " + size + " " + chunk, plaintext, out.toByteArray());
+                        Assert.assertEquals(enc, jwe.getEncryptionMethodHeaderParameter());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rsaOaepFromChannel() throws Exception
+    {
+        PublicJsonWebKey jwk = ExampleRsaJwksFromJwe.APPENDIX_A_1;
+        byte[] plaintext = "The true sign of intelligence is not knowledge but imagination.".getBytes("UTF-8");
+        String cs = encrypt(plaintext, KeyManagementAlgorithmIdentifiers.RSA_OAEP,
+                ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256, jwk.getPublicKey(), true);
+
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setKey(jwk.getPrivateKey());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jwe.decrypt(Channels.newChannel(new ByteArrayInputStream(cs.getBytes("US-ASCII"))), out);
+        Assert.assertArrayEquals(plaintext, out.toByteArray());
+    }
+
+    @Test
+    public void nothingWrittenWhenTagIsBad() throws Exception
+    {
+        for (String enc : ENCS)
+        {
+            Key key = new AesKey(ByteUtil.randomBytes(cekLength(enc)));
+            String cs = encrypt(new byte[100000], KeyManagementAlgorithmIdentifiers.DIRECT, enc, key, false);
+            String badTag = cs.substring(0, cs.length() - 4) + (cs.endsWith("AAAA") ? "BBBB" : "AAAA");
+
+            JsonWebEncryption jwe = new JsonWebEncryption();
+            jwe.setKey(key);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try
+            {
+                jwe.decrypt(new TrickleInputStream(badTag, 1000), out);
+                Assert.fail("shouldn't decrypt with a bad tag " + enc);
+            }
+            catch (JoseException e)
+            {
+                if (enc.contains("CBC"))
+                {
+                    Assert.assertTrue(e instanceof IntegrityException);
+                }
+            }
+            Assert.assertEquals(0, out.size());
+        }
+    }
+
+    @Test
+    public void wrongNumberOfParts() throws Exception
+    {
+        Key key = new AesKey(ByteUtil.randomBytes(32));
+        String cs = encrypt(new byte[10], KeyManagementAlgorithmIdentifiers.DIRECT, ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256, key, false);
+        String[] bad = {cs + ".", cs + ".xyz", cs.substring(0, cs.lastIndexOf('.')), cs.substring(0, cs.indexOf('.')), "", "..."};
+        for (String b : bad)
+        {
+            JsonWebEncryption jwe = new JsonWebEncryption();
+            jwe.setKey(key);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try
+            {
+                jwe.decrypt(new TrickleInputStream(b, 3), out);
+                Assert.fail("shouldn't decrypt " + b);
+            }
+            catch (JoseException e)
+            {
+                // expected
+            }
+            Assert.assertEquals(0, out.size());
+        }
+    }
+
+    @Test
+    public void partsOtherThanCiphertextAreLimited() throws Exception
+    {
+        Key key = new AesKey(ByteUtil.randomBytes(32));
+        String cs = encrypt(new byte[10], KeyManagementAlgorithmIdentifiers.DIRECT, ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256, key, false);
+        StringBuilder longPart = new StringBuilder();
+        for (int i = 0; i < 70000; i++)
+        {
+            longPart.append('A');
+        }
+        String[] bad = {longPart + cs, cs.replace("..", "." + longPart + "."), cs + longPart};
+        for (String b : bad)
+        {
+            JsonWebEncryption jwe = new JsonWebEncryption();
+            jwe.setKey(key);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try
+            {
+                jwe.decrypt(new TrickleInputStream(b, 4096), out);
+                Assert.fail("shouldn't decrypt " + b);
+            }
+            catch (JoseException e)
+            {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("maximum allowed length"));
+            }
+            Assert.assertEquals(0, out.size());
+        }
+
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setKey(key);
+        jwe.setMaxStreamedPartLength(10);
+        try
+        {
+            jwe.decrypt(new ByteArrayInputStream(cs.getBytes("US-ASCII")), new ByteArrayOutputStream());
+            Assert.fail("shouldn't decrypt with a header longer than the limit");
+        }
+        catch (JoseException e)
+        {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("maximum allowed length of 10"));
+        }
+    }
+
+    private static int cekLength(String enc) throws JoseException
+    {
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setEncryptionMethodHeaderParameter(enc);
+        return jwe.getContentEncryptionAlgorithm().getContentEncryptionKeyDescriptor().getContentEncryptionKeyByteLength();
+    }
+
+    private static String encrypt(byte[] plaintext, String alg, String enc, Key key, boolean zip) throws JoseException
+    {
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setPlaintext(plaintext);
+        jwe.setAlgorithmHeaderValue(alg);
+        jwe.setEncryptionMethodHeaderParameter(enc);
+        if (zip)
+        {
+            jwe.enableDefaultCompression();
+        }
+        jwe.setKey(key);
+        return jwe.getCompactSerialization();
+    }
+
+    private static class TrickleInputStream extends FilterInputStream
+    {
+        private final int maxRead;
+
+        private TrickleInputStream(String content, int maxRead) throws IOException
+        {
+            super(new ByteArrayInputStream(content.getBytes("US-ASCII")));
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            return super.read(b, off, Math.min(len, maxRead));
+        }
+    }
+}
@@ -71,6 +71,43 @@ public class ZipTest extends TestCase
         assertEquals(plaintext, plaintextString);
     }
 
+    public void testShortPlaintextOnlySkipsCompressionWhenAskedTo() throws JoseException
+    {
+        AesKey key = new AesKey(ByteUtil.randomBytes(32));
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setPlaintext("{\"sub\":\"joe\",\"exp\":1300819380}");
+        jwe.setKey(key);
+        jwe.enableDefaultCompression();
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+
+        // compressed as asked by default
+        String cs = jwe.getCompactSerialization();
+        assertEquals(CompressionAlgorithmIdentifiers.DEFLATE, jwe.getCompressionAlgorithmHeaderParameter());
+        JsonWebEncryption decryptingJwe = new JsonWebEncryption();
+        decryptingJwe.setKey(key);
+        decryptingJwe.setCompactSerialization(cs);
+        assertEquals("{\"sub\":\"joe\",\"exp\":1300819380}", decryptingJwe.getPlaintextString());
+        assertEquals(CompressionAlgorithmIdentifiers.DEFLATE, decryptingJwe.getCompressionAlgorithmHeaderParameter());
+
+        jwe = new JsonWebEncryption();
+        jwe.setPlaintext("{\"sub\":\"joe\",\"exp\":1300819380}");
+        jwe.setKey(key);
+        jwe.enableDefaultCompression();
+        jwe.setSkipCompressionWhenNotWorthwhile(true);
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        cs = jwe.getCompactSerialization();
+        assertNull(jwe.getCompressionAlgorithmHeaderParameter());
+
+        decryptingJwe = new JsonWebEncryption();
+        decryptingJwe.setKey(key);
+        decryptingJwe.setCompactSerialization(cs);
+        assertEquals("{\"sub\":\"joe\",\"exp\":1300819380}", decryptingJwe.getPlaintextString());
+        assertNull(decryptingJwe.getCompressionAlgorithmHeaderParameter());
+        assertFalse(decryptingJwe.getHeaders().getFullHeaderAsJsonString().contains(HeaderParameterNames.ZIP));
+    }
+
     public void testJweBadZipValueProduce() throws JoseException
     {
         JsonWebEncryption jwe = new JsonWebEncryption();
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class FileJwksCacheStoreTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void storeAndLoad() throws Exception
+    {
+        Path file = folder.getRoot().toPath().resolve("jwks-snapshot.json");
+        FileJwksCacheStore store = new FileJwksCacheStore(file);
+        assertThat(store.load(), nullValue());
+
+        String body = "{\"keys\":[{\"kty\":\"oct\",\"kid\":\"k1\",\"k\":\"GawgguFyGrWKav7AX4VKUg\"}]}";
+        store.store(new JwksSnapshot("https://example.com/jwks", body, "\"abc\"", null, 1500000000000L));
+        store.store(new JwksSnapshot("https://example.com/jwks", body, "\"xyz\"", "Tue, 15 Nov 1994 12:45:26 GMT", 1600000000000L));
+
+        JwksSnapshot snapshot = new FileJwksCacheStore(file).load();
+        assertThat(snapshot.getLocation(), equalTo("https://example.com/jwks"));
+        assertThat(snapshot.getBody(), equalTo(body));
+        assertThat(snapshot.getEntityTag(), equalTo("\"xyz\""));
+        assertThat(snapshot.getLastModified(), equalTo("Tue, 15 Nov 1994 12:45:26 GMT"));
+        assertThat(snapshot.getExpires(), equalTo(1600000000000L));
+
+        // nothing but the snapshot itself is left behind
+        assertThat(folder.getRoot().list().length, equalTo(1));
+    }
+
+    @Test
+    public void badContent() throws Exception
+    {
+        Path file = folder.getRoot().toPath().resolve("jwks-snapshot.json");
+        FileJwksCacheStore store = new FileJwksCacheStore(file);
+        for (String content : new String[] {"{\"keys\":[", "{\"location\":\"https://example.com/jwks\"}", "{\"jwks\":42,\"expires\":1}"})
+        {
+            Files.write(file, content.getBytes("UTF-8"));
+            try
+            {
+                JwksSnapshot snapshot = store.load();
+                fail("shouldn't have loaded " + snapshot + " from " + content);
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+        }
+    }
+}
@@ -17,26 +17,48 @@ package org.jose4j.jwk;
 
 import org.jose4j.http.Get;
 import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
 import org.jose4j.http.SimpleResponse;
 import org.jose4j.keys.X509Util;
+import org.jose4j.lang.StringUtil;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  *
@@ -105,7 +127,470 @@ public class HttpsJwksTest
         }
     }
 
-    // todo more tests
+    @Test
+    public void concurrentFirstLoadMakesOneRequest() throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                requests.incrementAndGet();
+                try
+                {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IOException(e);
+                }
+                return jwksResponse("k1");
+            }
+        });
+
+        int threadCount = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            Callable<List<JsonWebKey>> task = new Callable<List<JsonWebKey>>()
+            {
+                @Override
+                public List<JsonWebKey> call() throws Exception
+                {
+                    return httpsJwks.getJsonWebKeys();
+                }
+            };
+            List<Future<List<JsonWebKey>>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++)
+            {
+                futures.add(executorService.submit(task));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<List<JsonWebKey>> future : futures)
+            {
+                assertThat(future.get().get(0).getKeyId(), equalTo("k1"));
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+
+        assertThat(requests.get(), equalTo(1));
+        assertThat(httpsJwks.getRefreshCount(), equalTo(1L));
+        assertThat(httpsJwks.getRefreshFailureCount(), equalTo(0L));
+    }
+
+    @Test
+    public void backgroundRefreshServesStaleKeys() throws Exception
+    {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicBoolean fail = new AtomicBoolean();
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setDefaultCacheDuration(1);
+        httpsJwks.setBackgroundRefreshRetryDelay(1);
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                int count = requests.incrementAndGet();
+                if (fail.get())
+                {
+                    throw new IOException("nope");
+                }
+                return jwksResponse("k" + count);
+            }
+        });
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            httpsJwks.setBackgroundRefreshExecutor(executor);
+            assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+
+            // refreshed ahead of the 1 second expiry without anyone asking
+            waitFor(requests, 2);
+            assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+
+            fail.set(true);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (httpsJwks.getRefreshFailureCount() < 2 && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(10);
+            }
+            // expired by now but the old keys are still used
+            assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+            assertTrue(httpsJwks.getRefreshFailureCount() >= 2);
+            assertThat(httpsJwks.getRefreshCount(), equalTo(2L));
+            assertTrue(httpsJwks.getTotalRefreshDurationMillis() >= httpsJwks.getLastRefreshDurationMillis());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void notModifiedKeepsCachedKeys() throws Exception
+    {
+        final String etag = "\"v1\"";
+        final String lastModified = "Tue, 15 Nov 1994 12:45:26 GMT";
+        final List<String> ifNoneMatchValues = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/jwks", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                requests.incrementAndGet();
+                String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                ifNoneMatchValues.add(ifNoneMatch);
+                exchange.getResponseHeaders().add("ETag", etag);
+                exchange.getResponseHeaders().add("Last-Modified", lastModified);
+                exchange.getResponseHeaders().add("Cache-Control", "max-age=300");
+                if (etag.equals(ifNoneMatch))
+                {
+                    exchange.sendResponseHeaders(304, -1);
+                }
+                else
+                {
+                    byte[] body = StringUtil.getBytesUtf8(jwksResponse("k1").getBody());
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream os = exchange.getResponseBody())
+                    {
+                        os.write(body);
+                    }
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        try
+        {
+            String location = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/jwks";
+            HttpsJwks httpsJwks = new HttpsJwks(location);
+            List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+            assertThat(keys.get(0).getKeyId(), equalTo("k1"));
+
+            httpsJwks.refresh();
+            httpsJwks.refresh();
+            assertThat(httpsJwks.getJsonWebKeys(), sameInstance(keys));
+            assertThat(requests.get(), equalTo(3));
+            assertThat(ifNoneMatchValues.get(0), nullValue());
+            assertThat(ifNoneMatchValues.get(1), equalTo(etag));
+            assertThat(ifNoneMatchValues.get(2), equalTo(etag));
+            assertThat(httpsJwks.getRefreshCount(), equalTo(3L));
+            assertThat(httpsJwks.getNotModifiedCount(), equalTo(2L));
+
+            // a plain GET never sends validators and a 304 isn't expected for it
+            SimpleResponse response = new Get().get(location);
+            assertThat(response.getStatusCode(), equalTo(200));
+            assertThat(ifNoneMatchValues.get(3), nullValue());
+        }
+        finally
+        {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void coldStartFromSnapshot() throws Exception
+    {
+        final String location = "https://example.com/jwks";
+        final AtomicInteger requests = new AtomicInteger();
+        SimpleGet simpleGet = new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                requests.incrementAndGet();
+                return jwksResponse("k2");
+            }
+        };
+
+        long later = System.currentTimeMillis() + 60000;
+        JwksSnapshot snapshot = new JwksSnapshot(location, jwksResponse("k1").getBody(), null, null, later);
+
+        // a snapshot for some other location is ignored
+        InMemoryJwksCacheStore otherStore = new InMemoryJwksCacheStore();
+        otherStore.store(snapshot);
+        HttpsJwks other = new HttpsJwks("https://example.org/jwks");
+        other.setSimpleHttpGet(simpleGet);
+        other.setCacheStore(otherStore);
+        assertThat(other.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+        assertThat(otherStore.load().getLocation(), equalTo("https://example.org/jwks"));
+        assertThat(requests.get(), equalTo(1));
+
+        InMemoryJwksCacheStore store = new InMemoryJwksCacheStore();
+        store.store(snapshot);
+
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        httpsJwks.setSimpleHttpGet(simpleGet);
+        httpsJwks.setCacheStore(store);
+        assertThat(httpsJwks.getCachedJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+        assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+        assertThat(requests.get(), equalTo(1));
+    }
+
+    @Test
+    public void expiredSnapshotServedWhileRevalidatedWhicheverSetterIsFirst() throws Exception
+    {
+        expiredSnapshotServedWhileRevalidated(true);
+        expiredSnapshotServedWhileRevalidated(false);
+    }
+
+    private void expiredSnapshotServedWhileRevalidated(boolean executorFirst) throws Exception
+    {
+        final String location = "https://example.com/jwks";
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        InMemoryJwksCacheStore store = new InMemoryJwksCacheStore();
+        store.store(new JwksSnapshot(location, jwksResponse("k1").getBody(), null, null, System.currentTimeMillis() - 1000));
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            HttpsJwks httpsJwks = new HttpsJwks(location);
+            httpsJwks.setSimpleHttpGet(new SimpleGet()
+            {
+                @Override
+                public SimpleResponse get(String location) throws IOException
+                {
+                    requests.incrementAndGet();
+                    try
+                    {
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new IOException(e);
+                    }
+                    return jwksResponse("k2");
+                }
+            });
+            if (executorFirst)
+            {
+                httpsJwks.setBackgroundRefreshExecutor(executor);
+                httpsJwks.setCacheStore(store);
+            }
+            else
+            {
+                httpsJwks.setCacheStore(store);
+                httpsJwks.setBackgroundRefreshExecutor(executor);
+            }
+
+            // served right away without waiting on the (held up) request
+            assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+            waitFor(requests, 1);
+            release.countDown();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            String refreshedBody = jwksResponse("k2").getBody();
+            while (!refreshedBody.equals(store.load().getBody()) && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(10);
+            }
+            assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+            assertThat(store.load().getBody(), equalTo(refreshedBody));
+            assertTrue(store.load().getExpires() > System.currentTimeMillis());
+            assertThat(requests.get(), equalTo(1));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void tooOldSnapshotIgnored() throws Exception
+    {
+        String location = "https://example.com/jwks";
+        InMemoryJwksCacheStore store = new InMemoryJwksCacheStore();
+        store.store(new JwksSnapshot(location, jwksResponse("k1").getBody(), null, null, System.currentTimeMillis() - 120000));
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        httpsJwks.setRetainCacheOnErrorDuration(60);
+        httpsJwks.setMaxSnapshotAge(60);
+        httpsJwks.setCacheStore(store);
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                throw new IOException("nope");
+            }
+        });
+        assertThat(httpsJwks.getCachedJsonWebKeys(), nullValue());
+        try
+        {
+            List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+            fail("shouldn't have gotten " + keys);
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        // but within the max age, it's retained when the request fails
+        httpsJwks = new HttpsJwks(location);
+        httpsJwks.setRetainCacheOnErrorDuration(60);
+        httpsJwks.setCacheStore(store);
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                throw new IOException("nope");
+            }
+        });
+        assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+    }
+
+    @Test
+    public void failedBackgroundRefreshWaitsAndStalenessIsBounded() throws Exception
+    {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicBoolean fail = new AtomicBoolean();
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setDefaultCacheDuration(1);
+        httpsJwks.setBackgroundRefreshRetryDelay(60);
+        httpsJwks.setMaxStaleDuration(2);
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                int count = requests.incrementAndGet();
+                if (fail.get())
+                {
+                    throw new IOException("nope");
+                }
+                return jwksResponse("k" + count);
+            }
+        });
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            httpsJwks.setBackgroundRefreshExecutor(executor);
+            fail.set(true);
+            try
+            {
+                httpsJwks.getJsonWebKeys();
+                fail("the first load should have failed");
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+            fail.set(false);
+            long loaded = System.currentTimeMillis();
+            assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+            fail.set(true);
+
+            // the refresh ahead of expiry fails
+            waitFor(requests, 3);
+
+            // expired but within the max staleness and no more requests are made before the retry delay has passed
+            while (System.currentTimeMillis() < loaded + 1500)
+            {
+                assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+                assertThat(httpsJwks.getCachedJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+                Thread.sleep(10);
+            }
+            assertThat(requests.get(), equalTo(3));
+
+            // too stale to use any more so the caller waits on the request and gets its failure
+            Thread.sleep(loaded + 3200 - System.currentTimeMillis());
+            assertThat(httpsJwks.getCachedJsonWebKeys(), nullValue());
+            try
+            {
+                List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+                fail("shouldn't have gotten " + keys);
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+            assertThat(requests.get(), equalTo(4));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void noBackgroundRefreshAfterClose() throws Exception
+    {
+        for (boolean close : new boolean[] {true, false})
+        {
+            final AtomicInteger requests = new AtomicInteger();
+            HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+            httpsJwks.setDefaultCacheDuration(1);
+            httpsJwks.setSimpleHttpGet(new SimpleGet()
+            {
+                @Override
+                public SimpleResponse get(String location) throws IOException
+                {
+                    return jwksResponse("k" + requests.incrementAndGet());
+                }
+            });
+
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(true);
+            try
+            {
+                httpsJwks.setBackgroundRefreshExecutor(executor);
+                assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+                assertThat(executor.getQueue().size(), equalTo(1));
+                if (close)
+                {
+                    httpsJwks.close();
+                }
+                else
+                {
+                    httpsJwks.setBackgroundRefreshExecutor(null);
+                }
+
+                // nothing is left on the executor to hold onto the instance or poll the endpoint
+                assertTrue(executor.getQueue().isEmpty());
+                Thread.sleep(1500);
+                assertThat(requests.get(), equalTo(1));
+                assertThat(executor.getCompletedTaskCount(), equalTo(0L));
+
+                // still usable, just without the executor
+                assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+                assertThat(requests.get(), equalTo(2));
+                assertTrue(executor.getQueue().isEmpty());
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static void waitFor(AtomicInteger counter, int value) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counter.get() < value && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertThat(counter.get(), equalTo(value));
+    }
+
+    private static SimpleResponse jwksResponse(String kid)
+    {
+        String body = "{\"keys\":[{\"kty\":\"oct\",\"kid\":\"" + kid + "\",\"k\":\"GawgguFyGrWKav7AX4VKUg\"}]}";
+        return new Response(200, "OK", Collections.<String, List<String>>emptyMap(), body);
+    }
 
     @Test
     @Ignore // skip this one b/c of external dependency and manual intervention needed
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.ExampleEcKeysFromJws;
+import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.keys.X509Util;
+import org.junit.Test;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class IndexedJsonWebKeysTest
+{
+    private static final String[] KIDS = {null, "a", "b", "c", "d"};
+    private static final String[] USES = {null, Use.SIGNATURE, Use.ENCRYPTION};
+    private static final String[] THUMBS = {null, "t1", "t2"};
+
+    @Test
+    public void sameSelectionAsUnindexed() throws Exception
+    {
+        X509Certificate certificate = new X509Util().fromBase64Der(
+                "MIICITCCAYqgAwIBAgIINulGhAa6BxUwDQYJKoZIhvcNAQEFBQAwNjE0MDIGA1UE\nAxMrZmVkZXJhdGVkLXNpZ25vbi5zeXN0ZW0uZ3NlcnZpY2VhY2NvdW50LmNvbTAe\n" +
+                "Fw0xMzAyMjYwNTI4MzRaFw0xMzAyMjcxODI4MzRaMDYxNDAyBgNVBAMTK2ZlZGVy\nYXRlZC1zaWdub24uc3lzdGVtLmdzZXJ2aWNlYWNjb3VudC5jb20wgZ8wDQYJKoZI\n" +
+                "hvcNAQEBBQADgY0AMIGJAoGBAL9Q8ogQtQfHVzto3p1xiQjBXxcBceE/LTa9jxv4\nEEp0fkKP9bBz/uRlpGkNnP++qkPb6N6s4+mgF12JbTsyRxb4jfXGobfW2lx6HZkX\n" +
+                "RoCk4mAdu3axEVGlYQq0IIsgvNfFiks0Z2pRkovDshPqXBt0FUemM0M7bVODAsZn\ncE3xAgMBAAGjODA2MAwGA1UdEwEB/wQCMAAwDgYDVR0PAQH/BAQDAgeAMBYGA1Ud\n" +
+                "JQEB/wQMMAoGCCsGAQUFBwMCMA0GCSqGSIb3DQEBBQUAA4GBAA38HHhl0cddqDEd\nswuGUcIvPE1QDqlyfYZUZyZPfZ2JSuYj34DdLm31aq8SOAxNRorpyel/n1bxDUfI\n" +
+                "FueGAkh5AySoPsH7wnj/ZigsidGct9yllIcsqeIvFYkOW53rVwpriU3wcEmh+RzI\nLUYyJkbYf3pY8XHeE56dZqzU+E8Y");
+        String derivedX5t = X509Util.x5t(certificate);
+        String derivedX5tS256 = X509Util.x5tS256(certificate);
+
+        Random random = new Random(2016);
+        List<JsonWebKey> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+        {
+            JsonWebKey jwk;
+            switch (random.nextInt(4))
+            {
+                case 0:
+                    jwk = PublicJsonWebKey.Factory.newPublicJwk(ExampleRsaKeyFromJws.PUBLIC_KEY);
+                    break;
+                case 1:
+                    jwk = PublicJsonWebKey.Factory.newPublicJwk(ExampleEcKeysFromJws.PUBLIC_256);
+                    break;
+                case 2:
+                    jwk = PublicJsonWebKey.Factory.newPublicJwk(ExampleEcKeysFromJws.PUBLIC_521);
+                    break;
+                default:
+                    jwk = OctJwkGenerator.generateJwk(256);
+            }
+            jwk.setKeyId(pick(random, KIDS));
+            jwk.setUse(pick(random, USES));
+            if (random.nextInt(4) == 0)
+            {
+                jwk.setAlgorithm(random.nextBoolean() ? AlgorithmIdentifiers.RSA_USING_SHA256 : AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256);
+            }
+            if (jwk instanceof PublicJsonWebKey)
+            {
+                PublicJsonWebKey publicJwk = (PublicJsonWebKey) jwk;
+                publicJwk.setX509CertificateSha1Thumbprint(pick(random, THUMBS));
+                publicJwk.setX509CertificateSha256Thumbprint(pick(random, THUMBS));
+                if (random.nextInt(5) == 0)
+                {
+                    publicJwk.setCertificateChain(certificate);
+                }
+            }
+            keys.add(jwk);
+        }
+
+        IndexedJsonWebKeys indexed = new IndexedJsonWebKeys(keys);
+        assertThat(indexed, equalTo(keys));
+
+        String[] jwsAlgs = {AlgorithmIdentifiers.RSA_USING_SHA256, AlgorithmIdentifiers.RSA_USING_SHA384,
+                AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256, AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512,
+                AlgorithmIdentifiers.HMAC_SHA256};
+        String[] headerThumbs = {null, "t1", "t3", derivedX5t, derivedX5tS256};
+        String[] headerKids = {null, "a", "d", "nope"};
+        VerificationJwkSelector verificationJwkSelector = new VerificationJwkSelector();
+        DecryptionJwkSelector decryptionJwkSelector = new DecryptionJwkSelector();
+        int nonEmpty = 0;
+        for (String kid : headerKids)
+        {
+            for (String x5t : headerThumbs)
+            {
+                for (String x5tS256 : headerThumbs)
+                {
+                    for (String alg : jwsAlgs)
+                    {
+                        JsonWebSignature jws = new JsonWebSignature();
+                        jws.setAlgorithmHeaderValue(alg);
+                        jws.setKeyIdHeaderValue(kid);
+                        jws.setX509CertSha1ThumbprintHeaderValue(x5t);
+                        jws.setX509CertSha256ThumbprintHeaderValue(x5tS256);
+                        List<JsonWebKey> expected = verificationJwkSelector.selectList(jws, keys);
+                        assertThat(jws.getHeaders().getFullHeaderAsJsonString(), verificationJwkSelector.selectList(jws, indexed), equalTo(expected));
+                        nonEmpty += expected.isEmpty() ? 0 : 1;
+                    }
+
+                    for (String alg : new String[] {KeyManagementAlgorithmIdentifiers.RSA_OAEP, KeyManagementAlgorithmIdentifiers.ECDH_ES})
+                    {
+                        JsonWebEncryption jwe = new JsonWebEncryption();
+                        jwe.setAlgorithmHeaderValue(alg);
+                        jwe.setKeyIdHeaderValue(kid);
+                        jwe.setX509CertSha1ThumbprintHeaderValue(x5t);
+                        jwe.setX509CertSha256ThumbprintHeaderValue(x5tS256);
+                        List<JsonWebKey> expected = decryptionJwkSelector.selectList(jwe, keys);
+                        assertThat(decryptionJwkSelector.selectList(jwe, indexed), equalTo(expected));
+                    }
+                }
+            }
+        }
+        assertThat(nonEmpty > 100, equalTo(true));
+    }
+
+    @Test
+    public void immutable() throws Exception
+    {
+        List<JsonWebKey> keys = new ArrayList<>();
+        keys.add(OctJwkGenerator.generateJwk(128));
+        IndexedJsonWebKeys indexed = new IndexedJsonWebKeys(keys);
+        keys.add(OctJwkGenerator.generateJwk(128));
+        assertThat(indexed.size(), equalTo(1));
+        try
+        {
+            indexed.add(OctJwkGenerator.generateJwk(128));
+            fail("should be immutable");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    private static String pick(Random random, String[] values)
+    {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -154,4 +154,20 @@ public class Rfc7638JwkThumbprintTest
         thumb = "5_qb56G0OJDw-lb5mkDaWS4MwuY0fatkn9LkNqUHqMk";
         assertThat(thumb, equalTo(jwk.calculateBase64urlEncodedThumbprint(SHA_256)));
     }
+
+    @Test
+    public void thumbprintRemembered() throws JoseException
+    {
+        String json = "{\"k\":\"ZW8Eg8TiwoT2YamLJfC2leYpLgLmUAh_PcMHqRzBnMg\",\"kty\":\"oct\"}";
+        byte[] expected = getMessageDigest(SHA_256).digest(StringUtil.getBytesUtf8(json));
+        JsonWebKey jsonWebKey = JsonWebKey.Factory.newJwk(json);
+
+        byte[] thumbprint = jsonWebKey.calculateThumbprint(SHA_256);
+        assertArrayEquals(expected, thumbprint);
+
+        // messing with the returned array doesn't mess with the remembered value
+        thumbprint[0] ^= 1;
+        assertArrayEquals(expected, jsonWebKey.calculateThumbprint(SHA_256));
+        assertThat(jsonWebKey.calculateThumbprint("SHA-1").length, equalTo(20));
+    }
 }
@@ -25,6 +25,7 @@ import org.jose4j.lang.JsonHelp;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -189,6 +190,21 @@ public class X5cTest extends TestCase
         jwkJustOneCert.setCertificateChain(x509Certificate);
 
         assertEquals(jwkJustOneCert.getKey(), jwk.getKey());
+
+        String x5t = jwk.getX509CertificateSha1Thumbprint(true);
+        assertEquals(X509Util.x5t(x509Certificate), x5t);
+        assertSame(x5t, jwk.getX509CertificateSha1Thumbprint(true));
+        String x5tS256 = jwk.getX509CertificateSha256Thumbprint(true);
+        assertEquals(X509Util.x5tS256(x509Certificate), x5tS256);
+        assertSame(x5tS256, jwk.getX509CertificateSha256Thumbprint(true));
+
+        // remembered thumbprints go away with the certificate they came from
+        List<X509Certificate> reversed = new ArrayList<X509Certificate>(chain);
+        Collections.reverse(reversed);
+        jwk.setCertificateChain(reversed);
+        assertEquals(X509Util.x5t(reversed.get(0)), jwk.getX509CertificateSha1Thumbprint(true));
+        assertEquals(X509Util.x5tS256(reversed.get(0)), jwk.getX509CertificateSha256Thumbprint(true));
+        assertFalse(x5t.equals(jwk.getX509CertificateSha1Thumbprint(true)));
     }
 }
 
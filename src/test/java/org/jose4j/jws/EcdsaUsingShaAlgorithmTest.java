@@ -17,15 +17,20 @@
 package org.jose4j.jws;
 
 import org.jose4j.base64url.Base64Url;
+import org.jose4j.jca.ProviderContext;
 import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.keys.ExampleEcKeysFromJws;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.security.Signature;
 import java.util.Arrays;
+import java.util.Random;
 
 import static org.hamcrest.CoreMatchers.*;
 
@@ -184,4 +189,81 @@ public class EcdsaUsingShaAlgorithmTest
         Assert.assertTrue(jws.verifySignature());
     }
 
+    @Test
+    public void derRoundTrips() throws IOException
+    {
+        Random random = new Random(1234);
+        for (int length : new int[] {64, 96, 132})
+        {
+            for (int n = 0; n < 200; n++)
+            {
+                byte[] concatenated = new byte[length];
+                random.nextBytes(concatenated);
+                int zeros = random.nextInt(4);
+                for (int z = 0; z < zeros; z++)
+                {
+                    concatenated[(n % 2 == 0) ? z : length / 2 + z] = 0;
+                }
+                byte[] der = EcdsaUsingShaAlgorithm.convertConcatenatedToDer(concatenated);
+                Assert.assertEquals(der.length - (der[1] == (byte) 0x81 ? 3 : 2), der[der[1] == (byte) 0x81 ? 2 : 1] & 0xff);
+                Assert.assertArrayEquals(concatenated, EcdsaUsingShaAlgorithm.convertDerToConcatenated(der, length));
+            }
+        }
+    }
+
+    @Test
+    public void malformedDer() throws IOException
+    {
+        byte[][] bad = {
+                {48, 6, 2, 9, 1, 2, 1, 1},
+                {48, 6, 2, 1, 1, 3, 1, 1},
+                {48, 7, 2, 1, 1, 2, 3, 1, 1},
+                {48, (byte) 0x82, 0, 6, 2, 1, 1, 2, 1, 1},
+        };
+        byte[] ok = {48, 6, 2, 1, 1, 2, 1, 1};
+        byte[] expected = new byte[64];
+        expected[31] = expected[63] = 1;
+        Assert.assertArrayEquals(expected, EcdsaUsingShaAlgorithm.convertDerToConcatenated(ok, 64));
+
+        for (byte[] der : bad)
+        {
+            try
+            {
+                EcdsaUsingShaAlgorithm.convertDerToConcatenated(der, 64);
+                Assert.fail("should have failed on " + Arrays.toString(der));
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void p1363AndDerInterop() throws Exception
+    {
+        EcdsaUsingShaAlgorithm alg = new EcdsaUsingShaAlgorithm.EcdsaP256UsingSha256();
+        Assert.assertFalse(alg.isP1363FormatAvailable("NoSuchProvider"));
+
+        ProviderContext providerContext = new ProviderContext();
+        byte[] input = StringUtil.getBytesUtf8("some signing input");
+        for (int i = 0; i < 5; i++)
+        {
+            byte[] concatenated = alg.sign(ExampleEcKeysFromJws.PRIVATE_256, input, providerContext);
+            Assert.assertEquals(64, concatenated.length);
+            Signature derVerifier = Signature.getInstance("SHA256withECDSA");
+            derVerifier.initVerify(ExampleEcKeysFromJws.PUBLIC_256);
+            derVerifier.update(input);
+            Assert.assertTrue(derVerifier.verify(EcdsaUsingShaAlgorithm.convertConcatenatedToDer(concatenated)));
+
+            Signature derSigner = Signature.getInstance("SHA256withECDSA");
+            derSigner.initSign(ExampleEcKeysFromJws.PRIVATE_256);
+            derSigner.update(input);
+            byte[] fromDer = EcdsaUsingShaAlgorithm.convertDerToConcatenated(derSigner.sign(), 64);
+            Assert.assertTrue(alg.verifySignature(fromDer, ExampleEcKeysFromJws.PUBLIC_256, input, providerContext));
+
+            fromDer[10] ^= 1;
+            Assert.assertFalse(alg.verifySignature(fromDer, ExampleEcKeysFromJws.PUBLIC_256, input, providerContext));
+        }
+    }
 }
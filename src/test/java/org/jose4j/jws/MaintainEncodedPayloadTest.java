@@ -1,10 +1,19 @@
 package org.jose4j.jws;
 
+import org.jose4j.base64url.Base64Url;
 import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.StringUtil;
+import org.jose4j.mac.MacUtil;
 import org.junit.Test;
 
+import javax.crypto.Mac;
+
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 /**
  *
@@ -27,4 +36,31 @@ public class MaintainEncodedPayloadTest
         jws.setKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
         assertThat(jws.getPayload(), equalTo("!This is no longer a vacation."));
     }
+
+    @Test
+    public void signatureIsOverTheEncodedHeaderAsReceived() throws Exception
+    {
+        // like above, there's an extra 'X' at the end of the encoded header that doesn't change what it decodes to
+        // but is part of what's signed so verification has to use the signing input straight from the token
+        HmacKey key = new HmacKey(ByteUtil.randomBytes(32));
+        String signingInput = "eyJhbGciOiJIUzI1NiJ9X.eyJzdWIiOiJtZSJ9";
+        Mac mac = Mac.getInstance(MacUtil.HMAC_SHA256);
+        mac.init(key);
+        byte[] signature = mac.doFinal(StringUtil.getBytesAscii(signingInput));
+        String funkyToken = signingInput + "." + new Base64Url().base64UrlEncode(signature);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setCompactSerialization(funkyToken);
+        jws.setKey(key);
+        assertThat(jws.getHeaders().getFullHeaderAsJsonString(), equalTo("{\"alg\":\"HS256\"}"));
+        assertTrue(jws.verifySignature());
+        assertThat(jws.getPayload(), equalTo("{\"sub\":\"me\"}"));
+
+        // but once the header has been changed it's verified over the re-encoded header
+        jws = new JsonWebSignature();
+        jws.setCompactSerialization(funkyToken);
+        jws.setKeyIdHeaderValue("k");
+        jws.setKey(key);
+        assertFalse(jws.verifySignature());
+    }
 }
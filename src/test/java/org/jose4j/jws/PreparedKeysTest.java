@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jose4j.jws;
+
+import org.jose4j.jca.JcaEngineCache;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.InvalidKeyException;
+import org.jose4j.mac.MacUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ */
+public class PreparedKeysTest
+{
+    @After
+    public void reset()
+    {
+        JcaEngineCache.setEnabled(true);
+    }
+
+    @Test
+    public void validationIsRemembered() throws Exception
+    {
+        final int[] count = new int[1];
+        RsaUsingShaAlgorithm alg = new RsaUsingShaAlgorithm.RsaSha256()
+        {
+            @Override
+            public void validatePublicKey(PublicKey key) throws InvalidKeyException
+            {
+                count[0]++;
+                super.validatePublicKey(key);
+            }
+        };
+
+        for (int i = 0; i < 5; i++)
+        {
+            alg.validateVerificationKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
+        }
+        Assert.assertEquals(1, count[0]);
+
+        try
+        {
+            alg.validateVerificationKey(new HmacKey(new byte[32]));
+            Assert.fail("shouldn't validate a secret key for RSA");
+        }
+        catch (InvalidKeyException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void failedValidationIsNotRemembered() throws Exception
+    {
+        HmacUsingShaAlgorithm alg = new HmacUsingShaAlgorithm.HmacSha256();
+        HmacKey shortKey = new HmacKey(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        for (int i = 0; i < 3; i++)
+        {
+            try
+            {
+                alg.validateVerificationKey(shortKey);
+                Assert.fail("key is too short");
+            }
+            catch (InvalidKeyException e)
+            {
+                // expected
+            }
+        }
+        alg.validateVerificationKey(new HmacKey(new byte[32]));
+        alg.validateVerificationKey(new HmacKey(new byte[32]));
+    }
+
+    @Test
+    public void macsMatchWithOrWithoutEngineCache() throws Exception
+    {
+        byte[] data = {1, 2, 3, 4, 5};
+        HmacKey key1 = new HmacKey(new byte[32]);
+        HmacKey key2 = new HmacKey(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+                17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32});
+        byte[] expected1 = MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, key1).doFinal(data);
+        byte[] expected2 = MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, key2).doFinal(data);
+
+        HmacUsingShaAlgorithm alg = new HmacUsingShaAlgorithm.HmacSha256();
+        ProviderContext providerContext = new ProviderContext();
+        for (boolean enabled : new boolean[] {true, false, true})
+        {
+            JcaEngineCache.setEnabled(enabled);
+            for (int i = 0; i < 3; i++)
+            {
+                Assert.assertArrayEquals(expected1, alg.sign(key1, data, providerContext));
+                Assert.assertArrayEquals(expected2, alg.sign(key2, data, providerContext));
+                Assert.assertTrue(alg.verifySignature(expected1, key1, data, providerContext));
+                Assert.assertFalse(alg.verifySignature(expected1, key2, data, providerContext));
+            }
+            JcaEngineCache.clear();
+        }
+    }
+
+    @Test
+    public void boundedNumberOfKeys() throws Exception
+    {
+        PreparedKeys preparedKeys = new PreparedKeys();
+        List<HmacKey> keys = new ArrayList<>();
+        for (int i = 0; i < PreparedKeys.MAX_KEYS * 3; i++)
+        {
+            byte[] raw = new byte[32];
+            raw[0] = (byte) i;
+            raw[1] = (byte) (i >> 8);
+            HmacKey key = new HmacKey(raw);
+            keys.add(key);
+            preparedKeys.setValidated(key);
+            Assert.assertTrue(preparedKeys.isValidated(key));
+
+            // making room for another key only forgets one rather than all of them
+            Assert.assertEquals(Math.min(i + 1, PreparedKeys.MAX_KEYS), preparedKeys.size());
+        }
+
+        int remembered = 0;
+        for (HmacKey key : keys)
+        {
+            remembered += preparedKeys.isValidated(key) ? 1 : 0;
+        }
+        Assert.assertEquals(PreparedKeys.MAX_KEYS, remembered);
+    }
+}
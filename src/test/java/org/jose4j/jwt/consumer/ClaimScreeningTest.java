@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class ClaimScreeningTest
+{
+    @Test
+    public void unacceptableClaimsRejectedBeforeKeyResolution() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        CountingResolver resolver = new CountingResolver(jwk.getKey());
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setExpectedAudience("aud")
+                .setExpectedIssuer("iss")
+                .setEnableClaimScreeningBeforeVerification()
+                .build();
+
+        NumericDate exp = NumericDate.now();
+        exp.addSeconds(120);
+        NumericDate expired = NumericDate.now();
+        expired.addSeconds(-120);
+
+        jwtConsumer.process(sign(jwk, "iss", "aud", exp));
+        assertThat(resolver.count, equalTo(1));
+
+        String[] unacceptable = {sign(jwk, "iss", "aud", expired), sign(jwk, "iss", "nope", exp), sign(jwk, "other", "aud", exp)};
+        for (String jwt : unacceptable)
+        {
+            InvalidJwtException screened = expectFailure(jwtConsumer, jwt);
+            InvalidJwtException unscreened = expectFailure(new JwtConsumerBuilder()
+                    .setVerificationKey(jwk.getKey())
+                    .setExpectedAudience("aud")
+                    .setExpectedIssuer("iss")
+                    .build(), jwt);
+            assertThat(screened.getMessage(), equalTo(unscreened.getMessage()));
+        }
+        assertThat(resolver.count, equalTo(1));
+    }
+
+    @Test
+    public void signatureStillRequired() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        CountingResolver resolver = new CountingResolver(jwk.getKey());
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setExpectedAudience("aud")
+                .setEnableClaimScreeningBeforeVerification()
+                .build();
+
+        NumericDate exp = NumericDate.now();
+        exp.addSeconds(120);
+        String jwt = sign(jwk, "iss", "aud", exp);
+        int idx = jwt.length() - 10;
+        String tamperedJwt = jwt.substring(0, idx) + (jwt.charAt(idx) == 'A' ? 'B' : 'A') + jwt.substring(idx + 1);
+
+        InvalidJwtException e = expectFailure(jwtConsumer, tamperedJwt);
+        assertThat(e instanceof InvalidJwtSignatureException, equalTo(true));
+        assertThat(resolver.count, equalTo(1));
+
+        String[] parts = jwt.split("\\.");
+        JsonWebSignature unsecured = new JsonWebSignature();
+        unsecured.setPayload(unsecuredPayload(exp));
+        unsecured.setAlgorithmHeaderValue(AlgorithmIdentifiers.NONE);
+        unsecured.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        expectFailure(jwtConsumer, unsecured.getCompactSerialization());
+        expectFailure(jwtConsumer, parts[0] + "." + parts[1] + ".");
+    }
+
+    private String unsecuredPayload(NumericDate exp)
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience("aud");
+        claims.setExpirationTime(exp);
+        return claims.toJson();
+    }
+
+    private InvalidJwtException expectFailure(JwtConsumer jwtConsumer, String jwt)
+    {
+        try
+        {
+            JwtContext jwtContext = jwtConsumer.process(jwt);
+            fail("shouldn't have processed " + jwtContext.getJwtClaims());
+            return null;
+        }
+        catch (InvalidJwtException e)
+        {
+            return e;
+        }
+    }
+
+    private String sign(OctetSequenceJsonWebKey jwk, String issuer, String audience, NumericDate exp) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(issuer);
+        claims.setAudience(audience);
+        claims.setExpirationTime(exp);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(jwk.getKey());
+        return jws.getCompactSerialization();
+    }
+
+    private static class CountingResolver implements VerificationKeyResolver
+    {
+        private final Key key;
+        private int count;
+
+        CountingResolver(Key key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            count++;
+            return key;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.resolvers.AsyncDecryptionKeyResolver;
+import org.jose4j.keys.resolvers.AsyncVerificationKeyResolver;
+import org.jose4j.keys.resolvers.KeyResolutionCallback;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class JwtConsumerAsyncTest
+{
+    private static final ExecutorService resolutionExecutor = Executors.newSingleThreadExecutor();
+
+    @AfterClass
+    public static void shutdown()
+    {
+        resolutionExecutor.shutdown();
+    }
+
+    @Test
+    public void processAsync() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKey(jwk.getKey())
+                .setExpectedAudience("aud")
+                .setAsyncProcessingLimits(2, 10)
+                .build();
+
+        String jwt = sign(jwk, "aud");
+        RecordingCallback callback = new RecordingCallback();
+        Future<JwtContext> future = jwtConsumer.processAsync(jwt, callback);
+        JwtContext jwtContext = future.get(10, TimeUnit.SECONDS);
+        assertThat(jwtContext.getJwtClaims().getSubject(), equalTo("me"));
+        assertTrue(callback.latch.await(10, TimeUnit.SECONDS));
+        assertThat(callback.completed.get(), equalTo(jwtContext));
+
+        String badAudience = sign(jwk, "nope");
+        callback = new RecordingCallback();
+        future = jwtConsumer.processAsync(badAudience, callback);
+        InvalidJwtException e = (InvalidJwtException) expectExecutionException(future);
+        assertTrue(callback.latch.await(10, TimeUnit.SECONDS));
+        assertThat(callback.failed.get(), equalTo((Exception) e));
+        assertThat(e.getMessage(), equalTo(expectFailure(jwtConsumer, badAudience).getMessage()));
+    }
+
+    @Test
+    public void rejectedWhenExecutorIsFull() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKey(jwk.getKey())
+                .setExpectedAudience("aud")
+                .setAsyncExecutor(new Executor()
+                {
+                    @Override
+                    public void execute(Runnable command)
+                    {
+                        throw new RejectedExecutionException("full");
+                    }
+                })
+                .build();
+
+        RecordingCallback callback = new RecordingCallback();
+        Future<JwtContext> future = jwtConsumer.processAsync(sign(jwk, "aud"), callback);
+        assertTrue(future.isDone());
+        assertThat(expectExecutionException(future), instanceOf(RejectedExecutionException.class));
+        assertThat(callback.failed.get(), instanceOf(RejectedExecutionException.class));
+    }
+
+    @Test
+    public void asyncVerificationKeyResolver() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        for (boolean inline : new boolean[] {true, false})
+        {
+            DeferredResolver resolver = new DeferredResolver(jwk.getKey(), null, inline);
+            JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                    .setVerificationKeyResolver(resolver)
+                    .setExpectedAudience("aud")
+                    .build();
+
+            String jwt = sign(jwk, "aud");
+            assertThat(jwtConsumer.processAsync(jwt).get(10, TimeUnit.SECONDS).getJwtClaims().getSubject(), equalTo("me"));
+            assertThat(resolver.asyncCount.get(), equalTo(1));
+            assertThat(resolver.syncCount.get(), equalTo(0));
+
+            jwtConsumer.process(jwt);
+            assertThat(resolver.syncCount.get(), equalTo(1));
+
+            DeferredResolver failing = new DeferredResolver(null, null, inline);
+            jwtConsumer = new JwtConsumerBuilder()
+                    .setVerificationKeyResolver(failing)
+                    .setExpectedAudience("aud")
+                    .build();
+            InvalidJwtException e = (InvalidJwtException) expectExecutionException(jwtConsumer.processAsync(jwt));
+            assertThat(e.getCause(), instanceOf(UnresolvableKeyException.class));
+            assertThat(e.getMessage(), equalTo(expectFailure(jwtConsumer, jwt).getMessage()));
+        }
+    }
+
+    @Test
+    public void nestedWithAsyncResolvers() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        AesKey encryptionKey = new AesKey(ByteUtil.randomBytes(16));
+
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setPayload(sign(jwk, "aud"));
+        jwe.setContentTypeHeaderValue("JWT");
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_GCM);
+        jwe.setKey(encryptionKey);
+        String jwt = jwe.getCompactSerialization();
+
+        DeferredResolver resolver = new DeferredResolver(jwk.getKey(), encryptionKey, false);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setDecryptionKeyResolver(resolver)
+                .setExpectedAudience("aud")
+                .build();
+
+        JwtContext jwtContext = jwtConsumer.processAsync(jwt).get(10, TimeUnit.SECONDS);
+        assertThat(jwtContext.getJoseObjects().size(), equalTo(2));
+        assertThat(jwtContext.getJwtClaims().getSubject(), equalTo("me"));
+        assertThat(resolver.asyncCount.get(), equalTo(2));
+        assertThat(resolver.syncCount.get(), equalTo(0));
+    }
+
+    private Exception expectExecutionException(Future<JwtContext> future) throws Exception
+    {
+        try
+        {
+            future.get(10, TimeUnit.SECONDS);
+            fail("should have failed");
+        }
+        catch (ExecutionException e)
+        {
+            return (Exception) e.getCause();
+        }
+        return null;
+    }
+
+    private InvalidJwtException expectFailure(JwtConsumer jwtConsumer, String jwt)
+    {
+        try
+        {
+            jwtConsumer.process(jwt);
+            fail("should have failed");
+        }
+        catch (InvalidJwtException e)
+        {
+            return e;
+        }
+        return null;
+    }
+
+    private String sign(OctetSequenceJsonWebKey jwk, String audience) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setAudience(audience);
+        claims.setExpirationTimeMinutesInTheFuture(5);
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(jwk.getKey());
+        return jws.getCompactSerialization();
+    }
+
+    private static class RecordingCallback implements JwtProcessingCallback
+    {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicReference<JwtContext> completed = new AtomicReference<>();
+        private final AtomicReference<Exception> failed = new AtomicReference<>();
+
+        @Override
+        public void completed(JwtContext jwtContext)
+        {
+            completed.set(jwtContext);
+            latch.countDown();
+        }
+
+        @Override
+        public void failed(Exception e)
+        {
+            failed.set(e);
+            latch.countDown();
+        }
+    }
+
+    private static class DeferredResolver implements AsyncVerificationKeyResolver, AsyncDecryptionKeyResolver
+    {
+        private final Key verificationKey;
+        private final Key decryptionKey;
+        private final boolean inline;
+        private final AtomicInteger asyncCount = new AtomicInteger();
+        private final AtomicInteger syncCount = new AtomicInteger();
+
+        private DeferredResolver(Key verificationKey, Key decryptionKey, boolean inline)
+        {
+            this.verificationKey = verificationKey;
+            this.decryptionKey = decryptionKey;
+            this.inline = inline;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            syncCount.incrementAndGet();
+            return get(verificationKey);
+        }
+
+        @Override
+        public Key resolveKey(JsonWebEncryption jwe, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            syncCount.incrementAndGet();
+            return get(decryptionKey);
+        }
+
+        @Override
+        public void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback)
+        {
+            resolveKeyAsync(verificationKey, callback);
+        }
+
+        @Override
+        public void resolveKeyAsync(JsonWebEncryption jwe, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback)
+        {
+            resolveKeyAsync(decryptionKey, callback);
+        }
+
+        private void resolveKeyAsync(final Key key, final KeyResolutionCallback callback)
+        {
+            asyncCount.incrementAndGet();
+            Runnable resolution = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        callback.resolved(get(key));
+                    }
+                    catch (UnresolvableKeyException e)
+                    {
+                        callback.failed(e);
+                    }
+                }
+            };
+
+            if (inline)
+            {
+                resolution.run();
+            }
+            else
+            {
+                resolutionExecutor.execute(resolution);
+            }
+        }
+
+        private Key get(Key key) throws UnresolvableKeyException
+        {
+            if (key == null)
+            {
+                throw new UnresolvableKeyException("no key");
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class JwtConsumerBatchTest
+{
+    @Test
+    public void resultsInOrderWithFailuresIsolated() throws Exception
+    {
+        OctetSequenceJsonWebKey k1 = jwk("k1");
+        OctetSequenceJsonWebKey k2 = jwk("k2");
+        CountingResolver resolver = new CountingResolver(k1, k2);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try
+        {
+            JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                    .setVerificationKeyResolver(resolver)
+                    .setExpectedAudience("aud")
+                    .setBatchForkJoinPool(pool)
+                    .setBatchKeyResolutionByHeader(true)
+                    .build();
+
+            List<String> jwts = new ArrayList<>();
+            for (int i = 0; i < 60; i++)
+            {
+                OctetSequenceJsonWebKey jwk = (i % 2 == 0) ? k1 : k2;
+                switch (i % 5)
+                {
+                    case 0:
+                        jwts.add(sign(jwk, "nope", i));
+                        break;
+                    case 1:
+                        jwts.add("not.a.jwt" + i);
+                        break;
+                    default:
+                        jwts.add(sign(jwk, "aud", i));
+                }
+            }
+
+            List<JwtProcessingResult> results = jwtConsumer.processAll(jwts);
+            assertThat(results.size(), equalTo(jwts.size()));
+
+            // one resolution per distinct header (kid) in the batch
+            assertThat(resolver.count.get(), equalTo(2));
+
+            for (int i = 0; i < jwts.size(); i++)
+            {
+                JwtProcessingResult result = results.get(i);
+                assertThat(result.getJwt(), equalTo(jwts.get(i)));
+                try
+                {
+                    JwtContext expected = jwtConsumer.process(jwts.get(i));
+                    assertThat(result.isValid(), equalTo(true));
+                    assertThat(result.getException(), nullValue());
+                    assertThat(result.getJwtContext().getJwtClaims().getJwtId(), equalTo(expected.getJwtClaims().getJwtId()));
+                }
+                catch (InvalidJwtException e)
+                {
+                    assertThat(result.isValid(), equalTo(false));
+                    assertThat(result.getJwtContext(), nullValue());
+                    assertThat(result.getException().getMessage(), equalTo(e.getMessage()));
+                }
+            }
+
+            assertThat(jwtConsumer.processAll(Collections.<String>emptyList()).size(), equalTo(0));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void customResolverNotGroupedByDefault() throws Exception
+    {
+        OctetSequenceJsonWebKey k1 = jwk("k1");
+        CountingResolver resolver = new CountingResolver(k1);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setExpectedAudience("aud")
+                .build();
+
+        List<String> jwts = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            jwts.add(sign(k1, "aud", i));
+        }
+        for (JwtProcessingResult result : jwtConsumer.processAll(jwts))
+        {
+            assertThat(result.isValid(), equalTo(true));
+        }
+        assertThat(resolver.count.get(), equalTo(20));
+    }
+
+    private static OctetSequenceJsonWebKey jwk(String kid) throws JoseException
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        jwk.setKeyId(kid);
+        return jwk;
+    }
+
+    private static String sign(OctetSequenceJsonWebKey jwk, String audience, int i) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setAudience(audience);
+        claims.setJwtId("id-" + i);
+        claims.setExpirationTimeMinutesInTheFuture(5);
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue(jwk.getKeyId());
+        jws.setKey(jwk.getKey());
+        return jws.getCompactSerialization();
+    }
+
+    private static class CountingResolver implements VerificationKeyResolver
+    {
+        private final AtomicInteger count = new AtomicInteger();
+        private final OctetSequenceJsonWebKey[] jwks;
+
+        private CountingResolver(OctetSequenceJsonWebKey... jwks)
+        {
+            this.jwks = jwks;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            count.incrementAndGet();
+            for (OctetSequenceJsonWebKey jwk : jwks)
+            {
+                if (jwk.getKeyId().equals(jws.getKeyIdHeaderValue()))
+                {
+                    return jwk.getKey();
+                }
+            }
+            throw new UnresolvableKeyException("no key for " + jws.getKeyIdHeaderValue());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class JwtContextCacheTest
+{
+    @Test
+    public void cacheHitsAndMisses() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        JwtContextCache cache = new JwtContextCache(10, 300);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKey(jwk.getKey())
+                .setExpectedAudience("aud")
+                .setJwtContextCache(cache)
+                .build();
+
+        assertThat(jwtConsumer.getJwtContextCache(), sameInstance(cache));
+
+        NumericDate exp = NumericDate.now();
+        exp.addSeconds(120);
+        String jwt = sign(jwk, "aud", exp);
+
+        JwtContext first = jwtConsumer.process(jwt);
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.getMissCount(), equalTo(1L));
+        assertThat(cache.getHitCount(), equalTo(0L));
+
+        JwtContext second = jwtConsumer.process(jwt);
+        assertThat(second.getJwt(), equalTo(jwt));
+        assertThat(second.getJwtClaims().getSubject(), equalTo(first.getJwtClaims().getSubject()));
+        assertThat(second.getJoseObjects().size(), equalTo(1));
+        assertThat(cache.getHitCount(), equalTo(1L));
+
+        jwtConsumer.process(jwt);
+        assertThat(cache.getHitCount(), equalTo(2L));
+        assertThat(cache.getMissCount(), equalTo(1L));
+        assertThat(cache.getHitRate(), equalTo(2d/3d));
+
+        String otherJwt = sign(jwk, "other", exp);
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(otherJwt, jwtConsumer);
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.getMissCount(), equalTo(2L));
+
+        int idx = jwt.length() - 10;
+        String tamperedJwt = jwt.substring(0, idx) + (jwt.charAt(idx) == 'A' ? 'B' : 'A') + jwt.substring(idx + 1);
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(tamperedJwt, jwtConsumer);
+        assertThat(cache.size(), equalTo(1));
+    }
+
+    @Test
+    public void sizeBoundEvictsLeastRecentlyUsed() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        JwtContextCache cache = new JwtContextCache(2, 300);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKey(jwk.getKey())
+                .setExpectedAudience("aud")
+                .setJwtContextCache(cache)
+                .build();
+
+        NumericDate exp = NumericDate.now();
+        exp.addSeconds(120);
+        String jwt1 = sign(jwk, "aud", exp);
+        exp.addSeconds(1);
+        String jwt2 = sign(jwk, "aud", exp);
+        exp.addSeconds(1);
+        String jwt3 = sign(jwk, "aud", exp);
+
+        jwtConsumer.process(jwt1);
+        jwtConsumer.process(jwt2);
+        jwtConsumer.process(jwt1);
+        jwtConsumer.process(jwt3);
+
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.getEvictionCount(), equalTo(1L));
+        assertThat(cache.get(jwt2), nullValue());
+        assertThat(cache.get(jwt1).getJwt(), equalTo(jwt1));
+        assertThat(cache.get(jwt3).getJwt(), equalTo(jwt3));
+    }
+
+    @Test
+    public void expiredNotCached() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        JwtContextCache cache = new JwtContextCache(10, 300);
+
+        NumericDate exp = NumericDate.now();
+        exp.addSeconds(-60);
+        NumericDate evaluationTime = NumericDate.fromSeconds(exp.getValue() - 30);
+
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKey(jwk.getKey())
+                .setExpectedAudience("aud")
+                .setEvaluationTime(evaluationTime)
+                .setJwtContextCache(cache)
+                .build();
+
+        String jwt = sign(jwk, "aud", exp);
+        jwtConsumer.process(jwt);
+        assertThat(cache.size(), equalTo(0));
+    }
+
+    @Test
+    public void hitsDontShareClaims() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        JwtContextCache cache = new JwtContextCache(10, 300);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setVerificationKey(jwk.getKey())
+                .setExpectedAudience("aud")
+                .setJwtContextCache(cache)
+                .build();
+
+        NumericDate exp = NumericDate.now();
+        exp.addSeconds(120);
+        String jwt = sign(jwk, "aud", exp);
+
+        JwtContext first = jwtConsumer.process(jwt);
+        first.getJwtClaims().setSubject("changed by the first caller");
+        first.getJwtClaims().setClaim("extra", "value");
+
+        JwtContext second = jwtConsumer.process(jwt);
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(second.getJwtClaims(), not(sameInstance(first.getJwtClaims())));
+        assertThat(second.getJwtClaims().getSubject(), equalTo("subject"));
+        assertThat(second.getJwtClaims().hasClaim("extra"), is(false));
+        second.getJwtClaims().setSubject("changed by the second caller");
+
+        JwtContext third = jwtConsumer.process(jwt);
+        assertThat(third.getJwtClaims().getSubject(), equalTo("subject"));
+
+        try
+        {
+            third.getJoseObjects().clear();
+            fail("the cached JOSE objects shouldn't be modifiable");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        assertThat(jwtConsumer.process(jwt).getJoseObjects().size(), equalTo(1));
+    }
+
+    @Test
+    public void negativeTimeToLive()
+    {
+        try
+        {
+            new JwtContextCache(10, -1);
+            fail("a negative time to live should be rejected rather than caching nothing");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void badSize()
+    {
+        try
+        {
+            new JwtContextCache(0, 60);
+            fail("a cache with no room isn't much of a cache");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private String sign(OctetSequenceJsonWebKey jwk, String audience, NumericDate exp) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience(audience);
+        claims.setExpirationTime(exp);
+        claims.setSubject("subject");
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(jwk.getKey());
+        return jws.getCompactSerialization();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.AesKey;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.zip.CompressionAlgorithmIdentifiers;
+import org.junit.Test;
+
+import java.security.Key;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class JwtInputLimitsTest
+{
+    @Test
+    public void sizes() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        String jwt = sign(jwk.getKey(), "{\"sub\":\"" + repeat('x', 500) + "\"}");
+        int headerBytes = "{\"alg\":\"HS256\"}".length();
+
+        new JwtConsumerBuilder().setVerificationKey(jwk.getKey())
+                .setMaxJwtLength(jwt.length()).setMaxHeaderBytes(headerBytes).setMaxPayloadBytes(510)
+                .build().process(jwt);
+
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxJwtLength(jwt.length() - 1).build(),
+                jwt, "characters long");
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxHeaderBytes(headerBytes - 1).build(),
+                jwt, "JOSE header is " + headerBytes + " bytes");
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxPayloadBytes(509).build(),
+                jwt, "JOSE payload is 510 bytes");
+    }
+
+    @Test
+    public void nestingAndDecompressedPayload() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        AesKey encryptionKey = new AesKey(ByteUtil.randomBytes(32));
+        String jwt = encrypt(encryptionKey, sign(jwk.getKey(), "{\"sub\":\"" + repeat('a', 5000) + "\"}"));
+
+        new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setDecryptionKey(encryptionKey)
+                .setMaxNestingDepth(2).setMaxPayloadBytes(7000).build().process(jwt);
+
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setDecryptionKey(encryptionKey)
+                .setMaxNestingDepth(1).build(), jwt, "maximum of 1 nested");
+
+        // the compressed ciphertext is small but the decompressed JWS isn't, which is caught while decompressing
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setDecryptionKey(encryptionKey)
+                .setMaxPayloadBytes(1000).build(), jwt, "Decompressed data exceeds the maximum allowed length of 1000 bytes");
+    }
+
+    @Test
+    public void json() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        String json = "{\"sub\":\"s\",\"a\":[1,2,[3,{\"x\":\"[{[{\"}]],\"b\":{\"c\":true, \"d\" : null}}";
+        String jwt = sign(jwk.getKey(), json);
+
+        new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxJsonDepth(4).setMaxJsonMembers(4).build().process(jwt);
+
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxJsonDepth(3).build(), jwt, "maximum depth of 3");
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxJsonMembers(2).build(), jwt, "array has more than the maximum of 2 elements");
+
+        jwt = sign(jwk.getKey(), "{\"a\":1,\"b\":2,\"c\":3}");
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxJsonMembers(2).build(), jwt, "object has more than the maximum of 2 members");
+
+        jwt = sign(jwk.getKey(), "{\"a\":[1,2,3,4,5],\"b\":\"\\\"[[[[\"}");
+        expectFailure(new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxJsonMembers(4).build(), jwt, "array has more than the maximum of 4 elements");
+        new JwtConsumerBuilder().setVerificationKey(jwk.getKey()).setMaxJsonMembers(5).setMaxJsonDepth(2).build().process(jwt);
+    }
+
+    private void expectFailure(JwtConsumer jwtConsumer, String jwt, String expectedMessagePart)
+    {
+        try
+        {
+            JwtContext jwtContext = jwtConsumer.process(jwt);
+            fail("shouldn't have processed " + jwtContext.getJwtClaims());
+        }
+        catch (InvalidJwtException e)
+        {
+            assertThat(e.getMessage(), containsString(expectedMessagePart));
+        }
+    }
+
+    private String sign(Key key, String payload) throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(payload);
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(key);
+        return jws.getCompactSerialization();
+    }
+
+    private String encrypt(Key key, String payload) throws JoseException
+    {
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setPayload(payload);
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        jwe.setCompressionAlgorithmHeaderParameter(CompressionAlgorithmIdentifiers.DEFLATE);
+        jwe.setContentTypeHeaderValue("JWT");
+        jwe.setKey(key);
+        return jwe.getCompactSerialization();
+    }
+
+    private String repeat(char c, int count)
+    {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++)
+        {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
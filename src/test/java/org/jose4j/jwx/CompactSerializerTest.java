@@ -117,4 +117,39 @@ public class CompactSerializerTest extends TestCase
         String cs = CompactSerializer.serialize("one", "", "three", "four", "five");
         assertEquals("one..three.four.five", cs);
     }
+
+    public void testDeserialize6() throws JoseException
+    {
+        String cs = "one.two..";
+        String[] parts = CompactSerializer.deserialize(cs);
+        int i = 0;
+        assertEquals("one", parts[i++]);
+        assertEquals("two", parts[i++]);
+        assertEquals("", parts[i++]);
+        assertEquals("", parts[i++]);
+        assertEquals(i, parts.length);
+    }
+
+    public void testDeserialize7() throws JoseException
+    {
+        String[] parts = CompactSerializer.deserialize("");
+        assertEquals(1, parts.length);
+        assertEquals("", parts[0]);
+
+        parts = CompactSerializer.deserialize(".");
+        assertEquals(2, parts.length);
+        assertEquals("", parts[0]);
+        assertEquals("", parts[1]);
+    }
+
+    public void testSeparatorIndexes()
+    {
+        int[] indexes = CompactSerializer.separatorIndexes("one..three.four.five");
+        assertEquals(4, indexes.length);
+        assertEquals(3, indexes[0]);
+        assertEquals(4, indexes[1]);
+        assertEquals(10, indexes[2]);
+        assertEquals(15, indexes[3]);
+        assertEquals(0, CompactSerializer.separatorIndexes("nope").length);
+    }
 }
@@ -17,6 +17,7 @@ package org.jose4j.keys.resolvers;
 
 import org.jose4j.http.Get;
 import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
 import org.jose4j.http.SimpleResponse;
 import org.jose4j.jwk.*;
 import org.jose4j.jws.AlgorithmIdentifiers;
@@ -29,9 +30,19 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
@@ -139,4 +150,259 @@ public class HttpsJwksVerificationKeyResolverTest
         }
     }
 
+    @Test
+    public void missesAreRateLimitedAndRemembered() throws Exception
+    {
+        final String jwksJson = "{\"keys\":[{\"kty\":\"EC\",\"kid\":\"k1\",\"x\":\"1u9oeAkLQJcAnrv_m4fupf-lF43yFqmNjMsrukKDhEE\",\"y\":\"RG0cyWzinUl8NpfVVw2DqfH6zRqU_yF6aL1swssNv4E\",\"crv\":\"P-256\"}]}";
+        final AtomicInteger requests = new AtomicInteger();
+        HttpsJwks httpsJkws = new HttpsJwks("https://www.example.org/");
+        httpsJkws.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                requests.incrementAndGet();
+                return new Response(200, "OK", Collections.<String,List<String>>emptyMap(), jwksJson);
+            }
+        });
+
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJkws);
+        assertNotNull(resolver.resolveKey(ecJws("k1"), Collections.<JsonWebStructure>emptyList()));
+        assertThat(requests.get(), equalTo(1));
+
+        // first miss refreshes, the next ones don't because of the minimum interval
+        for (int i = 0; i < 20; i++)
+        {
+            expectUnresolvable(resolver, ecJws("random-" + i));
+        }
+        assertThat(requests.get(), equalTo(2));
+
+        // no minimum interval but the unknown kid is remembered
+        resolver.setMinimumRefreshInterval(0);
+        expectUnresolvable(resolver, ecJws("nope"));
+        assertThat(requests.get(), equalTo(3));
+        expectUnresolvable(resolver, ecJws("nope"));
+        expectUnresolvable(resolver, ecJws("nope"));
+        assertThat(requests.get(), equalTo(3));
+
+        // a refresh gives new keys so the unknown kid gets checked again
+        httpsJkws.refresh();
+        assertThat(requests.get(), equalTo(4));
+        expectUnresolvable(resolver, ecJws("nope"));
+        assertThat(requests.get(), equalTo(5));
+
+        resolver.setUnknownKeyIdCacheDuration(0);
+        expectUnresolvable(resolver, ecJws("nope"));
+        assertThat(requests.get(), equalTo(6));
+    }
+
+    @Test
+    public void missSkippedByMinimumIntervalIsNotRemembered() throws Exception
+    {
+        final String k1 = "{\"kty\":\"EC\",\"kid\":\"k1\",\"x\":\"1u9oeAkLQJcAnrv_m4fupf-lF43yFqmNjMsrukKDhEE\",\"y\":\"RG0cyWzinUl8NpfVVw2DqfH6zRqU_yF6aL1swssNv4E\",\"crv\":\"P-256\"}";
+        final String k2 = k1.replace("\"k1\"", "\"k2\"");
+        final AtomicReference<String> jwksJson = new AtomicReference<>("{\"keys\":[" + k1 + "]}");
+        final AtomicInteger requests = new AtomicInteger();
+        HttpsJwks httpsJkws = new HttpsJwks("https://www.example.org/");
+        httpsJkws.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                requests.incrementAndGet();
+                return new Response(200, "OK", Collections.<String,List<String>>emptyMap(), jwksJson.get());
+            }
+        });
+
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJkws);
+        resolver.setMinimumRefreshInterval(1);
+        expectUnresolvable(resolver, ecJws("nope"));
+        assertThat(requests.get(), equalTo(2));
+
+        // too soon to refresh for k2 so it fails without a request but isn't taken to be unknown
+        expectUnresolvable(resolver, ecJws("k2"));
+        assertThat(requests.get(), equalTo(2));
+
+        jwksJson.set("{\"keys\":[" + k1 + "," + k2 + "]}");
+        Thread.sleep(1100);
+        assertNotNull(resolver.resolveKey(ecJws("k2"), Collections.<JsonWebStructure>emptyList()));
+        assertThat(requests.get(), equalTo(3));
+    }
+
+    @Test
+    public void concurrentMissesShareOneRefresh() throws Exception
+    {
+        final String jwksJson = "{\"keys\":[{\"kty\":\"EC\",\"kid\":\"k1\",\"x\":\"1u9oeAkLQJcAnrv_m4fupf-lF43yFqmNjMsrukKDhEE\",\"y\":\"RG0cyWzinUl8NpfVVw2DqfH6zRqU_yF6aL1swssNv4E\",\"crv\":\"P-256\"}]}";
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpsJwks httpsJkws = new HttpsJwks("https://www.example.org/");
+        httpsJkws.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                requests.incrementAndGet();
+                try
+                {
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IOException(e);
+                }
+                return new Response(200, "OK", Collections.<String,List<String>>emptyMap(), jwksJson);
+            }
+        });
+        httpsJkws.getJsonWebKeys();
+
+        final HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJkws);
+        resolver.setMinimumRefreshInterval(0);
+        int threadCount = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++)
+            {
+                final String kid = "unknown-" + i;
+                futures.add(executorService.submit(new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call() throws Exception
+                    {
+                        expectUnresolvable(resolver, ecJws(kid));
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures)
+            {
+                assertTrue(future.get());
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+
+        // the initial load plus at most one refresh per burst of misses
+        assertThat(requests.get(), equalTo(2));
+    }
+
+    @Test
+    public void asyncResolutionOnlyHopsWhenItHasTo() throws Exception
+    {
+        final String jwksJson = "{\"keys\":[{\"kty\":\"EC\",\"kid\":\"k1\",\"x\":\"1u9oeAkLQJcAnrv_m4fupf-lF43yFqmNjMsrukKDhEE\",\"y\":\"RG0cyWzinUl8NpfVVw2DqfH6zRqU_yF6aL1swssNv4E\",\"crv\":\"P-256\"}]}";
+        final AtomicInteger requests = new AtomicInteger();
+        HttpsJwks httpsJkws = new HttpsJwks("https://www.example.org/");
+        httpsJkws.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                requests.incrementAndGet();
+                return new Response(200, "OK", Collections.<String,List<String>>emptyMap(), jwksJson);
+            }
+        });
+        assertNull(httpsJkws.getCachedJsonWebKeys());
+
+        final AtomicInteger hops = new AtomicInteger();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try
+        {
+            HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJkws);
+            resolver.setAsyncResolutionExecutor(new Executor()
+            {
+                @Override
+                public void execute(Runnable command)
+                {
+                    hops.incrementAndGet();
+                    executorService.execute(command);
+                }
+            });
+
+            BlockingKeyCallback callback = new BlockingKeyCallback();
+            resolver.resolveKeyAsync(ecJws("k1"), Collections.<JsonWebStructure>emptyList(), callback);
+            assertNotNull(callback.get());
+            assertThat(hops.get(), equalTo(1));
+            assertThat(requests.get(), equalTo(1));
+            assertNotNull(httpsJkws.getCachedJsonWebKeys());
+
+            callback = new BlockingKeyCallback();
+            resolver.resolveKeyAsync(ecJws("k1"), Collections.<JsonWebStructure>emptyList(), callback);
+            assertTrue(callback.latch.getCount() == 0);
+            assertNotNull(callback.get());
+            assertThat(hops.get(), equalTo(1));
+
+            // a miss needs a refresh so goes to the executor
+            callback = new BlockingKeyCallback();
+            resolver.resolveKeyAsync(ecJws("nope"), Collections.<JsonWebStructure>emptyList(), callback);
+            try
+            {
+                callback.get();
+                fail("shouldn't have resolved a key");
+            }
+            catch (UnresolvableKeyException e)
+            {
+                // expected
+            }
+            assertThat(hops.get(), equalTo(2));
+            assertThat(requests.get(), equalTo(2));
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static class BlockingKeyCallback implements KeyResolutionCallback
+    {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Key key;
+        private volatile UnresolvableKeyException failure;
+
+        @Override
+        public void resolved(Key key)
+        {
+            this.key = key;
+            latch.countDown();
+        }
+
+        @Override
+        public void failed(UnresolvableKeyException e)
+        {
+            this.failure = e;
+            latch.countDown();
+        }
+
+        private Key get() throws Exception
+        {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            if (failure != null)
+            {
+                throw failure;
+            }
+            return key;
+        }
+    }
+
+    private static JsonWebSignature ecJws(String kid)
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256);
+        jws.setKeyIdHeaderValue(kid);
+        return jws;
+    }
+
+    private static void expectUnresolvable(HttpsJwksVerificationKeyResolver resolver, JsonWebSignature jws)
+    {
+        try
+        {
+            Key key = resolver.resolveKey(jws, Collections.<JsonWebStructure>emptyList());
+            fail("shouldn't have resolved a key but got " + key);
+        }
+        catch (UnresolvableKeyException e)
+        {
+            // expected
+        }
+    }
 }
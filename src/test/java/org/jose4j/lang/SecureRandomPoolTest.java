@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012-2016 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.lang;
+
+import org.jose4j.base64url.Base64Url;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.ExampleRsaJwksFromJwe;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class SecureRandomPoolTest
+{
+    @After
+    public void reset()
+    {
+        ByteUtil.setDefaultByteGenerator(null);
+    }
+
+    @Test
+    public void stripes()
+    {
+        Assert.assertEquals(1, new SecureRandomPool(0, null).getStripeCount());
+        Assert.assertEquals(1, new SecureRandomPool(1, null).getStripeCount());
+        Assert.assertEquals(8, new SecureRandomPool(5, null).getStripeCount());
+        Assert.assertEquals(16, new SecureRandomPool(16, null).getStripeCount());
+
+        SecureRandomPool pool = new SecureRandomPool();
+        Assert.assertSame(pool.secureRandom(), pool.secureRandom());
+        Assert.assertEquals(20, pool.randomBytes(20).length);
+        Assert.assertFalse(Arrays.equals(pool.randomBytes(32), pool.randomBytes(32)));
+    }
+
+    @Test
+    public void unknownAlgorithmFailsRightAway()
+    {
+        try
+        {
+            new SecureRandomPool(4, "NoSuchRandomAlgorithm");
+            Assert.fail("shouldn't be able to make a pool with an unknown algorithm");
+        }
+        catch (UncheckedJoseException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void lotsOfThreads() throws Exception
+    {
+        final SecureRandomPool pool = new SecureRandomPool(4, null);
+        final Set<String> values = Collections.synchronizedSet(new HashSet<String>());
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try
+        {
+            Future<?>[] futures = new Future<?>[16];
+            for (int i = 0; i < futures.length; i++)
+            {
+                futures[i] = executor.submit(new Callable<Void>()
+                {
+                    public Void call()
+                    {
+                        for (int j = 0; j < 500; j++)
+                        {
+                            values.add(Base64Url.encode(pool.randomBytes(16)));
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        Assert.assertEquals(16 * 500, values.size());
+    }
+
+    @Test
+    public void defaultByteGenerator() throws Exception
+    {
+        CountingByteGenerator counting = new CountingByteGenerator();
+        ByteUtil.setDefaultByteGenerator(counting);
+        Assert.assertSame(counting, ByteUtil.getDefaultByteGenerator());
+
+        JwtClaims claims = new JwtClaims();
+        claims.setGeneratedJwtId();
+        Assert.assertEquals(1, counting.calls.get());
+        Assert.assertEquals(16, ByteUtil.randomBytes(16).length);
+        Assert.assertEquals(2, counting.calls.get());
+
+        ByteUtil.setDefaultByteGenerator(null);
+        Assert.assertTrue(ByteUtil.getDefaultByteGenerator() instanceof SecureRandomPool);
+    }
+
+    @Test
+    public void providerContextByteGenerator() throws Exception
+    {
+        CountingByteGenerator counting = new CountingByteGenerator();
+        ProviderContext providerContext = new ProviderContext();
+        providerContext.setByteGenerator(counting);
+
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setProviderContext(providerContext);
+        jwe.setPlaintext("meh");
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        jwe.setKey(new AesKey(new byte[32]));
+        jwe.getCompactSerialization();
+        Assert.assertEquals("just the IV", 1, counting.calls.get());
+
+        jwe = new JsonWebEncryption();
+        jwe.setProviderContext(providerContext);
+        jwe.setPlaintext("meh");
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.RSA_OAEP);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_GCM);
+        jwe.setKey(ExampleRsaJwksFromJwe.APPENDIX_A_1.getPublicKey());
+        String cs = jwe.getCompactSerialization();
+        Assert.assertEquals("the CEK and the IV", 3, counting.calls.get());
+
+        jwe = new JsonWebEncryption();
+        jwe.setCompactSerialization(cs);
+        jwe.setKey(ExampleRsaJwksFromJwe.APPENDIX_A_1.getPrivateKey());
+        Assert.assertEquals("meh", jwe.getPlaintextString());
+    }
+
+    private static class CountingByteGenerator implements ByteGenerator
+    {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final SecureRandomPool pool = new SecureRandomPool(1, null);
+
+        public byte[] randomBytes(int length)
+        {
+            calls.incrementAndGet();
+            return pool.randomBytes(length);
+        }
+    }
+}
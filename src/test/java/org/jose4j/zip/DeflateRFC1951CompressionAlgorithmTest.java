@@ -21,6 +21,13 @@ import org.jose4j.base64url.Base64Url;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.StringUtil;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
 /**
  */
 public class DeflateRFC1951CompressionAlgorithmTest extends TestCase
@@ -64,4 +71,149 @@ public class DeflateRFC1951CompressionAlgorithmTest extends TestCase
         String decompedString = StringUtil.newStringUtf8(decompress);
         assertTrue(decompedString.contains("Hello world!"));
     }
+
+    public void testDecompressedLengthLimit() throws Exception
+    {
+        DeflateRFC1951CompressionAlgorithm ca = new DeflateRFC1951CompressionAlgorithm();
+        byte[] zeros = new byte[1024 * 1024];
+        byte[] bomb = ca.compress(zeros);
+        assertTrue(bomb.length < 2048);
+        assertEquals(zeros.length, ca.decompress(bomb).length);
+
+        ca.setMaxDecompressedLength(zeros.length - 1);
+        try
+        {
+            byte[] decompressed = ca.decompress(bomb);
+            fail("shouldn't have decompressed to " + decompressed.length + " bytes");
+        }
+        catch (JoseException e)
+        {
+            assertTrue(e.getMessage().contains("maximum"));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream decompressing = ca.decompressingOutputStream(out))
+        {
+            decompressing.write(bomb);
+            fail("shouldn't have decompressed to " + out.size() + " bytes");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("maximum"));
+        }
+        assertTrue(out.size() < zeros.length);
+    }
+
+    public void testStreamUnusableAfterCloseOrFailure() throws Exception
+    {
+        DeflateRFC1951CompressionAlgorithm ca = new DeflateRFC1951CompressionAlgorithm();
+        byte[] data = StringUtil.getBytesUtf8("some data some data some data some data some data and more");
+        byte[] compressed = ca.compress(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream decompressing = ca.decompressingOutputStream(out);
+        decompressing.write(compressed);
+        decompressing.close();
+        decompressing.close();
+        assertTrue(Arrays.equals(data, out.toByteArray()));
+        try
+        {
+            decompressing.write(compressed);
+            fail("shouldn't be able to write after close");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        byte[] bomb = ca.compress(new byte[1024 * 1024]);
+        decompressing = ca.decompressingOutputStream(new ByteArrayOutputStream(), 1024);
+        try
+        {
+            decompressing.write(bomb);
+            fail("shouldn't have decompressed past the limit");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("maximum allowed length of 1024"));
+        }
+        try
+        {
+            decompressing.write(bomb);
+            fail("shouldn't be able to write after a failure");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+        decompressing.close();
+
+        // the pooled inflaters are still good
+        for (int i = 0; i < 10; i++)
+        {
+            out = new ByteArrayOutputStream();
+            try (OutputStream os = ca.decompressingOutputStream(out))
+            {
+                os.write(compressed);
+            }
+            assertTrue(Arrays.equals(data, out.toByteArray()));
+            assertTrue(Arrays.equals(data, ca.decompress(compressed)));
+        }
+    }
+
+    public void testTruncated() throws Exception
+    {
+        CompressionAlgorithm ca = new DeflateRFC1951CompressionAlgorithm();
+        byte[] data = StringUtil.getBytesUtf8("some data some data some data some data some data and more");
+        byte[] compressed = ca.compress(data);
+        try
+        {
+            ca.decompress(Arrays.copyOf(compressed, compressed.length - 2));
+            fail("shouldn't decompress truncated data");
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+        assertTrue(Arrays.equals(data, ca.decompress(compressed)));
+    }
+
+    public void testLevelsAndStrategiesWithReuse() throws Exception
+    {
+        DeflateRFC1951CompressionAlgorithm ca = new DeflateRFC1951CompressionAlgorithm();
+        Random random = new Random(99);
+        int[] strategies = {Deflater.DEFAULT_STRATEGY, Deflater.FILTERED, Deflater.HUFFMAN_ONLY};
+        for (int level = Deflater.DEFAULT_COMPRESSION; level <= Deflater.BEST_COMPRESSION; level++)
+        {
+            for (int strategy : strategies)
+            {
+                ca.setCompressionLevel(level);
+                ca.setCompressionStrategy(strategy);
+                byte[] data = new byte[random.nextInt(5000)];
+                for (int i = 0; i < data.length; i++)
+                {
+                    data[i] = (byte) ('a' + random.nextInt(4));
+                }
+                byte[] compressed = ca.compress(data);
+                assertTrue(Arrays.equals(data, ca.decompress(compressed)));
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (OutputStream decompressing = ca.decompressingOutputStream(out))
+                {
+                    decompressing.write(compressed);
+                }
+                assertTrue(Arrays.equals(data, out.toByteArray()));
+            }
+        }
+
+        try
+        {
+            ca.setCompressionLevel(10);
+            fail("10 isn't a compression level");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
 }